@@ -0,0 +1,64 @@
+#!/usr/bin/env bash
+# Time-to-first-good-p99 of a freshly started instance: the time from launch until the p99 latency of a rolling window
+# of route requests first falls to the threshold. Requests start once the readiness probe reports UP, as a load
+# balancer would send them, and any answer other than 200 counts as too slow.
+#
+#   BBOX=52.0,21.0,52.3,21.3 scripts/first-good-p99.sh 50 java -jar target/TerrainAwareRouting-0.0.1-SNAPSHOT.jar
+#
+# PORT (8080), REQUESTS (600), WINDOW (100) and SPAN (0.04 degrees between start and end) can be overridden.
+set -euo pipefail
+
+THRESHOLD_MS=$1
+shift
+PORT=${PORT:-8080}
+REQUESTS=${REQUESTS:-600}
+WINDOW=${WINDOW:-100}
+SPAN=${SPAN:-0.04}
+IFS=, read -r MIN_LAT MIN_LON MAX_LAT MAX_LON <<< "${BBOX:?BBOX=minLat,minLon,maxLat,maxLon is required}"
+BASE=http://localhost:$PORT
+RESULTS=$(mktemp)
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+if curl -s -o /dev/null "$BASE/"; then
+    echo "port $PORT is already in use, stop the instance listening there first"
+    exit 1
+fi
+
+started=$(now_ms)
+"$@" > "${RESULTS}.log" 2>&1 &
+app=$!
+trap 'kill $app 2>/dev/null; wait $app 2>/dev/null || true; rm -f "$RESULTS" "${RESULTS}.log"' EXIT
+
+until curl -sf "$BASE/actuator/health/readiness" > /dev/null; do
+    kill -0 $app 2>/dev/null || { echo "application exited, see its log:"; cat "${RESULTS}.log"; exit 1; }
+    sleep 0.05
+done
+ready=$(( $(now_ms) - started ))
+
+awk -v n="$REQUESTS" -v seed=7 -v a="$MIN_LAT" -v b="$MIN_LON" -v c="$MAX_LAT" -v d="$MAX_LON" -v span="$SPAN" '
+    BEGIN { srand(seed); for (i = 0; i < n; i++) {
+        lat = a + rand() * (c - a); lon = b + rand() * (d - b);
+        printf "%.6f,%.6f %.6f,%.6f\n", lat, lon, lat + (rand() - 0.5) * span, lon + (rand() - 0.5) * span } }' |
+while read -r start end; do
+    sent=$(( $(now_ms) - started ))
+    echo "$sent $(curl -s -o /dev/null -w '%{http_code} %{time_total}' "$BASE/api/evac/route?start=$start&end=$end")"
+done > "$RESULTS"
+
+awk -v window="$WINDOW" -v threshold="$THRESHOLD_MS" -v ready="$ready" '
+    { at[NR] = $1; ms[NR] = ($2 == 200) ? $3 * 1000 : 1e9 }
+    END {
+        first = -1
+        for (i = window; i <= NR; i++) {
+            for (k = 1; k <= window; k++) {
+                v = ms[i - k + 1]
+                for (j = k - 1; j > 0 && w[j] > v; j--) w[j + 1] = w[j]
+                w[j + 1] = v
+            }
+            p99 = w[int(window * 0.99)]
+            if (first < 0 && p99 <= threshold) first = at[i]
+            last = p99
+        }
+        printf "ready after %d ms, first good p99 (<= %s ms over %d requests) after %s ms, final window p99 %.1f ms\n",
+            ready, threshold, window, first < 0 ? "never" : first, last
+    }' "$RESULTS"
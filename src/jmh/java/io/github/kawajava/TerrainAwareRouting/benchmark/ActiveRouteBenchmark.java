@@ -0,0 +1,102 @@
+package io.github.kawajava.TerrainAwareRouting.benchmark;
+
+import io.github.kawajava.TerrainAwareRouting.core.GraphPath;
+import io.github.kawajava.TerrainAwareRouting.core.RouteQuery;
+import io.github.kawajava.TerrainAwareRouting.core.SafeDijkstraPathFinder;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import io.github.kawajava.TerrainAwareRouting.service.ActiveRoutes;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// "routes" trips of up to 40 blocks are active on a grid when a square flood of "floodBlocks" blocks appears at a
+// random spot. reroute searches only the trips the flood cuts, rerouteAll searches every trip as a re-issue of all
+// routes would.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ActiveRouteBenchmark {
+
+    @Param({"300"})
+    int side;
+
+    @Param({"10000"})
+    int routes;
+
+    @Param({"20"})
+    int floodBlocks;
+
+    @Param({"1", "32"})
+    int batchSize;
+
+    private RoadGraph graph;
+    private final List<GraphPath> paths = new ArrayList<>();
+    private final SafeDijkstraPathFinder dijkstra = new SafeDijkstraPathFinder();
+    private final Random random = new Random(11);
+    private ActiveRoutes active;
+    private BitSet flooded;
+    private BitSet everything;
+
+    @Setup
+    public void setUp() {
+        graph = new RoadGraphBuilder().build(SyntheticNetworks.grid(side, 7));
+        BitSet open = new BitSet();
+        while (paths.size() < routes) {
+            int row = random.nextInt(side);
+            int column = random.nextInt(side);
+            int source = node(row, column);
+            int target = node(Math.clamp(row + random.nextInt(81) - 40, 0, side - 1),
+                    Math.clamp(column + random.nextInt(81) - 40, 0, side - 1));
+            GraphPath path = dijkstra.findPath(new RouteQuery(graph, CostProfile.CAR, open, source, target));
+            if (path.found() && path.edges().length > 0) {
+                paths.add(path);
+            }
+        }
+        everything = new BitSet();
+        everything.set(0, graph.edgeCount());
+    }
+
+    @Setup(Level.Iteration)
+    public void flood() {
+        active = new ActiveRoutes(graph);
+        for (int i = 0; i < paths.size(); i++) {
+            active.register(i, CostProfile.CAR, paths.get(i));
+        }
+        double minLat = SyntheticNetworks.ORIGIN_LAT + random.nextInt(side - floodBlocks) * SyntheticNetworks.SPACING_DEG;
+        double minLon = SyntheticNetworks.ORIGIN_LON + random.nextInt(side - floodBlocks) * SyntheticNetworks.SPACING_DEG;
+        double size = floodBlocks * SyntheticNetworks.SPACING_DEG;
+        flooded = new BitSet();
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            int node = graph.edgeSource(e);
+            double lat = graph.nodeLat(node) - minLat;
+            double lon = graph.nodeLon(node) - minLon;
+            if (lat >= 0 && lat <= size && lon >= 0 && lon <= size) {
+                flooded.set(e);
+            }
+        }
+    }
+
+    @Benchmark
+    public ActiveRoutes.Rerouted reroute() {
+        return active.reroute(flooded, flooded, null, 0, dijkstra, batchSize);
+    }
+
+    @Benchmark
+    public ActiveRoutes.Rerouted rerouteAll() {
+        return active.reroute(everything, flooded, null, 0, dijkstra, batchSize);
+    }
+
+    private int node(int row, int column) {
+        return graph.nearestNode(SyntheticNetworks.ORIGIN_LAT + row * SyntheticNetworks.SPACING_DEG,
+                SyntheticNetworks.ORIGIN_LON + column * SyntheticNetworks.SPACING_DEG);
+    }
+}
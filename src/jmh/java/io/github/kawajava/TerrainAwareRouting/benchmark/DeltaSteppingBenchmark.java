@@ -0,0 +1,66 @@
+package io.github.kawajava.TerrainAwareRouting.benchmark;
+
+import io.github.kawajava.TerrainAwareRouting.core.DeltaSteppingPathFinder;
+import io.github.kawajava.TerrainAwareRouting.core.RouteQuery;
+import io.github.kawajava.TerrainAwareRouting.core.SafeDijkstraPathFinder;
+import io.github.kawajava.TerrainAwareRouting.core.ShortestPathTree;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// One-to-all search from the centre of a grid. "threads" sizes the fork-join pool (0 uses every available processor)
+// and "deltaScale" multiplies the automatically chosen bucket width, so the speed-up curve is read across threads and
+// the tuning across deltaScale.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeltaSteppingBenchmark {
+
+    @Param({"300", "900"})
+    int side;
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    @Param({"1"})
+    double deltaScale;
+
+    private RouteQuery query;
+    private ForkJoinPool pool;
+    private DeltaSteppingPathFinder deltaStepping;
+    private final SafeDijkstraPathFinder dijkstra = new SafeDijkstraPathFinder();
+
+    @Setup
+    public void setUp() {
+        RoadGraph graph = new RoadGraphBuilder().build(SyntheticNetworks.grid(side, 7));
+        int centre = graph.nearestNode(SyntheticNetworks.ORIGIN_LAT + side / 2 * SyntheticNetworks.SPACING_DEG,
+                SyntheticNetworks.ORIGIN_LON + side / 2 * SyntheticNetworks.SPACING_DEG);
+        query = new RouteQuery(graph, CostProfile.CAR, new BitSet(), centre, -1);
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        deltaStepping = new DeltaSteppingPathFinder(pool,
+                deltaScale * DeltaSteppingPathFinder.autoDelta(graph, CostProfile.CAR));
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public ShortestPathTree dijkstra() {
+        return dijkstra.shortestPathTree(query);
+    }
+
+    @Benchmark
+    public ShortestPathTree deltaStepping() {
+        return deltaStepping.shortestPathTree(query);
+    }
+}
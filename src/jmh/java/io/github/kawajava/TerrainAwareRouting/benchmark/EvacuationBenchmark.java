@@ -0,0 +1,62 @@
+package io.github.kawajava.TerrainAwareRouting.benchmark;
+
+import io.github.kawajava.TerrainAwareRouting.core.EvacuationPlanner;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// A whole-city plan: population points of 50 to 500 people spread over a grid and shelters that hold 110% of them
+// together, with "roadCapacity" people per direction of each road.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class EvacuationBenchmark {
+
+    @Param({"300"})
+    int side;
+
+    @Param({"500", "5000"})
+    int points;
+
+    @Param({"100"})
+    int shelterCount;
+
+    @Param({"1000", "100000"})
+    int roadCapacity;
+
+    private RoadGraph graph;
+    private final List<EvacuationPlanner.Supply> supplies = new ArrayList<>();
+    private final List<EvacuationPlanner.Shelter> shelters = new ArrayList<>();
+    private final EvacuationPlanner planner = new EvacuationPlanner();
+
+    @Setup
+    public void setUp() {
+        graph = new RoadGraphBuilder().build(SyntheticNetworks.grid(side, 7));
+        Random random = new Random(21);
+        long people = 0;
+        for (int i = 0; i < points; i++) {
+            int count = 50 + random.nextInt(451);
+            supplies.add(new EvacuationPlanner.Supply(random.nextInt(graph.nodeCount()), count));
+            people += count;
+        }
+        int capacity = (int) (people * 1.1 / shelterCount);
+        for (int i = 0; i < shelterCount; i++) {
+            shelters.add(new EvacuationPlanner.Shelter(random.nextInt(graph.nodeCount()), capacity));
+        }
+    }
+
+    @Benchmark
+    public EvacuationPlanner.Result plan() {
+        return planner.plan(graph, CostProfile.CAR, new BitSet(), supplies, shelters, roadCapacity);
+    }
+}
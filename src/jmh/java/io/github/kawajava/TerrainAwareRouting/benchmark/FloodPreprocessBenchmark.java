@@ -0,0 +1,117 @@
+package io.github.kawajava.TerrainAwareRouting.benchmark;
+
+import io.github.kawajava.TerrainAwareRouting.domain.FloodPolygon;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import io.github.kawajava.TerrainAwareRouting.service.FloodPreprocessor;
+import io.github.kawajava.TerrainAwareRouting.service.FloodState;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Full flood mask over a 150x150 street grid for a raw flood snapshot (overlapping, densely traced polygons along a
+// river) versus the same snapshot after union, simplification with an outward buffer and tiling.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FloodPreprocessBenchmark {
+
+    @Param({"2000", "20000"})
+    int verticesPerPolygon;
+
+    // snapshot size before and after preprocessing, and the edges each mask blocks
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Snapshot {
+        public long pieces;
+        public long vertices;
+        public long maxPieceVertices;
+        public long blockedEdges;
+    }
+
+    private RoadGraph graph;
+    private List<Polygon> raw;
+    private List<FloodPolygon> rawSnapshot;
+    private List<FloodPolygon> preprocessedSnapshot;
+    private FloodPreprocessor.Result preprocessed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = new RoadGraphBuilder().build(SyntheticNetworks.grid(150, 7));
+        raw = syntheticFlood(12, verticesPerPolygon, new Random(11));
+        rawSnapshot = snapshot(raw);
+
+        preprocessed = new FloodPreprocessor(5, 256).preprocess(raw);
+        preprocessedSnapshot = snapshot(preprocessed.polygons());
+    }
+
+    @Benchmark
+    public FloodPreprocessor.Result preprocess(Snapshot counters) {
+        FloodPreprocessor.Result result = new FloodPreprocessor(5, 256).preprocess(raw);
+        counters.pieces = result.polygons().size();
+        counters.vertices = result.outputVertices();
+        counters.maxPieceVertices = result.maxPieceVertices();
+        return result;
+    }
+
+    @Benchmark
+    public int maskRaw(Snapshot counters) {
+        int blocked = FloodState.of(graph, rawSnapshot).blocked().cardinality();
+        counters.pieces = rawSnapshot.size();
+        counters.vertices = preprocessed.inputVertices();
+        counters.maxPieceVertices = raw.stream().mapToInt(Polygon::getNumPoints).max().orElse(0);
+        counters.blockedEdges = blocked;
+        return blocked;
+    }
+
+    @Benchmark
+    public int maskPreprocessed(Snapshot counters) {
+        int blocked = FloodState.of(graph, preprocessedSnapshot).blocked().cardinality();
+        counters.pieces = preprocessedSnapshot.size();
+        counters.vertices = preprocessed.outputVertices();
+        counters.maxPieceVertices = preprocessed.maxPieceVertices();
+        counters.blockedEdges = blocked;
+        return blocked;
+    }
+
+    private static List<FloodPolygon> snapshot(List<Polygon> polygons) {
+        List<FloodPolygon> snapshot = new ArrayList<>(polygons.size());
+        for (Polygon polygon : polygons) {
+            snapshot.add(new FloodPolygon("p" + snapshot.size(), polygon));
+        }
+        return snapshot;
+    }
+
+    // lobed blobs strung along a diagonal "river" across the grid, each overlapping its neighbours, with boundary
+    // jitter of about a meter as left by tracing a raster mask
+    static List<Polygon> syntheticFlood(int count, int vertices, Random random) {
+        GeometryFactory gf = new GeometryFactory();
+        List<Polygon> polygons = new ArrayList<>(count);
+        for (int p = 0; p < count; p++) {
+            double t = (p + 0.5) / count;
+            double lon = SyntheticNetworks.ORIGIN_LON + 0.15 * t;
+            double lat = SyntheticNetworks.ORIGIN_LAT + 0.15 * t + 0.01 * Math.sin(6 * t);
+            double radius = 0.008 + 0.006 * random.nextDouble();
+            double phase = random.nextDouble() * 2 * Math.PI;
+            Coordinate[] ring = new Coordinate[vertices + 1];
+            for (int i = 0; i < vertices; i++) {
+                double angle = 2 * Math.PI * i / vertices;
+                double r = radius * (1 + 0.3 * Math.sin(3 * angle + phase) + 0.1 * Math.sin(11 * angle))
+                        + random.nextGaussian() / 111_320.0;
+                ring[i] = new Coordinate(lon + r * Math.cos(angle), lat + r * Math.sin(angle));
+            }
+            ring[vertices] = ring[0];
+            polygons.add(gf.createPolygon(ring));
+        }
+        return polygons;
+    }
+}
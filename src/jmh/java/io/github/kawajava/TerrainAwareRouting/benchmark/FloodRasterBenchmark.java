@@ -0,0 +1,116 @@
+package io.github.kawajava.TerrainAwareRouting.benchmark;
+
+import io.github.kawajava.TerrainAwareRouting.domain.FloodPolygon;
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import io.github.kawajava.TerrainAwareRouting.service.FloodRaster;
+import io.github.kawajava.TerrainAwareRouting.service.FloodState;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Safety of every segment of a 150x150 street grid against a raw flood snapshot: a linear scan of exact intersection
+// tests, the bit-grid raster with prepared-geometry tests for boundary segments only, and the full FloodState mask
+// with and without the raster.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FloodRasterBenchmark {
+
+    @Param({"2000", "20000"})
+    int verticesPerPolygon;
+
+    @Param({"20"})
+    double cellMeters;
+
+    // how the raster classifies the grid's segments, reported next to the isSafeRaster timings
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Covers {
+        public long insideCells;
+        public long boundaryCells;
+        public long clearSegments;
+        public long floodedSegments;
+        public long exactSegments;
+    }
+
+    private List<LineString> roads;
+    private List<Polygon> zones;
+    private List<FloodPolygon> snapshot;
+    private FloodRaster raster;
+    private List<PreparedGeometry> prepared;
+    private RoadGraph graph;
+    private int[] covers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<RoadSegment> segments = SyntheticNetworks.grid(150, 7);
+        roads = segments.stream().map(RoadSegment::geometry).toList();
+        graph = new RoadGraphBuilder().build(segments);
+        zones = FloodPreprocessBenchmark.syntheticFlood(12, verticesPerPolygon, new Random(11));
+        snapshot = new ArrayList<>();
+        for (Polygon zone : zones) {
+            snapshot.add(new FloodPolygon("p" + snapshot.size(), zone));
+        }
+        raster = FloodRaster.of(zones, cellMeters);
+        prepared = zones.stream().map(PreparedGeometryFactory::prepare).toList();
+
+        covers = new int[FloodRaster.Cover.values().length];
+        roads.forEach(road -> covers[raster.cover(road).ordinal()]++);
+    }
+
+    @Benchmark
+    public int isSafeExact() {
+        int safe = 0;
+        for (LineString road : roads) {
+            if (zones.stream().noneMatch(road::intersects)) {
+                safe++;
+            }
+        }
+        return safe;
+    }
+
+    @Benchmark
+    public int isSafeRaster(Covers counters) {
+        counters.insideCells = raster.insideCells();
+        counters.boundaryCells = raster.boundaryCells();
+        counters.clearSegments = covers[FloodRaster.Cover.CLEAR.ordinal()];
+        counters.floodedSegments = covers[FloodRaster.Cover.FLOODED.ordinal()];
+        counters.exactSegments = covers[FloodRaster.Cover.BOUNDARY.ordinal()];
+        int safe = 0;
+        for (LineString road : roads) {
+            FloodRaster.Cover cover = raster.cover(road);
+            if (cover == FloodRaster.Cover.CLEAR
+                    || cover == FloodRaster.Cover.BOUNDARY && prepared.stream().noneMatch(zone -> zone.intersects(road))) {
+                safe++;
+            }
+        }
+        return safe;
+    }
+
+    @Benchmark
+    public FloodRaster rasterize() {
+        return FloodRaster.of(zones, cellMeters);
+    }
+
+    @Benchmark
+    public int maskExact() {
+        return FloodState.of(graph, snapshot).blocked().cardinality();
+    }
+
+    @Benchmark
+    public int maskRaster() {
+        return FloodState.of(graph, snapshot, cellMeters).blocked().cardinality();
+    }
+}
@@ -0,0 +1,150 @@
+package io.github.kawajava.TerrainAwareRouting.benchmark;
+
+import io.github.kawajava.TerrainAwareRouting.graph.GeoKernels;
+import io.github.kawajava.TerrainAwareRouting.graph.Geodesy;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Bulk geometry over one million road vertices and 100 000 zone-test points against a 256-vertex zone: "jts" is the per-Coordinate code the
+// kernels replace (Geodesy over Coordinate[], Envelope.expandToInclude, PreparedGeometry.covers), "scalar" and
+// "vector" are the GeoKernels implementations over structure-of-arrays buffers.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class GeoKernelsBenchmark {
+
+    private static final int VERTICES = 1_000_000;
+    private static final int POINTS_PER_LINE = 4;
+    private static final int ZONE_POINTS = 100_000;
+
+    @Param({"jts", "scalar", "vector"})
+    String kernels;
+
+    private GeoKernels geo;
+    private double[] lats;
+    private double[] lons;
+    private double[] meters;
+    private Coordinate[][] lines;
+
+    private double[] ringX;
+    private double[] ringY;
+    private double[] xs;
+    private double[] ys;
+    private boolean[] inside;
+    private Point[] points;
+    private PreparedGeometry zone;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        geo = kernels.equals("jts") ? null : GeoKernels.named(kernels);
+        Random random = new Random(42);
+        lats = new double[VERTICES];
+        lons = new double[VERTICES];
+        meters = new double[VERTICES];
+        lines = new Coordinate[VERTICES / POINTS_PER_LINE][];
+        for (int i = 0; i < VERTICES; i++) {
+            lats[i] = SyntheticNetworks.ORIGIN_LAT + random.nextDouble() * 0.5;
+            lons[i] = SyntheticNetworks.ORIGIN_LON + random.nextDouble() * 0.5;
+        }
+        for (int l = 0; l < lines.length; l++) {
+            lines[l] = new Coordinate[POINTS_PER_LINE];
+            for (int k = 0; k < POINTS_PER_LINE; k++) {
+                int i = l * POINTS_PER_LINE + k;
+                lines[l][k] = new Coordinate(lons[i], lats[i]);
+            }
+        }
+
+        GeometryFactory gf = new GeometryFactory();
+        Polygon polygon = FloodPreprocessBenchmark.syntheticFlood(1, 256, random).get(0);
+        Coordinate[] ring = polygon.getExteriorRing().getCoordinates();
+        ringX = new double[ring.length];
+        ringY = new double[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            ringX[i] = ring[i].x;
+            ringY[i] = ring[i].y;
+        }
+        zone = PreparedGeometryFactory.prepare(polygon);
+        Envelope bounds = polygon.getEnvelopeInternal();
+        xs = new double[ZONE_POINTS];
+        ys = new double[ZONE_POINTS];
+        inside = new boolean[ZONE_POINTS];
+        points = new Point[ZONE_POINTS];
+        for (int i = 0; i < ZONE_POINTS; i++) {
+            ys[i] = bounds.getMinY() + random.nextDouble() * bounds.getHeight();
+        }
+        // sorted by latitude, as WaterLevelService batches edge midpoints
+        Arrays.sort(ys);
+        for (int i = 0; i < ZONE_POINTS; i++) {
+            xs[i] = bounds.getMinX() + random.nextDouble() * bounds.getWidth();
+            points[i] = gf.createPoint(new Coordinate(xs[i], ys[i]));
+        }
+    }
+
+    @Benchmark
+    public double lengths() {
+        double total = 0;
+        if (geo == null) {
+            for (Coordinate[] line : lines) {
+                total += Geodesy.lengthMeters(line);
+            }
+            return total;
+        }
+        geo.segmentLengths(lats, lons, VERTICES, meters);
+        for (int i = 0; i + 1 < VERTICES; i++) {
+            if ((i + 1) % POINTS_PER_LINE != 0) {
+                total += meters[i];
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double bounds() {
+        if (geo == null) {
+            Envelope envelope = new Envelope();
+            for (Coordinate[] line : lines) {
+                for (Coordinate c : line) {
+                    envelope.expandToInclude(c);
+                }
+            }
+            return envelope.getArea();
+        }
+        double[] box = new double[4];
+        geo.bounds(lats, lons, 0, VERTICES, box);
+        return (box[2] - box[0]) * (box[3] - box[1]);
+    }
+
+    @Benchmark
+    public int pointInPolygon() {
+        int count = 0;
+        if (geo == null) {
+            for (Point point : points) {
+                if (zone.covers(point)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        Arrays.fill(inside, false);
+        geo.crossRing(ringX, ringY, ringX.length, xs, ys, ZONE_POINTS, inside);
+        for (boolean in : inside) {
+            if (in) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
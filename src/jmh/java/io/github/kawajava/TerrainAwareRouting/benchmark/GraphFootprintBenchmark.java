@@ -0,0 +1,71 @@
+package io.github.kawajava.TerrainAwareRouting.benchmark;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.GraphLayout;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Heap retained by the road network in each representation: the loaded RoadSegment(LineString) list itself, or a
+// compiled graph (which no longer references the segments). The time score includes forced GCs and is not meant to
+// be compared.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx4g", "-XX:MaxDirectMemorySize=4g"})
+public class GraphFootprintBenchmark {
+
+    @Param({"300", "900"})
+    int side;
+
+    @Param({"segments", "heap", "off-heap"})
+    String representation;
+
+    private List<RoadSegment> segments;
+    private Object network;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedHeapKiB;
+        public long offHeapKiB;
+        public long geometryKiB;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        segments = SyntheticNetworks.grid(side, 7);
+    }
+
+    @Benchmark
+    public Object load(Footprint footprint) {
+        network = null;
+        long before = usedHeap();
+        if (representation.equals("segments")) {
+            List<RoadSegment> loaded = SyntheticNetworks.grid(side, 7);
+            network = loaded;
+            footprint.retainedHeapKiB = (usedHeap() - before) / 1024;
+            return loaded;
+        }
+        RoadGraph graph = new RoadGraphBuilder(RoadGraphBuilder.DEFAULT_MERGE_TOLERANCE_METERS, null,
+                GraphLayout.fromName(representation)).build(segments);
+        network = graph;
+        footprint.retainedHeapKiB = (usedHeap() - before) / 1024;
+        footprint.offHeapKiB = graph.offHeapBytes() / 1024;
+        footprint.geometryKiB = graph.geometryBytes() / 1024;
+        return graph;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
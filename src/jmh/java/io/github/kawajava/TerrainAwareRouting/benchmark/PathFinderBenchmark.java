@@ -0,0 +1,100 @@
+package io.github.kawajava.TerrainAwareRouting.benchmark;
+
+import io.github.kawajava.TerrainAwareRouting.core.AStarPathFinder;
+import io.github.kawajava.TerrainAwareRouting.core.AlternativeRouteFinder;
+import io.github.kawajava.TerrainAwareRouting.core.GraphPath;
+import io.github.kawajava.TerrainAwareRouting.core.RouteQuery;
+import io.github.kawajava.TerrainAwareRouting.core.SafeDijkstraPathFinder;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.GraphLayout;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathFinderBenchmark {
+
+    @Param({"100", "300"})
+    int side;
+
+    @Param({"heap", "off-heap"})
+    String layout;
+
+    private RoadGraph graph;
+    private final BitSet noBlocked = new BitSet();
+    private final SafeDijkstraPathFinder dijkstra = new SafeDijkstraPathFinder();
+    private final AStarPathFinder astar = new AStarPathFinder();
+    private final AlternativeRouteFinder alternatives = new AlternativeRouteFinder();
+    private final AlternativeRouteFinder.Options treesOnly = new AlternativeRouteFinder.Options(0, 1.4, 0.7, 0.25);
+    private final AlternativeRouteFinder.Options threeAlternatives = new AlternativeRouteFinder.Options(3, 1.4, 0.7, 0.25);
+    private float[] floodsAt;
+    private int[] sources;
+    private int[] targets;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        graph = new RoadGraphBuilder(RoadGraphBuilder.DEFAULT_MERGE_TOLERANCE_METERS, null, GraphLayout.fromName(layout))
+                .build(SyntheticNetworks.grid(side, 7));
+        Random random = new Random(11);
+        // a forecast that floods a tenth of the roads an hour or two ahead, after every trip ends, so the search settles
+        // the same nodes as plain Dijkstra and only pays for the lookups
+        floodsAt = new float[graph.edgeCount()];
+        for (int e = 0; e < floodsAt.length; e++) {
+            floodsAt[e] = random.nextInt(10) == 0 ? 3600 + random.nextFloat(3600) : Float.POSITIVE_INFINITY;
+        }
+        sources = new int[1024];
+        targets = new int[1024];
+        for (int i = 0; i < sources.length; i++) {
+            // short, local queries as typical for evacuation requests
+            int r = random.nextInt(side - 20);
+            int c = random.nextInt(side - 20);
+            sources[i] = graph.nearestNode(SyntheticNetworks.ORIGIN_LAT + r * SyntheticNetworks.SPACING_DEG,
+                    SyntheticNetworks.ORIGIN_LON + c * SyntheticNetworks.SPACING_DEG);
+            targets[i] = graph.nearestNode(SyntheticNetworks.ORIGIN_LAT + (r + 20) * SyntheticNetworks.SPACING_DEG,
+                    SyntheticNetworks.ORIGIN_LON + (c + 20) * SyntheticNetworks.SPACING_DEG);
+        }
+    }
+
+    private RouteQuery nextQuery() {
+        int i = next++ & (sources.length - 1);
+        return new RouteQuery(graph, CostProfile.CAR, noBlocked, sources[i], targets[i]);
+    }
+
+    @Benchmark
+    public GraphPath dijkstra() {
+        return dijkstra.findPath(nextQuery());
+    }
+
+    @Benchmark
+    public GraphPath dijkstraForecast() {
+        RouteQuery query = nextQuery();
+        return dijkstra.findPath(new RouteQuery(graph, query.profile(), noBlocked, query.source(), query.target(),
+                floodsAt, 0));
+    }
+
+    @Benchmark
+    public GraphPath astar() {
+        return astar.findPath(nextQuery());
+    }
+
+    // both search trees grown to 1.4 times the shortest distance, without choosing alternatives
+    @Benchmark
+    public AlternativeRouteFinder.Result alternativeTrees() {
+        return alternatives.find(nextQuery(), treesOnly);
+    }
+
+    @Benchmark
+    public AlternativeRouteFinder.Result alternatives() {
+        return alternatives.find(nextQuery(), threeAlternatives);
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.kawajava.TerrainAwareRouting.benchmark;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// "threads" sizes the fork-join pool the build runs in; 0 uses every available processor
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoadGraphBuilderBenchmark {
+
+    @Param({"100", "300", "900"})
+    int side;
+
+    @Param({"1", "0"})
+    int threads;
+
+    private List<RoadSegment> segments;
+    private ForkJoinPool pool;
+    private final RoadGraphBuilder builder = new RoadGraphBuilder();
+
+    @Setup
+    public void setUp() {
+        segments = SyntheticNetworks.grid(side, 7);
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public RoadGraph build() throws ExecutionException, InterruptedException {
+        return pool.submit(() -> builder.build(segments)).get();
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.kawajava.TerrainAwareRouting.benchmark;
+
+import io.github.kawajava.TerrainAwareRouting.codec.PolylineCodec;
+import io.github.kawajava.TerrainAwareRouting.core.RoutePath;
+import io.github.kawajava.TerrainAwareRouting.core.RouteSimplifier;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteSimplifierBenchmark {
+
+    @Param({"2000", "20000"})
+    int points;
+
+    @Param({"1", "5", "15"})
+    double toleranceMeters;
+
+    // payload size next to the timings: simplified vertices and polyline bytes before and after simplification
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+        public long vertices;
+        public long fullBytes;
+        public long simplifiedBytes;
+    }
+
+    private RoutePath route;
+    private BitSet junctions;
+    private long fullBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        route = syntheticRoute(points, new Random(42));
+        junctions = new BitSet(points);
+        for (int i = 0; i < points; i += 80) {
+            junctions.set(i);
+        }
+        fullBytes = encodedBytes(route);
+    }
+
+    @Benchmark
+    public long encodeFull() throws IOException {
+        return encodedBytes(route);
+    }
+
+    @Benchmark
+    public RoutePath simplify() {
+        return RouteSimplifier.simplify(route, toleranceMeters, junctions);
+    }
+
+    @Benchmark
+    public long simplifyAndEncode(Payload payload) throws IOException {
+        RoutePath simplified = RouteSimplifier.simplify(route, toleranceMeters, junctions);
+        long bytes = encodedBytes(simplified);
+        payload.vertices = simplified.size();
+        payload.fullBytes = fullBytes;
+        payload.simplifiedBytes = bytes;
+        return bytes;
+    }
+
+    static RoutePath syntheticRoute(int points, Random random) {
+        double[] lats = new double[points];
+        double[] lons = new double[points];
+        double lat = 52.2297;
+        double lon = 21.0122;
+        double heading = 0;
+        for (int i = 0; i < points; i++) {
+            if (i % 200 == 0) {
+                heading += (random.nextDouble() - 0.5) * Math.PI / 2;
+            }
+            double step = 5.0 / 111_320.0;
+            lat += Math.cos(heading) * step + random.nextGaussian() * 0.3 / 111_320.0;
+            lon += Math.sin(heading) * step / Math.cos(Math.toRadians(lat)) + random.nextGaussian() * 0.3 / 111_320.0;
+            lats[i] = lat;
+            lons[i] = lon;
+        }
+        return new RoutePath(lats, lons);
+    }
+
+    static long encodedBytes(RoutePath path) throws IOException {
+        var out = new CountingOutputStream();
+        PolylineCodec.encode(path, out);
+        return out.count;
+    }
+
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.kawajava.TerrainAwareRouting.benchmark;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+final class SyntheticNetworks {
+
+    static final double ORIGIN_LAT = 52.0;
+    static final double ORIGIN_LON = 21.0;
+    static final double SPACING_DEG = 0.001;
+
+    private SyntheticNetworks() {
+    }
+
+    // side x side street grid with jittered intersections, one two-way road segment per block,
+    // and a few interior vertices per segment
+    static List<RoadSegment> grid(int side, long seed) {
+        GeometryFactory gf = new GeometryFactory();
+        Random random = new Random(seed);
+        Coordinate[][] nodes = new Coordinate[side][side];
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                nodes[r][c] = new Coordinate(
+                        ORIGIN_LON + c * SPACING_DEG + (random.nextDouble() - 0.5) * SPACING_DEG * 0.2,
+                        ORIGIN_LAT + r * SPACING_DEG + (random.nextDouble() - 0.5) * SPACING_DEG * 0.2);
+            }
+        }
+
+        String[] classes = {"residential", "residential", "tertiary", "secondary", "primary"};
+        List<RoadSegment> segments = new ArrayList<>();
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) {
+                    String highway = classes[random.nextInt(classes.length)];
+                    segments.add(segment(gf, segments.size(), highway, nodes[r][c], nodes[r][c + 1]));
+                }
+                if (r + 1 < side) {
+                    String highway = classes[random.nextInt(classes.length)];
+                    segments.add(segment(gf, segments.size(), highway, nodes[r][c], nodes[r + 1][c]));
+                }
+            }
+        }
+        return segments;
+    }
+
+    private static RoadSegment segment(GeometryFactory gf, int id, String highway, Coordinate from, Coordinate to) {
+        Coordinate[] coords = new Coordinate[4];
+        for (int i = 0; i < coords.length; i++) {
+            double t = (double) i / (coords.length - 1);
+            coords[i] = new Coordinate(from.x + (to.x - from.x) * t, from.y + (to.y - from.y) * t);
+        }
+        coords[0] = from;
+        coords[coords.length - 1] = to;
+        return new RoadSegment(Integer.toString(id), gf.createLineString(coords), 0, false, Map.of("highway", highway));
+    }
+}
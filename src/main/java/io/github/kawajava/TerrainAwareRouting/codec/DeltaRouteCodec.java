@@ -0,0 +1,59 @@
+package io.github.kawajava.TerrainAwareRouting.codec;
+
+import io.github.kawajava.TerrainAwareRouting.core.RoutePath;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public final class DeltaRouteCodec {
+
+    static final int MAGIC = 0x5452;
+    static final int VERSION = 1;
+    static final double PRECISION = 1e7;
+
+    private DeltaRouteCodec() {
+    }
+
+    public static void encode(RoutePath path, OutputStream out) throws IOException {
+        double[] lats = path.lats();
+        double[] lons = path.lons();
+
+        out.write(MAGIC >>> 8);
+        out.write(MAGIC & 0xFF);
+        out.write(VERSION);
+        VarInts.writeUnsigned(lats.length, out);
+
+        long prevLat = 0;
+        long prevLon = 0;
+        for (int i = 0; i < lats.length; i++) {
+            long lat = Math.round(lats[i] * PRECISION);
+            long lon = Math.round(lons[i] * PRECISION);
+            VarInts.writeSigned(lat - prevLat, out);
+            VarInts.writeSigned(lon - prevLon, out);
+            prevLat = lat;
+            prevLon = lon;
+        }
+    }
+
+    public static RoutePath decode(InputStream in) throws IOException {
+        int magic = (in.read() << 8) | in.read();
+        if (magic != MAGIC || in.read() != VERSION) {
+            throw new IllegalArgumentException("Not a delta-encoded route");
+        }
+
+        int count = Math.toIntExact(VarInts.readUnsigned(in));
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        long lat = 0;
+        long lon = 0;
+        for (int i = 0; i < count; i++) {
+            lat += VarInts.readSigned(in);
+            lon += VarInts.readSigned(in);
+            lats[i] = lat / PRECISION;
+            lons[i] = lon / PRECISION;
+        }
+
+        return new RoutePath(lats, lons);
+    }
+}
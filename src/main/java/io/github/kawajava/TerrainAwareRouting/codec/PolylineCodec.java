@@ -0,0 +1,74 @@
+package io.github.kawajava.TerrainAwareRouting.codec;
+
+import io.github.kawajava.TerrainAwareRouting.core.RoutePath;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+public final class PolylineCodec {
+
+    private static final double PRECISION = 1e5;
+
+    private PolylineCodec() {
+    }
+
+    public static void encode(RoutePath path, OutputStream out) throws IOException {
+        double[] lats = path.lats();
+        double[] lons = path.lons();
+        long prevLat = 0;
+        long prevLon = 0;
+
+        for (int i = 0; i < lats.length; i++) {
+            long lat = Math.round(lats[i] * PRECISION);
+            long lon = Math.round(lons[i] * PRECISION);
+            writeValue(lat - prevLat, out);
+            writeValue(lon - prevLon, out);
+            prevLat = lat;
+            prevLon = lon;
+        }
+    }
+
+    public static RoutePath decode(CharSequence polyline) {
+        double[] lats = new double[polyline.length() / 2];
+        double[] lons = new double[polyline.length() / 2];
+        int[] pos = {0};
+        long lat = 0;
+        long lon = 0;
+        int count = 0;
+
+        while (pos[0] < polyline.length()) {
+            lat += readValue(polyline, pos);
+            lon += readValue(polyline, pos);
+            lats[count] = lat / PRECISION;
+            lons[count] = lon / PRECISION;
+            count++;
+        }
+
+        return new RoutePath(Arrays.copyOf(lats, count), Arrays.copyOf(lons, count));
+    }
+
+    private static void writeValue(long delta, OutputStream out) throws IOException {
+        long value = delta < 0 ? ~(delta << 1) : delta << 1;
+        while (value >= 0x20) {
+            out.write((int) ((0x20 | (value & 0x1F)) + 63));
+            value >>= 5;
+        }
+        out.write((int) (value + 63));
+    }
+
+    private static long readValue(CharSequence polyline, int[] pos) {
+        long result = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (pos[0] >= polyline.length()) {
+                throw new IllegalArgumentException("Truncated polyline");
+            }
+            b = polyline.charAt(pos[0]++) - 63;
+            result |= (long) (b & 0x1F) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+        return (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+    }
+}
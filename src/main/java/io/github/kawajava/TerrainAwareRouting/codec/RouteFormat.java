@@ -0,0 +1,65 @@
+package io.github.kawajava.TerrainAwareRouting.codec;
+
+import io.github.kawajava.TerrainAwareRouting.core.RoutePath;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+public enum RouteFormat {
+
+    JSON("json", MediaType.APPLICATION_JSON),
+    POLYLINE("polyline", MediaType.parseMediaType("application/x-polyline")),
+    BINARY("binary", MediaType.parseMediaType("application/x-route-delta"));
+
+    private final String paramValue;
+    private final MediaType mediaType;
+
+    RouteFormat(String paramValue, MediaType mediaType) {
+        this.paramValue = paramValue;
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public static RouteFormat resolve(String format, String accept) {
+        if (format != null && !format.isBlank()) {
+            return Arrays.stream(values())
+                    .filter(f -> f.paramValue.equalsIgnoreCase(format.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unsupported route format: " + format));
+        }
+        return fromAcceptHeader(accept).orElse(JSON);
+    }
+
+    static Optional<RouteFormat> fromAcceptHeader(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return Optional.empty();
+        }
+        // highest q first, ties in header order; q=0 marks a type as not acceptable
+        List<MediaType> requested = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        requested.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        return requested.stream()
+                .filter(type -> type.getQualityValue() > 0)
+                .flatMap(type -> Arrays.stream(values()).filter(f -> f.mediaType.equalsTypeAndSubtype(type)))
+                .findFirst();
+    }
+
+    public void write(RoutePath path, OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out);
+        switch (this) {
+            case POLYLINE -> PolylineCodec.encode(path, buffered);
+            case BINARY -> DeltaRouteCodec.encode(path, buffered);
+            case JSON -> throw new IllegalStateException("JSON routes are serialized by the message converter");
+        }
+        buffered.flush();
+    }
+}
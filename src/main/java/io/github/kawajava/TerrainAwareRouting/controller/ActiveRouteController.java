@@ -0,0 +1,102 @@
+package io.github.kawajava.TerrainAwareRouting.controller;
+
+import io.github.kawajava.TerrainAwareRouting.controller.dto.RouteResponse;
+import io.github.kawajava.TerrainAwareRouting.controller.dto.RouteStep;
+import io.github.kawajava.TerrainAwareRouting.controller.dto.RouteUpdate;
+import io.github.kawajava.TerrainAwareRouting.core.RoutePath;
+import io.github.kawajava.TerrainAwareRouting.service.ActiveRouteService;
+import io.github.kawajava.TerrainAwareRouting.service.RegionService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@RestController
+@RequiredArgsConstructor
+public class ActiveRouteController {
+
+    private final RegionService regions;
+    private final ActiveRouteService activeRoutes;
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    // 0 keeps event streams open until the client leaves
+    @Value("${app.routing.active.sse-timeout-ms:0}")
+    long sseTimeoutMs;
+
+    // events a stream may fall behind before the client is dropped
+    @Value("${app.routing.active.sse-queue:64}")
+    int sseQueue;
+
+    @PreDestroy
+    void stop() {
+        sender.shutdownNow();
+    }
+
+    @GetMapping("/api/routes/{id}")
+    public ResponseEntity<RouteResponse> route(@PathVariable long id) {
+        return ResponseEntity.ok(toResponse(activeRoutes.route(id)));
+    }
+
+    @PutMapping("/api/routes/{id}/position")
+    public ResponseEntity<RouteResponse> position(@PathVariable long id, @RequestParam String at) {
+        String[] parts = at.split(",");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Coordinates must be in format lat,lon");
+        }
+        return activeRoutes.advance(id, Double.parseDouble(parts[0]), Double.parseDouble(parts[1]))
+                .map(remaining -> ResponseEntity.ok(toResponse(remaining)))
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @DeleteMapping("/api/routes/{id}")
+    public ResponseEntity<Void> remove(@PathVariable long id) {
+        activeRoutes.remove(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/api/routes/stats")
+    public ResponseEntity<ActiveRouteService.Stats> stats() {
+        return ResponseEntity.ok(activeRoutes.stats());
+    }
+
+    @GetMapping(value = "/api/routes/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter routeEvents(@PathVariable long id) {
+        activeRoutes.route(id);
+        return stream(null, id);
+    }
+
+    @GetMapping(value = "/api/regions/{region}/routes/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter regionEvents(@PathVariable String region) {
+        return stream(regions.region(region).id(), null);
+    }
+
+    private SseEmitter stream(String region, Long route) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        EventStream stream = new EventStream(emitter, sseQueue, sender);
+        stream.onClose(activeRoutes.subscribe(region, route, event -> {
+            RoutePath path = event.update().route();
+            RouteUpdate update = new RouteUpdate(event.update().id(), event.region(), event.update().version(),
+                    !path.isEmpty(), RouteStep.of(path), path.isEmpty() ? 0 : path.cost());
+            stream.offer(SseEmitter.event()
+                    .name(path.isEmpty() ? "unreachable" : "reroute")
+                    .id(update.routeId() + "-" + update.version())
+                    .data(update, MediaType.APPLICATION_JSON));
+        }));
+        return emitter;
+    }
+
+    private RouteResponse toResponse(RoutePath path) {
+        return new RouteResponse(RouteStep.of(path), path.isEmpty() ? 0 : path.cost());
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.kawajava.TerrainAwareRouting.controller;
+
+import io.github.kawajava.TerrainAwareRouting.controller.dto.EvacuationAssignment;
+import io.github.kawajava.TerrainAwareRouting.controller.dto.EvacuationPlanRequest;
+import io.github.kawajava.TerrainAwareRouting.controller.dto.EvacuationPlanResponse;
+import io.github.kawajava.TerrainAwareRouting.controller.dto.PopulationPoint;
+import io.github.kawajava.TerrainAwareRouting.controller.dto.RouteStep;
+import io.github.kawajava.TerrainAwareRouting.controller.dto.ShelterPoint;
+import io.github.kawajava.TerrainAwareRouting.service.EvacuationService;
+import io.github.kawajava.TerrainAwareRouting.service.FloodMaskService;
+import io.github.kawajava.TerrainAwareRouting.service.Region;
+import io.github.kawajava.TerrainAwareRouting.service.RegionService;
+import io.github.kawajava.TerrainAwareRouting.service.RouteService;
+import lombok.RequiredArgsConstructor;
+import org.locationtech.jts.geom.Coordinate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class EvacuationController {
+
+    private final RegionService regions;
+    private final FloodMaskService floodMask;
+    private final RouteService routing;
+    private final EvacuationService evacuation;
+
+    @PostMapping({"/api/evac/plan", "/api/regions/{region}/evac/plan"})
+    public ResponseEntity<EvacuationPlanResponse> plan(@PathVariable(required = false) String region,
+                                                       @RequestBody EvacuationPlanRequest request) {
+        if (request.population() == null || request.population().isEmpty()
+                || request.shelters() == null || request.shelters().isEmpty()) {
+            throw new IllegalArgumentException("Evacuation plan needs population points and shelters");
+        }
+        List<EvacuationService.Population> population = new ArrayList<>();
+        for (int i = 0; i < request.population().size(); i++) {
+            PopulationPoint point = request.population().get(i);
+            population.add(new EvacuationService.Population(point.id() == null ? "population-" + i : point.id(),
+                    new Coordinate(point.lon(), point.lat()), point.count()));
+        }
+        List<EvacuationService.Shelter> shelters = new ArrayList<>();
+        for (int i = 0; i < request.shelters().size(); i++) {
+            ShelterPoint point = request.shelters().get(i);
+            shelters.add(new EvacuationService.Shelter(point.id() == null ? "shelter-" + i : point.id(),
+                    new Coordinate(point.lon(), point.lat()), point.capacity()));
+        }
+
+        List<Coordinate> points = new ArrayList<>(population.size() + shelters.size());
+        population.forEach(p -> points.add(p.location()));
+        shelters.forEach(s -> points.add(s.location()));
+        Region planRegion = regions.resolve(region, points);
+        EvacuationService.Plan plan = evacuation.plan(planRegion.graph(), floodMask.blockedEdges(planRegion),
+                routing.resolveProfile(request.profile()), population, shelters, request.roadCapacity());
+
+        List<EvacuationAssignment> assignments = plan.assignments().stream()
+                .map(a -> new EvacuationAssignment(a.population(), a.shelter(), a.people(), RouteStep.of(a.route()),
+                        a.route().cost()))
+                .toList();
+        return ResponseEntity.ok(new EvacuationPlanResponse(assignments, plan.unassigned(), plan.evacuated(),
+                plan.totalCost(), plan.searches(), plan.computeMillis()));
+    }
+}
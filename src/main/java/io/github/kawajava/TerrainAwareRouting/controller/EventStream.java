@@ -0,0 +1,78 @@
+package io.github.kawajava.TerrainAwareRouting.controller;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Sends the events of one SSE client in order on the shared sender, so that the thread publishing them never waits on
+// the network. A client more than capacity events behind is dropped instead of buffering without limit.
+final class EventStream {
+
+    private final SseEmitter emitter;
+    private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+    private final Executor sender;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile Runnable onClose = () -> {};
+
+    EventStream(SseEmitter emitter, int capacity, Executor sender) {
+        this.emitter = emitter;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.sender = sender;
+        emitter.onCompletion(this::close);
+        emitter.onTimeout(this::close);
+        emitter.onError(error -> close());
+    }
+
+    void onClose(Runnable onClose) {
+        this.onClose = onClose;
+    }
+
+    // Returns false once the client is gone or was dropped
+    boolean offer(SseEmitter.SseEventBuilder event) {
+        if (closed.get()) {
+            return false;
+        }
+        if (!queue.offer(event)) {
+            emitter.complete();
+            close();
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    private void schedule() {
+        if (draining.compareAndSet(false, true)) {
+            sender.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!closed.get() && (event = queue.poll()) != null) {
+                emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            close();
+        } finally {
+            draining.set(false);
+        }
+        // an event offered after the last poll but before draining was cleared would otherwise wait for the next one
+        if (!closed.get() && !queue.isEmpty()) {
+            schedule();
+        }
+    }
+
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            queue.clear();
+            onClose.run();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.kawajava.TerrainAwareRouting.controller;
+
+import io.github.kawajava.TerrainAwareRouting.controller.dto.WaterLevelResponse;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodEvent;
+import io.github.kawajava.TerrainAwareRouting.infrastructure.FloodEventReader;
+import io.github.kawajava.TerrainAwareRouting.infrastructure.FloodForecastReader;
+import io.github.kawajava.TerrainAwareRouting.service.FloodEventIngestor;
+import io.github.kawajava.TerrainAwareRouting.service.FloodForecast;
+import io.github.kawajava.TerrainAwareRouting.service.FloodMaskService;
+import io.github.kawajava.TerrainAwareRouting.service.FloodState;
+import io.github.kawajava.TerrainAwareRouting.service.Region;
+import io.github.kawajava.TerrainAwareRouting.service.RegionService;
+import io.github.kawajava.TerrainAwareRouting.service.WaterLevelService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequiredArgsConstructor
+public class FloodController {
+
+    private final WaterLevelService waterLevel;
+    private final RegionService regions;
+    private final FloodMaskService floodMask;
+    private final FloodEventIngestor ingestor;
+    private final FloodEventReader eventReader;
+    private final FloodForecastReader forecastReader;
+
+    @GetMapping("/api/regions/{region}/flood")
+    public ResponseEntity<FloodState.Stats> flood(@PathVariable String region) {
+        return ResponseEntity.ok(floodMask.floodState(regions.region(region)).stats());
+    }
+
+    @PostMapping(value = "/api/regions/{region}/flood/events",
+            consumes = {"application/x-ndjson", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<FloodState.Stats> floodEvents(@PathVariable String region, @RequestBody String body) {
+        List<FloodEvent> events = eventReader.parse(body);
+        if (events.isEmpty()) {
+            throw new IllegalArgumentException("No flood events in request body");
+        }
+        // 202 when the region is not loaded and the events wait for its next load
+        return ingestor.ingest(region, events)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.accepted().build());
+    }
+
+    @GetMapping("/api/regions/{region}/flood/forecast")
+    public ResponseEntity<FloodForecast.Stats> forecast(@PathVariable String region) {
+        FloodForecast forecast = floodMask.forecast(regions.region(region))
+                .orElseThrow(() -> new NoSuchElementException("No flood forecast for region " + region));
+        return ResponseEntity.ok(forecast.stats());
+    }
+
+    @PostMapping(value = "/api/regions/{region}/flood/forecast",
+            consumes = {"application/geo+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<FloodForecast.Stats> setForecast(@PathVariable String region, @RequestBody String body) {
+        return ResponseEntity.ok(floodMask.applyForecast(regions.region(region), forecastReader.parse(body)));
+    }
+
+    @DeleteMapping("/api/regions/{region}/flood/forecast")
+    public ResponseEntity<Void> clearForecast(@PathVariable String region) {
+        floodMask.clearForecast(regions.region(region));
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/api/regions/{region}/flood/water-level")
+    public ResponseEntity<WaterLevelResponse> waterLevel(@PathVariable String region) {
+        return ResponseEntity.ok(waterLevel(regions.region(region)));
+    }
+
+    @PostMapping("/api/regions/{region}/flood/water-level")
+    public ResponseEntity<WaterLevelResponse> setWaterLevel(@PathVariable String region, @RequestParam double level,
+                                                            @RequestParam(required = false) String zone) {
+        Region loaded = regions.region(region);
+        waterLevel.setLevel(loaded, zone, level);
+        return ResponseEntity.ok(waterLevel(loaded));
+    }
+
+    @DeleteMapping("/api/regions/{region}/flood/water-level")
+    public ResponseEntity<WaterLevelResponse> clearWaterLevel(@PathVariable String region) {
+        Region loaded = regions.region(region);
+        waterLevel.clear(loaded);
+        return ResponseEntity.ok(waterLevel(loaded));
+    }
+
+    private WaterLevelResponse waterLevel(Region region) {
+        int blocked = waterLevel.blockedEdges(region).cardinality();
+        WaterLevelService.Levels levels = waterLevel.levels(region);
+        return new WaterLevelResponse(levels.global(), levels.zones(), blocked);
+    }
+}
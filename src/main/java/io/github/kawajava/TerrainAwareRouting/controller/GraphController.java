@@ -0,0 +1,66 @@
+package io.github.kawajava.TerrainAwareRouting.controller;
+
+import io.github.kawajava.TerrainAwareRouting.controller.dto.RegionResponse;
+import io.github.kawajava.TerrainAwareRouting.domain.RegionDefinition;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.TileMetrics;
+import io.github.kawajava.TerrainAwareRouting.service.Region;
+import io.github.kawajava.TerrainAwareRouting.service.RegionService;
+import lombok.RequiredArgsConstructor;
+import org.locationtech.jts.geom.Envelope;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@RestController
+@RequiredArgsConstructor
+public class GraphController {
+
+    private final RegionService regions;
+
+    @GetMapping("/api/regions")
+    public ResponseEntity<List<RegionResponse>> regions() {
+        return ResponseEntity.ok(regions.definitions().stream().map(this::toResponse).toList());
+    }
+
+    @PostMapping("/api/regions/{region}/reload")
+    public ResponseEntity<RegionResponse> reload(@PathVariable String region,
+                                                 @RequestParam(defaultValue = "false") boolean wait) {
+        CompletableFuture<Region> reload = regions.reload(region);
+        if (!wait) {
+            return ResponseEntity.accepted().build();
+        }
+        try {
+            return ResponseEntity.ok(toResponse(reload.join().definition()));
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @GetMapping("/api/graph/tiles")
+    public ResponseEntity<TileMetrics> tiles(@RequestParam(required = false) String region) {
+        return ResponseEntity.ok(regions.region(region).graph().tileMetrics()
+                .orElseThrow(() -> new NoSuchElementException("Road graph is not tiled")));
+    }
+
+    private RegionResponse toResponse(RegionDefinition definition) {
+        Envelope bounds = definition.bounds();
+        double[] bbox = bounds == null ? null
+                : new double[]{bounds.getMinY(), bounds.getMinX(), bounds.getMaxY(), bounds.getMaxX()};
+        return regions.loadedRegion(definition.id())
+                .map(region -> {
+                    RoadGraph graph = region.graph();
+                    return new RegionResponse(definition.id(), bbox, true, region.generation(), graph.nodeCount(),
+                            graph.edgeCount(), graph.footprintBytes());
+                })
+                .orElseGet(() -> new RegionResponse(definition.id(), bbox, false, null, null, null, null));
+    }
+}
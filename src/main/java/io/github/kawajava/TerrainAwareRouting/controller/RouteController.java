@@ -1,43 +1,110 @@
 package io.github.kawajava.TerrainAwareRouting.controller;
 
+import io.github.kawajava.TerrainAwareRouting.codec.RouteFormat;
+import io.github.kawajava.TerrainAwareRouting.controller.dto.AlternativeRoute;
 import io.github.kawajava.TerrainAwareRouting.controller.dto.RouteResponse;
 import io.github.kawajava.TerrainAwareRouting.controller.dto.RouteStep;
-import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
-import io.github.kawajava.TerrainAwareRouting.infrastructure.GeoJsonRoadLoader;
-import io.github.kawajava.TerrainAwareRouting.service.FloodOverlayService;
+import io.github.kawajava.TerrainAwareRouting.core.RoutePath;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.service.ActiveRouteService;
+import io.github.kawajava.TerrainAwareRouting.service.FloodForecast;
+import io.github.kawajava.TerrainAwareRouting.service.FloodMaskService;
+import io.github.kawajava.TerrainAwareRouting.service.Region;
+import io.github.kawajava.TerrainAwareRouting.service.RegionService;
 import io.github.kawajava.TerrainAwareRouting.service.RouteService;
 import lombok.RequiredArgsConstructor;
 import org.locationtech.jts.geom.Coordinate;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
+import java.util.BitSet;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class RouteController {
 
-    private final GeoJsonRoadLoader loader;
-    private final FloodOverlayService floodService;
+    static final String ROUTE_ID_HEADER = "X-Route-Id";
+
+    private final RegionService regions;
+    private final FloodMaskService floodMask;
     private final RouteService routing;
+    private final ActiveRouteService activeRoutes;
 
-    @GetMapping("/api/evac/route")
-    public ResponseEntity<RouteResponse> route(@RequestParam String start, @RequestParam String end) {
+    @GetMapping({"/api/evac/route", "/api/regions/{region}/evac/route"})
+    public ResponseEntity<?> route(@PathVariable(required = false) String region,
+                                   @RequestParam String start,
+                                   @RequestParam String end,
+                                   @RequestParam(required = false) String format,
+                                   @RequestParam(required = false) Double simplify,
+                                   @RequestParam(required = false) String profile,
+                                   @RequestParam(defaultValue = "0") int alternatives,
+                                   @RequestParam(required = false) Instant departAt,
+                                   @RequestParam(defaultValue = "false") boolean track,
+                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        RouteFormat routeFormat = RouteFormat.resolve(format, accept);
+        if (alternatives > 0 && routeFormat != RouteFormat.JSON) {
+            throw new IllegalArgumentException("Alternative routes are only returned in the json format");
+        }
+        if (alternatives > 0 && track) {
+            throw new IllegalArgumentException("Tracked routes cannot include alternatives");
+        }
         Coordinate startCoord = parseCoord(start);
         Coordinate endCoord = parseCoord(end);
 
-        List<RoadSegment> roads = loader.loadRoadSegments();
-        List<RoadSegment> withFlood = floodService.filterSafe(roads);
+        CostProfile costProfile = routing.resolveProfile(profile);
+
+        Region routeRegion = regions.resolve(region, startCoord.y, startCoord.x);
+        RoadGraph graph = routeRegion.graph();
+        BitSet blocked = floodMask.blockedEdges(routeRegion);
+        FloodForecast forecast = floodMask.forecast(routeRegion).orElse(null);
+        Instant departure = departAt == null ? Instant.now() : departAt;
 
-        List<Coordinate> coords = routing.computeRoute(withFlood, startCoord, endCoord);
+        if (alternatives > 0) {
+            RouteService.Routes routes = routing.computeRoutes(graph, blocked, forecast, departure, costProfile,
+                    startCoord, endCoord, alternatives);
+            RoutePath path = simplify == null ? routes.best() : routing.simplify(routes.best(), simplify);
+            List<AlternativeRoute> options = routes.alternatives().stream()
+                    .map(alternative -> {
+                        RoutePath option = simplify == null ? alternative.path() : routing.simplify(alternative.path(), simplify);
+                        return new AlternativeRoute(RouteStep.of(option), option.cost(), alternative.stretch(), alternative.overlap());
+                    })
+                    .toList();
+            return ResponseEntity.ok(new RouteResponse(RouteStep.of(path), path.isEmpty() ? 0 : path.cost(), options));
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        RoutePath route;
+        if (track) {
+            ActiveRouteService.Issued issued = activeRoutes.issue(routeRegion, costProfile, forecast, departure,
+                    startCoord, endCoord);
+            if (issued.id() >= 0) {
+                headers.set(ROUTE_ID_HEADER, Long.toString(issued.id()));
+            }
+            route = issued.route();
+        } else {
+            route = routing.computeRoute(graph, blocked, forecast, departure, costProfile, startCoord, endCoord);
+        }
+        RoutePath path = simplify == null ? route : routing.simplify(route, simplify);
 
-        List<RouteStep> steps = coords.stream()
-                .map(c -> new RouteStep(c.y, c.x))
-                .toList();
+        if (routeFormat == RouteFormat.JSON) {
+            return ResponseEntity.ok().headers(headers)
+                    .body(new RouteResponse(RouteStep.of(path), path.isEmpty() ? 0 : path.cost()));
+        }
 
-        return ResponseEntity.ok(new RouteResponse(steps, 0));
+        StreamingResponseBody body = out -> routeFormat.write(path, out);
+        return ResponseEntity.ok()
+                .headers(headers)
+                .contentType(routeFormat.mediaType())
+                .body(body);
     }
 
     private Coordinate parseCoord(String raw) {
@@ -0,0 +1,5 @@
+package io.github.kawajava.TerrainAwareRouting.controller.dto;
+
+import java.util.List;
+
+public record AlternativeRoute(List<RouteStep> route, double totalCost, double stretch, double overlap) {}
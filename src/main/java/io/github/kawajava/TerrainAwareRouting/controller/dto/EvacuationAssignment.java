@@ -0,0 +1,6 @@
+package io.github.kawajava.TerrainAwareRouting.controller.dto;
+
+import java.util.List;
+
+public record EvacuationAssignment(String population, String shelter, int people, List<RouteStep> route,
+                                   double cost) {}
@@ -0,0 +1,6 @@
+package io.github.kawajava.TerrainAwareRouting.controller.dto;
+
+import java.util.List;
+
+public record EvacuationPlanRequest(List<PopulationPoint> population, List<ShelterPoint> shelters, String profile,
+                                    Integer roadCapacity) {}
@@ -0,0 +1,7 @@
+package io.github.kawajava.TerrainAwareRouting.controller.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public record EvacuationPlanResponse(List<EvacuationAssignment> assignments, Map<String, Integer> unassigned,
+                                     long evacuated, double totalCost, int searches, double computeMillis) {}
@@ -0,0 +1,3 @@
+package io.github.kawajava.TerrainAwareRouting.controller.dto;
+
+public record PopulationPoint(String id, double lat, double lon, int count) {}
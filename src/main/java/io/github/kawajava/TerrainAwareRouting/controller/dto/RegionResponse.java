@@ -0,0 +1,3 @@
+package io.github.kawajava.TerrainAwareRouting.controller.dto;
+
+public record RegionResponse(String id, double[] bbox, boolean loaded, Long generation, Integer nodes, Integer edges, Long footprintBytes) {}
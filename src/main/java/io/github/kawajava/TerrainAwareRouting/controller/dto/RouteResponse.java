@@ -1,5 +1,13 @@
 package io.github.kawajava.TerrainAwareRouting.controller.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
-public record RouteResponse(List<RouteStep> route, double totalCost) {}
+public record RouteResponse(List<RouteStep> route, double totalCost,
+                            @JsonInclude(JsonInclude.Include.NON_EMPTY) List<AlternativeRoute> alternatives) {
+
+    public RouteResponse(List<RouteStep> route, double totalCost) {
+        this(route, totalCost, List.of());
+    }
+}
@@ -1,4 +1,17 @@
 package io.github.kawajava.TerrainAwareRouting.controller.dto;
 
-public record RouteStep(double lat, double lon) {}
+import io.github.kawajava.TerrainAwareRouting.core.RoutePath;
 
+import java.util.ArrayList;
+import java.util.List;
+
+public record RouteStep(double lat, double lon) {
+
+    public static List<RouteStep> of(RoutePath path) {
+        List<RouteStep> steps = new ArrayList<>(path.size());
+        for (int i = 0; i < path.size(); i++) {
+            steps.add(new RouteStep(path.lats()[i], path.lons()[i]));
+        }
+        return steps;
+    }
+}
@@ -0,0 +1,6 @@
+package io.github.kawajava.TerrainAwareRouting.controller.dto;
+
+import java.util.List;
+
+public record RouteUpdate(long routeId, String region, int version, boolean reachable, List<RouteStep> route,
+                          double totalCost) {}
@@ -0,0 +1,5 @@
+package io.github.kawajava.TerrainAwareRouting.controller.dto;
+
+import java.util.Map;
+
+public record WaterLevelResponse(Float globalLevel, Map<String, Float> zoneLevels, int blockedEdges) {}
@@ -0,0 +1,357 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.Geodesy;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+// Alternative routes by the via-node method on the trees of one bidirectional Dijkstra search. Both searches run on
+// until their keys pass maxStretch times the shortest distance; every node settled in both trees is a candidate via
+// node, and nodes on the same plateau (a run of edges shared by both trees) yield the same path, so each plateau is
+// tried once, long plateaus and short paths first. A candidate is kept when it is a simple path within the stretch
+// bound, shares at most maxOverlap of the shortest distance with the routes already chosen, and passes a T-test:
+// the stretch of localOptimality times the shortest distance around the via node must itself be a shortest path.
+public class AlternativeRouteFinder {
+
+    private static final int MAX_CANDIDATES = 32;
+
+    public record Options(int count, double maxStretch, double maxOverlap, double localOptimality) {
+
+        public Options {
+            if (count < 0) {
+                throw new IllegalArgumentException("Alternative count must not be negative");
+            }
+            if (!(maxStretch >= 1)) {
+                throw new IllegalArgumentException("Alternative stretch must be at least 1");
+            }
+            if (!(maxOverlap >= 0 && maxOverlap <= 1)) {
+                throw new IllegalArgumentException("Alternative overlap must be between 0 and 1");
+            }
+            if (!(localOptimality >= 0 && localOptimality <= 1)) {
+                throw new IllegalArgumentException("Alternative local optimality must be between 0 and 1");
+            }
+        }
+    }
+
+    public record Alternative(GraphPath path, double stretch, double overlap) {}
+
+    public record Result(GraphPath best, List<Alternative> alternatives) {}
+
+    private record Candidate(int via, double cost, double plateau) {}
+
+    private final SearchWorkspacePool workspaces;
+
+    public AlternativeRouteFinder() {
+        this(new SearchWorkspacePool());
+    }
+
+    public AlternativeRouteFinder(SearchWorkspacePool workspaces) {
+        this.workspaces = workspaces;
+    }
+
+    public Result find(RouteQuery query, Options options) {
+        return find(query, options, null);
+    }
+
+    // With a forecast the meeting path of the two trees ignores arrival times in the backward half and may cross a
+    // road that floods on the way, so the caller passes the time-dependent best path. Stretch, overlap and the
+    // T-test window are then measured against it, and no alternative repeats it.
+    public Result find(RouteQuery query, Options options, GraphPath best) {
+        SearchWorkspace forward = workspaces.borrow();
+        SearchWorkspace backward = workspaces.borrow();
+        SearchWorkspace local = workspaces.borrow();
+        try {
+            return find(query, options, best, forward, backward, local);
+        } finally {
+            workspaces.release(local);
+            workspaces.release(backward);
+            workspaces.release(forward);
+        }
+    }
+
+    private Result find(RouteQuery query, Options options, GraphPath reference, SearchWorkspace fw, SearchWorkspace bw,
+                        SearchWorkspace local) {
+        RoadGraph graph = query.graph();
+        int source = query.source();
+        int target = query.target();
+        if (source == target) {
+            return new Result(new GraphPath(source, target, new int[0], 0), List.of());
+        }
+        if (reference != null && (!reference.found() || options.count() == 0)) {
+            return new Result(reference, List.of());
+        }
+
+        int[] order = grow(query, options.maxStretch(), reference == null ? 0 : reference.cost(), fw, bw);
+        int meet = -1;
+        double meetCost = Double.POSITIVE_INFINITY;
+        for (int node : order) {
+            double cost = fw.dist(node) + bw.dist(node);
+            if (bw.isSettled(node) && cost < meetCost) {
+                meetCost = cost;
+                meet = node;
+            }
+        }
+        if (meet < 0) {
+            return new Result(reference == null ? GraphPath.unreachable(source, target) : reference, List.of());
+        }
+        GraphPath best = reference == null ? viaPath(graph, fw, bw, source, target, meet) : reference;
+        double shortest = best.cost();
+        if (options.count() == 0) {
+            return new Result(best, List.of());
+        }
+
+        // plateaus are chains of edges shared by both trees; every node of a chain yields the same via path, so the
+        // local workspace maps each node to its chain's first node and length and marks nodes the chain continues from
+        local.begin(graph.nodeCount());
+        for (int node : order) {
+            int start = node;
+            double length = 0;
+            int edge = fw.prevEdges()[node];
+            if (edge >= 0 && bw.isSettled(node)) {
+                int from = graph.edgeSource(edge);
+                if (bw.isSettled(from) && bw.prevEdges()[from] == edge) {
+                    start = local.prevEdges()[from];
+                    length = local.dist(from) + graph.weight(query.profile(), edge);
+                    local.settle(from);
+                }
+            }
+            local.update(node, length, start);
+        }
+
+        double limit = options.maxStretch() * shortest;
+        int bestPlateau = local.prevEdges()[meet];
+        List<Candidate> candidates = new ArrayList<>();
+        for (int node : order) {
+            double cost = fw.dist(node) + bw.dist(node);
+            if (bw.isSettled(node) && !local.isSettled(node) && cost <= limit
+                    && local.prevEdges()[node] != bestPlateau) {
+                candidates.add(new Candidate(node, cost, local.dist(node)));
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(c -> 2 * c.cost() - c.plateau()));
+
+        List<Alternative> chosen = new ArrayList<>();
+        BitSet used = new BitSet(graph.edgeCount());
+        for (int edge : best.edges()) {
+            used.set(edge);
+        }
+        int tried = 0;
+        for (Candidate candidate : candidates) {
+            if (chosen.size() == options.count() || tried++ == MAX_CANDIDATES) {
+                break;
+            }
+            GraphPath path = viaPath(graph, fw, bw, source, target, candidate.via());
+            if (Arrays.equals(path.edges(), best.edges())) {
+                continue;
+            }
+            double shared = 0;
+            for (int edge : path.edges()) {
+                if (used.get(edge)) {
+                    shared += graph.weight(query.profile(), edge);
+                }
+            }
+            if (shared > options.maxOverlap() * shortest || !isSimple(graph, path) || !isPassable(query, path)
+                    || !isLocallyOptimal(query, path, candidate.via(), options.localOptimality() * shortest, local)) {
+                continue;
+            }
+            for (int edge : path.edges()) {
+                used.set(edge);
+            }
+            chosen.add(new Alternative(path, path.cost() / shortest, shared / shortest));
+        }
+        return new Result(best, List.copyOf(chosen));
+    }
+
+    // alternates the two searches, always expanding the smaller key, until each side passes the stretch bound of
+    // the best meeting distance seen so far, or of the reference cost when that is larger. A node is only expanded
+    // while its distance plus the straight-line time to the other end stays within the bound, since no via path
+    // through it could; the heuristic is the one A* uses. Returns the nodes settled by the forward search in settle
+    // order.
+    private int[] grow(RouteQuery query, double maxStretch, double reference, SearchWorkspace fw, SearchWorkspace bw) {
+        RoadGraph graph = query.graph();
+        CostProfile profile = query.profile();
+        BitSet blocked = query.blockedEdges();
+        float[] floodsAt = query.floodsAt();
+        double departure = query.departure();
+
+        fw.begin(graph.nodeCount());
+        bw.begin(graph.nodeCount());
+        fw.update(query.source(), 0, -1);
+        bw.update(query.target(), 0, -1);
+        NodeHeap forwardHeap = fw.heap();
+        NodeHeap backwardHeap = bw.heap();
+        forwardHeap.push(query.source(), 0);
+        backwardHeap.push(query.target(), 0);
+
+        double maxSpeed = profile.maxSpeedMps();
+        double sourceLat = graph.nodeLat(query.source()), sourceLon = graph.nodeLon(query.source());
+        double targetLat = graph.nodeLat(query.target()), targetLon = graph.nodeLon(query.target());
+
+        int[] order = new int[64];
+        int settled = 0;
+        double best = Double.POSITIVE_INFINITY;
+        while (true) {
+            double bound = maxStretch * Math.max(best, reference);
+            boolean forwardOpen = !forwardHeap.isEmpty() && forwardHeap.peekKey() <= bound;
+            boolean backwardOpen = !backwardHeap.isEmpty() && backwardHeap.peekKey() <= bound;
+            if (!forwardOpen && !backwardOpen) {
+                break;
+            }
+            if (forwardOpen && (!backwardOpen || forwardHeap.peekKey() <= backwardHeap.peekKey())) {
+                int node = forwardHeap.pop();
+                if (fw.isSettled(node) || fw.dist(node) + Geodesy.distanceMeters(graph.nodeLat(node),
+                        graph.nodeLon(node), targetLat, targetLon) / maxSpeed > bound) {
+                    continue;
+                }
+                fw.settle(node);
+                if (settled == order.length) {
+                    order = Arrays.copyOf(order, settled * 2);
+                }
+                order[settled++] = node;
+                double d = fw.dist(node);
+                for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                    if (blocked.get(e) || floodsAt != null && departure + d >= floodsAt[e]) {
+                        continue;
+                    }
+                    int next = graph.edgeTarget(e);
+                    double alt = d + graph.weight(profile, e);
+                    if (alt < fw.dist(next)) {
+                        fw.update(next, alt, e);
+                        forwardHeap.push(next, alt);
+                    }
+                    best = Math.min(best, alt + bw.dist(next));
+                }
+            } else {
+                int node = backwardHeap.pop();
+                if (bw.isSettled(node) || bw.dist(node) + Geodesy.distanceMeters(graph.nodeLat(node),
+                        graph.nodeLon(node), sourceLat, sourceLon) / maxSpeed > bound) {
+                    continue;
+                }
+                bw.settle(node);
+                double d = bw.dist(node);
+                // incoming edges are found through the neighbours, since every road is stored in both directions
+                for (int out = graph.firstEdge(node), end = graph.endEdge(node); out < end; out++) {
+                    int prev = graph.edgeTarget(out);
+                    for (int e = graph.firstEdge(prev), last = graph.endEdge(prev); e < last; e++) {
+                        if (graph.edgeTarget(e) != node || blocked.get(e)) {
+                            continue;
+                        }
+                        double alt = d + graph.weight(profile, e);
+                        if (alt < bw.dist(prev)) {
+                            bw.update(prev, alt, e);
+                            backwardHeap.push(prev, alt);
+                        }
+                        best = Math.min(best, alt + fw.dist(prev));
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(order, settled);
+    }
+
+    private static GraphPath viaPath(RoadGraph graph, SearchWorkspace fw, SearchWorkspace bw,
+                                     int source, int target, int via) {
+        GraphPath head = GraphPath.fromPredecessors(graph, fw.prevEdges(), source, via, fw.dist(via));
+        int hops = 0;
+        for (int node = via; node != target; node = graph.edgeTarget(bw.prevEdges()[node])) {
+            hops++;
+        }
+        int[] edges = Arrays.copyOf(head.edges(), head.edges().length + hops);
+        int i = head.edges().length;
+        for (int node = via; node != target; node = graph.edgeTarget(bw.prevEdges()[node])) {
+            edges[i++] = bw.prevEdges()[node];
+        }
+        return new GraphPath(source, target, edges, fw.dist(via) + bw.dist(via));
+    }
+
+    // the backward tree does not know arrival times, so forecast flood times are checked along the whole path
+    private static boolean isPassable(RouteQuery query, GraphPath path) {
+        float[] floodsAt = query.floodsAt();
+        if (floodsAt == null) {
+            return true;
+        }
+        double time = query.departure();
+        for (int edge : path.edges()) {
+            if (time >= floodsAt[edge]) {
+                return false;
+            }
+            time += query.graph().weight(query.profile(), edge);
+        }
+        return true;
+    }
+
+    private static boolean isSimple(RoadGraph graph, GraphPath path) {
+        BitSet visited = new BitSet(graph.nodeCount());
+        visited.set(path.source());
+        for (int edge : path.edges()) {
+            int node = graph.edgeTarget(edge);
+            if (visited.get(node)) {
+                return false;
+            }
+            visited.set(node);
+        }
+        return true;
+    }
+
+    // T-test: x and y are the farthest path nodes within window before and after the via node; the path between
+    // them must not be longer than the shortest x-y distance
+    private static boolean isLocallyOptimal(RouteQuery query, GraphPath path, int via, double window, SearchWorkspace ws) {
+        RoadGraph graph = query.graph();
+        CostProfile profile = query.profile();
+        int[] edges = path.edges();
+        int at = 0;
+        while (at < edges.length && graph.edgeSource(edges[at]) != via) {
+            at++;
+        }
+        int first = at;
+        double back = 0;
+        while (first > 0 && back + graph.weight(profile, edges[first - 1]) <= window) {
+            back += graph.weight(profile, edges[--first]);
+        }
+        int last = at;
+        double ahead = 0;
+        while (last < edges.length && ahead + graph.weight(profile, edges[last]) <= window) {
+            ahead += graph.weight(profile, edges[last++]);
+        }
+        double span = back + ahead;
+        if (last - first < 2) {
+            return true;
+        }
+        int x = graph.edgeSource(edges[first]);
+        int y = graph.edgeTarget(edges[last - 1]);
+
+        BitSet blocked = query.blockedEdges();
+        ws.begin(graph.nodeCount());
+        ws.update(x, 0, -1);
+        NodeHeap heap = ws.heap();
+        heap.push(x, 0);
+        double tolerance = span * 1e-9;
+        while (!heap.isEmpty()) {
+            double d = heap.peekKey();
+            int node = heap.pop();
+            if (d > ws.dist(node)) {
+                continue;
+            }
+            if (node == y || d >= span - tolerance) {
+                break;
+            }
+            for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                if (blocked.get(e)) {
+                    continue;
+                }
+                int next = graph.edgeTarget(e);
+                double alt = d + graph.weight(profile, e);
+                if (alt < ws.dist(next)) {
+                    ws.update(next, alt, e);
+                    heap.push(next, alt);
+                }
+            }
+        }
+        return ws.dist(y) >= span - tolerance;
+    }
+}
@@ -0,0 +1,325 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+// Parallel delta-stepping (Meyer and Sanders). Nodes are kept in buckets of width delta by tentative distance. The
+// lowest bucket is emptied by repeatedly relaxing its light edges (weight <= delta) in parallel until no node falls
+// back into it, then the heavy edges of every node it held are relaxed once. Distances are doubles updated with a
+// compare-and-set minimum on their bit patterns, which order like the values since costs are never negative. Every
+// node ends at the same fixed point Dijkstra reaches, computed with the same additions, so costs are identical.
+// Predecessors are chosen afterwards as the lowest-numbered edge that attains the distance, so paths do not depend on
+// the number of threads and equal Dijkstra's wherever the shortest path is unique.
+@Slf4j
+public class DeltaSteppingPathFinder implements PathFindingStrategy {
+
+    // bucket width as a multiple of the mean edge weight when none is configured, from DeltaSteppingBenchmark
+    static final double DELTA_FACTOR = 16;
+
+    private static final int CHUNK = 512;
+    private static final int WEIGHT_SAMPLE = 4096;
+    private static final long UNREACHED = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+
+    private final ForkJoinPool pool;
+    private final double delta;
+
+    public DeltaSteppingPathFinder() {
+        this(ForkJoinPool.commonPool(), 0);
+    }
+
+    // a delta of 0 picks one per query from the mean edge weight of the profile
+    public DeltaSteppingPathFinder(ForkJoinPool pool, double delta) {
+        if (delta < 0) {
+            throw new IllegalArgumentException("Delta must not be negative");
+        }
+        this.pool = pool;
+        this.delta = delta;
+    }
+
+    @Override
+    public GraphPath findPath(RouteQuery query) {
+        Search search = new Search(query, delta > 0 ? delta : autoDelta(query.graph(), query.profile()));
+        pool.invoke(ForkJoinTask.adapt(() -> search.run(query.target())));
+
+        GraphPath path = GraphPath.fromPredecessors(query.graph(), search.prevEdges, query.source(), query.target(),
+                search.dist(query.target()));
+        log.info("Delta-stepping path computed, {} edges, {} buckets", path.edges().length, search.buckets);
+
+        return path;
+    }
+
+    public ShortestPathTree shortestPathTree(RouteQuery query) {
+        Search search = new Search(query, delta > 0 ? delta : autoDelta(query.graph(), query.profile()));
+        pool.invoke(ForkJoinTask.adapt(() -> search.run(-1)));
+
+        double[] dist = new double[query.graph().nodeCount()];
+        Arrays.setAll(dist, search::dist);
+        return new ShortestPathTree(query.source(), dist, search.prevEdges);
+    }
+
+    public static double autoDelta(RoadGraph graph, CostProfile profile) {
+        int edges = graph.edgeCount();
+        int stride = Math.max(1, edges / WEIGHT_SAMPLE);
+        double sum = 0;
+        int sampled = 0;
+        for (int e = 0; e < edges; e += stride) {
+            float weight = graph.weight(profile, e);
+            if (weight != Float.POSITIVE_INFINITY) {
+                sum += weight;
+                sampled++;
+            }
+        }
+        return sampled == 0 || sum == 0 ? 1 : DELTA_FACTOR * sum / sampled;
+    }
+
+    private static final class Search {
+
+        private final RoadGraph graph;
+        private final CostProfile profile;
+        private final BitSet blocked;
+        private final float[] floodsAt;
+        private final double departure;
+        private final int source;
+        private final double delta;
+
+        private final AtomicLongArray dist;
+        private final int[] queuedIn;
+        private final int[] phaseMark;
+        private final List<NodeList> bucketList = new ArrayList<>();
+        private final NodeList reached = new NodeList();
+        private int[] prevEdges;
+        private int phase;
+        private int buckets;
+
+        Search(RouteQuery query, double delta) {
+            this.graph = query.graph();
+            this.profile = query.profile();
+            this.blocked = query.blockedEdges();
+            this.floodsAt = query.floodsAt();
+            this.departure = query.departure();
+            this.source = query.source();
+            this.delta = delta;
+            int nodes = graph.nodeCount();
+            this.dist = new AtomicLongArray(nodes);
+            this.queuedIn = new int[nodes];
+            this.phaseMark = new int[nodes];
+            IntStream.range(0, nodes).parallel().forEach(node -> dist.setPlain(node, UNREACHED));
+            Arrays.fill(queuedIn, -1);
+        }
+
+        double dist(int node) {
+            return Double.longBitsToDouble(dist.get(node));
+        }
+
+        // relaxes buckets in order until the target's bucket is done, or all of them when the target is -1
+        void run(int target) {
+            dist.set(source, 0);
+            queue(source, 0);
+            NodeList frontier = new NodeList();
+            NodeList settled = new NodeList();
+            for (int i = 0; i < bucketList.size(); i++) {
+                NodeList bucket = bucketList.get(i);
+                if (bucket == null) {
+                    continue;
+                }
+                bucketList.set(i, null);
+                buckets++;
+
+                // entries left behind by nodes that have since moved to a lower bucket are dropped here
+                frontier.clear();
+                settled.clear();
+                phase++;
+                for (int k = 0; k < bucket.size; k++) {
+                    int node = bucket.nodes[k];
+                    if (queuedIn[node] == i && phaseMark[node] != phase) {
+                        phaseMark[node] = phase;
+                        frontier.add(node);
+                    }
+                }
+                while (frontier.size > 0) {
+                    settled.addAll(frontier);
+                    int[] improved = relax(frontier, true);
+                    frontier.clear();
+                    phase++;
+                    for (int node : improved) {
+                        int b = bucketOf(dist(node));
+                        if (b > i) {
+                            queue(node, b);
+                        } else if (phaseMark[node] != phase) {
+                            phaseMark[node] = phase;
+                            queuedIn[node] = i;
+                            frontier.add(node);
+                        }
+                    }
+                }
+                // a node improved again within the bucket is settled once
+                phase++;
+                int unique = 0;
+                for (int k = 0; k < settled.size; k++) {
+                    int node = settled.nodes[k];
+                    if (phaseMark[node] != phase) {
+                        phaseMark[node] = phase;
+                        settled.nodes[unique++] = node;
+                    }
+                }
+                settled.size = unique;
+                // heavy edges always lead past this bucket, even where the division rounds down
+                for (int node : relax(settled, false)) {
+                    queue(node, Math.max(bucketOf(dist(node)), i + 1));
+                }
+                reached.addAll(settled);
+
+                if (target >= 0 && queuedIn[target] >= 0 && queuedIn[target] <= i) {
+                    break;
+                }
+            }
+            prevEdges = predecessors();
+        }
+
+        private void queue(int node, int bucket) {
+            if (queuedIn[node] == bucket) {
+                return;
+            }
+            queuedIn[node] = bucket;
+            while (bucketList.size() <= bucket) {
+                bucketList.add(null);
+            }
+            NodeList list = bucketList.get(bucket);
+            if (list == null) {
+                list = new NodeList();
+                bucketList.set(bucket, list);
+            }
+            list.add(node);
+        }
+
+        private int bucketOf(double distance) {
+            return distance == Double.POSITIVE_INFINITY ? Integer.MAX_VALUE : (int) (distance / delta);
+        }
+
+        // returns the nodes whose distance this phase lowered, in chunk order; a node may appear more than once
+        private int[] relax(NodeList nodes, boolean light) {
+            int chunks = (nodes.size + CHUNK - 1) / CHUNK;
+            if (chunks <= 1) {
+                NodeList improved = new NodeList();
+                relax(nodes.nodes, 0, nodes.size, light, improved);
+                return improved.toArray();
+            }
+            int[][] improved = new int[chunks][];
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                NodeList out = new NodeList();
+                relax(nodes.nodes, chunk * CHUNK, Math.min(nodes.size, (chunk + 1) * CHUNK), light, out);
+                improved[chunk] = out.toArray();
+            });
+            NodeList all = new NodeList();
+            for (int[] part : improved) {
+                all.addAll(part, part.length);
+            }
+            return all.toArray();
+        }
+
+        private void relax(int[] nodes, int from, int to, boolean light, NodeList improved) {
+            for (int i = from; i < to; i++) {
+                int node = nodes[i];
+                double d = dist(node);
+                for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                    float weight = graph.weight(profile, e);
+                    if (weight <= delta != light
+                            || blocked.get(e) || floodsAt != null && departure + d >= floodsAt[e]) {
+                        continue;
+                    }
+                    int next = graph.edgeTarget(e);
+                    if (lower(next, d + weight)) {
+                        improved.add(next);
+                    }
+                }
+            }
+        }
+
+        private boolean lower(int node, double distance) {
+            long bits = Double.doubleToRawLongBits(distance);
+            long current = dist.get(node);
+            while (bits < current) {
+                long witness = dist.compareAndExchange(node, current, bits);
+                if (witness == current) {
+                    return true;
+                }
+                current = witness;
+            }
+            return false;
+        }
+
+        // edges between distinct nodes have positive weight, so the lowest tight edge never closes a cycle
+        private int[] predecessors() {
+            int nodes = graph.nodeCount();
+            AtomicIntegerArray best = new AtomicIntegerArray(nodes);
+            int chunks = (reached.size + CHUNK - 1) / CHUNK;
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                for (int i = chunk * CHUNK; i < Math.min(reached.size, (chunk + 1) * CHUNK); i++) {
+                    int node = reached.nodes[i];
+                    double d = dist(node);
+                    for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                        if (blocked.get(e) || floodsAt != null && departure + d >= floodsAt[e]) {
+                            continue;
+                        }
+                        int next = graph.edgeTarget(e);
+                        float weight = graph.weight(profile, e);
+                        if (next != source && weight != Float.POSITIVE_INFINITY && d + weight == dist(next)) {
+                            // stored as MAX_VALUE - edge so that 0 means none and the maximum is the lowest edge
+                            best.accumulateAndGet(next, Integer.MAX_VALUE - e, Math::max);
+                        }
+                    }
+                }
+            });
+            int[] prev = new int[nodes];
+            IntStream.range(0, nodes).parallel().forEach(node -> {
+                int stored = best.getPlain(node);
+                prev[node] = stored == 0 ? -1 : Integer.MAX_VALUE - stored;
+            });
+            return prev;
+        }
+    }
+
+    private static final class NodeList {
+
+        private int[] nodes = new int[16];
+        private int size;
+
+        void add(int node) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            nodes[size++] = node;
+        }
+
+        void addAll(NodeList other) {
+            addAll(other.nodes, other.size);
+        }
+
+        void addAll(int[] values, int count) {
+            if (size + count > nodes.length) {
+                nodes = Arrays.copyOf(nodes, Math.max(size + count, size * 2));
+            }
+            System.arraycopy(values, 0, nodes, size, count);
+            size += count;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(nodes, size);
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Min-cost flow of evacuees from population nodes to shelters by successive shortest paths. Every directed edge
+// carries at most roadCapacity people and every shelter takes at most its capacity; a super sink behind the
+// shelters is the single target. Residual arcs may have negative cost, so searches run on reduced costs
+// c + pi(u) - pi(v) that Johnson-style potentials keep non-negative. Each search starts at one population node and
+// stops as soon as the sink is settled; only the nodes it settled have their potential raised, which keeps the
+// reduced costs valid. Potentials are reset now and then from one backward search out of the sink, so later searches
+// stay goal-directed even after the shelters nearest to them have filled. Population nodes are served in request
+// order, but a later search may reroute people placed earlier over reverse arcs, so nobody placed is dropped again
+// and the number evacuated is the maximum the roads and shelters allow; only who is left over depends on the order.
+@Slf4j
+public class EvacuationPlanner {
+
+    // settled nodes, in multiples of the graph size, after which potentials are refreshed even if no shelter filled
+    private static final int REFRESH_FACTOR = 4;
+
+    public record Supply(int node, int people) {}
+
+    public record Shelter(int node, int capacity) {}
+
+    public record Assignment(int supply, int shelter, int people, GraphPath path) {}
+
+    public record Result(List<Assignment> assignments, int[] unassigned, double totalCost, int searches,
+                         long settledNodes, double computeMillis) {
+
+        public long evacuated() {
+            return assignments.stream().mapToLong(Assignment::people).sum();
+        }
+    }
+
+    public Result plan(RoadGraph graph, CostProfile profile, BitSet blocked, List<Supply> supplies,
+                       List<Shelter> shelters, int roadCapacity) {
+        if (roadCapacity <= 0) {
+            throw new IllegalArgumentException("Road capacity must be positive");
+        }
+        for (Supply supply : supplies) {
+            if (supply.people() < 0) {
+                throw new IllegalArgumentException("Population counts must not be negative");
+            }
+        }
+        for (Shelter shelter : shelters) {
+            if (shelter.capacity() < 0) {
+                throw new IllegalArgumentException("Shelter capacities must not be negative");
+            }
+        }
+        long started = System.nanoTime();
+        Network network = new Network(graph, profile, blocked, shelters, roadCapacity);
+
+        int[] left = new int[supplies.size()];
+        for (int i = 0; i < supplies.size(); i++) {
+            Supply supply = supplies.get(i);
+            left[i] = supply.people();
+            while (left[i] > 0) {
+                int moved = network.augment(supply.node(), left[i]);
+                if (moved == 0) {
+                    break;
+                }
+                left[i] -= moved;
+            }
+        }
+
+        List<Assignment> assignments = network.decompose(supplies, left);
+        double totalCost = 0;
+        for (Assignment assignment : assignments) {
+            totalCost += assignment.people() * assignment.path().cost();
+        }
+        Result result = new Result(assignments, left, totalCost, network.searches, network.settledNodes,
+                (System.nanoTime() - started) / 1e6);
+        log.info("Evacuation plan computed: {} people in {} assignments, {} searches, {} nodes settled, {} ms",
+                result.evacuated(), assignments.size(), result.searches(), result.settledNodes(),
+                Math.round(result.computeMillis()));
+        return result;
+    }
+
+    // residual arcs are coded as the edge e for its forward arc, edges + e for its reverse and 2 * edges + s for the
+    // arc from shelter s to the sink
+    private static final class Network {
+
+        private final RoadGraph graph;
+        private final CostProfile profile;
+        private final BitSet blocked;
+        private final List<Shelter> shelters;
+        private final int roadCapacity;
+        private final int edges;
+        private final int sink;
+
+        private final int[] inStart;
+        private final int[] inEdges;
+        private final int[] shelterStart;
+        private final int[] shelterAt;
+        private final int[] flow;
+        private final int[] shelterFlow;
+        private final int[] shelterCapacity;
+
+        private final double[] potential;
+        private final double[] dist;
+        private final int[] prevArc;
+        private final int[] stamp;
+        private final int[] settledStamp;
+        private final BitSet stranded;
+        private final NodeHeap heap = new NodeHeap(256);
+        private int[] settled = new int[256];
+        private int[] stack = new int[256];
+        private int stackSize;
+        private int generation;
+
+        private int searches;
+        private long settledNodes;
+        private long settledSinceRefresh;
+        private boolean filled;
+
+        Network(RoadGraph graph, CostProfile profile, BitSet blocked, List<Shelter> shelters, int roadCapacity) {
+            this.graph = graph;
+            this.profile = profile;
+            this.blocked = blocked;
+            this.shelters = shelters;
+            this.roadCapacity = roadCapacity;
+            this.edges = graph.edgeCount();
+            int nodes = graph.nodeCount();
+            this.sink = nodes;
+
+            inStart = new int[nodes + 1];
+            for (int e = 0; e < edges; e++) {
+                inStart[graph.edgeTarget(e) + 1]++;
+            }
+            for (int v = 0; v < nodes; v++) {
+                inStart[v + 1] += inStart[v];
+            }
+            inEdges = new int[edges];
+            int[] cursor = Arrays.copyOf(inStart, nodes);
+            for (int e = 0; e < edges; e++) {
+                inEdges[cursor[graph.edgeTarget(e)]++] = e;
+            }
+
+            shelterStart = new int[nodes + 1];
+            for (Shelter shelter : shelters) {
+                shelterStart[shelter.node() + 1]++;
+            }
+            for (int v = 0; v < nodes; v++) {
+                shelterStart[v + 1] += shelterStart[v];
+            }
+            shelterAt = new int[shelters.size()];
+            cursor = Arrays.copyOf(shelterStart, nodes);
+            for (int s = 0; s < shelters.size(); s++) {
+                shelterAt[cursor[shelters.get(s).node()]++] = s;
+            }
+
+            flow = new int[edges];
+            shelterFlow = new int[shelters.size()];
+            shelterCapacity = shelters.stream().mapToInt(Shelter::capacity).toArray();
+            potential = new double[nodes + 1];
+            dist = new double[nodes + 1];
+            prevArc = new int[nodes + 1];
+            stamp = new int[nodes + 1];
+            settledStamp = new int[nodes + 1];
+            stranded = new BitSet(nodes);
+        }
+
+        // sends up to limit people from source along one shortest residual path, returning how many were moved
+        int augment(int source, int limit) {
+            if (stranded.get(source)) {
+                return 0;
+            }
+            if (searches == 0 || filled && settledSinceRefresh > sink || settledSinceRefresh > REFRESH_FACTOR * sink) {
+                refresh();
+            }
+            int count = search(source);
+            if (count < 0) {
+                return 0;
+            }
+            double sinkDist = dist[sink];
+            for (int i = 0; i < count; i++) {
+                int node = settled[i];
+                potential[node] += dist[node] - sinkDist;
+            }
+
+            int amount = limit;
+            for (int node = sink; node != source; node = tail(prevArc[node])) {
+                amount = Math.min(amount, residual(prevArc[node]));
+            }
+            for (int node = sink; node != source; node = tail(prevArc[node])) {
+                int arc = prevArc[node];
+                if (arc < edges) {
+                    flow[arc] += amount;
+                } else if (arc < 2 * edges) {
+                    flow[arc - edges] -= amount;
+                } else {
+                    shelterFlow[arc - 2 * edges] += amount;
+                    filled |= shelterFlow[arc - 2 * edges] == shelterCapacity[arc - 2 * edges];
+                }
+            }
+            return amount;
+        }
+
+        // Dijkstra on reduced costs until the sink is settled; returns the number of settled nodes, or -1 when no
+        // shelter with room is reachable. Nodes reached over a zero reduced cost are settled depth-first from a stack
+        // before the heap is consulted: the flow paths of earlier searches form wide plateaus of zero-cost arcs, and
+        // following them down towards a shelter settles far fewer of them than taking the heap's ties in any order.
+        private int search(int source) {
+            generation++;
+            searches++;
+            heap.clear();
+            stackSize = 0;
+            reach(source, 0, -1);
+            heap.push(source, 0);
+            int count = 0;
+
+            while (stackSize > 0 || !heap.isEmpty()) {
+                int node;
+                double d;
+                if (stackSize > 0) {
+                    node = stack[--stackSize];
+                    d = dist[node];
+                } else {
+                    d = heap.peekKey();
+                    node = heap.pop();
+                    if (d > dist[node]) {
+                        continue;
+                    }
+                }
+                if (settledStamp[node] == generation) {
+                    continue;
+                }
+                settledStamp[node] = generation;
+                if (count == settled.length) {
+                    settled = Arrays.copyOf(settled, count * 2);
+                }
+                settled[count++] = node;
+                if (node == sink) {
+                    settledNodes += count;
+                    settledSinceRefresh += count;
+                    return count;
+                }
+                double base = d + potential[node];
+
+                // pushed last, popped first: shelters, then roads forward, then back along earlier flow
+                for (int i = inStart[node]; i < inStart[node + 1]; i++) {
+                    int e = inEdges[i];
+                    if (flow[e] > 0) {
+                        relax(graph.edgeSource(e), base - graph.weight(profile, e), edges + e, d);
+                    }
+                }
+                for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                    if (flow[e] < roadCapacity && !blocked.get(e)) {
+                        relax(graph.edgeTarget(e), base + graph.weight(profile, e), e, d);
+                    }
+                }
+                for (int i = shelterStart[node]; i < shelterStart[node + 1]; i++) {
+                    int s = shelterAt[i];
+                    if (shelterFlow[s] < shelterCapacity[s]) {
+                        relax(sink, base, 2 * edges + s, d);
+                    }
+                }
+            }
+            // No residual arc leaves the settled set, and later augmenting paths cannot enter it without reaching the
+            // sink from inside, so it stays cut off for good and is never searched again.
+            for (int i = 0; i < count; i++) {
+                stranded.set(settled[i]);
+            }
+            settledNodes += count;
+            settledSinceRefresh += count;
+            return -1;
+        }
+
+        // Lowers every potential by the reduced distance from the node to the sink, found by one Dijkstra backwards
+        // from the sink. Reduced costs stay non-negative and become zero along shortest routes to a shelter with
+        // room, so the searches that follow head straight for it. Run before the first search, and again once the
+        // searches since have settled as many nodes as the graph has and a shelter has filled, or several times that.
+        private void refresh() {
+            generation++;
+            heap.clear();
+            reach(sink, 0, -1);
+            heap.push(sink, 0);
+            double farthest = 0;
+
+            while (!heap.isEmpty()) {
+                double d = heap.peekKey();
+                int node = heap.pop();
+                if (d > dist[node] || settledStamp[node] == generation) {
+                    continue;
+                }
+                settledStamp[node] = generation;
+                farthest = d;
+                if (node == sink) {
+                    for (int s = 0; s < shelters.size(); s++) {
+                        if (shelterFlow[s] < shelterCapacity[s]) {
+                            relaxBackward(shelters.get(s).node(), d - potential[sink], 2 * edges + s);
+                        }
+                    }
+                    continue;
+                }
+                double base = d - potential[node];
+                for (int i = inStart[node]; i < inStart[node + 1]; i++) {
+                    int e = inEdges[i];
+                    if (flow[e] < roadCapacity && !blocked.get(e)) {
+                        relaxBackward(graph.edgeSource(e), base + graph.weight(profile, e), e);
+                    }
+                }
+                for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                    if (flow[e] > 0) {
+                        relaxBackward(graph.edgeTarget(e), base - graph.weight(profile, e), edges + e);
+                    }
+                }
+            }
+
+            // nodes that reach no shelter are pushed below every reached one, which keeps arcs into them valid
+            for (int node = 0; node <= sink; node++) {
+                potential[node] -= stamp[node] == generation && settledStamp[node] == generation ? dist[node] : farthest;
+            }
+            settledSinceRefresh = 0;
+            filled = false;
+        }
+
+        private void relaxBackward(int previous, double costFromPotential, int arc) {
+            if (costFromPotential == Double.POSITIVE_INFINITY || settledStamp[previous] == generation) {
+                return;
+            }
+            double d = Math.max(costFromPotential + potential[previous], dist[head(arc)]);
+            if (stamp[previous] != generation || d < dist[previous]) {
+                reach(previous, d, arc);
+                heap.push(previous, d);
+            }
+        }
+
+        // reduced costs are non-negative up to rounding, which is clamped away
+        private void relax(int next, double costFromPotential, int arc, double floor) {
+            if (costFromPotential == Double.POSITIVE_INFINITY || settledStamp[next] == generation || stranded.get(next)) {
+                return;
+            }
+            double d = Math.max(costFromPotential - potential[next], floor);
+            if (stamp[next] != generation || d < dist[next]) {
+                reach(next, d, arc);
+                if (d == floor) {
+                    if (stackSize == stack.length) {
+                        stack = Arrays.copyOf(stack, stackSize * 2);
+                    }
+                    stack[stackSize++] = next;
+                } else {
+                    heap.push(next, d);
+                }
+            }
+        }
+
+        private void reach(int node, double d, int arc) {
+            stamp[node] = generation;
+            dist[node] = d;
+            prevArc[node] = arc;
+        }
+
+        private int head(int arc) {
+            if (arc < edges) {
+                return graph.edgeTarget(arc);
+            }
+            if (arc < 2 * edges) {
+                return graph.edgeSource(arc - edges);
+            }
+            return sink;
+        }
+
+        private int tail(int arc) {
+            if (arc < edges) {
+                return graph.edgeSource(arc);
+            }
+            if (arc < 2 * edges) {
+                return graph.edgeTarget(arc - edges);
+            }
+            return shelters.get(arc - 2 * edges).node();
+        }
+
+        private int residual(int arc) {
+            if (arc < edges) {
+                return roadCapacity - flow[arc];
+            }
+            if (arc < 2 * edges) {
+                return flow[arc - edges];
+            }
+            int s = arc - 2 * edges;
+            return shelterCapacity[s] - shelterFlow[s];
+        }
+
+        // Splits the flow into paths per population node. A min-cost flow over positive weights has no cycles, so
+        // following edges that still carry flow always ends at a shelter that still takes people.
+        List<Assignment> decompose(List<Supply> supplies, int[] unassigned) {
+            int[] flowLeft = flow.clone();
+            int[] shelterLeft = shelterFlow.clone();
+            int[] path = new int[16];
+            List<Assignment> assignments = new ArrayList<>();
+
+            for (int i = 0; i < supplies.size(); i++) {
+                int source = supplies.get(i).node();
+                int people = supplies.get(i).people() - unassigned[i];
+                while (people > 0) {
+                    int node = source;
+                    int hops = 0;
+                    int shelter = -1;
+                    int amount = people;
+                    while (shelter < 0) {
+                        for (int k = shelterStart[node]; k < shelterStart[node + 1] && shelter < 0; k++) {
+                            if (shelterLeft[shelterAt[k]] > 0) {
+                                shelter = shelterAt[k];
+                            }
+                        }
+                        if (shelter >= 0) {
+                            break;
+                        }
+                        int next = -1;
+                        for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end && next < 0; e++) {
+                            if (flowLeft[e] > 0) {
+                                next = e;
+                            }
+                        }
+                        if (next < 0 || hops == graph.nodeCount()) {
+                            throw new IllegalStateException("Evacuation flow does not decompose into paths");
+                        }
+                        if (hops == path.length) {
+                            path = Arrays.copyOf(path, hops * 2);
+                        }
+                        path[hops++] = next;
+                        amount = Math.min(amount, flowLeft[next]);
+                        node = graph.edgeTarget(next);
+                    }
+                    amount = Math.min(amount, shelterLeft[shelter]);
+
+                    double cost = 0;
+                    for (int k = 0; k < hops; k++) {
+                        flowLeft[path[k]] -= amount;
+                        cost += graph.weight(profile, path[k]);
+                    }
+                    shelterLeft[shelter] -= amount;
+                    people -= amount;
+                    assignments.add(new Assignment(i, shelter, amount,
+                            new GraphPath(source, node, Arrays.copyOf(path, hops), cost)));
+                }
+            }
+            return assignments;
+        }
+    }
+}
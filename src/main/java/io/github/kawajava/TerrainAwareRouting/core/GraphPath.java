@@ -0,0 +1,29 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+
+public record GraphPath(int source, int target, int[] edges, double cost) {
+
+    public static GraphPath unreachable(int source, int target) {
+        return new GraphPath(source, target, new int[0], Double.POSITIVE_INFINITY);
+    }
+
+    static GraphPath fromPredecessors(RoadGraph graph, int[] prevEdge, int source, int target, double cost) {
+        if (cost == Double.POSITIVE_INFINITY) {
+            return unreachable(source, target);
+        }
+        int hops = 0;
+        for (int node = target; node != source; node = graph.edgeSource(prevEdge[node])) {
+            hops++;
+        }
+        int[] edges = new int[hops];
+        for (int node = target; node != source; node = graph.edgeSource(prevEdge[node])) {
+            edges[--hops] = prevEdge[node];
+        }
+        return new GraphPath(source, target, edges, cost);
+    }
+
+    public boolean found() {
+        return cost != Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+public record RoutePath(double[] lats, double[] lons, double cost, BitSet junctions) {
+
+    public RoutePath(double[] lats, double[] lons) {
+        this(lats, lons, 0, new BitSet());
+    }
+
+    public static RoutePath of(RoadGraph graph, GraphPath path) {
+        if (!path.found()) {
+            return new RoutePath(new double[0], new double[0], path.cost(), new BitSet());
+        }
+
+        int capacity = 1;
+        for (int edge : path.edges()) {
+            capacity += graph.edgePointCount(edge) - 1;
+        }
+        double[] lats = new double[capacity];
+        double[] lons = new double[capacity];
+        BitSet junctions = new BitSet();
+
+        lats[0] = graph.nodeLat(path.source());
+        lons[0] = graph.nodeLon(path.source());
+        int size = 1;
+        for (int edge : path.edges()) {
+            size += graph.decodeEdge(edge, lats, lons, size - 1) - 1;
+            if (graph.degree(graph.edgeTarget(edge)) >= 3) {
+                junctions.set(size - 1);
+            }
+        }
+
+        return new RoutePath(Arrays.copyOf(lats, size), Arrays.copyOf(lons, size), path.cost(), junctions);
+    }
+
+    public int size() {
+        return lats.length;
+    }
+
+    public boolean isEmpty() {
+        return lats.length == 0;
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+
+import java.util.BitSet;
+
+// floodsAt, when present, holds the earliest time each edge floods on the clock of departure; an edge is only
+// taken if the traveller enters it before then. Costs are travel seconds, so arrival is departure plus distance.
+public record RouteQuery(RoadGraph graph, CostProfile profile, BitSet blockedEdges, int source, int target,
+                         float[] floodsAt, double departure) {
+
+    public RouteQuery(RoadGraph graph, CostProfile profile, BitSet blockedEdges, int source, int target) {
+        this(graph, profile, blockedEdges, source, target, null, 0);
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import java.util.BitSet;
+
+public final class RouteSimplifier {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private RouteSimplifier() {
+    }
+
+    public static RoutePath simplify(RoutePath path, double toleranceMeters) {
+        return simplify(path, toleranceMeters, path.junctions());
+    }
+
+    public static RoutePath simplify(RoutePath path, double toleranceMeters, BitSet junctions) {
+        int n = path.size();
+        if (n <= 2 || toleranceMeters <= 0) {
+            return path;
+        }
+
+        double[] x = new double[n];
+        double[] y = new double[n];
+        project(path, x, y);
+
+        BitSet keep = new BitSet(n);
+        keep.set(0);
+        keep.set(n - 1);
+        keep.or(junctions.get(0, n));
+
+        double toleranceSq = toleranceMeters * toleranceMeters;
+        int[] stack = new int[2 * n];
+        int anchor = 0;
+        for (int next = keep.nextSetBit(1); next >= 0; next = keep.nextSetBit(next + 1)) {
+            douglasPeucker(x, y, anchor, next, toleranceSq, keep, stack);
+            anchor = next;
+        }
+
+        return select(path, keep, junctions);
+    }
+
+    static void project(RoutePath path, double[] x, double[] y) {
+        double cosLat = Math.cos(Math.toRadians(path.lats()[0]));
+        for (int i = 0; i < x.length; i++) {
+            x[i] = path.lons()[i] * cosLat * METERS_PER_DEGREE;
+            y[i] = path.lats()[i] * METERS_PER_DEGREE;
+        }
+    }
+
+    private static void douglasPeucker(double[] x, double[] y, int first, int last,
+                                       double toleranceSq, BitSet keep, int[] stack) {
+        int top = 0;
+        stack[top++] = first;
+        stack[top++] = last;
+
+        while (top > 0) {
+            int to = stack[--top];
+            int from = stack[--top];
+
+            int farthest = -1;
+            double maxDistSq = toleranceSq;
+            for (int i = from + 1; i < to; i++) {
+                double d = segmentDistanceSq(x[i], y[i], x[from], y[from], x[to], y[to]);
+                if (d > maxDistSq) {
+                    maxDistSq = d;
+                    farthest = i;
+                }
+            }
+
+            if (farthest >= 0) {
+                keep.set(farthest);
+                stack[top++] = from;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = to;
+            }
+        }
+    }
+
+    static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lenSq = dx * dx + dy * dy;
+        double t = lenSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lenSq;
+        t = Math.max(0, Math.min(1, t));
+        double ex = ax + t * dx - px;
+        double ey = ay + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+
+    private static RoutePath select(RoutePath path, BitSet keep, BitSet junctions) {
+        int count = keep.cardinality();
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        BitSet keptJunctions = new BitSet();
+        int j = 0;
+        for (int i = keep.nextSetBit(0); i >= 0; i = keep.nextSetBit(i + 1)) {
+            lats[j] = path.lats()[i];
+            lons[j] = path.lons()[i];
+            if (junctions.get(i)) {
+                keptJunctions.set(j);
+            }
+            j++;
+        }
+        return new RoutePath(lats, lons, path.cost(), keptJunctions);
+    }
+}
@@ -1,102 +1,89 @@
 package io.github.kawajava.TerrainAwareRouting.core;
 
-import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
 import lombok.extern.slf4j.Slf4j;
-import org.locationtech.jts.geom.Coordinate;
 
-import java.util.*;
+import java.util.BitSet;
 
 @Slf4j
 public class SafeDijkstraPathFinder implements PathFindingStrategy {
 
-    @Override
-    public List<Coordinate> findPath(List<RoadSegment> segments, Coordinate start, Coordinate end) {
-
-        Map<Coordinate, List<RoadSegment>> adjacency = buildAdjacencyMap(segments);
-        Map<Coordinate, Double> dist = initializeDistanceMap(start);
-        Map<Coordinate, Coordinate> prev = new HashMap<>();
-
-        PriorityQueue<Coordinate> queue =
-                new PriorityQueue<>(Comparator.comparingDouble(dist::get));
-        queue.add(start);
-
-        while (!queue.isEmpty()) {
-            Coordinate current = queue.poll();
-
-            if (current.equals(end)) { break; }
-
-            relaxEdges(current, adjacency, dist, prev, queue);
-        }
-
-        List<Coordinate> path = reconstructPath(prev, start, end);
-        log.info("Dijkstra path computed, {} steps", path.size());
+    private final SearchWorkspacePool workspaces;
 
-        return path;
+    public SafeDijkstraPathFinder() {
+        this(new SearchWorkspacePool());
     }
 
-    public Map<Coordinate, List<RoadSegment>> buildAdjacencyMap(List<RoadSegment> segments) {
-        Map<Coordinate, List<RoadSegment>> adjacency = new HashMap<>();
-
-        segments.stream()
-                .filter(seg -> !seg.flooded())
-                .forEach(seg -> {
-                    Coordinate from = extractCoordinate(seg, true);
-                    adjacency.computeIfAbsent(from, k -> new ArrayList<>()).add(seg);
-                });
-
-        return adjacency;
+    public SafeDijkstraPathFinder(SearchWorkspacePool workspaces) {
+        this.workspaces = workspaces;
     }
 
-    public Map<Coordinate, Double> initializeDistanceMap(Coordinate start) {
-        Map<Coordinate, Double> dist = new HashMap<>();
-        dist.put(start, 0.0);
-        return dist;
+    @Override
+    public GraphPath findPath(RouteQuery query) {
+        SearchWorkspace workspace = workspaces.borrow();
+        try {
+            return search(query, workspace);
+        } finally {
+            workspaces.release(workspace);
+        }
     }
 
-    public void relaxEdges(Coordinate current,
-                           Map<Coordinate, List<RoadSegment>> adjacency,
-                           Map<Coordinate, Double> dist,
-                           Map<Coordinate, Coordinate> prev,
-                           PriorityQueue<Coordinate> queue) {
-
-        List<RoadSegment> edges = adjacency.getOrDefault(current, Collections.emptyList());
-
-        for (RoadSegment seg : edges) {
-            Coordinate neighbor = extractNeighbor(seg);
-            double alt = dist.get(current) + seg.cost();
-
-            if (alt < dist.getOrDefault(neighbor, Double.MAX_VALUE)) {
-                dist.put(neighbor, alt);
-                prev.put(neighbor, current);
-                queue.add(neighbor);
+    public ShortestPathTree shortestPathTree(RouteQuery query) {
+        SearchWorkspace ws = workspaces.borrow();
+        try {
+            explore(query, ws, -1);
+            int nodes = query.graph().nodeCount();
+            double[] dist = new double[nodes];
+            int[] prevEdges = new int[nodes];
+            for (int node = 0; node < nodes; node++) {
+                dist[node] = ws.dist(node);
+                prevEdges[node] = dist[node] == Double.POSITIVE_INFINITY ? -1 : ws.prevEdges()[node];
             }
+            return new ShortestPathTree(query.source(), dist, prevEdges);
+        } finally {
+            workspaces.release(ws);
         }
     }
 
-    public List<Coordinate> reconstructPath(Map<Coordinate, Coordinate> prev,
-                                            Coordinate start,
-                                            Coordinate end) {
+    GraphPath search(RouteQuery query, SearchWorkspace ws) {
+        int target = query.target();
+        explore(query, ws, target);
 
-        if (!prev.containsKey(end) && !start.equals(end)) {
-            return Collections.emptyList(); // brak ścieżki
-        }
+        GraphPath path = GraphPath.fromPredecessors(query.graph(), ws.prevEdges(), query.source(), target, ws.dist(target));
+        log.info("Dijkstra path computed, {} edges", path.edges().length);
 
-        List<Coordinate> path = new ArrayList<>();
-        for (Coordinate step = end; step != null; step = prev.get(step)) {
-            path.add(step);
-        }
-
-        Collections.reverse(path);
         return path;
     }
 
-    public Coordinate extractCoordinate(RoadSegment seg, boolean startPoint) {
-        return startPoint
-                ? seg.geometry().getStartPoint().getCoordinate()
-                : seg.geometry().getEndPoint().getCoordinate();
-    }
-
-    public Coordinate extractNeighbor(RoadSegment seg) {
-        return extractCoordinate(seg, false);
+    // settles nodes until the target is reached, or every reachable node when the target is -1
+    private void explore(RouteQuery query, SearchWorkspace ws, int target) {
+        RoadGraph graph = query.graph();
+        CostProfile profile = query.profile();
+        BitSet blocked = query.blockedEdges();
+        float[] floodsAt = query.floodsAt();
+        double departure = query.departure();
+
+        ws.begin(graph.nodeCount());
+        ws.update(query.source(), 0, -1);
+        NodeHeap heap = ws.heap();
+        heap.push(query.source(), 0);
+
+        while (!heap.isEmpty()) {
+            double d = heap.peekKey();
+            int node = heap.pop();
+            if (d > ws.dist(node)) { continue; }
+            if (node == target) { break; }
+
+            for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                if (blocked.get(e) || floodsAt != null && departure + d >= floodsAt[e]) { continue; }
+                int next = graph.edgeTarget(e);
+                double alt = d + graph.weight(profile, e);
+                if (alt < ws.dist(next)) {
+                    ws.update(next, alt, e);
+                    heap.push(next, alt);
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,64 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import java.util.Arrays;
+
+public final class SearchWorkspace {
+
+    private int generation;
+    private int[] stamp = new int[0];
+    private int[] settledStamp = new int[0];
+    private double[] dist = new double[0];
+    private int[] prevEdge = new int[0];
+    private final NodeHeap heap = new NodeHeap(256);
+
+    void begin(int nodeCount) {
+        if (stamp.length < nodeCount) {
+            stamp = new int[nodeCount];
+            settledStamp = new int[nodeCount];
+            dist = new double[nodeCount];
+            prevEdge = new int[nodeCount];
+            generation = 0;
+        }
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            Arrays.fill(settledStamp, 0);
+            generation = 1;
+        }
+        heap.clear();
+    }
+
+    int generation() {
+        return generation;
+    }
+
+    NodeHeap heap() {
+        return heap;
+    }
+
+    double dist(int node) {
+        return stamp[node] == generation ? dist[node] : Double.POSITIVE_INFINITY;
+    }
+
+    void update(int node, double distance, int edge) {
+        stamp[node] = generation;
+        dist[node] = distance;
+        prevEdge[node] = edge;
+    }
+
+    boolean isSettled(int node) {
+        return settledStamp[node] == generation;
+    }
+
+    void settle(int node) {
+        settledStamp[node] = generation;
+    }
+
+    int[] prevEdges() {
+        return prevEdge;
+    }
+
+    int capacity() {
+        return stamp.length;
+    }
+}
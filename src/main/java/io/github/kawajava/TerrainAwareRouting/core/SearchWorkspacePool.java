@@ -0,0 +1,40 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SearchWorkspacePool {
+
+    private final ConcurrentLinkedDeque<SearchWorkspace> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final int maxIdle;
+
+    public SearchWorkspacePool() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public SearchWorkspacePool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    public SearchWorkspace borrow() {
+        SearchWorkspace workspace = idle.pollFirst();
+        if (workspace == null) {
+            return new SearchWorkspace();
+        }
+        idleCount.decrementAndGet();
+        return workspace;
+    }
+
+    public void release(SearchWorkspace workspace) {
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offerFirst(workspace);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    public int idleCount() {
+        return idleCount.get();
+    }
+}
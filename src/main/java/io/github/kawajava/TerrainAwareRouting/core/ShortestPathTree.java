@@ -0,0 +1,29 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+
+// Distances and predecessor edges from one source to every node; unreached nodes have infinite distance.
+public record ShortestPathTree(int source, double[] dist, int[] prevEdges) {
+
+    public double cost(int node) {
+        return dist[node];
+    }
+
+    public boolean reaches(int node) {
+        return dist[node] != Double.POSITIVE_INFINITY;
+    }
+
+    public int reachedCount() {
+        int reached = 0;
+        for (double d : dist) {
+            if (d != Double.POSITIVE_INFINITY) {
+                reached++;
+            }
+        }
+        return reached;
+    }
+
+    public GraphPath path(RoadGraph graph, int target) {
+        return GraphPath.fromPredecessors(graph, prevEdges, source, target, dist[target]);
+    }
+}
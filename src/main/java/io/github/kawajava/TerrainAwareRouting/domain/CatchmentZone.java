@@ -0,0 +1,5 @@
+package io.github.kawajava.TerrainAwareRouting.domain;
+
+import org.locationtech.jts.geom.Polygon;
+
+public record CatchmentZone(String id, Polygon polygon) {}
@@ -0,0 +1,23 @@
+package io.github.kawajava.TerrainAwareRouting.domain;
+
+import java.util.Arrays;
+
+public record FloodEvent(Kind kind, FloodPolygon polygon, Long emittedAtMillis) {
+
+    public enum Kind {
+        ADD,
+        MODIFY,
+        REMOVE;
+
+        public static Kind fromName(String name) {
+            return Arrays.stream(values())
+                    .filter(k -> k.name().equalsIgnoreCase(name.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown flood event type: " + name));
+        }
+    }
+
+    public String id() {
+        return polygon.id();
+    }
+}
@@ -0,0 +1,5 @@
+package io.github.kawajava.TerrainAwareRouting.domain;
+
+import java.time.Duration;
+
+public record FloodSource(String name, String url, Duration timeout) {}
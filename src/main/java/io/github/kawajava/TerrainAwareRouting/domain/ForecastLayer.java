@@ -0,0 +1,8 @@
+package io.github.kawajava.TerrainAwareRouting.domain;
+
+import org.locationtech.jts.geom.Polygon;
+
+import java.time.Instant;
+import java.util.List;
+
+public record ForecastLayer(Instant time, List<Polygon> polygons) {}
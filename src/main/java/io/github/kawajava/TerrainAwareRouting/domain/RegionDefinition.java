@@ -0,0 +1,14 @@
+package io.github.kawajava.TerrainAwareRouting.domain;
+
+import org.locationtech.jts.geom.Envelope;
+
+import java.util.List;
+
+public record RegionDefinition(String id, String geojsonPath, List<FloodSource> floodSources, String floodStreamUrl,
+                               String floodEventsDir, String demPath, String waterLevelZonesPath, String tilesDir,
+                               Envelope bounds) {
+
+    public boolean covers(double lat, double lon) {
+        return bounds != null && bounds.covers(lon, lat);
+    }
+}
@@ -2,4 +2,11 @@ package io.github.kawajava.TerrainAwareRouting.domain;
 
 import org.locationtech.jts.geom.LineString;
 
-public record RoadSegment(String id, LineString geometry, double cost, boolean flooded) {}
+import java.util.Map;
+
+public record RoadSegment(String id, LineString geometry, double cost, boolean flooded, Map<String, String> properties) {
+
+    public RoadSegment(String id, LineString geometry, double cost, boolean flooded) {
+        this(id, geometry, cost, flooded, Map.of());
+    }
+}
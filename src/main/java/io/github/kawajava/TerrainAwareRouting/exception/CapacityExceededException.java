@@ -0,0 +1,9 @@
+package io.github.kawajava.TerrainAwareRouting.exception;
+
+// A limit shared by all clients is reached; the request may succeed once others finish
+public class CapacityExceededException extends RuntimeException {
+
+    public CapacityExceededException(String message) {
+        super(message);
+    }
+}
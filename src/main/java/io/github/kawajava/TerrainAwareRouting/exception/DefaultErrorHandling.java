@@ -41,6 +41,20 @@ public class DefaultErrorHandling {
                 ));
     }
 
+    @ExceptionHandler({CapacityExceededException.class})
+    @ResponseBody
+    public ResponseEntity<?> handleCapacityExceeded(CapacityExceededException e, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(new DefaultErrorDto(
+                        new Date(),
+                        HttpStatus.TOO_MANY_REQUESTS.value(),
+                        HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase(),
+                        e.getMessage(),
+                        request.getRequestURI()
+                ));
+    }
+
     @ExceptionHandler({Exception.class})
     @ResponseBody
     public ResponseEntity<?> handleGeneral(Exception e, HttpServletRequest request) {
@@ -0,0 +1,141 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+public enum CostProfile {
+
+    WALKING(5, 1.0, false, false, 0.9, 6.0, 1.0, Map.of(
+            "motorway", 0.0, "motorway_link", 0.0, "trunk", 0.0, "trunk_link", 0.0,
+            "steps", 2.0)),
+
+    CAR(30, 1.0, true, true, 0.6, 0.5, 0.0, Map.ofEntries(
+            Map.entry("motorway", 110.0), Map.entry("motorway_link", 60.0),
+            Map.entry("trunk", 90.0), Map.entry("trunk_link", 50.0),
+            Map.entry("primary", 70.0), Map.entry("primary_link", 40.0),
+            Map.entry("secondary", 60.0), Map.entry("secondary_link", 40.0),
+            Map.entry("tertiary", 50.0), Map.entry("tertiary_link", 30.0),
+            Map.entry("unclassified", 40.0), Map.entry("residential", 30.0),
+            Map.entry("living_street", 10.0), Map.entry("service", 15.0), Map.entry("track", 10.0),
+            Map.entry("pedestrian", 0.0), Map.entry("footway", 0.0), Map.entry("path", 0.0),
+            Map.entry("cycleway", 0.0), Map.entry("steps", 0.0), Map.entry("bridleway", 0.0))),
+
+    EMERGENCY(30, 1.2, true, true, 0.7, 0.3, 0.0, Map.ofEntries(
+            Map.entry("motorway", 110.0), Map.entry("motorway_link", 60.0),
+            Map.entry("trunk", 90.0), Map.entry("trunk_link", 50.0),
+            Map.entry("primary", 70.0), Map.entry("primary_link", 40.0),
+            Map.entry("secondary", 60.0), Map.entry("secondary_link", 40.0),
+            Map.entry("tertiary", 50.0), Map.entry("tertiary_link", 30.0),
+            Map.entry("unclassified", 40.0), Map.entry("residential", 30.0),
+            Map.entry("living_street", 15.0), Map.entry("service", 20.0), Map.entry("track", 15.0),
+            Map.entry("busway", 50.0), Map.entry("pedestrian", 10.0),
+            Map.entry("footway", 0.0), Map.entry("path", 0.0),
+            Map.entry("cycleway", 0.0), Map.entry("steps", 0.0), Map.entry("bridleway", 0.0)));
+
+    private static final Set<String> UNPAVED = Set.of(
+            "unpaved", "gravel", "fine_gravel", "compacted", "dirt", "earth", "ground", "grass", "sand", "mud");
+
+    private final double defaultSpeedKmh;
+    private final double speedFactor;
+    private final boolean honoursMaxSpeed;
+    private final boolean honoursOneway;
+    private final double unpavedFactor;
+    private final double uphillSecondsPerMeter;
+    private final double downhillSecondsPerMeter;
+    private final Map<String, Double> speedsKmh;
+    private final double maxSpeedMps;
+
+    CostProfile(double defaultSpeedKmh, double speedFactor, boolean honoursMaxSpeed, boolean honoursOneway,
+                double unpavedFactor, double uphillSecondsPerMeter, double downhillSecondsPerMeter, Map<String, Double> speedsKmh) {
+        this.defaultSpeedKmh = defaultSpeedKmh;
+        this.speedFactor = speedFactor;
+        this.honoursMaxSpeed = honoursMaxSpeed;
+        this.honoursOneway = honoursOneway;
+        this.unpavedFactor = unpavedFactor;
+        this.uphillSecondsPerMeter = uphillSecondsPerMeter;
+        this.downhillSecondsPerMeter = downhillSecondsPerMeter;
+        this.speedsKmh = speedsKmh;
+        this.maxSpeedMps = Math.max(defaultSpeedKmh,
+                speedsKmh.values().stream().mapToDouble(Double::doubleValue).max().orElse(0)) * speedFactor / 3.6;
+    }
+
+    public static CostProfile fromName(String name) {
+        return Arrays.stream(values())
+                .filter(p -> p.name().equalsIgnoreCase(name.trim().replace('-', '_')))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown cost profile: " + name));
+    }
+
+    public double maxSpeedMps() {
+        return maxSpeedMps;
+    }
+
+    public boolean honoursOneway() {
+        return honoursOneway;
+    }
+
+    public double speedMps(Map<String, String> properties) {
+        double speedKmh = speedsKmh.getOrDefault(properties.getOrDefault("highway", ""), defaultSpeedKmh);
+        if (speedKmh <= 0) {
+            return 0;
+        }
+        if (honoursMaxSpeed) {
+            double posted = parseMaxSpeedKmh(properties.get("maxspeed"));
+            if (posted > 0) {
+                speedKmh = posted;
+            }
+        }
+        if (UNPAVED.contains(properties.getOrDefault("surface", ""))) {
+            speedKmh *= unpavedFactor;
+        }
+        return Math.min(speedKmh * speedFactor / 3.6, maxSpeedMps);
+    }
+
+    public float weight(double lengthMeters, Map<String, String> properties) {
+        return weight(lengthMeters, properties, 0, 0);
+    }
+
+    public float weight(double lengthMeters, Map<String, String> properties, double ascentMeters, double descentMeters) {
+        double speed = speedMps(properties);
+        if (speed <= 0) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return (float) (lengthMeters / speed
+                + ascentMeters * uphillSecondsPerMeter
+                + descentMeters * downhillSecondsPerMeter);
+    }
+
+    static int onewayDirection(Map<String, String> properties) {
+        String oneway = properties.getOrDefault("oneway", "").trim().toLowerCase();
+        return switch (oneway) {
+            case "yes", "true", "1" -> 1;
+            case "-1", "reverse" -> -1;
+            case "no", "false", "0" -> 0;
+            default -> switch (properties.getOrDefault("junction", "")) {
+                case "roundabout", "circular" -> 1;
+                default -> 0;
+            };
+        };
+    }
+
+    static double parseMaxSpeedKmh(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return 0;
+        }
+        String value = raw.trim().toLowerCase();
+        int end = 0;
+        while (end < value.length() && (Character.isDigit(value.charAt(end)) || value.charAt(end) == '.')) {
+            end++;
+        }
+        if (end == 0) {
+            return 0;
+        }
+        try {
+            double speed = Double.parseDouble(value.substring(0, end));
+            return value.endsWith("mph") ? speed * 1.609344 : speed;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
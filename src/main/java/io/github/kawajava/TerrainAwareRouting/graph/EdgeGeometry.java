@@ -0,0 +1,18 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import org.locationtech.jts.geom.Coordinate;
+
+interface EdgeGeometry {
+
+    int segment(int edge);
+
+    int pointCount(int edge);
+
+    int decode(int edge, double[] lats, double[] lons, int offset);
+
+    Coordinate[] coordinates(int edge);
+
+    long sizeBytes();
+
+    long offHeapBytes();
+}
@@ -0,0 +1,130 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import org.locationtech.jts.geom.Envelope;
+
+import java.util.function.IntConsumer;
+
+public final class EdgeIndex {
+
+    private final float[] edgeMinLat;
+    private final float[] edgeMinLon;
+    private final float[] edgeMaxLat;
+    private final float[] edgeMaxLon;
+    private final double minLat;
+    private final double minLon;
+    private final double cellSize;
+    private final int cols;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellEdges;
+
+    EdgeIndex(RoadGraph graph) {
+        int edges = graph.edgeCount();
+        this.edgeMinLat = new float[edges];
+        this.edgeMinLon = new float[edges];
+        this.edgeMaxLat = new float[edges];
+        this.edgeMaxLon = new float[edges];
+
+        double loLat = Double.POSITIVE_INFINITY, hiLat = Double.NEGATIVE_INFINITY;
+        double loLon = Double.POSITIVE_INFINITY, hiLon = Double.NEGATIVE_INFINITY;
+        GeoKernels kernels = GeoKernels.best();
+        double[] lats = new double[16];
+        double[] lons = new double[16];
+        double[] box = new double[4];
+        for (int e = 0; e < edges; e++) {
+            int points = graph.edgePointCount(e);
+            if (points > lats.length) {
+                lats = new double[points];
+                lons = new double[points];
+            }
+            graph.decodeEdge(e, lats, lons, 0);
+            kernels.bounds(lats, lons, 0, points, box);
+            double eMinLat = box[0], eMinLon = box[1], eMaxLat = box[2], eMaxLon = box[3];
+            edgeMinLat[e] = Math.nextDown((float) eMinLat);
+            edgeMinLon[e] = Math.nextDown((float) eMinLon);
+            edgeMaxLat[e] = Math.nextUp((float) eMaxLat);
+            edgeMaxLon[e] = Math.nextUp((float) eMaxLon);
+            loLat = Math.min(loLat, eMinLat);
+            hiLat = Math.max(hiLat, eMaxLat);
+            loLon = Math.min(loLon, eMinLon);
+            hiLon = Math.max(hiLon, eMaxLon);
+        }
+        if (edges == 0) {
+            loLat = hiLat = loLon = hiLon = 0;
+        }
+
+        this.minLat = loLat;
+        this.minLon = loLon;
+        double width = Math.max(hiLon - loLon, 1e-9);
+        double height = Math.max(hiLat - loLat, 1e-9);
+        this.cellSize = Math.max(Math.max(Math.sqrt(width * height / Math.max(1, edges / 4)),
+                Math.max(width, height) / Math.max(1, edges)), 1e-7);
+        this.cols = (int) Math.floor(width / cellSize) + 1;
+        this.rows = (int) Math.floor(height / cellSize) + 1;
+
+        this.cellStart = new int[cols * rows + 1];
+        for (int e = 0; e < edges; e++) {
+            for (int r = row(edgeMinLat[e]); r <= row(edgeMaxLat[e]); r++) {
+                for (int c = col(edgeMinLon[e]); c <= col(edgeMaxLon[e]); c++) {
+                    cellStart[r * cols + c + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cols * rows; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        this.cellEdges = new int[cellStart[cols * rows]];
+        int[] cursor = cellStart.clone();
+        for (int e = 0; e < edges; e++) {
+            for (int r = row(edgeMinLat[e]); r <= row(edgeMaxLat[e]); r++) {
+                for (int c = col(edgeMinLon[e]); c <= col(edgeMaxLon[e]); c++) {
+                    cellEdges[cursor[r * cols + c]++] = e;
+                }
+            }
+        }
+    }
+
+    public int edgeCount() {
+        return edgeMinLat.length;
+    }
+
+    public Envelope envelope(int edge) {
+        return new Envelope(edgeMinLon[edge], edgeMaxLon[edge], edgeMinLat[edge], edgeMaxLat[edge]);
+    }
+
+    public void query(Envelope area, IntConsumer consumer) {
+        if (area.isNull() || edgeMinLat.length == 0) {
+            return;
+        }
+        int c0 = col(area.getMinX()), c1 = col(area.getMaxX());
+        int r0 = row(area.getMinY()), r1 = row(area.getMaxY());
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * cols + c;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int e = cellEdges[i];
+                    if (edgeMaxLon[e] < area.getMinX() || edgeMinLon[e] > area.getMaxX()
+                            || edgeMaxLat[e] < area.getMinY() || edgeMinLat[e] > area.getMaxY()) {
+                        continue;
+                    }
+                    // an edge spanning several cells is reported only from the first cell shared with the query
+                    if (c == Math.max(c0, col(edgeMinLon[e])) && r == Math.max(r0, row(edgeMinLat[e]))) {
+                        consumer.accept(e);
+                    }
+                }
+            }
+        }
+    }
+
+    public long sizeBytes() {
+        return 4L * Float.BYTES * edgeMinLat.length + (long) Integer.BYTES * (cellStart.length + cellEdges.length);
+    }
+
+    private int col(double lon) {
+        return (int) Math.min(Math.max(Math.floor((lon - minLon) / cellSize), 0), cols - 1);
+    }
+
+    private int row(double lat) {
+        return (int) Math.min(Math.max(Math.floor((lat - minLat) / cellSize), 0), rows - 1);
+    }
+}
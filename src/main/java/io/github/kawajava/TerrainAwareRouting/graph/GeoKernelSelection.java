@@ -0,0 +1,42 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+final class GeoKernelSelection {
+
+    static final GeoKernels BEST = select();
+
+    private GeoKernelSelection() {
+    }
+
+    // the vector implementation is only linked when jdk.incubator.vector was added to the boot layer
+    static GeoKernels vector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            throw new IllegalStateException("Run with --add-modules jdk.incubator.vector for vector kernels");
+        }
+        try {
+            return (GeoKernels) Class.forName(GeoKernelSelection.class.getPackageName() + ".VectorGeoKernels")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("Vector kernels unavailable", e);
+        }
+    }
+
+    private static GeoKernels select() {
+        if (!"scalar".equals(System.getProperty("geo.kernels"))) {
+            try {
+                GeoKernels vector = vector();
+                // two-lane vectors gain nothing over the scalar loops
+                if (vector.lanes() >= 4) {
+                    log.info("Using {}-lane vector geometry kernels", vector.lanes());
+                    return vector;
+                }
+            } catch (IllegalStateException e) {
+                log.debug("Vector geometry kernels not used: {}", e.getMessage());
+            }
+        }
+        log.info("Using scalar geometry kernels");
+        return GeoKernels.scalar();
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+public interface GeoKernels {
+
+    // meters[i] = great-circle distance between points i and i + 1, for i < count - 1
+    void segmentLengths(double[] lats, double[] lons, int count, double[] meters);
+
+    // out = {minLat, minLon, maxLat, maxLon} of points [from, to)
+    void bounds(double[] lats, double[] lons, int from, int to, double[] out);
+
+    // flips inside[i] for every point whose horizontal ray crosses the closed ring an odd number of times; calling it
+    // for the shell and then each hole leaves inside[i] set for points in the polygon
+    void crossRing(double[] ringX, double[] ringY, int ringLength, double[] xs, double[] ys, int count, boolean[] inside);
+
+    int lanes();
+
+    String name();
+
+    static GeoKernels scalar() {
+        return ScalarGeoKernels.INSTANCE;
+    }
+
+    static GeoKernels best() {
+        return GeoKernelSelection.BEST;
+    }
+
+    static GeoKernels named(String name) {
+        return switch (name) {
+            case "scalar" -> scalar();
+            case "vector" -> GeoKernelSelection.vector();
+            default -> throw new IllegalArgumentException("Unknown geometry kernels: " + name);
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import org.locationtech.jts.geom.Coordinate;
+
+public final class Geodesy {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private Geodesy() {
+    }
+
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    public static double lengthMeters(Coordinate[] coords) {
+        double length = 0;
+        for (int i = 1; i < coords.length; i++) {
+            length += distanceMeters(coords[i - 1].y, coords[i - 1].x, coords[i].y, coords[i].x);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,195 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import io.github.kawajava.TerrainAwareRouting.codec.VarInts;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+final class GeometryStore {
+
+    static final double SCALE = 1e7;
+
+    private final ByteBuffer data;
+    private final IntBuffer pieceOffset;
+    private final IntBuffer pieceSegment;
+    private final int pieces;
+    private final long bytes;
+    private final boolean offHeap;
+
+    GeometryStore(ByteBuffer data, IntBuffer pieceOffset, IntBuffer pieceSegment, int pieces, boolean offHeap) {
+        this.data = data;
+        this.pieceOffset = pieceOffset;
+        this.pieceSegment = pieceSegment;
+        this.pieces = pieces;
+        this.bytes = data.capacity() + (long) 2 * pieces * Integer.BYTES;
+        this.offHeap = offHeap;
+    }
+
+    static Builder builder(int expectedPieces) {
+        return new Builder(expectedPieces);
+    }
+
+    int pieceCount() {
+        return pieces;
+    }
+
+    int segment(int piece) {
+        return pieceSegment.get(piece);
+    }
+
+    long sizeBytes() {
+        return bytes;
+    }
+
+    long offHeapBytes() {
+        return offHeap ? bytes : 0;
+    }
+
+    int pointCount(int piece) {
+        int pos = pieceOffset.get(piece);
+        int count = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data.get(pos++);
+            count |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return count;
+            }
+        }
+    }
+
+    int decode(int piece, boolean reversed, double[] lats, double[] lons, int offset) {
+        int pos = pieceOffset.get(piece);
+        long count = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data.get(pos++);
+            count |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+
+        int lat = 0;
+        int lon = 0;
+        for (int i = 0; i < count; i++) {
+            long raw = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data.get(pos++);
+                raw |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            lat += (int) VarInts.unZigZag(raw);
+            raw = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data.get(pos++);
+                raw |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            lon += (int) VarInts.unZigZag(raw);
+
+            int slot = reversed ? offset + (int) count - 1 - i : offset + i;
+            lats[slot] = lat / SCALE;
+            lons[slot] = lon / SCALE;
+        }
+        return (int) count;
+    }
+
+    Coordinate[] coordinates(int piece, boolean reversed) {
+        int count = pointCount(piece);
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        decode(piece, reversed, lats, lons, 0);
+        Coordinate[] coords = new Coordinate[count];
+        for (int i = 0; i < count; i++) {
+            coords[i] = new Coordinate(lons[i], lats[i]);
+        }
+        return coords;
+    }
+
+    static int toFixed(double degrees) {
+        return (int) Math.round(degrees * SCALE);
+    }
+
+    static final class Builder {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private int[] offsets;
+        private int[] segments;
+        private int size;
+
+        private Builder(int expectedPieces) {
+            offsets = new int[Math.max(16, expectedPieces)];
+            segments = new int[Math.max(16, expectedPieces)];
+        }
+
+        int add(int segment, Coordinate[] coords, int first, int last) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                segments = Arrays.copyOf(segments, size * 2);
+            }
+            offsets[size] = out.size();
+            segments[size] = segment;
+            try {
+                VarInts.writeUnsigned(last - first + 1, out);
+                int lat = 0;
+                int lon = 0;
+                for (int k = first; k <= last; k++) {
+                    int nextLat = toFixed(coords[k].y);
+                    int nextLon = toFixed(coords[k].x);
+                    VarInts.writeSigned(nextLat - lat, out);
+                    VarInts.writeSigned(nextLon - lon, out);
+                    lat = nextLat;
+                    lon = nextLon;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return size++;
+        }
+
+        static Builder concat(List<Builder> parts) {
+            Builder joined = new Builder(parts.stream().mapToInt(part -> part.size).sum());
+            for (Builder part : parts) {
+                int base = joined.out.size();
+                for (int i = 0; i < part.size; i++) {
+                    joined.offsets[joined.size] = base + part.offsets[i];
+                    joined.segments[joined.size] = part.segments[i];
+                    joined.size++;
+                }
+                joined.out.writeBytes(part.out.toByteArray());
+            }
+            return joined;
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            for (int i = 0; i < size; i++) {
+                target.writeInt(offsets[i]);
+            }
+            target.writeInt(out.size());
+            out.writeTo(target);
+        }
+
+        GeometryStore build(GraphArena arena) {
+            byte[] encoded = out.toByteArray();
+            if (arena == null) {
+                return new GeometryStore(ByteBuffer.wrap(encoded),
+                        IntBuffer.wrap(Arrays.copyOf(offsets, size)), IntBuffer.wrap(Arrays.copyOf(segments, size)),
+                        size, false);
+            }
+            ByteBuffer data = arena.allocate(encoded.length).put(0, encoded);
+            IntBuffer pieceOffset = arena.allocate((long) size * Integer.BYTES).asIntBuffer().put(0, offsets, 0, size);
+            IntBuffer pieceSegment = arena.allocate((long) size * Integer.BYTES).asIntBuffer().put(0, segments, 0, size);
+            return new GeometryStore(data, pieceOffset, pieceSegment, size, true);
+        }
+    }
+}
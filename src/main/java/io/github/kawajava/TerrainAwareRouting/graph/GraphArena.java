@@ -0,0 +1,32 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class GraphArena {
+
+    private static final GraphArena SHARED = new GraphArena();
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final AtomicLong allocatedBytes = new AtomicLong();
+
+    public static GraphArena shared() {
+        return SHARED;
+    }
+
+    ByteBuffer allocate(long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Off-heap graph array exceeds 2 GiB: " + bytes + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+        allocatedBytes.addAndGet(bytes);
+        CLEANER.register(buffer, () -> allocatedBytes.addAndGet(-bytes));
+        return buffer;
+    }
+
+    public long allocatedBytes() {
+        return allocatedBytes.get();
+    }
+}
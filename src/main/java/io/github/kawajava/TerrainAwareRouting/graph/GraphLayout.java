@@ -0,0 +1,16 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import java.util.Arrays;
+
+public enum GraphLayout {
+    HEAP,
+    OFF_HEAP,
+    TILED;
+
+    public static GraphLayout fromName(String name) {
+        return Arrays.stream(values())
+                .filter(l -> l.name().equalsIgnoreCase(name.trim().replace('-', '_')))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown graph layout: " + name));
+    }
+}
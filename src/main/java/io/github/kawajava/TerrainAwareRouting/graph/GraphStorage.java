@@ -0,0 +1,28 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+interface GraphStorage {
+
+    int nodeCount();
+
+    int edgeCount();
+
+    double nodeLat(int node);
+
+    double nodeLon(int node);
+
+    int degree(int node);
+
+    int firstEdge(int node);
+
+    int edgeSource(int edge);
+
+    int edgeTarget(int edge);
+
+    float edgeLength(int edge);
+
+    float weight(CostProfile profile, int edge);
+
+    long footprintBytes();
+
+    long offHeapBytes();
+}
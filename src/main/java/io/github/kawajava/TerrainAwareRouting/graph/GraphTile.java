@@ -0,0 +1,76 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+final class GraphTile {
+
+    static final int MAGIC = 0x54494C45;
+    static final int VERSION = 1;
+
+    final int nodeStart;
+    final int nodeCount;
+    final int edgeStart;
+    final int edgeCount;
+    final DoubleBuffer nodeLat;
+    final DoubleBuffer nodeLon;
+    final IntBuffer nodeDegree;
+    final IntBuffer firstEdge;
+    final IntBuffer edgeSource;
+    final IntBuffer edgeTarget;
+    final FloatBuffer edgeLength;
+    final IntBuffer edgeSegment;
+    final FloatBuffer[] weights;
+    final GeometryStore geometry;
+    final long sizeBytes;
+
+    private GraphTile(ByteBuffer buf) throws IOException {
+        if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+            throw new IOException("Not a road graph tile");
+        }
+        nodeStart = buf.getInt();
+        nodeCount = buf.getInt();
+        edgeStart = buf.getInt();
+        edgeCount = buf.getInt();
+
+        nodeLat = buf.slice(buf.position(), nodeCount * Double.BYTES).asDoubleBuffer();
+        skip(buf, nodeCount * Double.BYTES);
+        nodeLon = buf.slice(buf.position(), nodeCount * Double.BYTES).asDoubleBuffer();
+        skip(buf, nodeCount * Double.BYTES);
+        nodeDegree = ints(buf, nodeCount);
+        firstEdge = ints(buf, nodeCount + 1);
+        edgeSource = ints(buf, edgeCount);
+        edgeTarget = ints(buf, edgeCount);
+        edgeSegment = ints(buf, edgeCount);
+        edgeLength = buf.slice(buf.position(), edgeCount * Float.BYTES).asFloatBuffer();
+        skip(buf, edgeCount * Float.BYTES);
+        weights = new FloatBuffer[CostProfile.values().length];
+        for (int p = 0; p < weights.length; p++) {
+            weights[p] = buf.slice(buf.position(), edgeCount * Float.BYTES).asFloatBuffer();
+            skip(buf, edgeCount * Float.BYTES);
+        }
+        IntBuffer geometryOffsets = ints(buf, edgeCount);
+        int geometryBytes = buf.getInt();
+        geometry = new GeometryStore(buf.slice(buf.position(), geometryBytes), geometryOffsets, edgeSegment, edgeCount, false);
+        sizeBytes = buf.capacity();
+    }
+
+    static GraphTile read(Path file) throws IOException {
+        return new GraphTile(ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+
+    private static IntBuffer ints(ByteBuffer buf, int count) {
+        IntBuffer view = buf.slice(buf.position(), count * Integer.BYTES).asIntBuffer();
+        skip(buf, count * Integer.BYTES);
+        return view;
+    }
+
+    private static void skip(ByteBuffer buf, int bytes) {
+        buf.position(buf.position() + bytes);
+    }
+}
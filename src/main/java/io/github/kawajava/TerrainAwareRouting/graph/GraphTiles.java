@@ -0,0 +1,289 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Slf4j
+public final class GraphTiles {
+
+    static final String INDEX_FILE = "tiles.idx";
+    static final String CURRENT_FILE = "CURRENT";
+    private static final int INDEX_MAGIC = 0x54494458;
+
+    // Storages still open per generation directory. Tiles load lazily from disk, so a generation replaced by publish
+    // is only marked retired while a region or an in-flight search can still read it, and deleted when the last of
+    // its storages is collected.
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final Map<Path, Integer> OPEN = new HashMap<>();
+    private static final Set<Path> RETIRED = new HashSet<>();
+
+    private GraphTiles() {
+    }
+
+    public static boolean exists(Path dir) {
+        return Files.isRegularFile(dir.resolve(INDEX_FILE));
+    }
+
+    public static FileTime lastModified(Path dir) throws IOException {
+        return Files.getLastModifiedTime(dir.resolve(INDEX_FILE));
+    }
+
+    public static Path current(Path root) throws IOException {
+        Path pointer = root.resolve(CURRENT_FILE);
+        return Files.isRegularFile(pointer) ? root.resolve(Files.readString(pointer).trim()) : root;
+    }
+
+    public static Path publish(RoadGraph graph, Path root, double tileDegrees) throws IOException {
+        Path previous = current(root);
+        long stamp = System.currentTimeMillis();
+        while (Files.exists(root.resolve("g" + stamp))) {
+            stamp++;
+        }
+        String generation = "g" + stamp;
+        Path dir = root.resolve(generation);
+        write(graph, dir, tileDegrees);
+
+        Path pointer = root.resolve(CURRENT_FILE);
+        Path next = root.resolve(CURRENT_FILE + ".tmp");
+        Files.writeString(next, generation);
+        Files.move(next, pointer, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // the generation just replaced stays for a reader that resolved CURRENT before the swap
+        try (Stream<Path> generations = Files.list(root)) {
+            for (Path old : generations.filter(Files::isDirectory)
+                    .filter(p -> p.getFileName().toString().matches("g\\d+"))
+                    .filter(p -> !p.equals(dir) && !p.equals(previous))
+                    .toList()) {
+                retire(old);
+            }
+        }
+        log.info("Published road graph tile generation {} in {}", generation, root);
+        return dir;
+    }
+
+    private static void retire(Path dir) throws IOException {
+        Path key = dir.toAbsolutePath().normalize();
+        synchronized (OPEN) {
+            if (OPEN.containsKey(key)) {
+                RETIRED.add(key);
+                log.info("Road graph tile generation {} is still open, deleting it once released", dir);
+                return;
+            }
+        }
+        delete(dir);
+    }
+
+    private static void acquire(Path dir, TiledGraphStorage storage) {
+        Path key = dir.toAbsolutePath().normalize();
+        synchronized (OPEN) {
+            OPEN.merge(key, 1, Integer::sum);
+        }
+        CLEANER.register(storage, () -> release(key));
+    }
+
+    private static void release(Path key) {
+        synchronized (OPEN) {
+            if (OPEN.merge(key, -1, Integer::sum) > 0) {
+                return;
+            }
+            OPEN.remove(key);
+            if (!RETIRED.remove(key)) {
+                return;
+            }
+        }
+        try {
+            delete(key);
+            log.info("Deleted released road graph tile generation {}", key);
+        } catch (IOException e) {
+            log.warn("Unable to delete road graph tile generation {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    public static RoadGraph open(Path dir, long budgetBytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(dir.resolve(INDEX_FILE)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != GraphTile.VERSION) {
+                throw new IOException("Not a road graph tile index: " + dir);
+            }
+            double tileDegrees = in.readDouble();
+            int tiles = in.readInt();
+            int[] rows = new int[tiles];
+            int[] cols = new int[tiles];
+            int[] nodeStart = new int[tiles + 1];
+            int[] edgeStart = new int[tiles + 1];
+            for (int t = 0; t < tiles; t++) {
+                rows[t] = in.readInt();
+                cols[t] = in.readInt();
+                nodeStart[t] = in.readInt();
+                edgeStart[t] = in.readInt();
+            }
+            nodeStart[tiles] = in.readInt();
+            edgeStart[tiles] = in.readInt();
+
+            TiledGraphStorage storage = new TiledGraphStorage(dir, tileDegrees, rows, cols, nodeStart, edgeStart, budgetBytes);
+            acquire(dir, storage);
+            log.info("Opened tiled road graph {}: {} tiles, {} nodes, {} edges, budget {} MiB",
+                    dir, tiles, nodeStart[tiles], edgeStart[tiles], budgetBytes >> 20);
+            return new RoadGraph(storage, storage, null, storage);
+        }
+    }
+
+    public static void write(RoadGraph graph, Path dir, double tileDegrees) throws IOException {
+        if (!(tileDegrees > 0)) {
+            throw new IllegalArgumentException("Tile size must be positive: " + tileDegrees);
+        }
+        Files.createDirectories(dir);
+        int nodes = graph.nodeCount();
+
+        long[] nodeKey = new long[nodes];
+        for (int n = 0; n < nodes; n++) {
+            nodeKey[n] = key(row(graph.nodeLat(n), tileDegrees), col(graph.nodeLon(n), tileDegrees));
+        }
+        long[] keys = Arrays.stream(nodeKey).distinct().sorted().toArray();
+        int tiles = keys.length;
+
+        int[] tileOf = new int[nodes];
+        int[] nodeStart = new int[tiles + 1];
+        for (int n = 0; n < nodes; n++) {
+            tileOf[n] = Arrays.binarySearch(keys, nodeKey[n]);
+            nodeStart[tileOf[n] + 1]++;
+        }
+        for (int t = 0; t < tiles; t++) {
+            nodeStart[t + 1] += nodeStart[t];
+        }
+        int[] cursor = Arrays.copyOf(nodeStart, tiles);
+        int[] newId = new int[nodes];
+        int[] oldId = new int[nodes];
+        for (int n = 0; n < nodes; n++) {
+            newId[n] = cursor[tileOf[n]]++;
+            oldId[newId[n]] = n;
+        }
+
+        int[] firstEdge = new int[nodes + 1];
+        for (int n = 0; n < nodes; n++) {
+            int old = oldId[n];
+            firstEdge[n + 1] = firstEdge[n] + graph.endEdge(old) - graph.firstEdge(old);
+        }
+        int[] edgeStart = new int[tiles + 1];
+        for (int t = 0; t <= tiles; t++) {
+            edgeStart[t] = firstEdge[nodeStart[t]];
+        }
+
+        for (int t = 0; t < tiles; t++) {
+            writeTile(graph, dir.resolve(tileFile(t)), nodeStart[t], nodeStart[t + 1], firstEdge, oldId, newId);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(dir.resolve(INDEX_FILE))))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(GraphTile.VERSION);
+            out.writeDouble(tileDegrees);
+            out.writeInt(tiles);
+            for (int t = 0; t < tiles; t++) {
+                out.writeInt((int) (keys[t] >> 32));
+                out.writeInt((int) keys[t]);
+                out.writeInt(nodeStart[t]);
+                out.writeInt(edgeStart[t]);
+            }
+            out.writeInt(nodeStart[tiles]);
+            out.writeInt(edgeStart[tiles]);
+        }
+        log.info("Wrote {} road graph tiles of {} degrees to {}", tiles, tileDegrees, dir);
+    }
+
+    private static void writeTile(RoadGraph graph, Path file, int fromNode, int toNode,
+                                  int[] firstEdge, int[] oldId, int[] newId) throws IOException {
+        int nodeCount = toNode - fromNode;
+        int edgeStart = firstEdge[fromNode];
+        int edgeCount = firstEdge[toNode] - edgeStart;
+        int[] oldEdge = new int[edgeCount];
+        for (int n = fromNode, i = 0; n < toNode; n++) {
+            for (int e = graph.firstEdge(oldId[n]); e < graph.endEdge(oldId[n]); e++) {
+                oldEdge[i++] = e;
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(GraphTile.MAGIC);
+            out.writeInt(GraphTile.VERSION);
+            out.writeInt(fromNode);
+            out.writeInt(nodeCount);
+            out.writeInt(edgeStart);
+            out.writeInt(edgeCount);
+            for (int n = fromNode; n < toNode; n++) {
+                out.writeDouble(graph.nodeLat(oldId[n]));
+            }
+            for (int n = fromNode; n < toNode; n++) {
+                out.writeDouble(graph.nodeLon(oldId[n]));
+            }
+            for (int n = fromNode; n < toNode; n++) {
+                out.writeInt(graph.degree(oldId[n]));
+            }
+            for (int n = fromNode; n <= toNode; n++) {
+                out.writeInt(firstEdge[n]);
+            }
+            for (int e : oldEdge) {
+                out.writeInt(newId[graph.edgeSource(e)]);
+            }
+            for (int e : oldEdge) {
+                out.writeInt(newId[graph.edgeTarget(e)]);
+            }
+            for (int e : oldEdge) {
+                out.writeInt(graph.edgeSegment(e));
+            }
+            for (int e : oldEdge) {
+                out.writeFloat(graph.edgeLength(e));
+            }
+            for (CostProfile profile : CostProfile.values()) {
+                for (int e : oldEdge) {
+                    out.writeFloat(graph.weight(profile, e));
+                }
+            }
+            GeometryStore.Builder geometry = GeometryStore.builder(edgeCount);
+            for (int e : oldEdge) {
+                var coords = graph.edgeCoordinates(e);
+                geometry.add(graph.edgeSegment(e), coords, 0, coords.length - 1);
+            }
+            geometry.writeTo(out);
+        }
+    }
+
+    static String tileFile(int tile) {
+        return "tile-" + tile + ".bin";
+    }
+
+    static int row(double lat, double tileDegrees) {
+        return (int) Math.floor(lat / tileDegrees);
+    }
+
+    static int col(double lon, double tileDegrees) {
+        return (int) Math.floor(lon / tileDegrees);
+    }
+
+    static long key(int row, int col) {
+        return (long) row << 32 | (col & 0xFFFF_FFFFL);
+    }
+}
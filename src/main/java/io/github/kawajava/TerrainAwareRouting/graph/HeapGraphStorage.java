@@ -0,0 +1,87 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+final class HeapGraphStorage implements GraphStorage {
+
+    private final double[] nodeLat;
+    private final double[] nodeLon;
+    private final int[] nodeDegree;
+    private final int[] firstEdge;
+    private final int[] edgeSource;
+    private final int[] edgeTarget;
+    private final float[] edgeLength;
+    private final float[][] weights;
+
+    HeapGraphStorage(double[] nodeLat, double[] nodeLon, int[] nodeDegree, int[] firstEdge,
+                     int[] edgeSource, int[] edgeTarget, float[] edgeLength, float[][] weights) {
+        this.nodeLat = nodeLat;
+        this.nodeLon = nodeLon;
+        this.nodeDegree = nodeDegree;
+        this.firstEdge = firstEdge;
+        this.edgeSource = edgeSource;
+        this.edgeTarget = edgeTarget;
+        this.edgeLength = edgeLength;
+        this.weights = weights;
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeLat.length;
+    }
+
+    @Override
+    public int edgeCount() {
+        return edgeTarget.length;
+    }
+
+    @Override
+    public double nodeLat(int node) {
+        return nodeLat[node];
+    }
+
+    @Override
+    public double nodeLon(int node) {
+        return nodeLon[node];
+    }
+
+    @Override
+    public int degree(int node) {
+        return nodeDegree[node];
+    }
+
+    @Override
+    public int firstEdge(int node) {
+        return firstEdge[node];
+    }
+
+    @Override
+    public int edgeSource(int edge) {
+        return edgeSource[edge];
+    }
+
+    @Override
+    public int edgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    @Override
+    public float edgeLength(int edge) {
+        return edgeLength[edge];
+    }
+
+    @Override
+    public float weight(CostProfile profile, int edge) {
+        return weights[profile.ordinal()][edge];
+    }
+
+    @Override
+    public long footprintBytes() {
+        long nodeBytes = (long) nodeLat.length * (2 * Double.BYTES + 2 * Integer.BYTES) + Integer.BYTES;
+        long edgeBytes = (long) edgeTarget.length * (3 * Integer.BYTES + weights.length * Float.BYTES);
+        return nodeBytes + edgeBytes;
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return 0;
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+final class NodeGrid implements NodeLocator {
+
+    private final GraphStorage storage;
+    private final double minLat;
+    private final double minX;
+    private final double cosRef;
+    private final double cellSize;
+    private final int cols;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellNodes;
+
+    NodeGrid(GraphStorage storage) {
+        this.storage = storage;
+        int nodes = storage.nodeCount();
+
+        double loLat = Double.POSITIVE_INFINITY, hiLat = Double.NEGATIVE_INFINITY;
+        double loLon = Double.POSITIVE_INFINITY, hiLon = Double.NEGATIVE_INFINITY;
+        for (int n = 0; n < nodes; n++) {
+            loLat = Math.min(loLat, storage.nodeLat(n));
+            hiLat = Math.max(hiLat, storage.nodeLat(n));
+            loLon = Math.min(loLon, storage.nodeLon(n));
+            hiLon = Math.max(hiLon, storage.nodeLon(n));
+        }
+        if (nodes == 0) {
+            loLat = hiLat = loLon = hiLon = 0;
+        }
+
+        this.cosRef = Math.cos(Math.toRadians((loLat + hiLat) / 2));
+        this.minLat = loLat;
+        this.minX = loLon * cosRef;
+        double width = Math.max((hiLon - loLon) * cosRef, 1e-9);
+        double height = Math.max(hiLat - loLat, 1e-9);
+        this.cellSize = Math.max(Math.max(Math.sqrt(width * height / Math.max(1, nodes / 2)),
+                Math.max(width, height) / Math.max(1, nodes)), 1e-7);
+        this.cols = (int) Math.floor(width / cellSize) + 1;
+        this.rows = (int) Math.floor(height / cellSize) + 1;
+
+        this.cellStart = new int[cols * rows + 1];
+        this.cellNodes = new int[nodes];
+        int[] cellOf = new int[nodes];
+        for (int n = 0; n < nodes; n++) {
+            cellOf[n] = cell(col(storage.nodeLon(n) * cosRef), row(storage.nodeLat(n)));
+            cellStart[cellOf[n] + 1]++;
+        }
+        for (int c = 0; c < cols * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] cursor = cellStart.clone();
+        for (int n = 0; n < nodes; n++) {
+            cellNodes[cursor[cellOf[n]]++] = n;
+        }
+    }
+
+    @Override
+    public int nearest(double lat, double lon) {
+        double x = lon * cosRef;
+        int qc = col(x);
+        int qr = row(lat);
+        double cx = Math.min(Math.max(x, minX), minX + cols * cellSize);
+        double cy = Math.min(Math.max(lat, minLat), minLat + rows * cellSize);
+        double outside = Math.hypot(x - cx, lat - cy);
+
+        int best = -1;
+        double bestDistSq = Double.POSITIVE_INFINITY;
+        for (int ring = 0, maxRing = Math.max(cols, rows); ring <= maxRing; ring++) {
+            if (best >= 0) {
+                double bound = (ring - 1) * cellSize - outside;
+                if (bound > 0 && bound * bound > bestDistSq) {
+                    break;
+                }
+            }
+            for (int r = qr - ring; r <= qr + ring; r++) {
+                if (r < 0 || r >= rows) { continue; }
+                boolean edgeRow = r == qr - ring || r == qr + ring;
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int c = qc - ring; c <= qc + ring; c += step) {
+                    if (c < 0 || c >= cols) { continue; }
+                    int cell = cell(c, r);
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                        int node = cellNodes[i];
+                        double dy = storage.nodeLat(node) - lat;
+                        double dx = (storage.nodeLon(node) - lon) * cosRef;
+                        double distSq = dx * dx + dy * dy;
+                        if (distSq < bestDistSq) {
+                            bestDistSq = distSq;
+                            best = node;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int col(double x) {
+        return (int) Math.min(Math.max(Math.floor((x - minX) / cellSize), 0), cols - 1);
+    }
+
+    private int row(double lat) {
+        return (int) Math.min(Math.max(Math.floor((lat - minLat) / cellSize), 0), rows - 1);
+    }
+
+    private int cell(int col, int row) {
+        return row * cols + col;
+    }
+}
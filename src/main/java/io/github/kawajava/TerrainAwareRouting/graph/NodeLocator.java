@@ -0,0 +1,6 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+interface NodeLocator {
+
+    int nearest(double lat, double lon);
+}
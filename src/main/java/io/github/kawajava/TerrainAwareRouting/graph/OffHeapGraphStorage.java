@@ -0,0 +1,117 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+final class OffHeapGraphStorage implements GraphStorage {
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final DoubleBuffer nodeCoords;
+    private final IntBuffer nodeDegree;
+    private final IntBuffer firstEdge;
+    private final IntBuffer edgeSource;
+    private final IntBuffer edgeTarget;
+    private final FloatBuffer edgeLength;
+    private final FloatBuffer[] weights;
+    private final long bytes;
+
+    private OffHeapGraphStorage(GraphStorage source, GraphArena arena) {
+        long before = arena.allocatedBytes();
+        this.nodeCount = source.nodeCount();
+        this.edgeCount = source.edgeCount();
+        this.nodeCoords = arena.allocate((long) nodeCount * 2 * Double.BYTES).asDoubleBuffer();
+        this.nodeDegree = arena.allocate((long) nodeCount * Integer.BYTES).asIntBuffer();
+        this.firstEdge = arena.allocate((long) (nodeCount + 1) * Integer.BYTES).asIntBuffer();
+        this.edgeSource = arena.allocate((long) edgeCount * Integer.BYTES).asIntBuffer();
+        this.edgeTarget = arena.allocate((long) edgeCount * Integer.BYTES).asIntBuffer();
+        this.edgeLength = arena.allocate((long) edgeCount * Float.BYTES).asFloatBuffer();
+        this.weights = new FloatBuffer[CostProfile.values().length];
+
+        for (int n = 0; n < nodeCount; n++) {
+            nodeCoords.put(2 * n, source.nodeLat(n));
+            nodeCoords.put(2 * n + 1, source.nodeLon(n));
+            nodeDegree.put(n, source.degree(n));
+            firstEdge.put(n, source.firstEdge(n));
+        }
+        firstEdge.put(nodeCount, source.firstEdge(nodeCount));
+        for (int e = 0; e < edgeCount; e++) {
+            edgeSource.put(e, source.edgeSource(e));
+            edgeTarget.put(e, source.edgeTarget(e));
+            edgeLength.put(e, source.edgeLength(e));
+        }
+        for (CostProfile profile : CostProfile.values()) {
+            FloatBuffer buffer = arena.allocate((long) edgeCount * Float.BYTES).asFloatBuffer();
+            for (int e = 0; e < edgeCount; e++) {
+                buffer.put(e, source.weight(profile, e));
+            }
+            weights[profile.ordinal()] = buffer;
+        }
+        this.bytes = arena.allocatedBytes() - before;
+    }
+
+    static OffHeapGraphStorage copyOf(GraphStorage source, GraphArena arena) {
+        return new OffHeapGraphStorage(source, arena);
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public double nodeLat(int node) {
+        return nodeCoords.get(2 * node);
+    }
+
+    @Override
+    public double nodeLon(int node) {
+        return nodeCoords.get(2 * node + 1);
+    }
+
+    @Override
+    public int degree(int node) {
+        return nodeDegree.get(node);
+    }
+
+    @Override
+    public int firstEdge(int node) {
+        return firstEdge.get(node);
+    }
+
+    @Override
+    public int edgeSource(int edge) {
+        return edgeSource.get(edge);
+    }
+
+    @Override
+    public int edgeTarget(int edge) {
+        return edgeTarget.get(edge);
+    }
+
+    @Override
+    public float edgeLength(int edge) {
+        return edgeLength.get(edge);
+    }
+
+    @Override
+    public float weight(CostProfile profile, int edge) {
+        return weights[profile.ordinal()].get(edge);
+    }
+
+    @Override
+    public long footprintBytes() {
+        return bytes;
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import org.locationtech.jts.geom.Coordinate;
+
+import java.nio.IntBuffer;
+
+final class PieceGeometry implements EdgeGeometry {
+
+    private final GeometryStore store;
+    private final IntBuffer edgePiece;
+
+    PieceGeometry(GeometryStore store, IntBuffer edgePiece) {
+        this.store = store;
+        this.edgePiece = edgePiece;
+    }
+
+    static int ref(int piece, boolean reversed) {
+        return piece << 1 | (reversed ? 1 : 0);
+    }
+
+    int piece(int edge) {
+        return edgePiece.get(edge) >>> 1;
+    }
+
+    boolean reversed(int edge) {
+        return (edgePiece.get(edge) & 1) != 0;
+    }
+
+    @Override
+    public int segment(int edge) {
+        return store.segment(piece(edge));
+    }
+
+    @Override
+    public int pointCount(int edge) {
+        return store.pointCount(piece(edge));
+    }
+
+    @Override
+    public int decode(int edge, double[] lats, double[] lons, int offset) {
+        return store.decode(piece(edge), reversed(edge), lats, lons, offset);
+    }
+
+    @Override
+    public Coordinate[] coordinates(int edge) {
+        return store.coordinates(piece(edge), reversed(edge));
+    }
+
+    @Override
+    public long sizeBytes() {
+        return store.sizeBytes() + (long) edgePiece.capacity() * Integer.BYTES;
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return edgePiece.isDirect() ? sizeBytes() : store.offHeapBytes();
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import io.github.kawajava.TerrainAwareRouting.terrain.EdgeTerrain;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+public final class RoadGraph {
+
+    private final GraphStorage storage;
+    private final EdgeGeometry geometry;
+    private final EdgeTerrain terrain;
+    private final NodeLocator snapping;
+    private volatile EdgeIndex edgeIndex;
+
+    RoadGraph(GraphStorage storage, EdgeGeometry geometry, EdgeTerrain terrain) {
+        this(storage, geometry, terrain, new NodeGrid(storage));
+    }
+
+    RoadGraph(GraphStorage storage, EdgeGeometry geometry, EdgeTerrain terrain, NodeLocator snapping) {
+        this.storage = storage;
+        this.geometry = geometry;
+        this.terrain = terrain;
+        this.snapping = snapping;
+    }
+
+    public GraphLayout layout() {
+        return switch (storage) {
+            case OffHeapGraphStorage offHeap -> GraphLayout.OFF_HEAP;
+            case TiledGraphStorage tiled -> GraphLayout.TILED;
+            default -> GraphLayout.HEAP;
+        };
+    }
+
+    public Optional<TileMetrics> tileMetrics() {
+        return storage instanceof TiledGraphStorage tiled ? Optional.of(tiled.metrics()) : Optional.empty();
+    }
+
+    public long offHeapBytes() {
+        return storage.offHeapBytes() + geometry.offHeapBytes();
+    }
+
+    public long footprintBytes() {
+        return storage == geometry ? storage.footprintBytes() : storage.footprintBytes() + geometry.sizeBytes();
+    }
+
+    public long geometryBytes() {
+        return geometry.sizeBytes();
+    }
+
+    public int nodeCount() {
+        return storage.nodeCount();
+    }
+
+    public int edgeCount() {
+        return storage.edgeCount();
+    }
+
+    public double nodeLat(int node) {
+        return storage.nodeLat(node);
+    }
+
+    public double nodeLon(int node) {
+        return storage.nodeLon(node);
+    }
+
+    public int degree(int node) {
+        return storage.degree(node);
+    }
+
+    public int firstEdge(int node) {
+        return storage.firstEdge(node);
+    }
+
+    public int endEdge(int node) {
+        return storage.firstEdge(node + 1);
+    }
+
+    public int edgeSource(int edge) {
+        return storage.edgeSource(edge);
+    }
+
+    public int edgeTarget(int edge) {
+        return storage.edgeTarget(edge);
+    }
+
+    public int edgeSegment(int edge) {
+        return geometry.segment(edge);
+    }
+
+    public Coordinate[] edgeCoordinates(int edge) {
+        return geometry.coordinates(edge);
+    }
+
+    public int edgePointCount(int edge) {
+        return geometry.pointCount(edge);
+    }
+
+    public int decodeEdge(int edge, double[] lats, double[] lons, int offset) {
+        return geometry.decode(edge, lats, lons, offset);
+    }
+
+    public float edgeLength(int edge) {
+        return storage.edgeLength(edge);
+    }
+
+    public float weight(CostProfile profile, int edge) {
+        return storage.weight(profile, edge);
+    }
+
+    public Optional<EdgeTerrain> terrain() {
+        return Optional.ofNullable(terrain);
+    }
+
+    public EdgeIndex edgeIndex() {
+        EdgeIndex index = edgeIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = edgeIndex;
+                if (index == null) {
+                    index = new EdgeIndex(this);
+                    edgeIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    public int nearestNode(double lat, double lon) {
+        if (nodeCount() == 0) {
+            throw new NoSuchElementException("Road network has no nodes");
+        }
+        return snapping.nearest(lat, lon);
+    }
+}
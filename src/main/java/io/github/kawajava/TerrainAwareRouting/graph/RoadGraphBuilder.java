@@ -0,0 +1,323 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.terrain.EdgeTerrain;
+import io.github.kawajava.TerrainAwareRouting.terrain.TerrainProfiler;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+@Slf4j
+public class RoadGraphBuilder {
+
+    public static final double DEFAULT_MERGE_TOLERANCE_METERS = 0.5;
+
+    private static final int LENGTH_BATCH_POINTS = 4096;
+    private static final int SEGMENT_CHUNK = 4096;
+    private static final int PIECE_CHUNK = 4096;
+    private static final int EDGE_CHUNK = 16384;
+
+    private final double mergeToleranceMeters;
+    private final TerrainProfiler terrainProfiler;
+    private final GraphLayout layout;
+
+    public RoadGraphBuilder() {
+        this(DEFAULT_MERGE_TOLERANCE_METERS, null);
+    }
+
+    public RoadGraphBuilder(TerrainProfiler terrainProfiler) {
+        this(DEFAULT_MERGE_TOLERANCE_METERS, terrainProfiler);
+    }
+
+    public RoadGraphBuilder(double mergeToleranceMeters, TerrainProfiler terrainProfiler) {
+        this(mergeToleranceMeters, terrainProfiler, GraphLayout.HEAP);
+    }
+
+    public RoadGraphBuilder(double mergeToleranceMeters, TerrainProfiler terrainProfiler, GraphLayout layout) {
+        if (!(mergeToleranceMeters >= 0)) {
+            throw new IllegalArgumentException("Merge tolerance must be non-negative: " + mergeToleranceMeters);
+        }
+        this.mergeToleranceMeters = mergeToleranceMeters;
+        if (layout == GraphLayout.TILED) {
+            throw new IllegalArgumentException("Tiled graphs are written from a compiled graph with GraphTiles");
+        }
+        this.terrainProfiler = terrainProfiler;
+        this.layout = layout;
+    }
+
+    public RoadGraph build(List<RoadSegment> segments) {
+        int segmentCount = segments.size();
+        int[] vertexStart = new int[segmentCount + 1];
+        for (int i = 0; i < segmentCount; i++) {
+            RoadSegment seg = segments.get(i);
+            vertexStart[i + 1] = vertexStart[i] + (seg.flooded() ? 0 : seg.geometry().getNumPoints());
+        }
+        int totalVertices = vertexStart[segmentCount];
+
+        double[] rawLat = new double[totalVertices];
+        double[] rawLon = new double[totalVertices];
+        chunks(segmentCount, SEGMENT_CHUNK, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                if (vertexStart[i + 1] > vertexStart[i]) {
+                    Coordinate[] coords = segments.get(i).geometry().getCoordinates();
+                    for (int k = 0; k < coords.length; k++) {
+                        rawLat[vertexStart[i] + k] = coords[k].y;
+                        rawLon[vertexStart[i] + k] = coords[k].x;
+                    }
+                }
+            }
+        });
+        VertexMerger.Result vertices = VertexMerger.merge(rawLat, rawLon, mergeToleranceMeters);
+        int[] ids = vertices.vertexOf();
+
+        int[] uses = new int[vertices.size()];
+        for (int i = 0; i < segmentCount; i++) {
+            int first = vertexStart[i], last = vertexStart[i + 1] - 1;
+            if (last - first < 1) {
+                continue;
+            }
+            uses[ids[first]] += 2;
+            uses[ids[last]] += 2;
+            for (int k = first + 1; k < last; k++) {
+                uses[ids[k]]++;
+            }
+        }
+        for (int i = 0; i < segmentCount; i++) {
+            if (vertexStart[i + 1] - vertexStart[i] >= 2) {
+                splitLoops(ids, vertexStart[i], vertexStart[i + 1], uses);
+            }
+        }
+
+        int[] nodeOf = new int[vertices.size()];
+        int nodes = 0;
+        for (int v = 0; v < vertices.size(); v++) {
+            nodeOf[v] = uses[v] >= 2 ? nodes++ : -1;
+        }
+        double[] nodeLat = new double[nodes];
+        double[] nodeLon = new double[nodes];
+        IntStream.range(0, vertices.size()).parallel().forEach(v -> {
+            if (nodeOf[v] >= 0) {
+                nodeLat[nodeOf[v]] = vertices.lat()[v];
+                nodeLon[nodeOf[v]] = vertices.lon()[v];
+            }
+        });
+
+        // pieces are counted per segment, placed by a prefix sum and then filled in parallel
+        int[] pieceStart = new int[segmentCount + 1];
+        chunks(segmentCount, SEGMENT_CHUNK, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                pieceStart[i + 1] = splitPieces(ids, i, vertexStart, nodeOf, null, 0);
+            }
+        });
+        for (int i = 0; i < segmentCount; i++) {
+            pieceStart[i + 1] += pieceStart[i];
+        }
+        Pieces pieces = new Pieces(pieceStart[segmentCount]);
+        chunks(segmentCount, SEGMENT_CHUNK, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                splitPieces(ids, i, vertexStart, nodeOf, pieces, pieceStart[i]);
+            }
+        });
+
+        int edges = pieces.size * 2;
+        int[] degree = new int[nodes];
+        int[] firstEdge = new int[nodes + 1];
+        for (int p = 0; p < pieces.size; p++) {
+            firstEdge[pieces.from[p] + 1]++;
+            firstEdge[pieces.to[p] + 1]++;
+            degree[pieces.from[p]]++;
+            degree[pieces.to[p]]++;
+        }
+        for (int n = 0; n < nodes; n++) {
+            firstEdge[n + 1] += firstEdge[n];
+        }
+
+        int pieceChunks = (pieces.size + PIECE_CHUNK - 1) / PIECE_CHUNK;
+        List<GeometryStore.Builder> parts = IntStream.range(0, pieceChunks).parallel().mapToObj(chunk -> {
+            int from = chunk * PIECE_CHUNK;
+            int to = Math.min(pieces.size, from + PIECE_CHUNK);
+            GeometryStore.Builder part = GeometryStore.builder(to - from);
+            for (int p = from; p < to; p++) {
+                int seg = pieces.segment[p];
+                part.add(seg, segments.get(seg).geometry().getCoordinates(), pieces.first[p], pieces.last[p]);
+            }
+            return part;
+        }).toList();
+        GeometryStore.Builder store = GeometryStore.Builder.concat(parts);
+
+        int[] cursor = firstEdge.clone();
+        int[] edgeSource = new int[edges];
+        int[] edgeTarget = new int[edges];
+        int[] edgePiece = new int[edges];
+        for (int p = 0; p < pieces.size; p++) {
+            int forward = cursor[pieces.from[p]]++;
+            edgeSource[forward] = pieces.from[p];
+            edgeTarget[forward] = pieces.to[p];
+            edgePiece[forward] = PieceGeometry.ref(p, false);
+
+            int backward = cursor[pieces.to[p]]++;
+            edgeSource[backward] = pieces.to[p];
+            edgeTarget[backward] = pieces.from[p];
+            edgePiece[backward] = PieceGeometry.ref(p, true);
+        }
+
+        GraphArena arena = layout == GraphLayout.OFF_HEAP ? GraphArena.shared() : null;
+        PieceGeometry geometry = new PieceGeometry(store.build(arena), arena == null
+                ? IntBuffer.wrap(edgePiece)
+                : arena.allocate((long) edges * Integer.BYTES).asIntBuffer().put(0, edgePiece));
+        float[] edgeLength = new float[edges];
+        GeoKernels kernels = GeoKernels.best();
+        chunks(edges, EDGE_CHUNK, (from, to) -> edgeLengths(geometry, from, to, kernels, edgeLength));
+
+        EdgeTerrain terrain = terrainProfiler == null ? null : terrainProfiler.profile(edges, geometry::coordinates);
+        float[][] weights = new float[CostProfile.values().length][edges];
+        chunks(edges, EDGE_CHUNK, (from, to) -> {
+            for (int e = from; e < to; e++) {
+                RoadSegment seg = segments.get(geometry.segment(e));
+                double ascent = terrain == null ? 0 : terrain.ascent()[e];
+                double descent = terrain == null ? 0 : terrain.descent()[e];
+                int oneway = CostProfile.onewayDirection(seg.properties());
+                boolean wrongWay = oneway != 0 && geometry.reversed(e) == (oneway > 0);
+                for (CostProfile profile : CostProfile.values()) {
+                    weights[profile.ordinal()][e] = wrongWay && profile.honoursOneway()
+                            ? Float.POSITIVE_INFINITY
+                            : profile.weight(edgeLength[e], seg.properties(), ascent, descent);
+                }
+            }
+        });
+
+        GraphStorage storage = new HeapGraphStorage(nodeLat, nodeLon, degree, firstEdge,
+                edgeSource, edgeTarget, edgeLength, weights);
+        if (arena != null) {
+            storage = OffHeapGraphStorage.copyOf(storage, arena);
+        }
+
+        log.info("Compiled road graph: {} segments, {} vertices, {} nodes, {} edges, {} cost profiles, {} layout "
+                        + "({} KiB geometry, {} KiB off-heap)",
+                segments.size(), totalVertices, nodes, edges, weights.length, layout,
+                geometry.sizeBytes() / 1024, (storage.offHeapBytes() + geometry.offHeapBytes()) / 1024);
+        return new RoadGraph(storage, geometry, terrain);
+    }
+
+    // decodes runs of edges into one coordinate buffer so the length kernel sees long arrays instead of
+    // a few points per edge; the pairs that straddle two edges are computed and ignored
+    static float[] edgeLengths(EdgeGeometry geometry, int edges, GeoKernels kernels) {
+        float[] lengths = new float[edges];
+        edgeLengths(geometry, 0, edges, kernels, lengths);
+        return lengths;
+    }
+
+    private static void edgeLengths(EdgeGeometry geometry, int from, int edges, GeoKernels kernels, float[] lengths) {
+        double[] lats = new double[LENGTH_BATCH_POINTS];
+        double[] lons = new double[LENGTH_BATCH_POINTS];
+        double[] meters = new double[LENGTH_BATCH_POINTS];
+        int[] starts = new int[LENGTH_BATCH_POINTS + 1];
+        int e = from;
+        while (e < edges) {
+            int first = e;
+            int used = 0;
+            while (e < edges && (e == first || used + geometry.pointCount(e) <= lats.length)) {
+                int points = geometry.pointCount(e);
+                if (used + points > lats.length) {
+                    lats = Arrays.copyOf(lats, used + points);
+                    lons = Arrays.copyOf(lons, used + points);
+                    meters = new double[used + points];
+                }
+                if (e - first + 1 >= starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[e - first] = used;
+                used += geometry.decode(e, lats, lons, used);
+                e++;
+            }
+            starts[e - first] = used;
+            kernels.segmentLengths(lats, lons, used, meters);
+            for (int k = first; k < e; k++) {
+                double length = 0;
+                for (int i = starts[k - first]; i + 1 < starts[k - first + 1]; i++) {
+                    length += meters[i];
+                }
+                lengths[k] = (float) length;
+            }
+        }
+    }
+
+    // runs the body over consecutive ranges on the fork-join pool of the calling thread; every range writes
+    // its own slots, so the result is the same for any number of threads
+    private static void chunks(int count, int chunk, RangeBody body) {
+        IntStream.range(0, (count + chunk - 1) / chunk).parallel()
+                .forEach(c -> body.run(c * chunk, Math.min(count, (c + 1) * chunk)));
+    }
+
+    private interface RangeBody {
+        void run(int from, int to);
+    }
+
+    // emits the pieces between consecutive nodes of one segment, or only counts them when pieces is null
+    private static int splitPieces(int[] ids, int seg, int[] vertexStart, int[] nodeOf, Pieces pieces, int at) {
+        int first = vertexStart[seg], end = vertexStart[seg + 1];
+        if (end - first < 2) {
+            return 0;
+        }
+        int count = 0;
+        int start = first;
+        for (int k = first + 1; k < end; k++) {
+            int node = nodeOf[ids[k]];
+            if (node < 0) {
+                continue;
+            }
+            int from = nodeOf[ids[start]];
+            if (from != node) {
+                if (pieces != null) {
+                    pieces.set(at + count, seg, start - first, k - first, from, node);
+                }
+                count++;
+            }
+            start = k;
+        }
+        return count;
+    }
+
+    private static void splitLoops(int[] ids, int first, int end, int[] uses) {
+        int start = first;
+        for (int k = first + 1; k < end; k++) {
+            if (uses[ids[k]] < 2) {
+                continue;
+            }
+            if (ids[k] == ids[start] && k - start >= 2) {
+                uses[ids[(start + k) / 2]] += 2;
+            }
+            start = k;
+        }
+    }
+
+    private static final class Pieces {
+        final int[] segment;
+        final int[] first;
+        final int[] last;
+        final int[] from;
+        final int[] to;
+        final int size;
+
+        Pieces(int size) {
+            this.size = size;
+            segment = new int[size];
+            first = new int[size];
+            last = new int[size];
+            from = new int[size];
+            to = new int[size];
+        }
+
+        void set(int piece, int seg, int firstVertex, int lastVertex, int fromNode, int toNode) {
+            segment[piece] = seg;
+            first[piece] = firstVertex;
+            last[piece] = lastVertex;
+            from[piece] = fromNode;
+            to[piece] = toNode;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+final class ScalarGeoKernels implements GeoKernels {
+
+    static final ScalarGeoKernels INSTANCE = new ScalarGeoKernels();
+
+    private ScalarGeoKernels() {
+    }
+
+    @Override
+    public void segmentLengths(double[] lats, double[] lons, int count, double[] meters) {
+        for (int i = 0; i + 1 < count; i++) {
+            meters[i] = Geodesy.distanceMeters(lats[i], lons[i], lats[i + 1], lons[i + 1]);
+        }
+    }
+
+    @Override
+    public void bounds(double[] lats, double[] lons, int from, int to, double[] out) {
+        double minLat = Double.POSITIVE_INFINITY, minLon = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY, maxLon = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            minLat = Math.min(minLat, lats[i]);
+            maxLat = Math.max(maxLat, lats[i]);
+            minLon = Math.min(minLon, lons[i]);
+            maxLon = Math.max(maxLon, lons[i]);
+        }
+        out[0] = minLat;
+        out[1] = minLon;
+        out[2] = maxLat;
+        out[3] = maxLon;
+    }
+
+    @Override
+    public void crossRing(double[] ringX, double[] ringY, int ringLength, double[] xs, double[] ys, int count,
+                          boolean[] inside) {
+        crossRing(ringX, ringY, ringLength, xs, ys, 0, count, inside);
+    }
+
+    static void crossRing(double[] ringX, double[] ringY, int ringLength, double[] xs, double[] ys, int from, int to,
+                          boolean[] inside) {
+        for (int p = from; p < to; p++) {
+            double x = xs[p], y = ys[p];
+            boolean odd = false;
+            for (int j = 0; j + 1 < ringLength; j++) {
+                double y1 = ringY[j], y2 = ringY[j + 1];
+                if ((y1 > y) != (y2 > y) && x < ringX[j] + (y - y1) * ((ringX[j + 1] - ringX[j]) / (y2 - y1))) {
+                    odd = !odd;
+                }
+            }
+            inside[p] ^= odd;
+        }
+    }
+
+    @Override
+    public int lanes() {
+        return 1;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
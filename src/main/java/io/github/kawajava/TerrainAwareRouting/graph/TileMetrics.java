@@ -0,0 +1,5 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+public record TileMetrics(int tiles, int residentTiles, long residentBytes, long budgetBytes,
+                          long hits, long loads, long evictions, double meanLoadMillis, double maxLoadMillis) {
+}
@@ -0,0 +1,293 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+final class TiledGraphStorage implements GraphStorage, EdgeGeometry, NodeLocator {
+
+    private final Path dir;
+    private final double tileDegrees;
+    private final int[] tileNodeStart;
+    private final int[] tileEdgeStart;
+    private final Map<Long, Integer> tileByKey = new HashMap<>();
+    private final int minRow, maxRow, minCol, maxCol;
+    private final long budgetBytes;
+
+    private final AtomicReferenceArray<GraphTile> resident;
+    private final AtomicLongArray lastUse;
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong residentBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+    private final AtomicLong maxLoadNanos = new AtomicLong();
+
+    private int nodeTileHint;
+    private int edgeTileHint;
+
+    TiledGraphStorage(Path dir, double tileDegrees, int[] rows, int[] cols,
+                      int[] tileNodeStart, int[] tileEdgeStart, long budgetBytes) {
+        this.dir = dir;
+        this.tileDegrees = tileDegrees;
+        this.tileNodeStart = tileNodeStart;
+        this.tileEdgeStart = tileEdgeStart;
+        this.budgetBytes = budgetBytes;
+        for (int t = 0; t < rows.length; t++) {
+            tileByKey.put(GraphTiles.key(rows[t], cols[t]), t);
+        }
+        this.minRow = Arrays.stream(rows).min().orElse(0);
+        this.maxRow = Arrays.stream(rows).max().orElse(0);
+        this.minCol = Arrays.stream(cols).min().orElse(0);
+        this.maxCol = Arrays.stream(cols).max().orElse(0);
+        this.resident = new AtomicReferenceArray<>(rows.length);
+        this.lastUse = new AtomicLongArray(rows.length);
+    }
+
+    TileMetrics metrics() {
+        int residentTiles = 0;
+        for (int t = 0; t < resident.length(); t++) {
+            residentTiles += resident.get(t) == null ? 0 : 1;
+        }
+        long loaded = loads.get();
+        return new TileMetrics(resident.length(), residentTiles, residentBytes.get(), budgetBytes,
+                hits.sum(), loaded, evictions.get(),
+                loaded == 0 ? 0 : loadNanos.get() / 1e6 / loaded, maxLoadNanos.get() / 1e6);
+    }
+
+    @Override
+    public int nodeCount() {
+        return tileNodeStart[tileNodeStart.length - 1];
+    }
+
+    @Override
+    public int edgeCount() {
+        return tileEdgeStart[tileEdgeStart.length - 1];
+    }
+
+    @Override
+    public double nodeLat(int node) {
+        GraphTile tile = nodeTile(node);
+        return tile.nodeLat.get(node - tile.nodeStart);
+    }
+
+    @Override
+    public double nodeLon(int node) {
+        GraphTile tile = nodeTile(node);
+        return tile.nodeLon.get(node - tile.nodeStart);
+    }
+
+    @Override
+    public int degree(int node) {
+        GraphTile tile = nodeTile(node);
+        return tile.nodeDegree.get(node - tile.nodeStart);
+    }
+
+    @Override
+    public int firstEdge(int node) {
+        if (node == nodeCount()) {
+            return edgeCount();
+        }
+        GraphTile tile = nodeTile(node);
+        return tile.firstEdge.get(node - tile.nodeStart);
+    }
+
+    @Override
+    public int edgeSource(int edge) {
+        GraphTile tile = edgeTile(edge);
+        return tile.edgeSource.get(edge - tile.edgeStart);
+    }
+
+    @Override
+    public int edgeTarget(int edge) {
+        GraphTile tile = edgeTile(edge);
+        return tile.edgeTarget.get(edge - tile.edgeStart);
+    }
+
+    @Override
+    public float edgeLength(int edge) {
+        GraphTile tile = edgeTile(edge);
+        return tile.edgeLength.get(edge - tile.edgeStart);
+    }
+
+    @Override
+    public float weight(CostProfile profile, int edge) {
+        GraphTile tile = edgeTile(edge);
+        return tile.weights[profile.ordinal()].get(edge - tile.edgeStart);
+    }
+
+    @Override
+    public int segment(int edge) {
+        GraphTile tile = edgeTile(edge);
+        return tile.edgeSegment.get(edge - tile.edgeStart);
+    }
+
+    @Override
+    public int pointCount(int edge) {
+        GraphTile tile = edgeTile(edge);
+        return tile.geometry.pointCount(edge - tile.edgeStart);
+    }
+
+    @Override
+    public int decode(int edge, double[] lats, double[] lons, int offset) {
+        GraphTile tile = edgeTile(edge);
+        return tile.geometry.decode(edge - tile.edgeStart, false, lats, lons, offset);
+    }
+
+    @Override
+    public Coordinate[] coordinates(int edge) {
+        GraphTile tile = edgeTile(edge);
+        return tile.geometry.coordinates(edge - tile.edgeStart, false);
+    }
+
+    @Override
+    public long sizeBytes() {
+        long bytes = 0;
+        for (int t = 0; t < resident.length(); t++) {
+            GraphTile tile = resident.get(t);
+            bytes += tile == null ? 0 : tile.geometry.sizeBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return residentBytes.get();
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return 0;
+    }
+
+    @Override
+    public int nearest(double lat, double lon) {
+        int row = GraphTiles.row(lat, tileDegrees);
+        int col = GraphTiles.col(lon, tileDegrees);
+        double cosLat = Math.cos(Math.toRadians(lat));
+        double ringSpacing = tileDegrees * Math.min(1.0, cosLat);
+        int maxRing = Math.max(Math.max(Math.abs(row - minRow), Math.abs(row - maxRow)),
+                Math.max(Math.abs(col - minCol), Math.abs(col - maxCol)));
+
+        int best = -1;
+        double bestDistSq = Double.POSITIVE_INFINITY;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            double bound = (ring - 1) * ringSpacing;
+            if (best >= 0 && bound > 0 && bound * bound > bestDistSq) {
+                break;
+            }
+            for (int r = row - ring; r <= row + ring; r++) {
+                int step = r == row - ring || r == row + ring ? 1 : Math.max(1, 2 * ring);
+                for (int c = col - ring; c <= col + ring; c += step) {
+                    Integer t = tileByKey.get(GraphTiles.key(r, c));
+                    if (t == null) { continue; }
+                    GraphTile tile = tile(t);
+                    for (int i = 0; i < tile.nodeCount; i++) {
+                        double dy = tile.nodeLat.get(i) - lat;
+                        double dx = (tile.nodeLon.get(i) - lon) * cosLat;
+                        double distSq = dx * dx + dy * dy;
+                        if (distSq < bestDistSq) {
+                            bestDistSq = distSq;
+                            best = tile.nodeStart + i;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private GraphTile nodeTile(int node) {
+        int hint = nodeTileHint;
+        if (node < tileNodeStart[hint] || node >= tileNodeStart[hint + 1]) {
+            hint = locate(tileNodeStart, node);
+            nodeTileHint = hint;
+        }
+        return tile(hint);
+    }
+
+    private GraphTile edgeTile(int edge) {
+        int hint = edgeTileHint;
+        if (edge < tileEdgeStart[hint] || edge >= tileEdgeStart[hint + 1]) {
+            hint = locate(tileEdgeStart, edge);
+            edgeTileHint = hint;
+        }
+        return tile(hint);
+    }
+
+    private static int locate(int[] starts, int id) {
+        int index = Arrays.binarySearch(starts, id);
+        if (index < 0) {
+            return -index - 2;
+        }
+        while (index + 1 < starts.length - 1 && starts[index + 1] == id) {
+            index++;
+        }
+        return index;
+    }
+
+    private GraphTile tile(int t) {
+        GraphTile tile = resident.get(t);
+        if (tile != null) {
+            hits.increment();
+            lastUse.setOpaque(t, clock.get());
+            return tile;
+        }
+        return load(t);
+    }
+
+    private synchronized GraphTile load(int t) {
+        GraphTile tile = resident.get(t);
+        if (tile != null) {
+            return tile;
+        }
+        long start = System.nanoTime();
+        try {
+            tile = GraphTile.read(dir.resolve(GraphTiles.tileFile(t)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to load road graph tile " + t + " from " + dir, e);
+        }
+        long elapsed = System.nanoTime() - start;
+        loads.incrementAndGet();
+        loadNanos.addAndGet(elapsed);
+        maxLoadNanos.accumulateAndGet(elapsed, Math::max);
+
+        lastUse.set(t, clock.incrementAndGet());
+        resident.set(t, tile);
+        residentBytes.addAndGet(tile.sizeBytes);
+        evictOver(t);
+        log.debug("Loaded road graph tile {} ({} nodes, {} KiB) in {} us", t, tile.nodeCount, tile.sizeBytes / 1024, elapsed / 1000);
+        return tile;
+    }
+
+    private void evictOver(int keep) {
+        while (residentBytes.get() > budgetBytes) {
+            int victim = -1;
+            long oldest = Long.MAX_VALUE;
+            for (int t = 0; t < resident.length(); t++) {
+                if (t != keep && resident.get(t) != null && lastUse.get(t) < oldest) {
+                    oldest = lastUse.get(t);
+                    victim = t;
+                }
+            }
+            if (victim < 0) {
+                return;
+            }
+            GraphTile evicted = resident.getAndSet(victim, null);
+            residentBytes.addAndGet(-evicted.sizeBytes);
+            evictions.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+final class VectorGeoKernels implements GeoKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double TO_RADIANS = Math.PI / 180;
+
+    @Override
+    public void segmentLengths(double[] lats, double[] lons, int count, double[] meters) {
+        int lanes = SPECIES.length();
+        int i = 0;
+        for (; i + lanes < count; i += lanes) {
+            DoubleVector lat1 = DoubleVector.fromArray(SPECIES, lats, i).mul(TO_RADIANS);
+            DoubleVector lat2 = DoubleVector.fromArray(SPECIES, lats, i + 1).mul(TO_RADIANS);
+            DoubleVector lon1 = DoubleVector.fromArray(SPECIES, lons, i).mul(TO_RADIANS);
+            DoubleVector lon2 = DoubleVector.fromArray(SPECIES, lons, i + 1).mul(TO_RADIANS);
+            DoubleVector sinLat = lat2.sub(lat1).mul(0.5).lanewise(VectorOperators.SIN);
+            DoubleVector sinLon = lon2.sub(lon1).mul(0.5).lanewise(VectorOperators.SIN);
+            DoubleVector a = sinLat.mul(sinLat).add(lat1.lanewise(VectorOperators.COS)
+                    .mul(lat2.lanewise(VectorOperators.COS)).mul(sinLon.mul(sinLon)));
+            a.min(1.0).sqrt().lanewise(VectorOperators.ASIN).mul(2 * Geodesy.EARTH_RADIUS_METERS)
+                    .intoArray(meters, i);
+        }
+        for (; i + 1 < count; i++) {
+            meters[i] = Geodesy.distanceMeters(lats[i], lons[i], lats[i + 1], lons[i + 1]);
+        }
+    }
+
+    @Override
+    public void bounds(double[] lats, double[] lons, int from, int to, double[] out) {
+        int lanes = SPECIES.length();
+        double minLat = Double.POSITIVE_INFINITY, minLon = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY, maxLon = Double.NEGATIVE_INFINITY;
+        int i = from;
+        if (to - from >= lanes) {
+            DoubleVector loLat = DoubleVector.broadcast(SPECIES, minLat), hiLat = DoubleVector.broadcast(SPECIES, maxLat);
+            DoubleVector loLon = DoubleVector.broadcast(SPECIES, minLon), hiLon = DoubleVector.broadcast(SPECIES, maxLon);
+            for (; i + lanes <= to; i += lanes) {
+                DoubleVector lat = DoubleVector.fromArray(SPECIES, lats, i);
+                DoubleVector lon = DoubleVector.fromArray(SPECIES, lons, i);
+                loLat = loLat.min(lat);
+                hiLat = hiLat.max(lat);
+                loLon = loLon.min(lon);
+                hiLon = hiLon.max(lon);
+            }
+            minLat = loLat.reduceLanes(VectorOperators.MIN);
+            maxLat = hiLat.reduceLanes(VectorOperators.MAX);
+            minLon = loLon.reduceLanes(VectorOperators.MIN);
+            maxLon = hiLon.reduceLanes(VectorOperators.MAX);
+        }
+        for (; i < to; i++) {
+            minLat = Math.min(minLat, lats[i]);
+            maxLat = Math.max(maxLat, lats[i]);
+            minLon = Math.min(minLon, lons[i]);
+            maxLon = Math.max(maxLon, lons[i]);
+        }
+        out[0] = minLat;
+        out[1] = minLon;
+        out[2] = maxLat;
+        out[3] = maxLon;
+    }
+
+    // one lane per point, ring edges broadcast one at a time; edges outside the y-range of the lane group are
+    // skipped with a scalar test, which drops most of them when the points are sorted by y
+    @Override
+    public void crossRing(double[] ringX, double[] ringY, int ringLength, double[] xs, double[] ys, int count,
+                          boolean[] inside) {
+        int lanes = SPECIES.length();
+        int p = 0;
+        for (; p + lanes <= count; p += lanes) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, p);
+            DoubleVector y = DoubleVector.fromArray(SPECIES, ys, p);
+            double yLo = y.reduceLanes(VectorOperators.MIN);
+            double yHi = y.reduceLanes(VectorOperators.MAX);
+            VectorMask<Double> odd = VectorMask.fromArray(SPECIES, inside, p);
+            for (int j = 0; j + 1 < ringLength; j++) {
+                double y1 = ringY[j], y2 = ringY[j + 1];
+                if (y1 == y2 || Math.min(y1, y2) > yHi || Math.max(y1, y2) <= yLo) {
+                    continue;
+                }
+                VectorMask<Double> straddles = y.compare(VectorOperators.LT, y1)
+                        .xor(y.compare(VectorOperators.LT, y2));
+                double slope = (ringX[j + 1] - ringX[j]) / (y2 - y1);
+                DoubleVector crossing = y.sub(y1).mul(slope).add(ringX[j]);
+                odd = odd.xor(straddles.and(x.compare(VectorOperators.LT, crossing)));
+            }
+            odd.intoArray(inside, p);
+        }
+        ScalarGeoKernels.crossRing(ringX, ringY, ringLength, xs, ys, p, count, inside);
+    }
+
+    @Override
+    public int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public String name() {
+        return "vector";
+    }
+}
@@ -0,0 +1,206 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Merges vertices closer than the tolerance in parallel. The hash grid is partitioned into vertical stripes of cells,
+// each with its own table: even stripes are merged first and odd stripes second, so a stripe only reads tables that
+// no other thread is writing. Vertices are taken in input order within a stripe and ids are handed out in order of
+// first appearance, so the result does not depend on the number of threads.
+final class VertexMerger {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    private static final int STRIPES = 256;
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    record Result(int[] vertexOf, double[] lat, double[] lon) {
+
+        int size() {
+            return lat.length;
+        }
+    }
+
+    private final double[] lat;
+    private final double[] lon;
+    private final double cellDegrees;
+    private final double cellLonDegrees;
+    private final double toleranceSq;
+    private final long[] cellX;
+    private final int[] representative;
+    private final int[] nextInCell;
+    private final CellTable[] tables;
+    private long minCell;
+    private long stripeWidth;
+
+    private VertexMerger(double[] lat, double[] lon, double toleranceMeters) {
+        double toleranceDegrees = toleranceMeters / METERS_PER_DEGREE;
+        this.lat = lat;
+        this.lon = lon;
+        this.cellDegrees = Math.max(toleranceDegrees, 1e-7);
+        // a degree of longitude shrinks with the cosine of the latitude, so the cells are widened for the latitude
+        // farthest from the equator and the tolerance never spans more than one neighbouring cell
+        double maxAbsLat = Arrays.stream(lat).parallel().map(Math::abs).max().orElse(0);
+        this.cellLonDegrees = cellDegrees / Math.max(Math.cos(Math.toRadians(Math.min(maxAbsLat, 90))), 1e-6);
+        this.toleranceSq = toleranceDegrees * toleranceDegrees;
+        this.cellX = new long[lat.length];
+        this.representative = new int[lat.length];
+        this.nextInCell = new int[lat.length];
+        this.tables = new CellTable[STRIPES];
+    }
+
+    static Result merge(double[] lat, double[] lon, double toleranceMeters) {
+        return new VertexMerger(lat, lon, toleranceMeters).merge();
+    }
+
+    private Result merge() {
+        int count = lat.length;
+        IntStream.range(0, count).parallel().forEach(i -> cellX[i] = (long) Math.floor(lon[i] / cellLonDegrees));
+        minCell = count == 0 ? 0 : Arrays.stream(cellX).parallel().min().getAsLong();
+        long maxCell = count == 0 ? 0 : Arrays.stream(cellX).parallel().max().getAsLong();
+        stripeWidth = Math.max(1, (maxCell - minCell) / STRIPES + 1);
+
+        int[] stripeStart = new int[STRIPES + 1];
+        for (int i = 0; i < count; i++) {
+            stripeStart[stripe(cellX[i]) + 1]++;
+        }
+        for (int s = 0; s < STRIPES; s++) {
+            stripeStart[s + 1] += stripeStart[s];
+        }
+        int[] order = new int[count];
+        int[] cursor = stripeStart.clone();
+        for (int i = 0; i < count; i++) {
+            order[cursor[stripe(cellX[i])]++] = i;
+        }
+
+        for (int parity = 0; parity < 2; parity++) {
+            int first = parity;
+            IntStream.range(0, STRIPES / 2).parallel().forEach(half -> {
+                int s = 2 * half + first;
+                CellTable table = new CellTable(stripeStart[s + 1] - stripeStart[s]);
+                for (int k = stripeStart[s]; k < stripeStart[s + 1]; k++) {
+                    resolve(order[k], table);
+                }
+                tables[s] = table;
+            });
+        }
+
+        int[] id = new int[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            id[i] = representative[i] == i ? size++ : -1;
+        }
+        double[] mergedLat = new double[size];
+        double[] mergedLon = new double[size];
+        int[] vertexOf = new int[count];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            vertexOf[i] = id[representative[i]];
+            if (id[i] >= 0) {
+                mergedLat[id[i]] = lat[i];
+                mergedLon[id[i]] = lon[i];
+            }
+        });
+        return new Result(vertexOf, mergedLat, mergedLon);
+    }
+
+    private void resolve(int vertex, CellTable own) {
+        double vertexLat = lat[vertex];
+        double vertexLon = lon[vertex];
+        long cx = cellX[vertex];
+        long cy = (long) Math.floor(vertexLat / cellDegrees);
+        double cosLat = Math.cos(Math.toRadians(vertexLat));
+        int ownStripe = stripe(cx);
+
+        for (long dx = -1; dx <= 1; dx++) {
+            int s = stripe(cx + dx);
+            CellTable table = s == ownStripe ? own : tables[s];
+            if (table == null) {
+                continue;
+            }
+            for (long dy = -1; dy <= 1; dy++) {
+                for (int v = table.head(key(cx + dx, cy + dy)); v >= 0; v = nextInCell[v]) {
+                    double dLat = lat[v] - vertexLat;
+                    double dLon = (lon[v] - vertexLon) * cosLat;
+                    if (dLat * dLat + dLon * dLon <= toleranceSq) {
+                        representative[vertex] = v;
+                        return;
+                    }
+                }
+            }
+        }
+        representative[vertex] = vertex;
+        nextInCell[vertex] = own.push(key(cx, cy), vertex);
+    }
+
+    private int stripe(long cx) {
+        return (int) Math.min(Math.max((cx - minCell) / stripeWidth, 0), STRIPES - 1);
+    }
+
+    private static long key(long cx, long cy) {
+        return (cx << 32) ^ (cy & 0xFFFF_FFFFL);
+    }
+
+    private static long mix(long key) {
+        key *= 0x9E37_79B9_7F4A_7C15L;
+        return key ^ (key >>> 29);
+    }
+
+    private static final class CellTable {
+
+        private long[] keys;
+        private int[] heads;
+        private int occupied;
+
+        CellTable(int expectedVertices) {
+            int capacity = Integer.highestOneBit(Math.max(16, expectedVertices) * 2 - 1) << 1;
+            keys = new long[capacity];
+            heads = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        int head(long key) {
+            int slot = slot(key);
+            return keys[slot] == EMPTY ? -1 : heads[slot];
+        }
+
+        // returns the previous head of the cell, which becomes the next vertex in its chain
+        int push(long key, int vertex) {
+            int slot = slot(key);
+            int previous = -1;
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                occupied++;
+            } else {
+                previous = heads[slot];
+            }
+            heads[slot] = vertex;
+            if (occupied * 2 > keys.length) {
+                rehash();
+            }
+            return previous;
+        }
+
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) mix(key) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldHeads = heads;
+            keys = new long[oldKeys.length * 2];
+            heads = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    heads[slot] = oldHeads[i];
+                }
+            }
+        }
+    }
+}
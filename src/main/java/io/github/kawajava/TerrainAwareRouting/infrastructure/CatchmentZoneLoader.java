@@ -0,0 +1,61 @@
+package io.github.kawajava.TerrainAwareRouting.infrastructure;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.kawajava.TerrainAwareRouting.domain.CatchmentZone;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+@Slf4j
+@Component
+public class CatchmentZoneLoader {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+
+    public List<CatchmentZone> load(Path path) {
+        try {
+            return parse(objectMapper.readTree(Files.readString(path)));
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to read catchment zones from {}", path, e);
+            throw new IllegalStateException("Unable to load catchment zones");
+        }
+    }
+
+    List<CatchmentZone> parse(JsonNode root) {
+        JsonNode features = root.get("features");
+        if (features == null || !features.isArray()) {
+            throw new IllegalArgumentException("Invalid catchment GeoJSON: missing 'features'");
+        }
+        List<CatchmentZone> zones = StreamSupport.stream(features.spliterator(), false)
+                .map(this::parseZone)
+                .collect(Collectors.toList());
+        log.info("Loaded {} catchment zones", zones.size());
+        return zones;
+    }
+
+    CatchmentZone parseZone(JsonNode feature) {
+        JsonNode id = feature.path("properties").get("id");
+        JsonNode geometry = feature.get("geometry");
+        if (id == null || id.asText().isBlank()) {
+            throw new IllegalArgumentException("Catchment zone missing 'id' property");
+        }
+        if (geometry == null || !"Polygon".equals(geometry.path("type").asText())) {
+            throw new IllegalArgumentException("Catchment zone " + id.asText() + " must be a Polygon");
+        }
+        Coordinate[] shell = StreamSupport.stream(geometry.get("coordinates").get(0).spliterator(), false)
+                .map(node -> new Coordinate(node.get(0).asDouble(), node.get(1).asDouble()))
+                .toArray(Coordinate[]::new);
+        return new CatchmentZone(id.asText(), geometryFactory.createPolygon(shell));
+    }
+}
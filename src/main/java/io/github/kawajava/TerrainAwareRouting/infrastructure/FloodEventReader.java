@@ -0,0 +1,80 @@
+package io.github.kawajava.TerrainAwareRouting.infrastructure;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodEvent;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodPolygon;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.StreamSupport;
+
+@Component
+public class FloodEventReader {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+
+    public List<FloodEvent> parse(String ndjson) {
+        return ndjson.lines().map(this::parseLine).flatMap(Optional::stream).toList();
+    }
+
+    public Optional<FloodEvent> parseLine(String line) {
+        String payload = line.strip();
+        if (payload.startsWith("data:")) {
+            payload = payload.substring("data:".length()).strip();
+        } else if (payload.startsWith(":") || payload.startsWith("event:") || payload.startsWith("id:")
+                || payload.startsWith("retry:")) {
+            return Optional.empty();
+        }
+        if (payload.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(parseEvent(objectMapper.readTree(payload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid flood event: " + e.getOriginalMessage());
+        }
+    }
+
+    FloodEvent parseEvent(JsonNode node) {
+        String id = node.path("id").asText("");
+        if (id.isBlank()) {
+            throw new IllegalArgumentException("Flood event missing 'id'");
+        }
+        FloodEvent.Kind kind = FloodEvent.Kind.fromName(node.path("type").asText("modify"));
+        Long emittedAt = node.hasNonNull("timestamp") ? node.get("timestamp").asLong() : null;
+        if (kind == FloodEvent.Kind.REMOVE) {
+            return new FloodEvent(kind, new FloodPolygon(id, null), emittedAt);
+        }
+        return new FloodEvent(kind, new FloodPolygon(id, parsePolygon(node.get("geometry"))), emittedAt);
+    }
+
+    Polygon parsePolygon(JsonNode geometry) {
+        if (geometry == null || !"Polygon".equals(geometry.path("type").asText())) {
+            throw new IllegalArgumentException("Flood event geometry must be a Polygon");
+        }
+        JsonNode rings = geometry.get("coordinates");
+        if (rings == null || !rings.isArray() || rings.isEmpty()) {
+            throw new IllegalArgumentException("Polygon missing coordinates");
+        }
+        LinearRing shell = ring(rings.get(0));
+        LinearRing[] holes = new LinearRing[rings.size() - 1];
+        for (int i = 1; i < rings.size(); i++) {
+            holes[i - 1] = ring(rings.get(i));
+        }
+        return geometryFactory.createPolygon(shell, holes);
+    }
+
+    private LinearRing ring(JsonNode coordinates) {
+        return geometryFactory.createLinearRing(StreamSupport.stream(coordinates.spliterator(), false)
+                .map(c -> new Coordinate(c.get(0).asDouble(), c.get(1).asDouble()))
+                .toArray(Coordinate[]::new));
+    }
+}
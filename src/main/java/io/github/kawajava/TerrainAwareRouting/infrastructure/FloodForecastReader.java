@@ -0,0 +1,72 @@
+package io.github.kawajava.TerrainAwareRouting.infrastructure;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.kawajava.TerrainAwareRouting.domain.ForecastLayer;
+import lombok.RequiredArgsConstructor;
+import org.locationtech.jts.geom.Polygon;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Reads a GeoJSON FeatureCollection of forecast flood extents. Every feature carries the time step it is valid
+// from in properties.time (ISO-8601 or epoch milliseconds); features of the same time step form one layer.
+@Component
+@RequiredArgsConstructor
+public class FloodForecastReader {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final FloodEventReader polygons;
+
+    public List<ForecastLayer> parse(String geojson) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(geojson);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid flood forecast: " + e.getOriginalMessage());
+        }
+        JsonNode features = root.get("features");
+        if (features == null || !features.isArray()) {
+            throw new IllegalArgumentException("Invalid flood forecast: missing 'features'");
+        }
+
+        Map<Instant, List<Polygon>> layers = new TreeMap<>();
+        for (JsonNode feature : features) {
+            Instant time = parseTime(feature.path("properties").get("time"));
+            List<Polygon> layer = layers.computeIfAbsent(time, t -> new ArrayList<>());
+            JsonNode geometry = feature.get("geometry");
+            if (geometry != null && "MultiPolygon".equals(geometry.path("type").asText())) {
+                for (JsonNode part : geometry.path("coordinates")) {
+                    layer.add(polygons.parsePolygon(objectMapper.createObjectNode()
+                            .put("type", "Polygon")
+                            .set("coordinates", part)));
+                }
+            } else {
+                layer.add(polygons.parsePolygon(geometry));
+            }
+        }
+        return layers.entrySet().stream()
+                .map(layer -> new ForecastLayer(layer.getKey(), List.copyOf(layer.getValue())))
+                .toList();
+    }
+
+    private static Instant parseTime(JsonNode time) {
+        if (time == null || time.isNull()) {
+            throw new IllegalArgumentException("Forecast feature missing 'time'");
+        }
+        if (time.isNumber()) {
+            return Instant.ofEpochMilli(time.asLong());
+        }
+        try {
+            return Instant.parse(time.asText());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid forecast time: " + time.asText());
+        }
+    }
+}
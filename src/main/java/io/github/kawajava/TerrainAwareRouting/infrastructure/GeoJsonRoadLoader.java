@@ -3,6 +3,7 @@ package io.github.kawajava.TerrainAwareRouting.infrastructure;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.Geodesy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.locationtech.jts.geom.Coordinate;
@@ -11,11 +12,17 @@ import org.locationtech.jts.geom.LineString;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.StreamSupport;
 
 @Slf4j
@@ -23,6 +30,8 @@ import java.util.stream.StreamSupport;
 @RequiredArgsConstructor
 public class GeoJsonRoadLoader {
 
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final GeometryFactory geometryFactory = new GeometryFactory();
 
@@ -30,10 +39,14 @@ public class GeoJsonRoadLoader {
     private String geoJsonPath;
 
     public List<RoadSegment> loadRoadSegments() {
-        log.info("Loading road GeoJSON from: {}", geoJsonPath);
+        return loadRoadSegments(geoJsonPath);
+    }
+
+    public List<RoadSegment> loadRoadSegments(String path) {
+        log.info("Loading road GeoJSON from: {}", path);
 
-        JsonNode root = readGeoJson()
-                .orElseThrow(() -> new IllegalArgumentException("Road GeoJSON not found at: " + geoJsonPath));
+        JsonNode root = readGeoJson(path)
+                .orElseThrow(() -> new IllegalArgumentException("Road GeoJSON not found at: " + path));
 
         JsonNode features = getFeatures(root)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid road GeoJSON: missing 'features'"));
@@ -44,28 +57,36 @@ public class GeoJsonRoadLoader {
         return segments;
     }
 
-    Optional<JsonNode> readGeoJson() {
-        try (InputStream is = GeoJsonRoadLoader.class.getClassLoader().getResourceAsStream(geoJsonPath)) {
-            return Optional.ofNullable(objectMapper.readTree(is));
+    Optional<JsonNode> readGeoJson(String path) {
+        try (InputStream is = open(path)) {
+            return is == null ? Optional.empty() : Optional.ofNullable(objectMapper.readTree(is));
         } catch (Exception e) {
-            log.error("Failed to read GeoJSON from {}", geoJsonPath, e);
+            log.error("Failed to read GeoJSON from {}", path, e);
             throw new IllegalStateException("Unable to load road GeoJSON");
         }
     }
 
+    private InputStream open(String path) throws IOException {
+        if (path.startsWith(CLASSPATH_PREFIX)) {
+            return GeoJsonRoadLoader.class.getClassLoader().getResourceAsStream(path.substring(CLASSPATH_PREFIX.length()));
+        }
+        Path file = Path.of(path);
+        return Files.isRegularFile(file)
+                ? Files.newInputStream(file)
+                : GeoJsonRoadLoader.class.getClassLoader().getResourceAsStream(path);
+    }
+
     Optional<JsonNode> getFeatures(JsonNode root) {
         JsonNode features = root.get("features");
         return (features != null && features.isArray()) ? Optional.of(features) : Optional.empty();
     }
 
+    // features are converted in parallel by index, and the ordered collect keeps the file order
     List<RoadSegment> getRoadSegments(JsonNode features) {
-        return StreamSupport.stream(features.spliterator(), false)
-                .map(this::getGeometry)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .filter(this::isLineString)
-                .map(this::parseLineString)
-                .map(this::createRoadSegment)
+        return IntStream.range(0, features.size()).parallel()
+                .mapToObj(features::get)
+                .filter(feature -> getGeometry(feature).filter(this::isLineString).isPresent())
+                .map(feature -> createRoadSegment(parseLineString(feature.get("geometry")), getProperties(feature)))
                 .collect(Collectors.toList());
     }
 
@@ -73,6 +94,20 @@ public class GeoJsonRoadLoader {
         return Optional.ofNullable(feature.get("geometry"));
     }
 
+    Map<String, String> getProperties(JsonNode feature) {
+        JsonNode properties = feature.get("properties");
+        if (properties == null || !properties.isObject()) {
+            return Map.of();
+        }
+        Map<String, String> result = new HashMap<>();
+        for (Map.Entry<String, JsonNode> field : properties.properties()) {
+            if (field.getValue().isValueNode() && !field.getValue().isNull()) {
+                result.put(field.getKey(), field.getValue().asText());
+            }
+        }
+        return result;
+    }
+
     boolean isLineString(JsonNode geom) {
         return "LineString".equals(geom.get("type").asText());
     }
@@ -91,6 +126,11 @@ public class GeoJsonRoadLoader {
     }
 
     RoadSegment createRoadSegment(LineString lineString) {
-        return new RoadSegment(UUID.randomUUID().toString(), lineString, lineString.getLength(), false);
+        return createRoadSegment(lineString, Map.of());
+    }
+
+    RoadSegment createRoadSegment(LineString lineString, Map<String, String> properties) {
+        double length = Geodesy.lengthMeters(lineString.getCoordinates());
+        return new RoadSegment(UUID.randomUUID().toString(), lineString, length, false, properties);
     }
 }
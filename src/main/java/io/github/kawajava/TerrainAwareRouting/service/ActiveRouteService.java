@@ -0,0 +1,204 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.core.GraphPath;
+import io.github.kawajava.TerrainAwareRouting.core.RoutePath;
+import io.github.kawajava.TerrainAwareRouting.exception.CapacityExceededException;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ActiveRouteService {
+
+    private final FloodMaskService floodMask;
+    private final RouteService routing;
+    private final Map<String, ActiveRoutes> byRegion = new ConcurrentHashMap<>();
+    private final Map<Long, String> regionOf = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // flood changes waiting for the rerouter, merged per region while it is busy
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final ExecutorService rerouter = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().daemon().name("active-reroute").factory());
+
+    @Value("${app.routing.active.max-routes:100000}")
+    int maxRoutes;
+
+    @Value("${app.routing.active.batch-size:32}")
+    int batchSize;
+
+    @Value("${app.routing.active.idle-minutes:240}")
+    long idleMinutes;
+
+    private long reroutes;
+    private int lastSearched;
+    private double lastRerouteMillis;
+
+    public record Issued(long id, RoutePath route) {}
+
+    public record Event(String region, ActiveRoutes.Update update) {}
+
+    public record Stats(int active, long reroutes, int lastSearched, double lastRerouteMillis, double lastRoutesPerSecond) {}
+
+    private record Subscriber(String region, Long route, Consumer<Event> listener) {}
+
+    private record Pending(Region region, BitSet newlyBlocked) {}
+
+    @PostConstruct
+    void listen() {
+        floodMask.onNewlyBlocked(this::floodChanged);
+    }
+
+    @PreDestroy
+    void stop() {
+        rerouter.shutdownNow();
+    }
+
+    public Issued issue(Region region, CostProfile profile, FloodForecast forecast, Instant departure,
+                        Coordinate start, Coordinate end) {
+        if (regionOf.size() >= maxRoutes) {
+            expire();
+            if (regionOf.size() >= maxRoutes) {
+                throw new CapacityExceededException("Active route limit of " + maxRoutes + " reached");
+            }
+        }
+        GraphPath path = routing.findPath(region.graph(), floodMask.blockedEdges(region), forecast, departure,
+                profile, start, end);
+        RoutePath route = RoutePath.of(region.graph(), path);
+        if (!path.found()) {
+            return new Issued(-1, route);
+        }
+        long id = ids.incrementAndGet();
+        routes(region).register(id, profile, path);
+        regionOf.put(id, region.id());
+        return new Issued(id, route);
+    }
+
+    public RoutePath route(long id) {
+        return owner(id).route(id);
+    }
+
+    public Optional<RoutePath> advance(long id, double lat, double lon) {
+        Optional<RoutePath> remaining = owner(id).advance(id, lat, lon);
+        if (remaining.isEmpty()) {
+            regionOf.remove(id);
+        }
+        return remaining;
+    }
+
+    public void remove(long id) {
+        owner(id).remove(id);
+        regionOf.remove(id);
+    }
+
+    public Runnable subscribe(String region, Long route, Consumer<Event> listener) {
+        Subscriber subscriber = new Subscriber(region, route, listener);
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(regionOf.size(), reroutes, lastSearched, lastRerouteMillis,
+                lastRerouteMillis == 0 ? 0 : lastSearched / lastRerouteMillis * 1000);
+    }
+
+    // Called on the thread that applied the flood update, which only queues the change: the reroute and the
+    // listeners run on the rerouter thread, and changes arriving while it is busy are merged into one reroute.
+    void floodChanged(Region region, BitSet newlyBlocked) {
+        if (!byRegion.containsKey(region.id())) {
+            return;
+        }
+        BitSet edges = (BitSet) newlyBlocked.clone();
+        boolean[] queued = new boolean[1];
+        pending.compute(region.id(), (id, current) -> {
+            if (current == null) {
+                queued[0] = true;
+                return new Pending(region, edges);
+            }
+            edges.or(current.newlyBlocked());
+            return new Pending(region, edges);
+        });
+        if (queued[0]) {
+            rerouter.execute(() -> {
+                Pending next = pending.remove(region.id());
+                try {
+                    reroute(next.region(), next.newlyBlocked());
+                } catch (RuntimeException e) {
+                    log.error("Re-routing active routes in region {} failed", region.id(), e);
+                }
+            });
+        }
+    }
+
+    // Overlapping reroutes of one region with position reports are reconciled by ActiveRoutes.reroute
+    private void reroute(Region region, BitSet newlyBlocked) {
+        expire();
+        ActiveRoutes routes = routes(region);
+        FloodForecast forecast = floodMask.forecast(region).orElse(null);
+        ActiveRoutes.Rerouted rerouted = routes.reroute(newlyBlocked, floodMask.blockedEdges(region),
+                forecast == null ? null : forecast.floodsAt(), forecast == null ? 0 : forecast.offset(Instant.now()),
+                routing.strategy(), batchSize);
+        synchronized (this) {
+            reroutes += rerouted.searched();
+            lastSearched = rerouted.searched();
+            lastRerouteMillis = rerouted.millis();
+        }
+        log.info("Re-routed {} active routes in region {} after {} edges flooded in {} ms, {} changed",
+                rerouted.searched(), region.id(), newlyBlocked.cardinality(), rerouted.millis(),
+                rerouted.updates().size());
+
+        for (ActiveRoutes.Update update : rerouted.updates()) {
+            Event event = new Event(region.id(), update);
+            for (Subscriber subscriber : subscribers) {
+                if ((subscriber.region() == null || subscriber.region().equals(region.id()))
+                        && (subscriber.route() == null || subscriber.route() == update.id())) {
+                    subscriber.listener().accept(event);
+                }
+            }
+        }
+    }
+
+    // routes issued before a reload move to the region's new graph the first time they are touched there
+    private ActiveRoutes routes(Region region) {
+        return byRegion.compute(region.id(), (id, current) ->
+                current == null ? new ActiveRoutes(region.graph())
+                        : current.graph() != region.graph() ? current.carryOver(region.graph()) : current);
+    }
+
+    private ActiveRoutes owner(long id) {
+        String region = regionOf.get(id);
+        ActiveRoutes routes = region == null ? null : byRegion.get(region);
+        if (routes == null) {
+            throw new NoSuchElementException("No active route " + id);
+        }
+        return routes;
+    }
+
+    private void expire() {
+        long idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+        for (ActiveRoutes routes : byRegion.values()) {
+            routes.expire(idleNanos).forEach(regionOf::remove);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.core.GraphPath;
+import io.github.kawajava.TerrainAwareRouting.core.PathFindingStrategy;
+import io.github.kawajava.TerrainAwareRouting.core.RouteQuery;
+import io.github.kawajava.TerrainAwareRouting.core.RoutePath;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.Geodesy;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+// Routes handed out on one region graph that travellers are still following. An inverted index maps each edge to the
+// routes whose remaining part crosses it, so a flood update looks up only the routes it cuts. Those are searched again
+// in parallel batches, each from the node its traveller last reported.
+public final class ActiveRoutes {
+
+    // an empty route means no safe route is left from the traveller's position
+    public record Update(long id, int version, RoutePath route) {}
+
+    public record Rerouted(List<Update> updates, int searched, double millis) {}
+
+    // searches of routes whose traveller reported a position meanwhile are repeated from the new one this many times
+    private static final int MAX_ROUNDS = 3;
+
+    private static final class Route {
+
+        private final long id;
+        private final CostProfile profile;
+        private final int target;
+        private int source;
+        private int[] edges = new int[0];
+        private int progress;
+        private int version;
+        // bumped on every reported position, so that a search started from an older one is recognised
+        private int moves;
+        private boolean unreachable;
+        private boolean moved;
+        private boolean stale;
+        private long touchedNanos;
+
+        Route(long id, CostProfile profile, int source, int target) {
+            this.id = id;
+            this.profile = profile;
+            this.source = source;
+            this.target = target;
+        }
+
+        int position(RoadGraph graph) {
+            return progress < edges.length ? graph.edgeSource(edges[progress]) : source;
+        }
+    }
+
+    private final RoadGraph graph;
+    private final Map<Long, Route> routes = new LinkedHashMap<>();
+    private final long[][] byEdge;
+    private final int[] byEdgeCount;
+    private final int[] inStart;
+    private final int[] inEdges;
+
+    public ActiveRoutes(RoadGraph graph) {
+        this.graph = graph;
+        int edges = graph.edgeCount();
+        this.byEdge = new long[edges][];
+        this.byEdgeCount = new int[edges];
+
+        int nodes = graph.nodeCount();
+        inStart = new int[nodes + 1];
+        for (int e = 0; e < edges; e++) {
+            inStart[graph.edgeTarget(e) + 1]++;
+        }
+        for (int v = 0; v < nodes; v++) {
+            inStart[v + 1] += inStart[v];
+        }
+        inEdges = new int[edges];
+        int[] cursor = Arrays.copyOf(inStart, nodes);
+        for (int e = 0; e < edges; e++) {
+            inEdges[cursor[graph.edgeTarget(e)]++] = e;
+        }
+    }
+
+    public RoadGraph graph() {
+        return graph;
+    }
+
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    public synchronized void register(long id, CostProfile profile, GraphPath path) {
+        if (!path.found()) {
+            throw new IllegalArgumentException("Only found routes can be tracked");
+        }
+        Route route = new Route(id, profile, path.source(), path.target());
+        route.edges = path.edges();
+        route.touchedNanos = System.nanoTime();
+        routes.put(id, route);
+        index(route);
+    }
+
+    public synchronized RoutePath route(long id) {
+        Route route = require(id);
+        route.touchedNanos = System.nanoTime();
+        return remaining(route);
+    }
+
+    // Moves the traveller to the node of the remaining route nearest to the reported position, dropping the edges
+    // behind it from the index. Returns empty once the target is reached, when the route is forgotten.
+    public synchronized Optional<RoutePath> advance(long id, double lat, double lon) {
+        Route route = require(id);
+        route.touchedNanos = System.nanoTime();
+        route.moves++;
+        if (route.unreachable || route.moved) {
+            // without a path to follow the traveller is wherever they report, and is searched from there next time
+            route.source = graph.nearestNode(lat, lon);
+            return Optional.of(remaining(route));
+        }
+        int nearest = route.progress;
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = route.progress; i <= route.edges.length; i++) {
+            int node = i < route.edges.length ? graph.edgeSource(route.edges[i]) : route.target;
+            double meters = Geodesy.distanceMeters(lat, lon, graph.nodeLat(node), graph.nodeLon(node));
+            if (meters < best) {
+                best = meters;
+                nearest = i;
+            }
+        }
+        for (int i = route.progress; i < nearest; i++) {
+            unindex(route.edges[i], id);
+        }
+        route.progress = nearest;
+        if (nearest == route.edges.length) {
+            routes.remove(id);
+            return Optional.empty();
+        }
+        return Optional.of(remaining(route));
+    }
+
+    public synchronized boolean remove(long id) {
+        Route route = routes.remove(id);
+        if (route == null) {
+            return false;
+        }
+        for (int i = route.progress; i < route.edges.length; i++) {
+            unindex(route.edges[i], id);
+        }
+        return true;
+    }
+
+    public synchronized List<Long> expire(long idleNanos) {
+        long now = System.nanoTime();
+        List<Long> expired = routes.values().stream()
+                .filter(route -> now - route.touchedNanos > idleNanos)
+                .map(route -> route.id)
+                .toList();
+        expired.forEach(this::remove);
+        return expired;
+    }
+
+    // Searches again every route crossing a newly blocked edge, every route still without a safe one and every route
+    // carried over from an older graph. Routes are split into batches searched in parallel; a route is only
+    // reported when its path changed or it lost or regained a safe one. A route whose traveller reported a position
+    // while it was searched is searched again from there, and after MAX_ROUNDS is left for the next reroute.
+    public Rerouted reroute(BitSet newlyBlocked, BitSet blocked, float[] floodsAt, double departure,
+                            PathFindingStrategy strategy, int batchSize) {
+        long started = System.nanoTime();
+        List<Route> affected;
+        synchronized (this) {
+            Map<Long, Route> cut = new LinkedHashMap<>();
+            for (int e = newlyBlocked.nextSetBit(0); e >= 0 && e < byEdge.length; e = newlyBlocked.nextSetBit(e + 1)) {
+                for (int i = 0; i < byEdgeCount[e]; i++) {
+                    cut.putIfAbsent(byEdge[e][i], routes.get(byEdge[e][i]));
+                }
+            }
+            for (Route route : routes.values()) {
+                if (route.unreachable || route.moved || route.stale) {
+                    cut.putIfAbsent(route.id, route);
+                }
+            }
+            affected = List.copyOf(cut.values());
+        }
+
+        List<Update> updates = new ArrayList<>();
+        int searched = 0;
+        for (int round = 0; round < MAX_ROUNDS && !affected.isEmpty(); round++) {
+            searched += affected.size();
+            affected = search(affected, blocked, floodsAt, departure, strategy, batchSize, updates);
+        }
+        synchronized (this) {
+            affected.forEach(route -> route.stale = true);
+        }
+        return new Rerouted(updates, searched, (System.nanoTime() - started) / 1e6);
+    }
+
+    // Returns the routes whose traveller moved during the search, which are left as they were
+    private List<Route> search(List<Route> affected, BitSet blocked, float[] floodsAt, double departure,
+                               PathFindingStrategy strategy, int batchSize, List<Update> updates) {
+        int[] sources = new int[affected.size()];
+        int[] versions = new int[affected.size()];
+        int[] moves = new int[affected.size()];
+        synchronized (this) {
+            for (int i = 0; i < affected.size(); i++) {
+                Route route = affected.get(i);
+                sources[i] = route.position(graph);
+                versions[i] = route.version;
+                moves[i] = route.moves;
+            }
+        }
+
+        GraphPath[] paths = new GraphPath[affected.size()];
+        int batch = Math.max(1, batchSize);
+        IntStream.range(0, (affected.size() + batch - 1) / batch).parallel().forEach(b -> {
+            for (int i = b * batch; i < Math.min(affected.size(), (b + 1) * batch); i++) {
+                Route route = affected.get(i);
+                paths[i] = sources[i] != route.target && isolated(route.target, blocked)
+                        ? GraphPath.unreachable(sources[i], route.target)
+                        : strategy.findPath(new RouteQuery(graph, route.profile, blocked, sources[i], route.target,
+                                floodsAt, departure));
+            }
+        });
+
+        List<Route> moved = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < affected.size(); i++) {
+                Route route = affected.get(i);
+                if (routes.get(route.id) != route || route.version != versions[i]) {
+                    continue;
+                }
+                if (route.moves != moves[i]) {
+                    moved.add(route);
+                    continue;
+                }
+                GraphPath path = paths[i];
+                boolean wasReachable = !route.unreachable;
+                boolean report = route.moved || path.found() != wasReachable || path.found()
+                        && !Arrays.equals(path.edges(), Arrays.copyOfRange(route.edges, route.progress, route.edges.length));
+                for (int k = route.progress; k < route.edges.length; k++) {
+                    unindex(route.edges[k], route.id);
+                }
+                route.source = sources[i];
+                route.edges = path.edges();
+                route.progress = 0;
+                route.unreachable = !path.found();
+                route.moved = false;
+                route.stale = false;
+                index(route);
+                if (report) {
+                    route.version++;
+                    updates.add(new Update(route.id, route.version, remaining(route)));
+                }
+            }
+        }
+        return moved;
+    }
+
+    // Moves every route onto a rebuilt graph by snapping its position and target to the nearest nodes there; all of
+    // them are searched again by the next reroute.
+    public synchronized ActiveRoutes carryOver(RoadGraph target) {
+        ActiveRoutes moved = new ActiveRoutes(target);
+        for (Route route : routes.values()) {
+            int position = route.position(graph);
+            Route copy = new Route(route.id, route.profile,
+                    target.nearestNode(graph.nodeLat(position), graph.nodeLon(position)),
+                    target.nearestNode(graph.nodeLat(route.target), graph.nodeLon(route.target)));
+            copy.version = route.version;
+            copy.moved = true;
+            copy.touchedNanos = route.touchedNanos;
+            moved.routes.put(copy.id, copy);
+        }
+        return moved;
+    }
+
+    // A target inside the flood usually has every road into it blocked. A search towards it would settle everything
+    // it can reach before giving up, which is the most expensive query of a reroute and a common one.
+    private boolean isolated(int target, BitSet blocked) {
+        for (int i = inStart[target]; i < inStart[target + 1]; i++) {
+            if (!blocked.get(inEdges[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Route require(long id) {
+        Route route = routes.get(id);
+        if (route == null) {
+            throw new NoSuchElementException("No active route " + id);
+        }
+        return route;
+    }
+
+    private RoutePath remaining(Route route) {
+        if (route.unreachable) {
+            return RoutePath.of(graph, GraphPath.unreachable(route.position(graph), route.target));
+        }
+        int[] edges = Arrays.copyOfRange(route.edges, route.progress, route.edges.length);
+        double cost = 0;
+        for (int e : edges) {
+            cost += graph.weight(route.profile, e);
+        }
+        return RoutePath.of(graph, new GraphPath(route.position(graph), route.target, edges, cost));
+    }
+
+    private void index(Route route) {
+        for (int i = route.progress; i < route.edges.length; i++) {
+            int e = route.edges[i];
+            long[] ids = byEdge[e];
+            if (ids == null) {
+                ids = byEdge[e] = new long[2];
+            } else if (byEdgeCount[e] == ids.length) {
+                ids = byEdge[e] = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[byEdgeCount[e]++] = route.id;
+        }
+    }
+
+    private void unindex(int edge, long id) {
+        long[] ids = byEdge[edge];
+        int count = byEdgeCount[edge];
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) {
+                ids[i] = ids[count - 1];
+                byEdgeCount[edge] = count - 1;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.FloodEvent;
+import io.github.kawajava.TerrainAwareRouting.domain.RegionDefinition;
+import io.github.kawajava.TerrainAwareRouting.infrastructure.FloodEventReader;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FloodEventIngestor {
+
+    private final RegionService regions;
+    private final FloodMaskService floodMask;
+    private final FloodEventReader reader;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final Map<Path, Long> offsets = new ConcurrentHashMap<>();
+    private final List<Thread> streams = new CopyOnWriteArrayList<>();
+
+    @Value("${app.flood.stream-reconnect-ms:5000}")
+    long reconnectMs;
+
+    private volatile boolean running;
+    private volatile WatchService watchService;
+
+    // Events for a region that is not loaded are queued rather than forcing a graph build. Returns empty when queued.
+    public Optional<FloodState.Stats> ingest(String region, List<FloodEvent> events) {
+        Optional<Region> loaded = regions.loadedRegion(region);
+        if (loaded.isEmpty()) {
+            if (regions.definitions().stream().noneMatch(definition -> definition.id().equals(region))) {
+                throw new NoSuchElementException("Unknown region: " + region);
+            }
+            floodMask.queue(region, events);
+            // a region loaded meanwhile may have built its flood state before the events were queued
+            loaded = regions.loadedRegion(region);
+            if (loaded.isEmpty()) {
+                return Optional.empty();
+            }
+            return floodMask.apply(loaded.get(), List.of());
+        }
+        return floodMask.apply(loaded.get(), events);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        running = true;
+        Map<Path, String> regionByDir = new HashMap<>();
+        for (RegionDefinition definition : regions.definitions()) {
+            if (definition.floodStreamUrl() != null && !definition.floodStreamUrl().isBlank()) {
+                BlockingQueue<FloodEvent> received = new LinkedBlockingQueue<>();
+                streams.add(Thread.ofVirtual().name("flood-stream-" + definition.id())
+                        .start(() -> stream(definition, received)));
+                streams.add(Thread.ofVirtual().name("flood-apply-" + definition.id())
+                        .start(() -> applyBatches(definition.id(), received)));
+            }
+            if (definition.floodEventsDir() != null && !definition.floodEventsDir().isBlank()) {
+                Path dir = Path.of(definition.floodEventsDir()).toAbsolutePath().normalize();
+                Files.createDirectories(dir);
+                regionByDir.put(dir, definition.id());
+            }
+        }
+        if (regionByDir.isEmpty()) {
+            return;
+        }
+
+        WatchService service = FileSystems.getDefault().newWatchService();
+        for (Path dir : regionByDir.keySet()) {
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        watchService = service;
+        for (Map.Entry<Path, String> entry : regionByDir.entrySet()) {
+            try (Stream<Path> files = Files.list(entry.getKey())) {
+                files.filter(FloodEventIngestor::isEventFile).sorted().forEach(file -> readAppended(file, entry.getValue()));
+            }
+        }
+        Thread.ofPlatform().daemon().name("flood-events-watcher").start(() -> watch(service, regionByDir));
+        log.info("Watching {} flood event directories", regionByDir.size());
+    }
+
+    void stream(RegionDefinition definition, BlockingQueue<FloodEvent> received) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(definition.floodStreamUrl()))
+                .header("Accept", "application/x-ndjson, text/event-stream")
+                .GET()
+                .build();
+        while (running) {
+            try {
+                HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+                if (response.statusCode() != 200) {
+                    log.warn("Flood stream {} answered {}", definition.floodStreamUrl(), response.statusCode());
+                    response.body().close();
+                } else {
+                    log.info("Connected to flood stream {} for region {}", definition.floodStreamUrl(), definition.id());
+                    try (Stream<String> lines = response.body()) {
+                        lines.forEach(line -> consume(definition.id(), line, received));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Flood stream {} failed: {}", definition.floodStreamUrl(), e.getMessage());
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                Thread.sleep(reconnectMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void consume(String region, String line, BlockingQueue<FloodEvent> received) {
+        try {
+            reader.parseLine(line).ifPresent(received::add);
+        } catch (IllegalArgumentException e) {
+            log.warn("Skipping flood event for region {}: {}", region, e.getMessage());
+        }
+    }
+
+    // Applies every streamed event that arrived while the previous batch was applied as one batch, so the flood mask
+    // is recomputed and published once per batch rather than once per line.
+    private void applyBatches(String region, BlockingQueue<FloodEvent> received) {
+        List<FloodEvent> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(received.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            received.drainTo(batch);
+            try {
+                ingest(region, List.copyOf(batch));
+            } catch (RuntimeException e) {
+                log.warn("Unable to apply {} streamed flood events to region {}: {}", batch.size(), region, e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    private void watch(WatchService service, Map<Path, String> regionByDir) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        continue;
+                    }
+                    Path file = dir.resolve((Path) event.context());
+                    if (isEventFile(file)) {
+                        readAppended(file, regionByDir.get(dir));
+                    }
+                }
+                key.reset();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            log.debug("Flood event watcher stopped");
+        }
+    }
+
+    synchronized void readAppended(Path file, String region) {
+        try (RandomAccessFile in = new RandomAccessFile(file.toFile(), "r")) {
+            long offset = offsets.getOrDefault(file, 0L);
+            long size = in.length();
+            if (size < offset) {
+                offset = 0;
+            }
+            byte[] appended = new byte[Math.toIntExact(size - offset)];
+            in.seek(offset);
+            in.readFully(appended);
+            int complete = appended.length;
+            while (complete > 0 && appended[complete - 1] != '\n') {
+                complete--;
+            }
+            if (complete == 0) {
+                return;
+            }
+            offsets.put(file, offset + complete);
+
+            List<FloodEvent> events = new String(appended, 0, complete, StandardCharsets.UTF_8).lines()
+                    .flatMap(line -> {
+                        try {
+                            return reader.parseLine(line).stream();
+                        } catch (IllegalArgumentException e) {
+                            log.warn("Skipping flood event in {}: {}", file, e.getMessage());
+                            return Stream.empty();
+                        }
+                    })
+                    .toList();
+            if (!events.isEmpty()) {
+                ingest(region, events).ifPresentOrElse(
+                        stats -> log.info("Applied {} flood events from {} to region {} in {} ms",
+                                events.size(), file.getFileName(), region, stats.lastApplyMillis()),
+                        () -> log.info("Queued {} flood events from {} until region {} is loaded",
+                                events.size(), file.getFileName(), region));
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read flood events from {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static boolean isEventFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl");
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        streams.forEach(Thread::interrupt);
+        WatchService service = watchService;
+        if (service != null) {
+            service.close();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.FloodPolygon;
+import io.github.kawajava.TerrainAwareRouting.domain.ForecastLayer;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+// Forecast flood layers compiled against one graph into the earliest time each edge floods, in seconds after the
+// first layer; edges no layer reaches stay at infinity. Routing then needs one float comparison per edge.
+public final class FloodForecast {
+
+    public record Stats(int layers, Instant first, Instant last, int floodingEdges, double compileMillis) {}
+
+    private final List<ForecastLayer> layers;
+    private final Instant reference;
+    private final float[] floodsAt;
+    private final Stats stats;
+
+    private FloodForecast(List<ForecastLayer> layers, Instant reference, float[] floodsAt, Stats stats) {
+        this.layers = layers;
+        this.reference = reference;
+        this.floodsAt = floodsAt;
+        this.stats = stats;
+    }
+
+    public static FloodForecast compile(RoadGraph graph, List<ForecastLayer> layers) {
+        if (layers.isEmpty()) {
+            throw new IllegalArgumentException("Flood forecast has no layers");
+        }
+        long started = System.nanoTime();
+        List<ForecastLayer> sorted = layers.stream().sorted(Comparator.comparing(ForecastLayer::time)).toList();
+        Instant reference = sorted.getFirst().time();
+        float[] floodsAt = new float[graph.edgeCount()];
+        Arrays.fill(floodsAt, Float.POSITIVE_INFINITY);
+
+        // layers are visited latest first, so each flooded edge ends up with its earliest time
+        for (ForecastLayer layer : sorted.reversed()) {
+            List<FloodPolygon> polygons = new ArrayList<>(layer.polygons().size());
+            for (int i = 0; i < layer.polygons().size(); i++) {
+                polygons.add(new FloodPolygon("forecast-" + i, layer.polygons().get(i)));
+            }
+            float time = (layer.time().toEpochMilli() - reference.toEpochMilli()) / 1000f;
+            BitSet flooded = FloodState.of(graph, polygons).blocked();
+            for (int e = flooded.nextSetBit(0); e >= 0; e = flooded.nextSetBit(e + 1)) {
+                floodsAt[e] = time;
+            }
+        }
+
+        int flooding = 0;
+        for (float time : floodsAt) {
+            if (time != Float.POSITIVE_INFINITY) {
+                flooding++;
+            }
+        }
+        Stats stats = new Stats(sorted.size(), reference, sorted.getLast().time(), flooding,
+                (System.nanoTime() - started) / 1e6);
+        return new FloodForecast(sorted, reference, floodsAt, stats);
+    }
+
+    public float[] floodsAt() {
+        return floodsAt;
+    }
+
+    public double offset(Instant time) {
+        return (time.toEpochMilli() - reference.toEpochMilli()) / 1000.0;
+    }
+
+    public Stats stats() {
+        return stats;
+    }
+
+    List<ForecastLayer> layers() {
+        return layers;
+    }
+
+    FloodForecast recompile(RoadGraph target) {
+        return compile(target, layers);
+    }
+}
@@ -0,0 +1,176 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.FloodEvent;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodPolygon;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodSource;
+import io.github.kawajava.TerrainAwareRouting.domain.ForecastLayer;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FloodMaskService {
+
+    private final FloodOverlayService floodOverlayService;
+    private final WaterLevelService waterLevelService;
+    private final List<BiConsumer<Region, BitSet>> blockedListeners = new CopyOnWriteArrayList<>();
+    // Flood state that outlives an evicted Region: its polygons after every event applied so far, its forecast
+    // layers, and the events received while it is not loaded, reduced to the last one per polygon id.
+    private final Map<String, List<FloodPolygon>> retainedPolygons = new ConcurrentHashMap<>();
+    private final Map<String, List<ForecastLayer>> retainedForecasts = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, FloodEvent>> pending = new HashMap<>();
+
+    @Value("${app.flood.mode:polygons}")
+    private String mode;
+
+    @Value("${app.flood.raster-cell-meters:20}")
+    private double rasterCellMeters;
+
+    @Value("${app.flood.raster-mask:false}")
+    private boolean rasterMask;
+
+    public BitSet blockedEdges(Region region) {
+        if ("water-level".equalsIgnoreCase(mode)) {
+            return waterLevelService.blockedEdges(region);
+        }
+        return floodState(region).blocked();
+    }
+
+    public FloodState floodState(Region region) {
+        FloodState state = region.flood;
+        if (state == null) {
+            synchronized (region) {
+                state = region.flood;
+                if (state == null) {
+                    RoadGraph graph = region.graph();
+                    List<FloodSource> sources = region.definition().floodSources();
+                    List<FloodPolygon> retained = retainedPolygons.remove(region.id());
+                    state = retained != null
+                            ? FloodState.of(graph, retained, rasterMask ? rasterCellMeters : 0)
+                            : sources.isEmpty()
+                            ? FloodState.empty(graph)
+                            : FloodState.of(graph, floodOverlayService.fetchFloodSnapshot(sources),
+                                    rasterMask ? rasterCellMeters : 0);
+                    List<FloodEvent> queued = drain(region.id());
+                    if (!queued.isEmpty()) {
+                        state.apply(queued);
+                        log.info("Replayed {} flood events queued for region {}", queued.size(), region.id());
+                    }
+                    region.flood = state;
+                }
+            }
+        }
+        return state;
+    }
+
+    // Empty when the region was evicted meanwhile; the events are then queued for its next load.
+    public Optional<FloodState.Stats> apply(Region region, List<FloodEvent> events) {
+        FloodState state = floodState(region);
+        List<FloodEvent> batch = new ArrayList<>(drain(region.id()));
+        batch.addAll(events);
+        BitSet newlyBlocked = new BitSet();
+        FloodState.Stats stats = state.apply(batch, newlyBlocked);
+        if (stats == null) {
+            queue(region.id(), batch);
+            return Optional.empty();
+        }
+        log.debug("Applied {} flood events to region {} in {} ms", batch.size(), region.id(), stats.lastApplyMillis());
+
+        if (!newlyBlocked.isEmpty()) {
+            for (BiConsumer<Region, BitSet> listener : blockedListeners) {
+                try {
+                    listener.accept(region, newlyBlocked);
+                } catch (RuntimeException e) {
+                    log.warn("Flood listener failed for region {}: {}", region.id(), e.getMessage());
+                }
+            }
+        }
+        return Optional.of(stats);
+    }
+
+    // Keeps events for a region that is not loaded. They are applied after its flood state is built on the next load.
+    public void queue(String regionId, List<FloodEvent> events) {
+        synchronized (pending) {
+            Map<String, FloodEvent> queued = pending.computeIfAbsent(regionId, id -> new LinkedHashMap<>());
+            for (FloodEvent event : events) {
+                queued.remove(event.id());
+                queued.put(event.id(), event);
+            }
+        }
+    }
+
+    private List<FloodEvent> drain(String regionId) {
+        synchronized (pending) {
+            Map<String, FloodEvent> queued = pending.remove(regionId);
+            return queued == null ? List.of() : List.copyOf(queued.values());
+        }
+    }
+
+    // called with the edges each flood update newly blocks, on the thread that applied it
+    public void onNewlyBlocked(BiConsumer<Region, BitSet> listener) {
+        blockedListeners.add(listener);
+    }
+
+    public Optional<FloodForecast> forecast(Region region) {
+        return Optional.ofNullable(region.forecast);
+    }
+
+    public FloodForecast.Stats applyForecast(Region region, List<ForecastLayer> layers) {
+        FloodForecast forecast = FloodForecast.compile(region.graph(), layers);
+        region.forecast = forecast;
+        FloodForecast.Stats stats = forecast.stats();
+        log.info("Compiled flood forecast for region {}: {} layers, {} edges flooding, {} ms",
+                region.id(), stats.layers(), stats.floodingEdges(), stats.compileMillis());
+        return stats;
+    }
+
+    public void clearForecast(Region region) {
+        region.forecast = null;
+    }
+
+    // Called when a region is evicted. A batch racing with the eviction is refused by the detached state and queued.
+    void retain(Region region) {
+        FloodState state = region.flood;
+        if (state != null) {
+            retainedPolygons.put(region.id(), state.detach());
+        }
+        FloodForecast forecast = region.forecast;
+        if (forecast != null) {
+            retainedForecasts.put(region.id(), forecast.layers());
+        }
+    }
+
+    // Called when a region is loaded, before it is published
+    void restore(Region region) {
+        List<ForecastLayer> layers = retainedForecasts.remove(region.id());
+        if (layers != null) {
+            region.forecast = FloodForecast.compile(region.graph(), layers);
+        }
+    }
+
+    void carryOver(Region from, Region to) {
+        FloodState state = from.flood;
+        if (state != null) {
+            to.flood = state.carryOver(to.graph());
+        }
+        FloodForecast forecast = from.forecast;
+        if (forecast != null) {
+            to.forecast = forecast.recompile(to.graph());
+        }
+    }
+}
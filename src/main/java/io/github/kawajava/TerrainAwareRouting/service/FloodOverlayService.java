@@ -2,17 +2,26 @@ package io.github.kawajava.TerrainAwareRouting.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodPolygon;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodSource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.locationtech.jts.geom.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.NoSuchElementException;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -21,39 +30,77 @@ import java.util.stream.StreamSupport;
 @RequiredArgsConstructor
 public class FloodOverlayService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final GeometryFactory geometryFactory = new GeometryFactory();
-
-    @Value("${app.flood.backend-url}")
-    String floodBackendUrl;
-    List<Polygon> floodZones;
-
-    public void loadFloodZones() {
-        log.info("Downloading flood zones from backend: {}", floodBackendUrl);
-
-        String json = fetchFloodData();
-        List<JsonNode> features = extractFeatures(json);
-        floodZones = parsePolygons(features);
-
-        if (floodZones.isEmpty()) {
-            throw new IllegalArgumentException("Flood backend returned zero polygons");
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Value("${app.flood.simplify-meters:5}")
+    double simplifyMeters;
+
+    @Value("${app.flood.tile-max-vertices:256}")
+    int tileMaxVertices;
+
+    public List<FloodPolygon> fetchFloodSnapshot(List<FloodSource> sources) {
+        long started = System.nanoTime();
+        List<CompletableFuture<List<FloodPolygon>>> pending = sources.stream().map(this::fetchAsync).toList();
+
+        List<FloodPolygon> polygons = new ArrayList<>();
+        int failed = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            FloodSource source = sources.get(i);
+            try {
+                List<FloodPolygon> fetched = pending.get(i).join();
+                polygons.addAll(fetched);
+                log.info("Flood source {} returned {} polygons", source.name(), fetched.size());
+            } catch (CompletionException e) {
+                failed++;
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                log.warn("Flood source {} ({}) skipped: {}", source.name(), source.url(),
+                        cause instanceof TimeoutException
+                                ? "no response within " + source.timeout().toMillis() + " ms"
+                                : cause.getMessage());
+            }
+        }
+        if (!sources.isEmpty() && failed == sources.size()) {
+            throw new IllegalArgumentException("Cannot fetch flood zones from any of " + sources.size() + " sources");
         }
 
-        log.info("Loaded {} flood polygons", floodZones.size());
+        // pieces keep the id of their source feature, which incremental events refer to
+        FloodPreprocessor.Snapshot preprocessed = new FloodPreprocessor(simplifyMeters, tileMaxVertices)
+                .preprocessById(polygons);
+        log(preprocessed.result());
+        List<FloodPolygon> snapshot = preprocessed.pieces();
+        log.info("Merged {} flood polygons from {} of {} sources into {} pieces in {} ms", polygons.size(),
+                sources.size() - failed, sources.size(), snapshot.size(), (System.nanoTime() - started) / 1_000_000);
+        return snapshot;
     }
 
-    public String fetchFloodData() {
-        try {
-            String json = restTemplate.getForObject(floodBackendUrl, String.class);
-            if (Optional.ofNullable(json).filter(s -> !s.isBlank()).isEmpty()) {
-                throw new IllegalArgumentException("Empty flood response from backend");
-            }
-            return json;
-        } catch (Exception e) {
-            log.error("Failed to fetch flood data", e);
-            throw new IllegalArgumentException("Cannot fetch flood zones from backend");
-        }
+    CompletableFuture<List<FloodPolygon>> fetchAsync(FloodSource source) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(source.url()))
+                .timeout(source.timeout())
+                .header("Accept", "application/geo+json, application/json")
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .orTimeout(source.timeout().toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new IllegalArgumentException("HTTP " + response.statusCode());
+                    }
+                    if (response.body() == null || response.body().isBlank()) {
+                        throw new IllegalArgumentException("Empty flood response");
+                    }
+                    return parseFloodPolygons(extractFeatures(response.body()), source.name());
+                });
+    }
+
+    private void log(FloodPreprocessor.Result result) {
+        log.info("Preprocessed {} flood polygons ({} vertices) into {} pieces ({} vertices, at most {} per piece) in {} ms",
+                result.inputPolygons(), result.inputVertices(), result.polygons().size(), result.outputVertices(),
+                result.maxPieceVertices(), Math.round(result.millis()));
     }
 
     public List<JsonNode> extractFeatures(String json) {
@@ -71,10 +118,16 @@ public class FloodOverlayService {
         }
     }
 
-    public List<Polygon> parsePolygons(List<JsonNode> features) {
-        return features.stream()
-                .map(f -> parsePolygon(f.get("geometry")))
-                .collect(Collectors.toList());
+    // Features are keyed by their GeoJSON id, or properties.id, and otherwise by source name and position
+    public List<FloodPolygon> parseFloodPolygons(List<JsonNode> features, String sourceName) {
+        List<FloodPolygon> polygons = new ArrayList<>(features.size());
+        for (int i = 0; i < features.size(); i++) {
+            JsonNode feature = features.get(i);
+            JsonNode id = feature.hasNonNull("id") ? feature.get("id") : feature.path("properties").get("id");
+            polygons.add(new FloodPolygon(id != null && id.isValueNode() && !id.asText().isBlank()
+                    ? id.asText() : sourceName + "-" + i, parsePolygon(feature.get("geometry"))));
+        }
+        return polygons;
     }
 
     public Polygon parsePolygon(JsonNode geomNode) {
@@ -100,21 +153,4 @@ public class FloodOverlayService {
                 .map(node -> new Coordinate(node.get(0).asDouble(), node.get(1).asDouble()))
                 .toArray(Coordinate[]::new);
     }
-
-    public List<RoadSegment> filterSafe(List<RoadSegment> segments) {
-        if (floodZones == null) {
-            log.warn("Flood polygon cache is empty — loading...");
-            loadFloodZones();
-        }
-        if (segments == null || segments.isEmpty()) {
-            throw new NoSuchElementException("No road segments to filter");
-        }
-        return segments.stream()
-                .filter(seg -> isSafe(seg.geometry()))
-                .collect(Collectors.toList());
-    }
-
-    public boolean isSafe(Geometry road) {
-        return floodZones.stream().noneMatch(road::intersects);
-    }
 }
@@ -0,0 +1,124 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.FloodPolygon;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.util.GeometryFixer;
+import org.locationtech.jts.operation.buffer.BufferOp;
+import org.locationtech.jts.operation.buffer.BufferParameters;
+import org.locationtech.jts.operation.union.CascadedPolygonUnion;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class FloodPreprocessor {
+
+    public record Result(List<Polygon> polygons, int inputPolygons, int inputVertices, int outputVertices,
+                         int maxPieceVertices, double millis) {}
+
+    public record Snapshot(List<FloodPolygon> pieces, Result result) {}
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    private static final int MAX_SPLIT_DEPTH = 24;
+
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+    private final double toleranceDegrees;
+    private final int maxPieceVertices;
+
+    public FloodPreprocessor(double toleranceMeters, int maxPieceVertices) {
+        this.toleranceDegrees = Math.max(0, toleranceMeters) / METERS_PER_DEGREE;
+        this.maxPieceVertices = maxPieceVertices;
+    }
+
+    public Result preprocess(List<Polygon> polygons) {
+        long started = System.nanoTime();
+        return result(polygons, reduce(polygons), started);
+    }
+
+    // Preprocesses the polygons of each id on their own, so every piece keeps the id of the polygon it came from and a
+    // later MODIFY or REMOVE event for that id replaces exactly its pieces. Polygons of different ids are not unioned.
+    public Snapshot preprocessById(List<FloodPolygon> polygons) {
+        long started = System.nanoTime();
+        Map<String, List<Polygon>> byId = new LinkedHashMap<>();
+        for (FloodPolygon polygon : polygons) {
+            byId.computeIfAbsent(polygon.id(), id -> new ArrayList<>()).add(polygon.polygon());
+        }
+        List<List<FloodPolygon>> reduced = byId.entrySet().parallelStream()
+                .map(entry -> reduce(entry.getValue()).stream()
+                        .map(piece -> new FloodPolygon(entry.getKey(), piece))
+                        .toList())
+                .toList();
+        List<FloodPolygon> pieces = reduced.stream().flatMap(List::stream).toList();
+        Result result = result(polygons.stream().map(FloodPolygon::polygon).toList(),
+                pieces.stream().map(FloodPolygon::polygon).toList(), started);
+        return new Snapshot(pieces, result);
+    }
+
+    private Result result(List<Polygon> input, List<Polygon> pieces, long started) {
+        int inputVertices = input.stream().mapToInt(Geometry::getNumPoints).sum();
+        int outputVertices = pieces.stream().mapToInt(Geometry::getNumPoints).sum();
+        int largest = pieces.stream().mapToInt(Geometry::getNumPoints).max().orElse(0);
+        return new Result(pieces, input.size(), inputVertices, outputVertices, largest,
+                (System.nanoTime() - started) / 1e6);
+    }
+
+    private List<Polygon> reduce(List<Polygon> polygons) {
+        Geometry reduced = union(polygons);
+        if (reduced != null && toleranceDegrees > 0) {
+            // the simplified boundary stays within the tolerance of the original, so growing it by the same
+            // distance covers every flooded point again
+            BufferParameters parameters = new BufferParameters();
+            parameters.setJoinStyle(BufferParameters.JOIN_MITRE);
+            reduced = BufferOp.bufferOp(TopologyPreservingSimplifier.simplify(reduced, toleranceDegrees),
+                    toleranceDegrees, parameters);
+        }
+
+        List<Polygon> pieces = new ArrayList<>();
+        if (reduced != null) {
+            split(reduced, 0, pieces);
+        }
+        return pieces;
+    }
+
+    private Geometry union(List<Polygon> polygons) {
+        if (polygons.isEmpty()) {
+            return null;
+        }
+        List<Geometry> valid = new ArrayList<>(polygons.size());
+        for (Polygon polygon : polygons) {
+            valid.add(polygon.isValid() ? polygon : GeometryFixer.fix(polygon));
+        }
+        return CascadedPolygonUnion.union(valid);
+    }
+
+    private void split(Geometry geometry, int depth, List<Polygon> pieces) {
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            if (!(geometry.getGeometryN(i) instanceof Polygon polygon) || polygon.isEmpty()) {
+                continue;
+            }
+            if (maxPieceVertices <= 0 || polygon.getNumPoints() <= maxPieceVertices || depth >= MAX_SPLIT_DEPTH) {
+                pieces.add(polygon);
+                continue;
+            }
+            Envelope bounds = polygon.getEnvelopeInternal();
+            Envelope first;
+            Envelope second;
+            if (bounds.getWidth() >= bounds.getHeight()) {
+                double mid = (bounds.getMinX() + bounds.getMaxX()) / 2;
+                first = new Envelope(bounds.getMinX(), mid, bounds.getMinY(), bounds.getMaxY());
+                second = new Envelope(mid, bounds.getMaxX(), bounds.getMinY(), bounds.getMaxY());
+            } else {
+                double mid = (bounds.getMinY() + bounds.getMaxY()) / 2;
+                first = new Envelope(bounds.getMinX(), bounds.getMaxX(), bounds.getMinY(), mid);
+                second = new Envelope(bounds.getMinX(), bounds.getMaxX(), mid, bounds.getMaxY());
+            }
+            split(polygon.intersection(geometryFactory.toGeometry(first)), depth + 1, pieces);
+            split(polygon.intersection(geometryFactory.toGeometry(second)), depth + 1, pieces);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public final class FloodRaster {
+
+    public enum Cover { CLEAR, FLOODED, BOUNDARY }
+
+    @FunctionalInterface
+    private interface CellVisitor {
+        boolean visit(int col, int row);
+    }
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    private static final long MAX_CELLS = 1L << 26;
+    private static final double EPSILON = 1e-9;
+
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int cols;
+    private final int rows;
+    private final long[] inside;
+    private final long[] boundary;
+
+    private FloodRaster(Envelope bounds, double cellSize, int cols, int rows, long[] inside, long[] boundary) {
+        this.minX = bounds.getMinX();
+        this.minY = bounds.getMinY();
+        this.cellSize = cellSize;
+        this.cols = cols;
+        this.rows = rows;
+        this.inside = inside;
+        this.boundary = boundary;
+    }
+
+    public static FloodRaster of(List<Polygon> polygons, double cellMeters) {
+        if (!(cellMeters > 0)) {
+            throw new IllegalArgumentException("Flood raster cell size must be positive");
+        }
+        Envelope extent = new Envelope();
+        polygons.forEach(p -> extent.expandToInclude(p.getEnvelopeInternal()));
+        double cell = cellMeters / METERS_PER_DEGREE;
+        if (extent.isNull()) {
+            extent.init(0, 0, 0, 0);
+        }
+        while ((extent.getWidth() / cell + 3) * (extent.getHeight() / cell + 3) > MAX_CELLS) {
+            cell *= 2;
+        }
+        // one clear cell around the polygons, so parts of a segment outside the grid fall into clear border cells
+        Envelope bounds = new Envelope(extent.getMinX() - cell, extent.getMaxX() + cell,
+                extent.getMinY() - cell, extent.getMaxY() + cell);
+        int cols = (int) Math.floor(bounds.getWidth() / cell) + 1;
+        int rows = (int) Math.floor(bounds.getHeight() / cell) + 1;
+        int words = (int) (((long) cols * rows + 63) >>> 6);
+
+        AtomicLongArray insideBits = new AtomicLongArray(words);
+        AtomicLongArray boundaryBits = new AtomicLongArray(words);
+        FloodRaster grid = new FloodRaster(bounds, cell, cols, rows, null, null);
+        polygons.parallelStream().forEach(p -> grid.rasterize(p, insideBits, boundaryBits));
+
+        long[] inside = new long[words];
+        long[] boundary = new long[words];
+        for (int i = 0; i < words; i++) {
+            inside[i] = insideBits.get(i);
+            boundary[i] = boundaryBits.get(i);
+        }
+        return new FloodRaster(bounds, cell, cols, rows, inside, boundary);
+    }
+
+    public Envelope bounds() {
+        return new Envelope(minX, minX + cols * cellSize, minY, minY + rows * cellSize);
+    }
+
+    public int cellCount() {
+        return cols * rows;
+    }
+
+    public long insideCells() {
+        return Arrays.stream(inside).map(Long::bitCount).sum();
+    }
+
+    public long boundaryCells() {
+        return Arrays.stream(boundary).map(Long::bitCount).sum();
+    }
+
+    public Cover cover(LineString line) {
+        int points = line.getNumPoints();
+        double[] lats = new double[points];
+        double[] lons = new double[points];
+        for (int i = 0; i < points; i++) {
+            Coordinate c = line.getCoordinateN(i);
+            lons[i] = c.x;
+            lats[i] = c.y;
+        }
+        return cover(lats, lons, points);
+    }
+
+    public Cover cover(double[] lats, double[] lons, int points) {
+        boolean[] onBoundary = {false};
+        for (int i = 0; i + 1 < points; i++) {
+            boolean clear = walk(lons[i], lats[i], lons[i + 1], lats[i + 1], 0, 0, cols - 1, rows - 1, (c, r) -> {
+                int cell = r * cols + c;
+                if (isSet(inside, cell)) {
+                    return false;
+                }
+                onBoundary[0] |= isSet(boundary, cell);
+                return true;
+            });
+            if (!clear) {
+                return Cover.FLOODED;
+            }
+        }
+        if (points == 1) {
+            int cell = row(lats[0]) * cols + col(lons[0]);
+            if (isSet(inside, cell)) {
+                return Cover.FLOODED;
+            }
+            onBoundary[0] = isSet(boundary, cell);
+        }
+        return onBoundary[0] ? Cover.BOUNDARY : Cover.CLEAR;
+    }
+
+    // boundary cells are found per polygon first, so a cell whose centre is inside the polygon and which no ring
+    // crosses lies entirely inside it
+    private void rasterize(Polygon polygon, AtomicLongArray insideBits, AtomicLongArray boundaryBits) {
+        Envelope envelope = polygon.getEnvelopeInternal();
+        int c0 = col(envelope.getMinX()) - 1, c1 = col(envelope.getMaxX()) + 1;
+        int r0 = row(envelope.getMinY()) - 1, r1 = row(envelope.getMaxY()) + 1;
+        int width = c1 - c0 + 1;
+        BitSet local = new BitSet(width * (r1 - r0 + 1));
+
+        int ringCount = polygon.getNumInteriorRing() + 1;
+        Coordinate[][] rings = new Coordinate[ringCount][];
+        rings[0] = polygon.getExteriorRing().getCoordinates();
+        for (int h = 1; h < ringCount; h++) {
+            rings[h] = polygon.getInteriorRingN(h - 1).getCoordinates();
+        }
+        for (Coordinate[] ring : rings) {
+            for (int i = 0; i + 1 < ring.length; i++) {
+                walk(ring[i].x, ring[i].y, ring[i + 1].x, ring[i + 1].y, c0, r0, c1, r1, (c, r) -> {
+                    local.set((r - r0) * width + (c - c0));
+                    return true;
+                });
+            }
+        }
+
+        double[] crossings = new double[16];
+        for (int r = r0; r <= r1; r++) {
+            double y = minY + (r + 0.5) * cellSize;
+            int count = 0;
+            for (Coordinate[] ring : rings) {
+                for (int i = 0; i + 1 < ring.length; i++) {
+                    Coordinate a = ring[i], b = ring[i + 1];
+                    if ((a.y <= y) != (b.y <= y)) {
+                        if (count == crossings.length) {
+                            crossings = Arrays.copyOf(crossings, count * 2);
+                        }
+                        crossings[count++] = a.x + (y - a.y) * (b.x - a.x) / (b.y - a.y);
+                    }
+                }
+            }
+            Arrays.sort(crossings, 0, count);
+            for (int k = 0; k + 1 < count; k += 2) {
+                int from = Math.max(c0, (int) Math.ceil((crossings[k] - minX) / cellSize - 0.5));
+                int to = Math.min(c1, (int) Math.floor((crossings[k + 1] - minX) / cellSize - 0.5));
+                for (int c = from; c <= to; c++) {
+                    if (!local.get((r - r0) * width + (c - c0))) {
+                        setBit(insideBits, r * cols + c);
+                    }
+                }
+            }
+        }
+        for (int bit = local.nextSetBit(0); bit >= 0; bit = local.nextSetBit(bit + 1)) {
+            setBit(boundaryBits, (r0 + bit / width) * cols + c0 + bit % width);
+        }
+    }
+
+    // visits every cell the segment touches, including cells it only grazes at an edge or corner
+    private boolean walk(double x0, double y0, double x1, double y1, int cMin, int rMin, int cMax, int rMax,
+                         CellVisitor visitor) {
+        double gx0 = (x0 - minX) / cellSize, gy0 = (y0 - minY) / cellSize;
+        double gx1 = (x1 - minX) / cellSize, gy1 = (y1 - minY) / cellSize;
+        double loX = Math.min(gx0, gx1), hiX = Math.max(gx0, gx1);
+        int first = clamp((int) Math.floor(loX - EPSILON), cMin, cMax);
+        int last = clamp((int) Math.floor(hiX + EPSILON), cMin, cMax);
+        for (int c = first; c <= last; c++) {
+            double ya, yb;
+            if (hiX - loX < EPSILON) {
+                ya = gy0;
+                yb = gy1;
+            } else {
+                double xa = c == first ? loX : Math.max(loX, c);
+                double xb = c == last ? hiX : Math.min(hiX, c + 1);
+                ya = gy0 + (xa - gx0) * (gy1 - gy0) / (gx1 - gx0);
+                yb = gy0 + (xb - gx0) * (gy1 - gy0) / (gx1 - gx0);
+            }
+            int rFirst = clamp((int) Math.floor(Math.min(ya, yb) - EPSILON), rMin, rMax);
+            int rLast = clamp((int) Math.floor(Math.max(ya, yb) + EPSILON), rMin, rMax);
+            for (int r = rFirst; r <= rLast; r++) {
+                if (!visitor.visit(c, r)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private int col(double x) {
+        return clamp((int) Math.floor((x - minX) / cellSize), 0, cols - 1);
+    }
+
+    private int row(double y) {
+        return clamp((int) Math.floor((y - minY) / cellSize), 0, rows - 1);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.min(Math.max(value, min), max);
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void setBit(AtomicLongArray bits, int index) {
+        long mask = 1L << index;
+        bits.getAndAccumulate(index >>> 6, mask, (current, m) -> current | m);
+    }
+}
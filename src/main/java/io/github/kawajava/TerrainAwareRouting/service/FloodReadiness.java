@@ -0,0 +1,36 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Part of the readiness group: DOWN while a region loaded at startup has no flood state yet, so that traffic is not
+// routed through roads that may be flooded
+@Component
+public class FloodReadiness implements HealthIndicator {
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    void waitFor(String region) {
+        pending.add(region);
+    }
+
+    void loaded(String region) {
+        pending.remove(region);
+    }
+
+    Set<String> pending() {
+        return Set.copyOf(pending);
+    }
+
+    @Override
+    public Health health() {
+        return pending.isEmpty()
+                ? Health.up().build()
+                : Health.down().withDetail("floodPending", new TreeSet<>(pending)).build();
+    }
+}
@@ -0,0 +1,244 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.FloodEvent;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodPolygon;
+import io.github.kawajava.TerrainAwareRouting.graph.EdgeIndex;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.quadtree.Quadtree;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+public final class FloodState {
+
+    private static final int RASTER_CHUNK = 4096;
+
+    public record Stats(int polygons, int blockedEdges, long events, long recomputedEdges,
+                        double lastApplyMillis, double meanApplyMillis, double maxApplyMillis, Double lastLagMillis) {}
+
+    private record Entry(FloodPolygon source, PreparedGeometry prepared) {}
+
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+    private final RoadGraph graph;
+    private final EdgeIndex edges;
+    // a preprocessed snapshot may split one source polygon into several pieces sharing its id
+    private final Map<String, List<Entry>> polygons = new LinkedHashMap<>();
+    private final Quadtree index = new Quadtree();
+    private final BitSet working;
+
+    private volatile BitSet published;
+    private FloodState successor;
+    private boolean detached;
+    private double rasterCellMeters;
+
+    private long events;
+    private long recomputedEdges;
+    private long lastApplyNanos;
+    private long totalApplyNanos;
+    private long maxApplyNanos;
+    private Double lastLagMillis;
+
+    private FloodState(RoadGraph graph) {
+        this.graph = graph;
+        this.edges = graph.edgeIndex();
+        this.working = new BitSet(graph.edgeCount());
+        this.published = new BitSet(graph.edgeCount());
+    }
+
+    public static FloodState empty(RoadGraph graph) {
+        return new FloodState(graph);
+    }
+
+    public static FloodState of(RoadGraph graph, List<FloodPolygon> polygons, double rasterCellMeters) {
+        if (rasterCellMeters <= 0 || polygons.isEmpty()) {
+            return of(graph, polygons);
+        }
+        FloodState state = new FloodState(graph);
+        state.rasterCellMeters = rasterCellMeters;
+        state.rasterize(polygons);
+        return state;
+    }
+
+    public static FloodState of(RoadGraph graph, List<FloodPolygon> polygons) {
+        FloodState state = new FloodState(graph);
+        state.load(polygons);
+        return state;
+    }
+
+    // Shared by every query on the graph and replaced, never changed, by the next update, so callers must treat it as
+    // read-only
+    public BitSet blocked() {
+        return published;
+    }
+
+    public synchronized List<FloodPolygon> polygons() {
+        return polygons.values().stream().flatMap(List::stream).map(Entry::source).toList();
+    }
+
+    public Stats apply(List<FloodEvent> batch) {
+        return apply(batch, null);
+    }
+
+    // Also sets the edges the batch newly blocks in newlyBlocked when given. Returns null once the state was detached
+    // from an evicted region, so that the caller can keep the events for the region's next load.
+    synchronized Stats apply(List<FloodEvent> batch, BitSet newlyBlocked) {
+        if (successor != null) {
+            return successor.apply(batch, newlyBlocked);
+        }
+        if (detached) {
+            return null;
+        }
+        long started = System.nanoTime();
+        BitSet touched = new BitSet(graph.edgeCount());
+        for (FloodEvent event : batch) {
+            for (Entry previous : polygons.getOrDefault(event.id(), List.of())) {
+                Envelope area = previous.source().polygon().getEnvelopeInternal();
+                index.remove(area, previous);
+                edges.query(area, touched::set);
+            }
+            polygons.remove(event.id());
+            if (event.kind() != FloodEvent.Kind.REMOVE) {
+                insert(event.polygon(), touched);
+            }
+        }
+        recompute(touched, newlyBlocked);
+
+        long finished = System.nanoTime();
+        long elapsed = finished - started;
+        events += batch.size();
+        recomputedEdges += touched.cardinality();
+        lastApplyNanos = elapsed;
+        totalApplyNanos += elapsed;
+        maxApplyNanos = Math.max(maxApplyNanos, elapsed);
+        batch.stream()
+                .map(FloodEvent::emittedAtMillis)
+                .filter(Objects::nonNull)
+                .max(Long::compare)
+                .ifPresent(emitted -> lastLagMillis = (double) (System.currentTimeMillis() - emitted));
+        return stats();
+    }
+
+    // The snapshot counts as the starting point, not as events
+    private synchronized void load(List<FloodPolygon> snapshot) {
+        long started = System.nanoTime();
+        BitSet touched = new BitSet(graph.edgeCount());
+        for (FloodPolygon polygon : snapshot) {
+            insert(polygon, touched);
+        }
+        recompute(touched, null);
+        lastApplyNanos = System.nanoTime() - started;
+    }
+
+    private void insert(FloodPolygon polygon, BitSet touched) {
+        Entry entry = new Entry(polygon, PreparedGeometryFactory.prepare(polygon.polygon()));
+        Envelope area = polygon.polygon().getEnvelopeInternal();
+        polygons.computeIfAbsent(polygon.id(), id -> new ArrayList<>(1)).add(entry);
+        index.insert(area, entry);
+        if (touched != null) {
+            edges.query(area, touched::set);
+        }
+    }
+
+    private void recompute(BitSet touched, BitSet newlyBlocked) {
+        int[] recompute = touched.stream().toArray();
+        boolean[] flooded = new boolean[recompute.length];
+        IntStream.range(0, recompute.length).parallel().forEach(i -> flooded[i] = isFlooded(recompute[i]));
+        for (int i = 0; i < recompute.length; i++) {
+            if (newlyBlocked != null && flooded[i] && !working.get(recompute[i])) {
+                newlyBlocked.set(recompute[i]);
+            }
+            working.set(recompute[i], flooded[i]);
+        }
+        published = (BitSet) working.clone();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(polygons.size(), published.cardinality(), events, recomputedEdges,
+                lastApplyNanos / 1e6, events == 0 ? 0 : totalApplyNanos / 1e6 / events, maxApplyNanos / 1e6,
+                lastLagMillis);
+    }
+
+    // The polygons left after every event applied so far. Later batches are refused, see apply.
+    synchronized List<FloodPolygon> detach() {
+        if (successor != null) {
+            return successor.detach();
+        }
+        detached = true;
+        return polygons();
+    }
+
+    synchronized FloodState carryOver(RoadGraph target) {
+        if (successor != null) {
+            return successor.carryOver(target);
+        }
+        successor = of(target, polygons(), rasterCellMeters);
+        return successor;
+    }
+
+    private synchronized void rasterize(List<FloodPolygon> snapshot) {
+        long started = System.nanoTime();
+        for (FloodPolygon polygon : snapshot) {
+            insert(polygon, null);
+        }
+        FloodRaster raster = FloodRaster.of(snapshot.stream().map(FloodPolygon::polygon).toList(), rasterCellMeters);
+        IntStream.Builder candidates = IntStream.builder();
+        edges.query(raster.bounds(), candidates::add);
+        int[] covered = candidates.build().toArray();
+        boolean[] flooded = new boolean[covered.length];
+        IntStream.range(0, (covered.length + RASTER_CHUNK - 1) / RASTER_CHUNK).parallel().forEach(chunk -> {
+            double[] lats = new double[16];
+            double[] lons = new double[16];
+            for (int i = chunk * RASTER_CHUNK; i < Math.min(covered.length, (chunk + 1) * RASTER_CHUNK); i++) {
+                int e = covered[i];
+                int points = graph.edgePointCount(e);
+                if (points > lats.length) {
+                    lats = new double[points];
+                    lons = new double[points];
+                }
+                graph.decodeEdge(e, lats, lons, 0);
+                FloodRaster.Cover cover = raster.cover(lats, lons, points);
+                flooded[i] = cover == FloodRaster.Cover.FLOODED || cover == FloodRaster.Cover.BOUNDARY && isFlooded(e);
+            }
+        });
+        for (int i = 0; i < covered.length; i++) {
+            if (flooded[i]) {
+                working.set(covered[i]);
+            }
+        }
+        published = (BitSet) working.clone();
+        lastApplyNanos = System.nanoTime() - started;
+    }
+
+    // Stays on prepared geometries: a point-in-polygon kernel pass over the edge vertices was slower, see the README
+    private boolean isFlooded(int edge) {
+        Envelope area = edges.envelope(edge);
+        @SuppressWarnings("unchecked")
+        List<Entry> candidates = index.query(area);
+        if (candidates.isEmpty()) {
+            return false;
+        }
+        LineString line = null;
+        for (Entry candidate : candidates) {
+            if (!candidate.source().polygon().getEnvelopeInternal().intersects(area)) {
+                continue;
+            }
+            if (line == null) {
+                line = geometryFactory.createLineString(graph.edgeCoordinates(edge));
+            }
+            if (candidate.prepared().intersects(line)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RegionDefinition;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+
+public final class Region {
+
+    private final RegionDefinition definition;
+    private final RoadGraph graph;
+    private final long generation;
+
+    volatile FloodState flood;
+    volatile FloodForecast forecast;
+    volatile long lastUse;
+
+    Region(RegionDefinition definition, RoadGraph graph, long generation) {
+        this.definition = definition;
+        this.graph = graph;
+        this.generation = generation;
+    }
+
+    public String id() {
+        return definition.id();
+    }
+
+    public RegionDefinition definition() {
+        return definition;
+    }
+
+    public RoadGraph graph() {
+        return graph;
+    }
+
+    public long generation() {
+        return generation;
+    }
+}
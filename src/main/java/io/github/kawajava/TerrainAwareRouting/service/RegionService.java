@@ -0,0 +1,370 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.FloodSource;
+import io.github.kawajava.TerrainAwareRouting.domain.RegionDefinition;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RegionService {
+
+    public static final String DEFAULT_REGION = "default";
+
+    private final RoadNetworkService network;
+    private final FloodMaskService floodMask;
+    private final Environment environment;
+    private final Map<String, Region> loaded = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Region>> pendingReloads = new ConcurrentHashMap<>();
+    // first loads in progress, so that concurrent requests for a cold region wait for one build
+    private final Map<String, CompletableFuture<Region>> loading = new ConcurrentHashMap<>();
+    private final Object reloadLock = new Object();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong generations = new AtomicLong();
+
+    @Value("${app.roads.geojson-path:classpath:roads.geojson}")
+    String geoJsonPath;
+
+    @Value("${app.flood.backend-url:}")
+    String floodBackendUrl;
+
+    @Value("${app.flood.source-timeout-ms:10000}")
+    long sourceTimeoutMs;
+
+    @Value("${app.flood.stream-url:}")
+    String floodStreamUrl;
+
+    @Value("${app.flood.events-dir:}")
+    String floodEventsDir;
+
+    @Value("${app.terrain.dem-path:}")
+    String demPath;
+
+    @Value("${app.flood.water-level.zones-path:}")
+    String waterLevelZonesPath;
+
+    @Value("${app.graph.tiles-dir:tiles}")
+    String tilesDir;
+
+    @Value("${app.region-budget-mb:2048}")
+    long budgetMb;
+
+    @Value("${app.roads.reload-delay-ms:500}")
+    long reloadDelayMs;
+
+    @Value("${app.roads.reload-parallelism:0}")
+    int reloadParallelism;
+
+    private volatile Map<String, RegionDefinition> definitions;
+    private volatile ForkJoinPool reloadPool;
+
+    public record RegionProperties(String geojsonPath, String floodBackendUrl, Map<String, SourceProperties> floodSources,
+                                   String floodStreamUrl, String floodEventsDir, String demPath,
+                                   String waterLevelZonesPath, String tilesDir, String bbox) {}
+
+    public record SourceProperties(String url, Long timeoutMs) {}
+
+    public Collection<RegionDefinition> definitions() {
+        return definitionsById().values();
+    }
+
+    public Optional<Region> loadedRegion(String id) {
+        return Optional.ofNullable(loaded.get(id));
+    }
+
+    public Region region(String id) {
+        return load(definition(id));
+    }
+
+    // Bytes left before loading another region evicts the least recently used one
+    public long headroomBytes() {
+        return (budgetMb << 20) - loaded.values().stream().mapToLong(r -> r.graph().footprintBytes()).sum();
+    }
+
+    public Region locate(double lat, double lon) {
+        return load(definitionAt(definitionsById(), lat, lon));
+    }
+
+    public Region resolve(String id, double lat, double lon) {
+        return id == null || id.isBlank() ? locate(lat, lon) : region(id);
+    }
+
+    // Without an id every point has to fall in the same region, since one graph routes between all of them
+    public Region resolve(String id, List<Coordinate> points) {
+        if (id != null && !id.isBlank()) {
+            return region(id);
+        }
+        Map<String, RegionDefinition> all = definitionsById();
+        Map<String, RegionDefinition> covering = new LinkedHashMap<>();
+        for (Coordinate point : points) {
+            RegionDefinition definition = definitionAt(all, point.y, point.x);
+            covering.putIfAbsent(definition.id(), definition);
+        }
+        if (covering.size() > 1) {
+            throw new IllegalArgumentException("Points fall in different regions: " + String.join(", ", covering.keySet()));
+        }
+        if (covering.isEmpty()) {
+            throw new IllegalArgumentException("No points to locate a region for");
+        }
+        return load(covering.values().iterator().next());
+    }
+
+    private static RegionDefinition definitionAt(Map<String, RegionDefinition> all, double lat, double lon) {
+        RegionDefinition definition = all.values().stream()
+                .filter(r -> r.covers(lat, lon))
+                .findFirst()
+                .orElseGet(() -> all.size() == 1 ? all.values().iterator().next() : null);
+        if (definition == null) {
+            throw new NoSuchElementException("No region covers " + lat + "," + lon);
+        }
+        return definition;
+    }
+
+    public CompletableFuture<Region> reload(String id) {
+        return scheduleReload(definition(id));
+    }
+
+    public void reloadIfLoaded(String id) {
+        if (loaded.containsKey(id)) {
+            scheduleReload(definitionsById().get(id));
+        }
+    }
+
+    private CompletableFuture<Region> scheduleReload(RegionDefinition definition) {
+        return pendingReloads.computeIfAbsent(definition.id(), id -> CompletableFuture.supplyAsync(
+                () -> rebuild(definition),
+                CompletableFuture.delayedExecutor(reloadDelayMs, TimeUnit.MILLISECONDS, reloadPool())));
+    }
+
+    private Region rebuild(RegionDefinition definition) {
+        pendingReloads.remove(definition.id());
+        synchronized (reloadLock) {
+            long started = System.nanoTime();
+            Region fresh;
+            try {
+                fresh = new Region(definition, network.reloadGraph(definition), generations.incrementAndGet());
+            } catch (RuntimeException e) {
+                log.error("Reload of region {} failed, keeping the current graph", definition.id(), e);
+                throw e;
+            }
+            synchronized (this) {
+                Region old = loaded.get(definition.id());
+                if (old != null) {
+                    floodMask.carryOver(old, fresh);
+                } else {
+                    floodMask.restore(fresh);
+                }
+                fresh.lastUse = clock.incrementAndGet();
+                loaded.put(definition.id(), fresh);
+                evictOver(fresh);
+            }
+            log.info("Reloaded region {} as generation {} in {} ms", definition.id(), fresh.generation(),
+                    (System.nanoTime() - started) / 1_000_000);
+            return fresh;
+        }
+    }
+
+    private ForkJoinPool reloadPool() {
+        ForkJoinPool pool = reloadPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = reloadPool;
+                if (pool == null) {
+                    int parallelism = reloadParallelism > 0
+                            ? reloadParallelism
+                            : Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+                    pool = new ForkJoinPool(parallelism, p -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                        thread.setName("graph-reload-" + thread.getPoolIndex());
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }, null, false);
+                    reloadPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    // The graph is built outside the monitor, so that a cold region does not hold up requests for the others or a
+    // reload; only inserting it and evicting over the budget take the monitor.
+    private Region load(RegionDefinition definition) {
+        Region region = loaded.get(definition.id());
+        if (region == null) {
+            CompletableFuture<Region> building = new CompletableFuture<>();
+            CompletableFuture<Region> current = loading.putIfAbsent(definition.id(), building);
+            region = current != null ? await(current) : build(definition, building);
+        }
+        region.lastUse = clock.incrementAndGet();
+        return region;
+    }
+
+    private Region build(RegionDefinition definition, CompletableFuture<Region> building) {
+        try {
+            // another thread may have finished loading between the lookup and registering this build
+            Region region = loaded.get(definition.id());
+            if (region == null) {
+                long started = System.nanoTime();
+                Region built = new Region(definition, network.loadGraph(definition), generations.incrementAndGet());
+                synchronized (this) {
+                    region = loaded.get(definition.id());
+                    if (region == null) {
+                        region = built;
+                        floodMask.restore(region);
+                        region.lastUse = clock.incrementAndGet();
+                        loaded.put(definition.id(), region);
+                        evictOver(region);
+                    }
+                }
+                log.info("Loaded region {} in {} ms", definition.id(), (System.nanoTime() - started) / 1_000_000);
+            }
+            building.complete(region);
+            return region;
+        } catch (RuntimeException e) {
+            building.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(definition.id(), building);
+        }
+    }
+
+    private static Region await(CompletableFuture<Region> building) {
+        try {
+            return building.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void evictOver(Region keep) {
+        long budget = budgetMb << 20;
+        long total = loaded.values().stream().mapToLong(r -> r.graph().footprintBytes()).sum();
+        while (total > budget) {
+            Region victim = loaded.values().stream()
+                    .filter(r -> r != keep)
+                    .min((a, b) -> Long.compare(a.lastUse, b.lastUse))
+                    .orElse(null);
+            if (victim == null) {
+                return;
+            }
+            loaded.remove(victim.id());
+            floodMask.retain(victim);
+            RoadGraph graph = victim.graph();
+            total -= graph.footprintBytes();
+            log.info("Evicted region {} ({} MiB) to stay within {} MiB", victim.id(), graph.footprintBytes() >> 20, budgetMb);
+        }
+    }
+
+    private RegionDefinition definition(String id) {
+        Map<String, RegionDefinition> all = definitionsById();
+        RegionDefinition definition = id == null || id.isBlank()
+                ? all.values().iterator().next()
+                : all.get(id);
+        if (definition == null) {
+            throw new NoSuchElementException("Unknown region: " + id);
+        }
+        return definition;
+    }
+
+    private Map<String, RegionDefinition> definitionsById() {
+        Map<String, RegionDefinition> current = definitions;
+        if (current == null) {
+            Binder binder = Binder.get(environment);
+            Map<String, RegionProperties> configured = binder
+                    .bind("app.regions", Bindable.mapOf(String.class, RegionProperties.class))
+                    .orElse(Map.of());
+            List<FloodSource> globalSources = toSources(floodBackendUrl, binder
+                    .bind("app.flood.sources", Bindable.mapOf(String.class, SourceProperties.class))
+                    .orElse(Map.of()));
+            current = configured.isEmpty()
+                    ? Map.of(DEFAULT_REGION, new RegionDefinition(DEFAULT_REGION, geoJsonPath, globalSources,
+                            floodStreamUrl, floodEventsDir, demPath, waterLevelZonesPath, tilesDir, null))
+                    : toDefinitions(configured, globalSources);
+            definitions = current;
+        }
+        return current;
+    }
+
+    Map<String, RegionDefinition> toDefinitions(Map<String, RegionProperties> configured, List<FloodSource> globalSources) {
+        Map<String, RegionDefinition> result = new LinkedHashMap<>();
+        configured.forEach((id, properties) -> {
+            if (properties.geojsonPath() == null || properties.geojsonPath().isBlank()) {
+                throw new IllegalArgumentException("Region " + id + " has no geojson-path");
+            }
+            List<FloodSource> sources = toSources(properties.floodBackendUrl(), properties.floodSources());
+            result.put(id, new RegionDefinition(id,
+                    properties.geojsonPath(),
+                    sources.isEmpty() ? globalSources : sources,
+                    properties.floodStreamUrl(),
+                    properties.floodEventsDir(),
+                    orDefault(properties.demPath(), demPath),
+                    orDefault(properties.waterLevelZonesPath(), waterLevelZonesPath),
+                    orDefault(properties.tilesDir(), Path.of(tilesDir, id).toString()),
+                    parseBounds(id, properties.bbox())));
+        });
+        return result;
+    }
+
+    List<FloodSource> toSources(String backendUrl, Map<String, SourceProperties> configured) {
+        List<FloodSource> sources = new ArrayList<>();
+        Duration defaultTimeout = Duration.ofMillis(sourceTimeoutMs);
+        if (backendUrl != null && !backendUrl.isBlank()) {
+            sources.add(new FloodSource("backend", backendUrl, defaultTimeout));
+        }
+        if (configured != null) {
+            configured.forEach((name, properties) -> {
+                if (properties.url() == null || properties.url().isBlank()) {
+                    throw new IllegalArgumentException("Flood source " + name + " has no url");
+                }
+                sources.add(new FloodSource(name, properties.url(),
+                        properties.timeoutMs() == null ? defaultTimeout : Duration.ofMillis(properties.timeoutMs())));
+            });
+        }
+        return List.copyOf(sources);
+    }
+
+    static Envelope parseBounds(String id, String bbox) {
+        if (bbox == null || bbox.isBlank()) {
+            return null;
+        }
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Region " + id + " bbox must be minLat,minLon,maxLat,maxLon");
+        }
+        double minLat = Double.parseDouble(parts[0].trim());
+        double minLon = Double.parseDouble(parts[1].trim());
+        double maxLat = Double.parseDouble(parts[2].trim());
+        double maxLon = Double.parseDouble(parts[3].trim());
+        return new Envelope(minLon, maxLon, minLat, maxLat);
+    }
+
+    private static String orDefault(String value, String fallback) {
+        return value == null || value.isBlank() ? fallback : value;
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RegionDefinition;
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.GraphLayout;
+import io.github.kawajava.TerrainAwareRouting.graph.GraphTiles;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import io.github.kawajava.TerrainAwareRouting.infrastructure.GeoJsonRoadLoader;
+import io.github.kawajava.TerrainAwareRouting.terrain.ElevationRaster;
+import io.github.kawajava.TerrainAwareRouting.terrain.TerrainProfiler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RoadNetworkService {
+
+    private final GeoJsonRoadLoader loader;
+
+    @Value("${app.roads.merge-tolerance-meters:0.5}")
+    private double mergeToleranceMeters;
+
+    @Value("${app.graph.layout:heap}")
+    private String layout;
+
+    @Value("${app.graph.tile-size-degrees:0.25}")
+    private double tileSizeDegrees;
+
+    @Value("${app.graph.tile-budget-mb:256}")
+    private long tileBudgetMb;
+
+    @Value("${app.terrain.sample-spacing-meters:10}")
+    private double sampleSpacingMeters;
+
+    public RoadGraph loadGraph(RegionDefinition region) {
+        return loadGraph(region, false);
+    }
+
+    public RoadGraph reloadGraph(RegionDefinition region) {
+        return loadGraph(region, true);
+    }
+
+    private RoadGraph loadGraph(RegionDefinition region, boolean rebuild) {
+        GraphLayout graphLayout = GraphLayout.fromName(layout);
+        if (graphLayout != GraphLayout.TILED) {
+            return buildGraph(loader.loadRoadSegments(region.geojsonPath()), graphLayout, region.demPath());
+        }
+        Path root = Path.of(region.tilesDir());
+        try {
+            Path dir = GraphTiles.current(root);
+            if (rebuild || !GraphTiles.exists(dir) || newerThanTiles(region.geojsonPath(), dir)) {
+                RoadGraph graph = buildGraph(loader.loadRoadSegments(region.geojsonPath()), GraphLayout.HEAP, region.demPath());
+                dir = GraphTiles.publish(graph, root, tileSizeDegrees);
+            }
+            return GraphTiles.open(dir, tileBudgetMb << 20);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open road graph tiles in " + root, e);
+        }
+    }
+
+    private static boolean newerThanTiles(String geojsonPath, Path tilesDir) throws IOException {
+        if (geojsonPath.startsWith("classpath:")) {
+            return false;
+        }
+        Path source = Path.of(geojsonPath);
+        return Files.isRegularFile(source)
+                && Files.getLastModifiedTime(source).compareTo(GraphTiles.lastModified(tilesDir)) > 0;
+    }
+
+    RoadGraph buildGraph(List<RoadSegment> segments, GraphLayout graphLayout, String demPath) {
+        if (demPath == null || demPath.isBlank()) {
+            return new RoadGraphBuilder(mergeToleranceMeters, null, graphLayout).build(segments);
+        }
+        try (ElevationRaster raster = ElevationRaster.open(Path.of(demPath))) {
+            return new RoadGraphBuilder(mergeToleranceMeters, new TerrainProfiler(raster, sampleSpacingMeters),
+                    graphLayout).build(segments);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to close DEM " + demPath, e);
+        }
+    }
+}
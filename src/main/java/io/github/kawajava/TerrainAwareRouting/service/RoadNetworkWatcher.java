@@ -0,0 +1,93 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RegionDefinition;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoadNetworkWatcher {
+
+    private final RegionService regions;
+
+    @Value("${app.roads.watch:true}")
+    boolean enabled;
+
+    private volatile WatchService watchService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Map<Path, String> regionByFile = new HashMap<>();
+        for (RegionDefinition definition : regions.definitions()) {
+            if (definition.geojsonPath().startsWith("classpath:")) {
+                continue;
+            }
+            Path file = Path.of(definition.geojsonPath()).toAbsolutePath().normalize();
+            if (Files.isRegularFile(file)) {
+                regionByFile.put(file, definition.id());
+            }
+        }
+        if (regionByFile.isEmpty()) {
+            return;
+        }
+
+        WatchService service = FileSystems.getDefault().newWatchService();
+        for (Path dir : regionByFile.keySet().stream().map(Path::getParent).distinct().toList()) {
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        watchService = service;
+        Thread.ofPlatform().daemon().name("road-network-watcher").start(() -> watch(service, regionByFile));
+        log.info("Watching {} road network files for changes", regionByFile.size());
+    }
+
+    private void watch(WatchService service, Map<Path, String> regionByFile) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        continue;
+                    }
+                    String region = regionByFile.get(dir.resolve((Path) event.context()));
+                    if (region != null) {
+                        log.info("Road network file of region {} changed", region);
+                        regions.reloadIfLoaded(region);
+                    }
+                }
+                key.reset();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            log.debug("Road network watcher stopped");
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        WatchService service = watchService;
+        if (service != null) {
+            service.close();
+        }
+    }
+}
@@ -1,31 +1,159 @@
 package io.github.kawajava.TerrainAwareRouting.service;
 
 import io.github.kawajava.TerrainAwareRouting.core.AStarPathFinder;
+import io.github.kawajava.TerrainAwareRouting.core.AlternativeRouteFinder;
+import io.github.kawajava.TerrainAwareRouting.core.DeltaSteppingPathFinder;
+import io.github.kawajava.TerrainAwareRouting.core.GraphPath;
 import io.github.kawajava.TerrainAwareRouting.core.PathFindingStrategy;
+import io.github.kawajava.TerrainAwareRouting.core.RouteQuery;
+import io.github.kawajava.TerrainAwareRouting.core.RoutePath;
+import io.github.kawajava.TerrainAwareRouting.core.RouteSimplifier;
 import io.github.kawajava.TerrainAwareRouting.core.SafeDijkstraPathFinder;
-import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.core.SearchWorkspacePool;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
 import org.locationtech.jts.geom.Coordinate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Random;
 
 @Service
 public class RouteService {
 
-    private final PathFindingStrategy dijkstra = new SafeDijkstraPathFinder();
-    private final PathFindingStrategy astar = new AStarPathFinder();
+    private static final double WARM_UP_SPAN_DEG = 0.04;
+
+    private final SearchWorkspacePool workspaces = new SearchWorkspacePool();
+    private final PathFindingStrategy dijkstra = new SafeDijkstraPathFinder(workspaces);
+    private final PathFindingStrategy astar = new AStarPathFinder(workspaces);
+    private final PathFindingStrategy deltaStepping = new DeltaSteppingPathFinder();
+    private final AlternativeRouteFinder alternatives = new AlternativeRouteFinder(workspaces);
 
     @Value("${app.finding.value}")
     private String value;
 
-    public List<Coordinate> computeRoute(
-            List<RoadSegment> segments,
+    @Value("${app.routing.default-profile:car}")
+    private String defaultProfile;
+
+    @Value("${app.routing.alternatives.max-count:3}")
+    int maxAlternatives;
+
+    @Value("${app.routing.alternatives.max-stretch:1.4}")
+    double alternativeStretch;
+
+    @Value("${app.routing.alternatives.max-overlap:0.7}")
+    double alternativeOverlap;
+
+    @Value("${app.routing.alternatives.local-optimality:0.25}")
+    double alternativeLocalOptimality;
+
+    public record Routes(RoutePath best, List<Alternative> alternatives) {}
+
+    public record Alternative(RoutePath path, double stretch, double overlap) {}
+
+    public CostProfile resolveProfile(String profile) {
+        return CostProfile.fromName(profile == null || profile.isBlank() ? defaultProfile : profile);
+    }
+
+    public RoutePath computeRoute(
+            RoadGraph graph,
+            BitSet blockedEdges,
+            CostProfile profile,
+            Coordinate start,
+            Coordinate end
+    ) {
+        return computeRoute(graph, blockedEdges, null, null, profile, start, end);
+    }
+
+    public RoutePath computeRoute(
+            RoadGraph graph,
+            BitSet blockedEdges,
+            FloodForecast forecast,
+            Instant departure,
+            CostProfile profile,
+            Coordinate start,
+            Coordinate end
+    ) {
+        return RoutePath.of(graph, findPath(graph, blockedEdges, forecast, departure, profile, start, end));
+    }
+
+    public GraphPath findPath(
+            RoadGraph graph,
+            BitSet blockedEdges,
+            FloodForecast forecast,
+            Instant departure,
+            CostProfile profile,
             Coordinate start,
             Coordinate end
     ) {
-        PathFindingStrategy strategy = "astar".equalsIgnoreCase(value) ? astar : dijkstra;
+        return strategy().findPath(query(graph, blockedEdges, forecast, departure, profile, start, end));
+    }
+
+    public PathFindingStrategy strategy() {
+        return "astar".equalsIgnoreCase(value) ? astar
+                : "delta-stepping".equalsIgnoreCase(value) ? deltaStepping : dijkstra;
+    }
+
+    // under a forecast the best route comes from the time-dependent search, since the static shortest path may cross
+    // a road that floods on the way; the alternatives are then measured against it
+    public Routes computeRoutes(
+            RoadGraph graph,
+            BitSet blockedEdges,
+            FloodForecast forecast,
+            Instant departure,
+            CostProfile profile,
+            Coordinate start,
+            Coordinate end,
+            int count
+    ) {
+        if (count < 0 || count > maxAlternatives) {
+            throw new IllegalArgumentException("Alternatives must be between 0 and " + maxAlternatives);
+        }
+        RouteQuery query = query(graph, blockedEdges, forecast, departure, profile, start, end);
+        AlternativeRouteFinder.Result result = alternatives.find(query,
+                new AlternativeRouteFinder.Options(count, alternativeStretch, alternativeOverlap, alternativeLocalOptimality),
+                forecast == null ? null : dijkstra.findPath(query));
+
+        return new Routes(RoutePath.of(graph, result.best()), result.alternatives().stream()
+                .map(alternative -> new Alternative(RoutePath.of(graph, alternative.path()),
+                        alternative.stretch(), alternative.overlap()))
+                .toList());
+    }
+
+    private static RouteQuery query(RoadGraph graph, BitSet blockedEdges, FloodForecast forecast, Instant departure,
+                                    CostProfile profile, Coordinate start, Coordinate end) {
+        int source = graph.nearestNode(start.y, start.x);
+        int target = graph.nearestNode(end.y, end.x);
+        return forecast == null
+                ? new RouteQuery(graph, profile, blockedEdges, source, target)
+                : new RouteQuery(graph, profile, blockedEdges, source, target, forecast.floodsAt(), forecast.offset(departure));
+    }
+
+    // Runs random town-sized queries through Dijkstra and A* until count is reached or the deadline passes, so that
+    // their search loops are compiled before real traffic arrives. Returns the number of queries run.
+    public int warmUp(RoadGraph graph, BitSet blockedEdges, int count, long deadlineNanos) {
+        CostProfile profile = resolveProfile(null);
+        Random random = new Random(graph.nodeCount());
+        int done = 0;
+        while (done < count && System.nanoTime() < deadlineNanos) {
+            int source = random.nextInt(graph.nodeCount());
+            int target = graph.nearestNode(graph.nodeLat(source) + (random.nextDouble() - 0.5) * WARM_UP_SPAN_DEG,
+                    graph.nodeLon(source) + (random.nextDouble() - 0.5) * WARM_UP_SPAN_DEG);
+            RouteQuery query = new RouteQuery(graph, profile, blockedEdges, source, target);
+            RoutePath.of(graph, dijkstra.findPath(query));
+            RoutePath.of(graph, astar.findPath(query));
+            done++;
+        }
+        return done;
+    }
 
-        return strategy.findPath(segments, start, end);
+    public RoutePath simplify(RoutePath path, double toleranceMeters) {
+        if (toleranceMeters < 0) {
+            throw new IllegalArgumentException("Simplify tolerance must not be negative");
+        }
+        return RouteSimplifier.simplify(path, toleranceMeters);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,155 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RegionDefinition;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Application runners finish before Spring Boot reports the application as ready to accept traffic, so with
+// app.startup.eager the readiness probe stays down until every region's graph and flood mask are loaded and the
+// warm-up queries have run. The CDS training run of the fast-start build exits here, once every class a first
+// request needs has been loaded.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StartupWarmUp implements ApplicationRunner {
+
+    private final RegionService regions;
+    private final FloodMaskService floodMask;
+    private final RouteService routing;
+    private final FloodReadiness floodReadiness;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${app.startup.eager:false}")
+    boolean eager;
+
+    @Value("${app.startup.warm-up-queries:0}")
+    int warmUpQueries;
+
+    @Value("${app.startup.warm-up-max-ms:20000}")
+    long warmUpMaxMs;
+
+    @Value("${app.startup.exit-after-warm-up:false}")
+    boolean exitAfterWarmUp;
+
+    // refuse: readiness stays DOWN until the flood mask of every region loaded here is fetched; warn: only log
+    @Value("${app.startup.flood-failure:refuse}")
+    String floodFailure;
+
+    @Value("${app.startup.flood-retry-ms:10000}")
+    long floodRetryMs;
+
+    private volatile Thread retry;
+
+    record Result(int loaded, int queries, List<String> skipped) {}
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (eager || warmUpQueries > 0 || exitAfterWarmUp) {
+            warmUp();
+        }
+        if (exitAfterWarmUp) {
+            System.exit(SpringApplication.exit(context));
+        }
+        if (!floodReadiness.pending().isEmpty()) {
+            retry = Thread.ofPlatform().daemon().name("flood-readiness").start(this::retryFloods);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        Thread thread = retry;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    // Regions are loaded until the next one would not fit the memory budget, since loading it would evict a region
+    // warmed up a moment ago; the largest region loaded so far stands in for the size of the next one.
+    Result warmUp() {
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(warmUpMaxMs);
+        List<RegionDefinition> definitions = List.copyOf(regions.definitions());
+        List<String> skipped = new ArrayList<>();
+        long largest = 0;
+        int loaded = 0;
+        int queries = 0;
+        for (RegionDefinition definition : definitions) {
+            if (loaded > 0 && regions.headroomBytes() < largest) {
+                skipped.add(definition.id());
+                continue;
+            }
+            Region region;
+            try {
+                region = regions.region(definition.id());
+            } catch (RuntimeException e) {
+                log.error("Eager load of region {} failed, it will be loaded on first use", definition.id(), e);
+                continue;
+            }
+            loaded++;
+            largest = Math.max(largest, region.graph().footprintBytes());
+            BitSet blocked;
+            try {
+                blocked = floodMask.blockedEdges(region);
+            } catch (RuntimeException e) {
+                if ("warn".equalsIgnoreCase(floodFailure)) {
+                    log.warn("Flood mask of region {} not loaded, warming up without it: {}", definition.id(),
+                            e.getMessage());
+                } else {
+                    log.error("Flood mask of region {} not loaded, not ready until it is: {}", definition.id(),
+                            e.getMessage());
+                    floodReadiness.waitFor(definition.id());
+                }
+                blocked = new BitSet();
+            }
+            if (warmUpQueries > 0 && region.graph().nodeCount() > 0) {
+                queries += routing.warmUp(region.graph(), blocked, warmUpQueries, deadline);
+            }
+        }
+        if (!skipped.isEmpty()) {
+            log.warn("Eager loading stopped within the region budget of {} MiB, regions {} will be loaded on first use",
+                    regions.budgetMb, skipped);
+        }
+        log.info("Loaded {} regions and ran {} warm-up queries in {} ms", loaded, queries,
+                (System.nanoTime() - started) / 1_000_000);
+        return new Result(loaded, queries, skipped);
+    }
+
+    private void retryFloods() {
+        try {
+            while (!retryFloodsOnce()) {
+                Thread.sleep(floodRetryMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Returns true once no region is waiting for its flood mask. An evicted region stops holding readiness down: it
+    // fetches its flood mask again when it is next loaded.
+    boolean retryFloodsOnce() {
+        for (String id : floodReadiness.pending()) {
+            Optional<Region> region = regions.loadedRegion(id);
+            try {
+                region.ifPresent(floodMask::blockedEdges);
+                floodReadiness.loaded(id);
+                region.ifPresent(r -> log.info("Flood mask of region {} loaded, region is ready", id));
+            } catch (RuntimeException e) {
+                log.warn("Flood mask of region {} still not loaded: {}", id, e.getMessage());
+            }
+        }
+        return floodReadiness.pending().isEmpty();
+    }
+}
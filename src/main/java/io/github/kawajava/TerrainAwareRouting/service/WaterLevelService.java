@@ -0,0 +1,255 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.CatchmentZone;
+import io.github.kawajava.TerrainAwareRouting.graph.GeoKernels;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.infrastructure.CatchmentZoneLoader;
+import io.github.kawajava.TerrainAwareRouting.terrain.EdgeTerrain;
+import io.github.kawajava.TerrainAwareRouting.terrain.WaterLevelMask;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Polygon;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WaterLevelService {
+
+    private static final int ZONE_BATCH = 4096;
+
+    private final CatchmentZoneLoader zoneLoader;
+    // levels and catchment zones of each region by id, kept while the region is evicted or reloaded
+    private final Map<String, RegionLevels> byRegion = new ConcurrentHashMap<>();
+    private final Map<RoadGraph, int[]> zoneIndex = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<RoadGraph, Mask> masks = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private record Mask(long version, BitSet blocked) {}
+
+    public record Levels(Float global, Map<String, Float> zones) {}
+
+    private static final class RegionLevels {
+        private final Map<String, Float> zones = new ConcurrentHashMap<>();
+        private final AtomicLong version = new AtomicLong();
+        private volatile float global = Float.NaN;
+        private volatile List<CatchmentZone> catchments;
+    }
+
+    public void setLevel(Region region, String zone, double level) {
+        if (Double.isNaN(level) || Double.isInfinite(level)) {
+            throw new IllegalArgumentException("Water level must be a finite number");
+        }
+        RegionLevels levels = levels(region.id());
+        if (zone == null || zone.isBlank()) {
+            levels.global = (float) level;
+        } else if (zones(region).stream().anyMatch(z -> z.id().equals(zone))) {
+            levels.zones.put(zone, (float) level);
+        } else {
+            throw new IllegalArgumentException("Unknown catchment zone in region " + region.id() + ": " + zone);
+        }
+        levels.version.incrementAndGet();
+        log.info("Water level for {} in region {} set to {} m", zone == null || zone.isBlank() ? "all zones" : zone,
+                region.id(), level);
+    }
+
+    public void clear(Region region) {
+        RegionLevels levels = levels(region.id());
+        levels.global = Float.NaN;
+        levels.zones.clear();
+        levels.version.incrementAndGet();
+    }
+
+    public Levels levels(Region region) {
+        RegionLevels levels = levels(region.id());
+        float global = levels.global;
+        return new Levels(Float.isNaN(global) ? null : global, new TreeMap<>(levels.zones));
+    }
+
+    // The cached mask is shared by every route query on the graph and replaced, never changed, after a level change,
+    // so callers must treat it as read-only
+    public BitSet blockedEdges(Region region) {
+        RoadGraph graph = region.graph();
+        RegionLevels levels = levels(region.id());
+        long currentVersion = levels.version.get();
+        Mask current = masks.get(graph);
+        if (current != null && current.version() == currentVersion) {
+            return current.blocked();
+        }
+
+        float[] minElevation = graph.terrain()
+                .map(EdgeTerrain::minElevation)
+                .orElseThrow(() -> new IllegalStateException("Water-level flood mode requires app.terrain.dem-path"));
+
+        long started = System.nanoTime();
+        BitSet blocked = levels.zones.isEmpty()
+                ? WaterLevelMask.blockedEdges(minElevation, levels.global)
+                : WaterLevelMask.blockedEdges(minElevation, edgeZones(region), effectiveLevels(region));
+        log.info("Water-level mask of region {}: {} of {} edges blocked in {} µs", region.id(),
+                blocked.cardinality(), minElevation.length, (System.nanoTime() - started) / 1_000);
+
+        masks.put(graph, new Mask(currentVersion, blocked));
+        return blocked;
+    }
+
+    float[] effectiveLevels(Region region) {
+        List<CatchmentZone> all = zones(region);
+        RegionLevels current = levels(region.id());
+        float global = current.global;
+        float[] levels = new float[all.size() + 1];
+        for (int i = 0; i < all.size(); i++) {
+            levels[i] = current.zones.getOrDefault(all.get(i).id(), global);
+        }
+        levels[all.size()] = global;
+        return levels;
+    }
+
+    // Graphs belong to one region, so the index is kept per graph and rebuilt for a reloaded one
+    int[] edgeZones(Region region) {
+        RoadGraph graph = region.graph();
+        int[] cached = zoneIndex.get(graph);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<CatchmentZone> all = zones(region);
+        List<ZoneRings> rings = all.stream().map(zone -> ZoneRings.of(zone.polygon())).toList();
+        GeoKernels kernels = GeoKernels.best();
+        int edges = graph.edgeCount();
+        int[] edgeZone = new int[edges];
+        Arrays.fill(edgeZone, all.size());
+        IntStream.range(0, (edges + ZONE_BATCH - 1) / ZONE_BATCH).parallel().forEach(batch -> {
+            int from = batch * ZONE_BATCH;
+            int to = Math.min(edges, from + ZONE_BATCH);
+            double[] xs = new double[to - from];
+            double[] ys = new double[to - from];
+            double[] lats = new double[16];
+            double[] lons = new double[16];
+            double[] middle = new double[2];
+            for (int edge = from; edge < to; edge++) {
+                int points = graph.edgePointCount(edge);
+                if (points > lats.length) {
+                    lats = new double[points];
+                    lons = new double[points];
+                }
+                graph.decodeEdge(edge, lats, lons, 0);
+                midpoint(lats, lons, points, middle);
+                ys[edge - from] = middle[0];
+                xs[edge - from] = middle[1];
+            }
+
+            // candidates go to the kernel in latitude order so that it can skip ring edges per lane group
+            int[] order = IntStream.range(0, to - from).boxed()
+                    .sorted(Comparator.comparingDouble(i -> ys[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            int[] candidates = new int[to - from];
+            double[] cx = new double[to - from];
+            double[] cy = new double[to - from];
+            boolean[] inside = new boolean[to - from];
+            for (int z = 0; z < rings.size(); z++) {
+                ZoneRings zone = rings.get(z);
+                int count = 0;
+                for (int i : order) {
+                    if (edgeZone[from + i] == all.size() && zone.bounds().covers(xs[i], ys[i])) {
+                        candidates[count] = from + i;
+                        cx[count] = xs[i];
+                        cy[count] = ys[i];
+                        count++;
+                    }
+                }
+                if (count == 0) {
+                    continue;
+                }
+                Arrays.fill(inside, 0, count, false);
+                for (int r = 0; r < zone.xs().length; r++) {
+                    kernels.crossRing(zone.xs()[r], zone.ys()[r], zone.xs()[r].length, cx, cy, count, inside);
+                }
+                for (int k = 0; k < count; k++) {
+                    if (inside[k]) {
+                        edgeZone[candidates[k]] = z;
+                    }
+                }
+            }
+        });
+
+        zoneIndex.put(graph, edgeZone);
+        return edgeZone;
+    }
+
+    // The point halfway along an edge's polyline as {lat, lon}. Lengths are planar, with longitude scaled by the
+    // cosine of the latitude, which is exact enough within one edge.
+    static void midpoint(double[] lats, double[] lons, int points, double[] out) {
+        double cos = Math.cos(Math.toRadians(lats[0]));
+        double total = 0;
+        for (int i = 1; i < points; i++) {
+            total += Math.hypot(lats[i] - lats[i - 1], (lons[i] - lons[i - 1]) * cos);
+        }
+        double remaining = total / 2;
+        for (int i = 1; i < points; i++) {
+            double length = Math.hypot(lats[i] - lats[i - 1], (lons[i] - lons[i - 1]) * cos);
+            if (length >= remaining && length > 0) {
+                double t = remaining / length;
+                out[0] = lats[i - 1] + (lats[i] - lats[i - 1]) * t;
+                out[1] = lons[i - 1] + (lons[i] - lons[i - 1]) * t;
+                return;
+            }
+            remaining -= length;
+        }
+        out[0] = lats[0];
+        out[1] = lons[0];
+    }
+
+    private record ZoneRings(Envelope bounds, double[][] xs, double[][] ys) {
+
+        static ZoneRings of(Polygon polygon) {
+            int count = polygon.getNumInteriorRing() + 1;
+            double[][] xs = new double[count][];
+            double[][] ys = new double[count][];
+            for (int r = 0; r < count; r++) {
+                Coordinate[] ring = (r == 0 ? polygon.getExteriorRing() : polygon.getInteriorRingN(r - 1)).getCoordinates();
+                xs[r] = new double[ring.length];
+                ys[r] = new double[ring.length];
+                for (int i = 0; i < ring.length; i++) {
+                    xs[r][i] = ring[i].x;
+                    ys[r][i] = ring[i].y;
+                }
+            }
+            return new ZoneRings(polygon.getEnvelopeInternal(), xs, ys);
+        }
+    }
+
+    List<CatchmentZone> zones(Region region) {
+        RegionLevels levels = levels(region.id());
+        List<CatchmentZone> current = levels.catchments;
+        if (current == null) {
+            String path = region.definition().waterLevelZonesPath();
+            current = path == null || path.isBlank() ? List.of() : zoneLoader.load(Path.of(path));
+            levels.catchments = current;
+        }
+        return current;
+    }
+
+    void setZones(String region, List<CatchmentZone> zones) {
+        levels(region).catchments = zones;
+        zoneIndex.clear();
+    }
+
+    private RegionLevels levels(String region) {
+        return byRegion.computeIfAbsent(region, id -> new RegionLevels());
+    }
+}
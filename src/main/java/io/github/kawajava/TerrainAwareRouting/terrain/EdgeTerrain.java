@@ -0,0 +1,3 @@
+package io.github.kawajava.TerrainAwareRouting.terrain;
+
+public record EdgeTerrain(float[] ascent, float[] descent, float[] minElevation) {}
@@ -0,0 +1,199 @@
+package io.github.kawajava.TerrainAwareRouting.terrain;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+@Slf4j
+public class ElevationRaster implements AutoCloseable {
+
+    private static final long DEFAULT_TILE_BYTES = 64L * 1024 * 1024;
+    private static final int PAGE_BYTES = 4096;
+
+    private final FileChannel channel;
+    private final int cols;
+    private final int rows;
+    private final double west;
+    private final double north;
+    private final double cellSize;
+    private final float noData;
+    private final ByteOrder byteOrder;
+    private final int tileRows;
+    private final AtomicReferenceArray<MappedByteBuffer> tiles;
+    private final AtomicLongArray touchedPages;
+
+    ElevationRaster(FileChannel channel, int cols, int rows, double west, double south, double cellSize,
+                    float noData, ByteOrder byteOrder, long tileBytes) {
+        this.channel = channel;
+        this.cols = cols;
+        this.rows = rows;
+        this.west = west;
+        this.north = south + rows * cellSize;
+        this.cellSize = cellSize;
+        this.noData = noData;
+        this.byteOrder = byteOrder;
+        this.tileRows = (int) Math.max(1, Math.min(rows, tileBytes / (4L * cols)));
+        this.tiles = new AtomicReferenceArray<>((rows + tileRows - 1) / tileRows);
+        long pages = (4L * cols * rows + PAGE_BYTES - 1) / PAGE_BYTES;
+        this.touchedPages = new AtomicLongArray((int) ((pages + 63) / 64));
+    }
+
+    public static ElevationRaster open(Path dataFile) {
+        return open(dataFile, DEFAULT_TILE_BYTES);
+    }
+
+    public static ElevationRaster open(Path dataFile, long tileBytes) {
+        Map<String, String> header = readHeader(headerFileFor(dataFile));
+        try {
+            int cols = Integer.parseInt(require(header, "ncols"));
+            int rows = Integer.parseInt(require(header, "nrows"));
+            double cellSize = Double.parseDouble(require(header, "cellsize"));
+            double west = header.containsKey("xllcenter")
+                    ? Double.parseDouble(header.get("xllcenter")) - cellSize / 2
+                    : Double.parseDouble(require(header, "xllcorner"));
+            double south = header.containsKey("yllcenter")
+                    ? Double.parseDouble(header.get("yllcenter")) - cellSize / 2
+                    : Double.parseDouble(require(header, "yllcorner"));
+            float noData = Float.parseFloat(header.getOrDefault("nodata_value", "-9999"));
+            ByteOrder order = header.getOrDefault("byteorder", "lsbfirst").startsWith("msb")
+                    ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+
+            FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ);
+            if (channel.size() < 4L * cols * rows) {
+                channel.close();
+                throw new IllegalArgumentException("DEM file is smaller than its header declares: " + dataFile);
+            }
+            log.info("Opened DEM {} ({} x {} cells, {} deg cell size)", dataFile, cols, rows, cellSize);
+            return new ElevationRaster(channel, cols, rows, west, south, cellSize, noData, order, tileBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open DEM " + dataFile, e);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid DEM header for " + dataFile, e);
+        }
+    }
+
+    static Path headerFileFor(Path dataFile) {
+        String name = dataFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dataFile.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".hdr");
+    }
+
+    private static Map<String, String> readHeader(Path headerFile) {
+        try {
+            Map<String, String> header = new HashMap<>();
+            for (String line : Files.readAllLines(headerFile)) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length >= 2) {
+                    header.put(parts[0].toLowerCase(Locale.ROOT), parts[1].toLowerCase(Locale.ROOT));
+                }
+            }
+            return header;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read DEM header " + headerFile, e);
+        }
+    }
+
+    private static String require(Map<String, String> header, String key) {
+        String value = header.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("DEM header missing '" + key + "'");
+        }
+        return value;
+    }
+
+    public double elevation(double lat, double lon) {
+        double fx = (lon - west) / cellSize - 0.5;
+        double fy = (north - lat) / cellSize - 0.5;
+        if (fx < -0.5 || fy < -0.5 || fx > cols - 0.5 || fy > rows - 0.5) {
+            return Double.NaN;
+        }
+
+        int c0 = clamp((int) Math.floor(fx), cols);
+        int r0 = clamp((int) Math.floor(fy), rows);
+        int c1 = clamp(c0 + 1, cols);
+        int r1 = clamp(r0 + 1, rows);
+        double tx = Math.max(0, Math.min(1, fx - c0));
+        double ty = Math.max(0, Math.min(1, fy - r0));
+
+        float z00 = cell(r0, c0);
+        float z01 = cell(r0, c1);
+        float z10 = cell(r1, c0);
+        float z11 = cell(r1, c1);
+        if (Float.isNaN(z00) || Float.isNaN(z01) || Float.isNaN(z10) || Float.isNaN(z11)) {
+            return cell(clamp((int) Math.round(fy), rows), clamp((int) Math.round(fx), cols));
+        }
+
+        double top = z00 + (z01 - z00) * tx;
+        double bottom = z10 + (z11 - z10) * tx;
+        return top + (bottom - top) * ty;
+    }
+
+    float cell(int row, int col) {
+        long offset = 4L * ((long) row * cols + col);
+        markTouched(offset);
+        int tile = row / tileRows;
+        float value = tile(tile).getFloat((int) (offset - 4L * cols * (long) tile * tileRows));
+        return value == noData ? Float.NaN : value;
+    }
+
+    private MappedByteBuffer tile(int index) {
+        MappedByteBuffer tile = tiles.get(index);
+        if (tile == null) {
+            long firstRow = (long) index * tileRows;
+            long size = 4L * cols * Math.min(tileRows, rows - firstRow);
+            try {
+                tile = channel.map(FileChannel.MapMode.READ_ONLY, 4L * cols * firstRow, size);
+                tile.order(byteOrder);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to map DEM tile " + index, e);
+            }
+            if (!tiles.compareAndSet(index, null, tile)) {
+                tile = tiles.get(index);
+            }
+        }
+        return tile;
+    }
+
+    private void markTouched(long offset) {
+        long page = offset / PAGE_BYTES;
+        int word = (int) (page >>> 6);
+        long bit = 1L << (page & 63);
+        long current = touchedPages.get(word);
+        while ((current & bit) == 0 && !touchedPages.compareAndSet(word, current, current | bit)) {
+            current = touchedPages.get(word);
+        }
+    }
+
+    public long bytesTouched() {
+        long pages = 0;
+        for (int i = 0; i < touchedPages.length(); i++) {
+            pages += Long.bitCount(touchedPages.get(i));
+        }
+        return pages * PAGE_BYTES;
+    }
+
+    public long sizeBytes() {
+        return 4L * cols * rows;
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.kawajava.TerrainAwareRouting.terrain;
+
+import io.github.kawajava.TerrainAwareRouting.graph.Geodesy;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+@Slf4j
+public class TerrainProfiler {
+
+    private final ElevationRaster raster;
+    private final double sampleSpacingMeters;
+
+    public TerrainProfiler(ElevationRaster raster, double sampleSpacingMeters) {
+        if (sampleSpacingMeters <= 0) {
+            throw new IllegalArgumentException("Terrain sample spacing must be positive");
+        }
+        this.raster = raster;
+        this.sampleSpacingMeters = sampleSpacingMeters;
+    }
+
+    public EdgeTerrain profile(int edgeCount, IntFunction<Coordinate[]> edgeCoordinates) {
+        long started = System.nanoTime();
+        long bytesBefore = raster.bytesTouched();
+        float[] ascent = new float[edgeCount];
+        float[] descent = new float[edgeCount];
+        float[] minElevation = new float[edgeCount];
+        LongAdder samples = new LongAdder();
+
+        IntStream.range(0, edgeCount).parallel().forEach(edge -> {
+            Sample sample = sampleEdge(edgeCoordinates.apply(edge));
+            ascent[edge] = sample.ascent();
+            descent[edge] = sample.descent();
+            minElevation[edge] = sample.minElevation();
+            samples.add(sample.count());
+        });
+
+        log.info("Sampled terrain for {} edges: {} samples, {} KiB of {} KiB raster touched in {} ms",
+                edgeCount, samples.sum(), (raster.bytesTouched() - bytesBefore) / 1024, raster.sizeBytes() / 1024,
+                (System.nanoTime() - started) / 1_000_000);
+        return new EdgeTerrain(ascent, descent, minElevation);
+    }
+
+    record Sample(float ascent, float descent, float minElevation, int count) {}
+
+    Sample sampleEdge(Coordinate[] coords) {
+        double up = 0;
+        double down = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double previous = Double.NaN;
+        int count = 0;
+
+        for (int i = 0; i < coords.length; i++) {
+            int steps = 1;
+            if (i > 0) {
+                double length = Geodesy.distanceMeters(coords[i - 1].y, coords[i - 1].x, coords[i].y, coords[i].x);
+                steps = Math.max(1, (int) Math.ceil(length / sampleSpacingMeters));
+            }
+            for (int s = i == 0 ? steps : 1; s <= steps; s++) {
+                double t = (double) s / steps;
+                double lat = i == 0 ? coords[0].y : coords[i - 1].y + (coords[i].y - coords[i - 1].y) * t;
+                double lon = i == 0 ? coords[0].x : coords[i - 1].x + (coords[i].x - coords[i - 1].x) * t;
+                double z = raster.elevation(lat, lon);
+                count++;
+                if (Double.isNaN(z)) {
+                    continue;
+                }
+                if (!Double.isNaN(previous)) {
+                    if (z > previous) {
+                        up += z - previous;
+                    } else {
+                        down += previous - z;
+                    }
+                }
+                min = Math.min(min, z);
+                previous = z;
+            }
+        }
+
+        float minElevation = min == Double.POSITIVE_INFINITY ? Float.NaN : (float) min;
+        return new Sample((float) up, (float) down, minElevation, count);
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.kawajava.TerrainAwareRouting.terrain;
+
+import java.util.BitSet;
+
+public final class WaterLevelMask {
+
+    private WaterLevelMask() {
+    }
+
+    public static BitSet blockedEdges(float[] minElevation, float level) {
+        int n = minElevation.length;
+        long[] words = new long[(n + 63) >>> 6];
+        for (int base = 0; base < n; base += 64) {
+            int limit = Math.min(64, n - base);
+            long word = 0;
+            for (int i = 0; i < limit; i++) {
+                word |= (minElevation[base + i] <= level ? 1L : 0L) << i;
+            }
+            words[base >>> 6] = word;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    public static BitSet blockedEdges(float[] minElevation, int[] edgeZone, float[] zoneLevels) {
+        int n = minElevation.length;
+        long[] words = new long[(n + 63) >>> 6];
+        for (int base = 0; base < n; base += 64) {
+            int limit = Math.min(64, n - base);
+            long word = 0;
+            for (int i = 0; i < limit; i++) {
+                word |= (minElevation[base + i] <= zoneLevels[edgeZone[base + i]] ? 1L : 0L) << i;
+            }
+            words[base >>> 6] = word;
+        }
+        return BitSet.valueOf(words);
+    }
+}
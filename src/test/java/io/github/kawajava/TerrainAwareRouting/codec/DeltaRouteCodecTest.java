@@ -0,0 +1,48 @@
+package io.github.kawajava.TerrainAwareRouting.codec;
+
+import io.github.kawajava.TerrainAwareRouting.core.RoutePath;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DeltaRouteCodecTest {
+
+    @Test
+    void shouldRoundTripPathCorrectly() throws Exception {
+        var path = new RoutePath(
+                new double[]{52.2297, 52.2300, 52.2301},
+                new double[]{21.0122, 21.0127, 21.0133}
+        );
+        var out = new ByteArrayOutputStream();
+
+        DeltaRouteCodec.encode(path, out);
+        RoutePath decoded = DeltaRouteCodec.decode(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(decoded.size()).isEqualTo(3);
+        for (int i = 0; i < 3; i++) {
+            assertThat(decoded.lats()[i]).isCloseTo(path.lats()[i], within(1e-7));
+            assertThat(decoded.lons()[i]).isCloseTo(path.lons()[i], within(1e-7));
+        }
+    }
+
+    @Test
+    void shouldUseFewBytesForShortDeltas() throws Exception {
+        var out = new ByteArrayOutputStream();
+
+        DeltaRouteCodec.encode(new RoutePath(new double[]{52.0, 52.00001}, new double[]{21.0, 21.00001}), out);
+
+        // header (3) + count (1) + first point (2 x 5) + second point (2 x 2)
+        assertThat(out.size()).isEqualTo(18);
+    }
+
+    @Test
+    void shouldRejectUnknownPayload() {
+        assertThrows(IllegalArgumentException.class,
+                () -> DeltaRouteCodec.decode(new ByteArrayInputStream(new byte[]{1, 2, 3, 4})));
+    }
+}
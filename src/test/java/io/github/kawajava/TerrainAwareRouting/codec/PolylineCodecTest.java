@@ -0,0 +1,45 @@
+package io.github.kawajava.TerrainAwareRouting.codec;
+
+import io.github.kawajava.TerrainAwareRouting.core.RoutePath;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PolylineCodecTest {
+
+    private final RoutePath path = new RoutePath(
+            new double[]{38.5, 40.7, 43.252},
+            new double[]{-120.2, -120.95, -126.453}
+    );
+
+    @Test
+    void shouldEncodeReferencePolylineCorrectly() throws Exception {
+        var out = new ByteArrayOutputStream();
+
+        PolylineCodec.encode(path, out);
+
+        assertThat(out.toString(StandardCharsets.US_ASCII)).isEqualTo("_p~iF~ps|U_ulLnnqC_mqNvxq`@");
+    }
+
+    @Test
+    void shouldDecodeEncodedPolylineCorrectly() {
+        RoutePath decoded = PolylineCodec.decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@");
+
+        assertThat(decoded.size()).isEqualTo(3);
+        assertThat(decoded.lats()[2]).isCloseTo(43.252, within(1e-5));
+        assertThat(decoded.lons()[2]).isCloseTo(-126.453, within(1e-5));
+    }
+
+    @Test
+    void shouldEncodeEmptyPathAsEmptyString() throws Exception {
+        var out = new ByteArrayOutputStream();
+
+        PolylineCodec.encode(new RoutePath(new double[0], new double[0]), out);
+
+        assertThat(out.size()).isZero();
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.kawajava.TerrainAwareRouting.codec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RouteFormatTest {
+
+    @Test
+    void shouldDefaultToJsonCorrectly() {
+        assertThat(RouteFormat.resolve(null, null)).isEqualTo(RouteFormat.JSON);
+        assertThat(RouteFormat.resolve(null, "application/json, */*")).isEqualTo(RouteFormat.JSON);
+    }
+
+    @Test
+    void shouldPreferQueryParameterOverAcceptHeader() {
+        assertThat(RouteFormat.resolve("polyline", "application/x-route-delta")).isEqualTo(RouteFormat.POLYLINE);
+    }
+
+    @Test
+    void shouldResolveFormatFromAcceptHeaderCorrectly() {
+        assertThat(RouteFormat.resolve(null, "application/x-route-delta")).isEqualTo(RouteFormat.BINARY);
+        assertThat(RouteFormat.resolve("", "application/x-polyline;q=0.9")).isEqualTo(RouteFormat.POLYLINE);
+    }
+
+    @Test
+    void shouldHonourQualityValuesInAcceptHeaderCorrectly() {
+        assertThat(RouteFormat.resolve(null, "application/json;q=1, application/x-polyline;q=0.1"))
+                .isEqualTo(RouteFormat.JSON);
+        assertThat(RouteFormat.resolve(null, "application/json;q=0.5, application/x-route-delta"))
+                .isEqualTo(RouteFormat.BINARY);
+        assertThat(RouteFormat.resolve(null, "application/x-polyline;q=0, */*")).isEqualTo(RouteFormat.JSON);
+    }
+
+    @Test
+    void shouldRejectUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> RouteFormat.resolve("gpx", null));
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.kawajava.TerrainAwareRouting.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventStreamTest {
+
+    // records what would be written to the client instead of needing an HTTP response
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<Object> sent = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sent.add(builder.build());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    void shouldSendQueuedEventsInOrderCorrectly() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        EventStream stream = new EventStream(emitter, 4, Runnable::run);
+
+        assertThat(stream.offer(SseEmitter.event().id("1").data("a"))).isTrue();
+        assertThat(stream.offer(SseEmitter.event().id("2").data("b"))).isTrue();
+
+        assertThat(emitter.sent).hasSize(2);
+        assertThat(emitter.completed).isFalse();
+    }
+
+    @Test
+    void shouldDropClientFallingBehindCorrectly() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        List<Runnable> stalled = new ArrayList<>();
+        EventStream stream = new EventStream(emitter, 2, stalled::add);
+        AtomicInteger closed = new AtomicInteger();
+        stream.onClose(closed::incrementAndGet);
+
+        assertThat(stream.offer(SseEmitter.event().data("a"))).isTrue();
+        assertThat(stream.offer(SseEmitter.event().data("b"))).isTrue();
+        assertThat(stream.offer(SseEmitter.event().data("c"))).isFalse();
+
+        assertThat(emitter.completed).isTrue();
+        assertThat(closed).hasValue(1);
+        assertThat(stream.offer(SseEmitter.event().data("d"))).isFalse();
+        stalled.forEach(Runnable::run);
+        assertThat(emitter.sent).isEmpty();
+        assertThat(closed).hasValue(1);
+    }
+
+    @Test
+    void shouldUnsubscribeWhenClientIsGoneCorrectly() {
+        SseEmitter gone = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        EventStream stream = new EventStream(gone, 4, Runnable::run);
+        AtomicInteger closed = new AtomicInteger();
+        stream.onClose(closed::incrementAndGet);
+
+        stream.offer(SseEmitter.event().data("a"));
+
+        assertThat(closed).hasValue(1);
+        assertThat(stream.offer(SseEmitter.event().data("b"))).isFalse();
+    }
+}
@@ -1,106 +1,100 @@
 package io.github.kawajava.TerrainAwareRouting.core;
 
 import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
 import org.junit.jupiter.api.Test;
 import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.LineString;
-import org.mockito.InjectMocks;
+import org.locationtech.jts.geom.GeometryFactory;
 
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.*;
 
 class AStarPathFinderTest {
 
-    @InjectMocks
+    private final GeometryFactory gf = new GeometryFactory();
     private final AStarPathFinder pathFinder = new AStarPathFinder();
 
-    private RoadSegment mockSegment(String id, Coordinate... coords) {
-        LineString ls = mock(LineString.class);
-        when(ls.getCoordinates()).thenReturn(coords);
-
-        return new RoadSegment(id, ls, 1.0, false);
+    private RoadSegment segment(String id, Coordinate... coords) {
+        return new RoadSegment(id, gf.createLineString(coords), 1.0, false);
     }
 
-    @Test
-    void shouldReturnEmptyListCorrectly_whenNoSegments() {
-        var start = new Coordinate(0, 0);
-        var end = new Coordinate(1, 1);
-
-        var path = pathFinder.findPath(List.of(), start, end);
-
-        assertThat(path).isEmpty();
+    private RoutePath route(RoadGraph graph, Coordinate start, Coordinate end) {
+        GraphPath path = pathFinder.findPath(new RouteQuery(graph, CostProfile.WALKING, new BitSet(),
+                graph.nearestNode(start.y, start.x), graph.nearestNode(end.y, end.x)));
+        return RoutePath.of(graph, path);
     }
 
     @Test
-    void shouldFindDirectNeighborPathCorrectly() {
-        var start = new Coordinate(0, 0);
-        var mid = new Coordinate(0.0001, 0.0001);
-        var end = new Coordinate(0.0002, 0.0002);
-
-        var segment = mockSegment("s1", start, mid, end);
+    void shouldFindPathAlongPolylineCorrectly() {
+        var start = new Coordinate(21.0, 52.0);
+        var mid = new Coordinate(21.0001, 52.0001);
+        var end = new Coordinate(21.0002, 52.0002);
 
-        var result = pathFinder.findPath(List.of(segment), start, end);
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(segment("s1", start, mid, end)));
 
-        assertThat(result).containsExactly(start, mid, end);
+        assertThat(route(graph, start, end).lons()).containsExactly(21.0, 21.0001, 21.0002);
     }
 
     @Test
     void shouldFindShortestPathCorrectly_whenMultipleChoices() {
-        var start = new Coordinate(0, 0);
-
-        var wrong1 = new Coordinate(0.0001, 0.0);
-        var wrong2 = new Coordinate(0.0002, 0.0);
+        var start = new Coordinate(21.0, 52.0);
+        var end = new Coordinate(21.00015, 52.00015);
 
-        var good1 = new Coordinate(0.00005, 0.00005);
-        var good2 = new Coordinate(0.0001,  0.0001);
-        var end   = new Coordinate(0.00015, 0.00015);
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(
+                segment("w1", start, new Coordinate(21.0001, 52.0), new Coordinate(21.0002, 52.0), end),
+                segment("g1", start, new Coordinate(21.00005, 52.00005), new Coordinate(21.0001, 52.0001), end)
+        ));
 
-        var segWrong = mockSegment("w1", start, wrong1, wrong2, end);
-        var segGood  = mockSegment("g1", start, good1, good2, end);
-
-        var result = pathFinder.findPath(List.of(segWrong, segGood), start, end);
-
-        assertThat(result).containsExactly(start, good1, good2, end);
+        assertThat(route(graph, start, end).lons()).containsExactly(21.0, 21.00005, 21.0001, 21.00015);
     }
 
     @Test
-    void shouldNotRevisitClosedNodesCorrectly() {
-        var start = new Coordinate(0, 0);
-        var a = new Coordinate(0.0001, 0.0001);
-        var b = new Coordinate(0.0002, 0.0002);
-        var end = new Coordinate(0.0003, 0.0003);
-
-        var loop = mockSegment("loop", start, a, b, end, start);
+    void shouldKeepClosedLoopRoutableCorrectly() {
+        var start = new Coordinate(21.0, 52.0);
+        var a = new Coordinate(21.0001, 52.0001);
+        var b = new Coordinate(21.0002, 52.0002);
+        var c = new Coordinate(21.0003, 52.0003);
 
-        var path = pathFinder.findPath(List.of(loop), start, end);
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(segment("loop", start, a, b, c, start)));
 
-        assertThat(path).containsExactly(start, a, b, end);
+        assertThat(graph.nodeCount()).isEqualTo(2);
+        assertThat(route(graph, start, b).lons()).containsExactly(21.0, 21.0001, 21.0002);
     }
 
     @Test
     void shouldHandleCaseWhereStartEqualsEndCorrectly() {
-        var start = new Coordinate(1, 2);
+        var start = new Coordinate(21.0, 52.0);
 
-        var path = pathFinder.findPath(List.of(), start, start);
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(segment("s1", start, new Coordinate(21.001, 52.0))));
 
-        assertThat(path).containsExactly(start);
+        assertThat(route(graph, start, start).lons()).containsExactly(21.0);
     }
 
     @Test
-    void shouldReturnCorrectNeighborsForChainedSegmentCorrectly() {
-        var start = new Coordinate(0, 0);
-        var mid   = new Coordinate(0.0001, 0.0001);
-        var next  = new Coordinate(0.0002, 0.0002);
-        var end   = new Coordinate(0.00029, 0.00029);
-
-        var segment = mockSegment("s", start, mid, next, end);
-
-        var neighbors = pathFinder.neighborsOf(start, List.of(segment));
-
-        assertThat(neighbors)
-                .containsExactlyInAnyOrder(mid, next)
-                .doesNotContain(end);
+    void shouldMatchDijkstraCostOnGraphCorrectly() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.001, 52.0);
+        var c = new Coordinate(21.002, 52.0);
+        var d = new Coordinate(21.001, 52.002);
+
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(
+                new RoadSegment("ab", gf.createLineString(new Coordinate[]{a, b}), 0, false, Map.of("highway", "residential")),
+                new RoadSegment("bc", gf.createLineString(new Coordinate[]{b, c}), 0, false, Map.of("highway", "residential")),
+                new RoadSegment("ad", gf.createLineString(new Coordinate[]{a, d}), 0, false, Map.of("highway", "motorway")),
+                new RoadSegment("dc", gf.createLineString(new Coordinate[]{d, c}), 0, false, Map.of("highway", "motorway"))
+        ));
+        var query = new RouteQuery(graph, CostProfile.CAR, new BitSet(),
+                graph.nearestNode(52.0, 21.0), graph.nearestNode(52.0, 21.002));
+
+        GraphPath astar = pathFinder.findPath(query);
+        GraphPath dijkstra = new SafeDijkstraPathFinder().findPath(query);
+
+        assertThat(astar.cost()).isEqualTo(dijkstra.cost());
+        assertThat(astar.edges()).containsExactly(dijkstra.edges());
     }
 }
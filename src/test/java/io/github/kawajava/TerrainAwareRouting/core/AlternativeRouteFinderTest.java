@@ -0,0 +1,134 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import io.github.kawajava.TerrainAwareRouting.graph.TestGrids;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AlternativeRouteFinderTest {
+
+    private final GeometryFactory gf = new GeometryFactory();
+    private final AlternativeRouteFinder finder = new AlternativeRouteFinder();
+    private final AlternativeRouteFinder.Options options = new AlternativeRouteFinder.Options(3, 1.4, 0.7, 0.25);
+
+    private RoadSegment segment(String id, Coordinate from, Coordinate to) {
+        return new RoadSegment(id, gf.createLineString(new Coordinate[]{from, to}), 0, false, Map.of());
+    }
+
+    @Test
+    void shouldOfferParallelRoadWithinStretchCorrectly() {
+        var s = new Coordinate(21.0, 52.0);
+        var t = new Coordinate(21.01, 52.0);
+        var north = new Coordinate(21.005, 52.002);
+        var south = new Coordinate(21.005, 51.9975);
+        var far = new Coordinate(21.005, 52.02);
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(
+                segment("n1", s, north), segment("n2", north, t),
+                segment("s1", s, south), segment("s2", south, t),
+                segment("f1", s, far), segment("f2", far, t)));
+        var query = new RouteQuery(graph, CostProfile.WALKING, new BitSet(),
+                graph.nearestNode(s.y, s.x), graph.nearestNode(t.y, t.x));
+
+        AlternativeRouteFinder.Result result = finder.find(query, options);
+
+        assertThat(result.best().cost()).isCloseTo(new SafeDijkstraPathFinder().findPath(query).cost(), within(1e-6));
+        assertThat(graph.edgeTarget(result.best().edges()[0])).isEqualTo(graph.nearestNode(north.y, north.x));
+        assertThat(result.alternatives()).hasSize(1);
+        AlternativeRouteFinder.Alternative alternative = result.alternatives().getFirst();
+        assertThat(graph.edgeTarget(alternative.path().edges()[0])).isEqualTo(graph.nearestNode(south.y, south.x));
+        assertThat(alternative.overlap()).isZero();
+        assertThat(alternative.stretch()).isGreaterThan(1).isLessThan(1.4);
+    }
+
+    @Test
+    void shouldMeasureAlternativesAgainstTimeDependentBestWhenShortestPathFloodsCorrectly() {
+        var s = new Coordinate(21.0, 52.0);
+        var t = new Coordinate(21.01, 52.0);
+        var north = new Coordinate(21.005, 52.001);
+        var south = new Coordinate(21.005, 51.998);
+        var far = new Coordinate(21.005, 52.004);
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(
+                segment("n1", s, north), segment("n2", north, t),
+                segment("s1", s, south), segment("s2", south, t),
+                segment("f1", s, far), segment("f2", far, t)));
+        int northNode = graph.nearestNode(north.y, north.x);
+        int southNode = graph.nearestNode(south.y, south.x);
+        int farNode = graph.nearestNode(far.y, far.x);
+        // the second half of the shortest, northern road floods a second after departure
+        float[] floodsAt = new float[graph.edgeCount()];
+        Arrays.fill(floodsAt, Float.POSITIVE_INFINITY);
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (graph.edgeSource(e) == northNode && graph.edgeTarget(e) != graph.nearestNode(s.y, s.x)) {
+                floodsAt[e] = 1;
+            }
+        }
+        var query = new RouteQuery(graph, CostProfile.WALKING, new BitSet(),
+                graph.nearestNode(s.y, s.x), graph.nearestNode(t.y, t.x), floodsAt, 0);
+        GraphPath best = new SafeDijkstraPathFinder().findPath(query);
+
+        AlternativeRouteFinder.Result result = finder.find(query, options, best);
+
+        assertThat(graph.edgeTarget(best.edges()[0])).isEqualTo(southNode);
+        assertThat(result.best()).isSameAs(best);
+        assertThat(result.alternatives()).hasSize(1);
+        AlternativeRouteFinder.Alternative alternative = result.alternatives().getFirst();
+        assertThat(graph.edgeTarget(alternative.path().edges()[0])).isEqualTo(farNode);
+        assertThat(alternative.stretch()).isCloseTo(alternative.path().cost() / best.cost(), within(1e-9));
+        // against the flooded northern road the far one would exceed the stretch bound
+        assertThat(alternative.path().cost() / new SafeDijkstraPathFinder().findPath(new RouteQuery(graph,
+                CostProfile.WALKING, new BitSet(), query.source(), query.target())).cost()).isGreaterThan(1.4);
+    }
+
+    @Test
+    void shouldReturnOnlyAdmissibleAlternativesOnGridCorrectly() {
+        var random = new Random(5);
+        int side = 30;
+        Coordinate[][] nodes = TestGrids.junctions(side, random);
+        RoadGraph graph = TestGrids.graph(nodes);
+
+        int found = 0;
+        for (int q = 0; q < 20; q++) {
+            Coordinate from = nodes[random.nextInt(side)][random.nextInt(side)];
+            Coordinate to = nodes[random.nextInt(side)][random.nextInt(side)];
+            var query = new RouteQuery(graph, CostProfile.WALKING, new BitSet(),
+                    graph.nearestNode(from.y, from.x), graph.nearestNode(to.y, to.x));
+            AlternativeRouteFinder.Result result = finder.find(query, options);
+            double shortest = new SafeDijkstraPathFinder().findPath(query).cost();
+
+            assertThat(result.best().cost()).isCloseTo(shortest, within(1e-6));
+            for (AlternativeRouteFinder.Alternative alternative : result.alternatives()) {
+                GraphPath path = alternative.path();
+                double cost = 0;
+                BitSet visited = new BitSet();
+                visited.set(path.source());
+                for (int i = 0; i < path.edges().length; i++) {
+                    int edge = path.edges()[i];
+                    assertThat(graph.edgeSource(edge))
+                            .isEqualTo(i == 0 ? path.source() : graph.edgeTarget(path.edges()[i - 1]));
+                    assertThat(visited.get(graph.edgeTarget(edge))).isFalse();
+                    visited.set(graph.edgeTarget(edge));
+                    cost += graph.weight(CostProfile.WALKING, edge);
+                }
+                assertThat(graph.edgeTarget(path.edges()[path.edges().length - 1])).isEqualTo(path.target());
+                assertThat(cost).isCloseTo(path.cost(), within(1e-6));
+                assertThat(alternative.stretch()).isLessThanOrEqualTo(1.4);
+                assertThat(alternative.overlap()).isLessThanOrEqualTo(0.7);
+                found++;
+            }
+        }
+        assertThat(found).isPositive();
+    }
+}
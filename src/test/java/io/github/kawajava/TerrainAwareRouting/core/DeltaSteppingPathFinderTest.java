@@ -0,0 +1,77 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import io.github.kawajava.TerrainAwareRouting.graph.TestGrids;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeltaSteppingPathFinderTest {
+
+    private final SafeDijkstraPathFinder dijkstra = new SafeDijkstraPathFinder();
+
+    private RoadGraph grid(Random random, int side) {
+        return new RoadGraphBuilder().build(TestGrids.streets(TestGrids.junctions(side, random), random, 10));
+    }
+
+    @Test
+    void shouldMatchDijkstraTreeForAnyDeltaAndParallelismCorrectly() {
+        var random = new Random(3);
+        RoadGraph graph = grid(random, 60);
+        BitSet blocked = new BitSet();
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (random.nextInt(20) == 0) {
+                blocked.set(e);
+            }
+        }
+        var query = new RouteQuery(graph, CostProfile.WALKING, blocked, graph.nodeCount() / 2, -1);
+        ShortestPathTree expected = dijkstra.shortestPathTree(query);
+
+        List<ShortestPathTree> trees = new ArrayList<>();
+        try (var single = new ForkJoinPool(1); var four = new ForkJoinPool(4)) {
+            for (ForkJoinPool pool : List.of(single, four)) {
+                for (double delta : new double[]{0, 1, 1e9}) {
+                    trees.add(new DeltaSteppingPathFinder(pool, delta).shortestPathTree(query));
+                }
+            }
+        }
+
+        assertThat(expected.reachedCount()).isGreaterThan(graph.nodeCount() / 2);
+        for (ShortestPathTree tree : trees) {
+            assertThat(tree.dist()).containsExactly(expected.dist());
+            assertThat(tree.prevEdges()).containsExactly(trees.getFirst().prevEdges());
+        }
+        for (int target = 0; target < graph.nodeCount(); target += 97) {
+            assertThat(trees.getFirst().path(graph, target).edges()).containsExactly(expected.path(graph, target).edges());
+        }
+    }
+
+    @Test
+    void shouldFindSamePathsAsDijkstraUnderForecastCorrectly() {
+        var random = new Random(8);
+        RoadGraph graph = grid(random, 30);
+        float[] floodsAt = new float[graph.edgeCount()];
+        for (int e = 0; e < floodsAt.length; e++) {
+            floodsAt[e] = random.nextInt(4) == 0 ? random.nextFloat(1200) : Float.POSITIVE_INFINITY;
+        }
+        var finder = new DeltaSteppingPathFinder();
+
+        for (int q = 0; q < 20; q++) {
+            var query = new RouteQuery(graph, CostProfile.WALKING, new BitSet(),
+                    random.nextInt(graph.nodeCount()), random.nextInt(graph.nodeCount()), floodsAt, random.nextInt(300));
+            GraphPath expected = dijkstra.findPath(query);
+            GraphPath actual = finder.findPath(query);
+
+            assertThat(actual.cost()).isEqualTo(expected.cost());
+            assertThat(actual.edges()).containsExactly(expected.edges());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import io.github.kawajava.TerrainAwareRouting.graph.TestGrids;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+class EvacuationPlannerTest {
+
+    private final GeometryFactory gf = new GeometryFactory();
+    private final EvacuationPlanner planner = new EvacuationPlanner();
+
+    private RoadSegment segment(String id, Coordinate from, Coordinate to) {
+        return new RoadSegment(id, gf.createLineString(new Coordinate[]{from, to}), 0, false, Map.of());
+    }
+
+    private int node(RoadGraph graph, Coordinate c) {
+        return graph.nearestNode(c.y, c.x);
+    }
+
+    @Test
+    void shouldSpillOverToFartherShelterAndRoadCorrectly() {
+        var town = new Coordinate(21.0, 52.0);
+        var near = new Coordinate(21.01, 52.0);
+        var detour = new Coordinate(21.005, 52.004);
+        var far = new Coordinate(20.98, 52.0);
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(
+                segment("direct", town, near), segment("d1", town, detour), segment("d2", detour, near),
+                segment("west", town, far)));
+        int nearNode = node(graph, near);
+
+        EvacuationPlanner.Result result = planner.plan(graph, CostProfile.WALKING, new BitSet(),
+                List.of(new EvacuationPlanner.Supply(node(graph, town), 100)),
+                List.of(new EvacuationPlanner.Shelter(nearNode, 70), new EvacuationPlanner.Shelter(node(graph, far), 20)),
+                40);
+
+        // 40 take the direct road, 30 the detour to the same shelter, 20 go west and 10 find no room
+        assertThat(result.evacuated()).isEqualTo(90);
+        assertThat(result.unassigned()).containsExactly(10);
+        assertThat(result.assignments()).allSatisfy(a -> assertThat(a.people()).isPositive());
+        assertThat(result.assignments().stream().filter(a -> a.shelter() == 0).mapToInt(a -> a.people()).sum())
+                .isEqualTo(70);
+        assertThat(result.assignments().stream()
+                .filter(a -> a.shelter() == 0 && a.path().edges().length == 1).mapToInt(a -> a.people()).sum())
+                .isEqualTo(40);
+        assertThat(result.assignments().stream().filter(a -> a.shelter() == 1).mapToInt(a -> a.people()).sum())
+                .isEqualTo(20);
+        double cost = 0;
+        for (EvacuationPlanner.Assignment a : result.assignments()) {
+            assertThat(a.path().target()).isEqualTo(a.shelter() == 0 ? nearNode : node(graph, far));
+            cost += a.people() * a.path().cost();
+        }
+        assertThat(result.totalCost()).isCloseTo(cost, within(1e-6));
+    }
+
+    @Test
+    void shouldRerouteEarlierPointsToPlaceLaterOnesCorrectly() {
+        // a one-way road leads from the first point to the near shelter, which the second point can only reach
+        var first = new Coordinate(21.0, 52.0);
+        var near = new Coordinate(21.005, 52.0);
+        var far = new Coordinate(20.99, 52.0);
+        var second = new Coordinate(21.01, 52.0);
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(
+                new RoadSegment("first-near", gf.createLineString(new Coordinate[]{first, near}), 0, false,
+                        Map.of("oneway", "yes")),
+                segment("first-far", first, far),
+                new RoadSegment("second-near", gf.createLineString(new Coordinate[]{second, near}), 0, false,
+                        Map.of("oneway", "yes"))));
+
+        EvacuationPlanner.Result result = planner.plan(graph, CostProfile.CAR, new BitSet(),
+                List.of(new EvacuationPlanner.Supply(node(graph, first), 10),
+                        new EvacuationPlanner.Supply(node(graph, second), 10)),
+                List.of(new EvacuationPlanner.Shelter(node(graph, near), 10),
+                        new EvacuationPlanner.Shelter(node(graph, far), 10)),
+                100);
+
+        assertThat(result.evacuated()).isEqualTo(20);
+        assertThat(result.unassigned()).containsExactly(0, 0);
+        assertThat(result.assignments()).extracting(EvacuationPlanner.Assignment::supply,
+                EvacuationPlanner.Assignment::shelter).containsExactlyInAnyOrder(tuple(0, 1), tuple(1, 0));
+    }
+
+    @Test
+    void shouldRespectCapacitiesAndRouteToNearestShelterWhenUnconstrainedCorrectly() {
+        var random = new Random(4);
+        int side = 25;
+        Coordinate[][] nodes = TestGrids.junctions(side, random);
+        RoadGraph graph = TestGrids.graph(nodes);
+        var supplies = new ArrayList<EvacuationPlanner.Supply>();
+        for (int i = 0; i < 40; i++) {
+            supplies.add(new EvacuationPlanner.Supply(node(graph, nodes[random.nextInt(side)][random.nextInt(side)]),
+                    1 + random.nextInt(50)));
+        }
+        var shelters = new ArrayList<EvacuationPlanner.Shelter>();
+        for (int i = 0; i < 4; i++) {
+            shelters.add(new EvacuationPlanner.Shelter(node(graph, nodes[random.nextInt(side)][random.nextInt(side)]), 200));
+        }
+
+        // with room everywhere, everyone takes the shortest route to the nearest shelter
+        EvacuationPlanner.Result free = planner.plan(graph, CostProfile.WALKING, new BitSet(), supplies,
+                shelters.stream().map(s -> new EvacuationPlanner.Shelter(s.node(), 10_000)).toList(), 10_000);
+        SafeDijkstraPathFinder dijkstra = new SafeDijkstraPathFinder();
+        double expected = 0;
+        for (EvacuationPlanner.Supply supply : supplies) {
+            ShortestPathTree tree = dijkstra.shortestPathTree(
+                    new RouteQuery(graph, CostProfile.WALKING, new BitSet(), supply.node(), -1));
+            expected += supply.people() * shelters.stream().mapToDouble(s -> tree.cost(s.node())).min().orElseThrow();
+        }
+        assertThat(free.totalCost()).isCloseTo(expected, within(1e-6 * expected));
+
+        EvacuationPlanner.Result tight = planner.plan(graph, CostProfile.WALKING, new BitSet(), supplies, shelters, 60);
+        int[] edgeLoad = new int[graph.edgeCount()];
+        int[] shelterLoad = new int[shelters.size()];
+        int[] served = new int[supplies.size()];
+        for (EvacuationPlanner.Assignment a : tight.assignments()) {
+            int at = supplies.get(a.supply()).node();
+            for (int edge : a.path().edges()) {
+                assertThat(graph.edgeSource(edge)).isEqualTo(at);
+                at = graph.edgeTarget(edge);
+                edgeLoad[edge] += a.people();
+            }
+            assertThat(at).isEqualTo(shelters.get(a.shelter()).node());
+            shelterLoad[a.shelter()] += a.people();
+            served[a.supply()] += a.people();
+        }
+        assertThat(Arrays.stream(edgeLoad).max().orElseThrow()).isLessThanOrEqualTo(60);
+        assertThat(Arrays.stream(shelterLoad).max().orElseThrow()).isLessThanOrEqualTo(200);
+        for (int i = 0; i < supplies.size(); i++) {
+            assertThat(served[i] + tight.unassigned()[i]).isEqualTo(supplies.get(i).people());
+        }
+        assertThat(free.evacuated()).isEqualTo(supplies.stream().mapToInt(EvacuationPlanner.Supply::people).sum());
+        assertThat(tight.evacuated()).isPositive().isLessThan(free.evacuated());
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteSimplifierTest {
+
+    private final RoutePath straight = new RoutePath(
+            new double[]{52.0, 52.0, 52.0, 52.0, 52.0},
+            new double[]{21.0, 21.001, 21.002, 21.003, 21.004}
+    );
+
+    @Test
+    void shouldDropCollinearVerticesCorrectly() {
+        RoutePath simplified = RouteSimplifier.simplify(straight, 1.0, new BitSet());
+
+        assertThat(simplified.lons()).containsExactly(21.0, 21.004);
+    }
+
+    @Test
+    void shouldKeepJunctionVerticesCorrectly() {
+        BitSet junctions = new BitSet();
+        junctions.set(2);
+
+        RoutePath simplified = RouteSimplifier.simplify(straight, 1.0, junctions);
+
+        assertThat(simplified.lons()).containsExactly(21.0, 21.002, 21.004);
+    }
+
+    @Test
+    void shouldKeepVerticesOutsideToleranceCorrectly() {
+        var bend = new RoutePath(
+                new double[]{52.0, 52.00051, 52.001, 52.0},
+                new double[]{21.0, 21.001, 21.002, 21.003}
+        );
+
+        RoutePath simplified = RouteSimplifier.simplify(bend, 5.0, new BitSet());
+
+        assertThat(simplified.lats()).containsExactly(52.0, 52.001, 52.0);
+    }
+
+    @Test
+    void shouldReturnPathUnchangedForZeroTolerance() {
+        assertThat(RouteSimplifier.simplify(straight, 0, new BitSet())).isSameAs(straight);
+    }
+}
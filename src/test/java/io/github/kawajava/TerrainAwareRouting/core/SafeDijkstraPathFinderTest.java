@@ -1,11 +1,16 @@
 package io.github.kawajava.TerrainAwareRouting.core;
 
 import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
 import org.junit.jupiter.api.Test;
 import org.locationtech.jts.geom.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
-import java.util.*;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
 
 public class SafeDijkstraPathFinderTest {
 
@@ -25,131 +30,137 @@ public class SafeDijkstraPathFinderTest {
         return segment(id, start, end, 1.0, true);
     }
 
-    @Test
-    void shouldBuildAdjacencyMapCorrectly() {
-        var a = new Coordinate(0, 0);
-        var b = new Coordinate(1, 0);
-
-        List<RoadSegment> segments = Arrays.asList(
-                safeSegment("s1", a, b, 1.0),
-                floodedSegment("f1", b, a) // should be ignored
-        );
-
-        Map<Coordinate, List<RoadSegment>> adj = finder.buildAdjacencyMap(segments);
-
-        assertThat(adj).containsOnlyKeys(a);
-        assertThat(adj.get(a)).hasSize(1);
-        assertThat(adj.get(a).get(0).geometry().getEndPoint().getCoordinate()).isEqualTo(b);
-    }
-
-    @Test
-    void shouldInitializeDistanceMapCorrectly() {
-        var start = new Coordinate(5, 5);
-        Map<Coordinate, Double> dist = finder.initializeDistanceMap(start);
-
-        assertThat(dist).containsEntry(start, 0.0);
-        assertThat(dist).hasSize(1);
+    private GraphPath route(RoadGraph graph, Coordinate start, Coordinate end) {
+        return finder.findPath(new RouteQuery(graph, CostProfile.WALKING, new BitSet(),
+                graph.nearestNode(start.y, start.x), graph.nearestNode(end.y, end.x)));
     }
 
     @Test
-    void shouldExtractCoordinateCorrectly() {
-        var a = new Coordinate(0, 0);
-        var b = new Coordinate(1, 1);
+    void shouldFindPathThroughSharedEndpointCorrectly() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.001, 52.0);
+        var c = new Coordinate(21.002, 52.0);
 
-        RoadSegment seg = safeSegment("s1", a, b, 1.0);
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(
+                safeSegment("s1", a, b, 1),
+                safeSegment("s2", b, c, 1)
+        ));
 
-        assertThat(finder.extractCoordinate(seg, true)).isEqualTo(a);
-        assertThat(finder.extractCoordinate(seg, false)).isEqualTo(b);
+        assertThat(RoutePath.of(graph, route(graph, a, c)).lons()).containsExactly(21.0, 21.001, 21.002);
     }
 
     @Test
-    void shouldExtractNeighborCorrectly() {
-        var a = new Coordinate(0, 0);
-        var b = new Coordinate(1, 1);
+    void shouldTraverseSegmentsAgainstDigitisingDirectionCorrectly() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.001, 52.0);
+        var c = new Coordinate(21.002, 52.0);
 
-        RoadSegment seg = safeSegment("s1", a, b, 1.0);
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(
+                safeSegment("s1", c, b, 1),
+                safeSegment("s2", b, a, 1)
+        ));
 
-        assertThat(finder.extractNeighbor(seg)).isEqualTo(b);
+        assertThat(RoutePath.of(graph, route(graph, a, c)).lons()).containsExactly(21.0, 21.001, 21.002);
     }
 
     @Test
-    void shouldRelaxEdgesCorrectly() {
-        var a = new Coordinate(0, 0);
-        var b = new Coordinate(1, 0);
-
-        RoadSegment seg = safeSegment("s1", a, b, 2.0);
-
-        Map<Coordinate, List<RoadSegment>> adj = new HashMap<>();
-        adj.put(a, List.of(seg));
-
-        Map<Coordinate, Double> dist = new HashMap<>();
-        dist.put(a, 0.0);
-
-        Map<Coordinate, Coordinate> prev = new HashMap<>();
-        PriorityQueue<Coordinate> queue = new PriorityQueue<>(Comparator.comparingDouble(dist::get));
-        queue.add(a);
-
-        finder.relaxEdges(a, adj, dist, prev, queue);
-
-        assertThat(dist).containsEntry(b, 2.0);
-        assertThat(prev).containsEntry(b, a);
-        assertThat(queue).contains(b);
+    void shouldPassThroughIntermediateVerticesCorrectly() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.001, 52.0);
+        var c = new Coordinate(21.002, 52.0);
+        var branch = new Coordinate(21.001, 52.001);
+
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(
+                new RoadSegment("main", gf.createLineString(new Coordinate[]{a, b, c}), 0, false),
+                safeSegment("branch", b, branch, 1)
+        ));
+
+        RoutePath path = RoutePath.of(graph, route(graph, a, branch));
+
+        assertThat(path.lons()).containsExactly(21.0, 21.001, 21.001);
+        assertThat(path.lats()).containsExactly(52.0, 52.0, 52.001);
+        assertThat(path.junctions().get(1)).isTrue();
     }
 
     @Test
-    void shouldReconstructPathCorrectly() {
-        var a = new Coordinate(0, 0);
-        var b = new Coordinate(1, 0);
-        var c = new Coordinate(2, 0);
-
-        Map<Coordinate, Coordinate> prev = new HashMap<>();
-        prev.put(c, b);
-        prev.put(b, a);
+    void shouldReturnTrivialPathWhenSourceIsTarget() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.001, 52.0);
 
-        List<Coordinate> path = finder.reconstructPath(prev, a, c);
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(safeSegment("s1", a, b, 1)));
+        GraphPath path = route(graph, a, a);
 
-        assertThat(path).containsExactly(a, b, c);
+        assertThat(path.found()).isTrue();
+        assertThat(path.edges()).isEmpty();
+        assertThat(RoutePath.of(graph, path).lons()).containsExactly(21.0);
     }
 
     @Test
-    void shouldReturnEmptyPathWhenNoPathExists() {
-        var a = new Coordinate(0, 0);
-        var b = new Coordinate(1, 0);
-
-        Map<Coordinate, Coordinate> prev = new HashMap<>();
+    void shouldAvoidFloodedSegmentsCorrectly() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.002, 52.0);
+        var detour = new Coordinate(21.001, 52.001);
 
-        List<Coordinate> path = finder.reconstructPath(prev, a, b);
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(
+                floodedSegment("f1", a, b),
+                safeSegment("s1", a, detour, 1),
+                safeSegment("s2", detour, b, 1)
+        ));
 
-        assertThat(path).isEmpty();
+        assertThat(RoutePath.of(graph, route(graph, a, b)).lats()).containsExactly(52.0, 52.001, 52.0);
     }
 
     @Test
-    void shouldFindPathCorrectly() {
-        var a = new Coordinate(0, 0);
-        var b = new Coordinate(1, 0);
-        var c = new Coordinate(2, 0);
+    void shouldReportUnreachableTargetCorrectly() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.001, 52.0);
+        var c = new Coordinate(21.01, 52.0);
+        var d = new Coordinate(21.011, 52.0);
 
-        List<RoadSegment> segments = Arrays.asList(
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(
                 safeSegment("s1", a, b, 1),
-                safeSegment("s2", b, c, 1)
-        );
+                safeSegment("s2", c, d, 1)
+        ));
 
-        List<Coordinate> path = finder.findPath(segments, a, c);
+        assertThat(route(graph, a, d).found()).isFalse();
+    }
 
-        assertThat(path).containsExactly(a, b, c);
+    @Test
+    void shouldFindCheapestGraphPathForProfileCorrectly() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.001, 52.0);
+        var c = new Coordinate(21.002, 52.0);
+        var d = new Coordinate(21.001, 52.001);
+
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(
+                new RoadSegment("ab", gf.createLineString(new Coordinate[]{a, b}), 0, false, Map.of("highway", "footway")),
+                new RoadSegment("bc", gf.createLineString(new Coordinate[]{b, c}), 0, false, Map.of("highway", "footway")),
+                new RoadSegment("ad", gf.createLineString(new Coordinate[]{a, d}), 0, false, Map.of("highway", "primary")),
+                new RoadSegment("dc", gf.createLineString(new Coordinate[]{d, c}), 0, false, Map.of("highway", "primary"))
+        ));
+        int source = graph.nearestNode(52.0, 21.0);
+        int target = graph.nearestNode(52.0, 21.002);
+
+        GraphPath walking = finder.findPath(new RouteQuery(graph, CostProfile.WALKING, new BitSet(), source, target));
+        GraphPath car = finder.findPath(new RouteQuery(graph, CostProfile.CAR, new BitSet(), source, target));
+
+        assertThat(RoutePath.of(graph, walking).lons()).containsExactly(21.0, 21.001, 21.002);
+        assertThat(RoutePath.of(graph, car).lats()).containsExactly(52.0, 52.001, 52.0);
     }
 
     @Test
-    void shouldAvoidFloodedSegmentsCorrectly() {
-        var a = new Coordinate(0, 0);
-        var b = new Coordinate(1, 0);
+    void shouldSkipBlockedGraphEdgesCorrectly() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.001, 52.0);
 
-        List<RoadSegment> segments = List.of(
-                floodedSegment("f1", a, b)
-        );
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(safeSegment("ab", a, b, 1)));
+        BitSet blocked = new BitSet();
+        blocked.set(0);
 
-        List<Coordinate> path = finder.findPath(segments, a, b);
+        GraphPath path = finder.findPath(new RouteQuery(graph, CostProfile.CAR, blocked,
+                graph.nearestNode(52.0, 21.0), graph.nearestNode(52.0, 21.001)));
 
-        assertThat(path).isEmpty();
+        assertThat(path.found()).isFalse();
+        assertThat(RoutePath.of(graph, path).isEmpty()).isTrue();
     }
 }
@@ -0,0 +1,83 @@
+package io.github.kawajava.TerrainAwareRouting.core;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchWorkspaceTest {
+
+    @Test
+    void shouldInvalidatePreviousSearchWithoutClearing() {
+        var ws = new SearchWorkspace();
+        ws.begin(4);
+        ws.update(2, 7.5, 1);
+        ws.settle(2);
+
+        ws.begin(4);
+
+        assertThat(ws.dist(2)).isInfinite();
+        assertThat(ws.isSettled(2)).isFalse();
+        assertThat(ws.capacity()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldGrowForLargerGraphsCorrectly() {
+        var ws = new SearchWorkspace();
+        ws.begin(4);
+
+        ws.begin(10);
+        ws.update(9, 1.0, 3);
+
+        assertThat(ws.capacity()).isEqualTo(10);
+        assertThat(ws.dist(9)).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldReuseReleasedWorkspacesCorrectly() {
+        var pool = new SearchWorkspacePool(1);
+        SearchWorkspace first = pool.borrow();
+        SearchWorkspace second = pool.borrow();
+
+        pool.release(first);
+        pool.release(second);
+
+        assertThat(pool.idleCount()).isEqualTo(1);
+        assertThat(pool.borrow()).isSameAs(first);
+    }
+
+    @Test
+    void shouldReturnSameResultsWhenWorkspaceIsReused() {
+        var gf = new GeometryFactory();
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.001, 52.0);
+        var c = new Coordinate(21.002, 52.0);
+        RoadGraph graph = new RoadGraphBuilder().build(List.of(
+                new RoadSegment("ab", gf.createLineString(new Coordinate[]{a, b}), 0, false),
+                new RoadSegment("bc", gf.createLineString(new Coordinate[]{b, c}), 0, false, Map.of("oneway", "yes"))
+        ));
+        int na = graph.nearestNode(52.0, 21.0);
+        int nb = graph.nearestNode(52.0, 21.001);
+        int nc = graph.nearestNode(52.0, 21.002);
+        var pool = new SearchWorkspacePool(1);
+        var finder = new SafeDijkstraPathFinder(pool);
+
+        GraphPath full = finder.findPath(new RouteQuery(graph, CostProfile.CAR, new BitSet(), na, nc));
+        GraphPath unreachable = finder.findPath(new RouteQuery(graph, CostProfile.CAR, new BitSet(), nc, na));
+        GraphPath partial = finder.findPath(new RouteQuery(graph, CostProfile.CAR, new BitSet(), nb, nc));
+
+        assertThat(full.edges()).hasSize(2);
+        assertThat(unreachable.found()).isFalse();
+        assertThat(partial.edges()).hasSize(1);
+        assertThat(pool.idleCount()).isEqualTo(1);
+    }
+}
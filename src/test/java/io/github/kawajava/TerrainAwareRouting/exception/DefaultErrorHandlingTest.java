@@ -59,6 +59,24 @@ public class DefaultErrorHandlingTest {
         assertThat(body.getTimestamp()).isNotNull();
     }
 
+    @Test
+    void shouldReturnTooManyRequestsErrorDtoForCapacityExceededException() {
+
+        var exception = new CapacityExceededException("Limit reached");
+
+        ResponseEntity<?> response = errorHandling.handleCapacityExceeded(exception, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getBody()).isInstanceOf(DefaultErrorDto.class);
+
+        DefaultErrorDto body = (DefaultErrorDto) response.getBody();
+        assertThat(body.getStatus()).isEqualTo(429);
+        assertThat(body.getError()).isEqualTo("Too Many Requests");
+        assertThat(body.getMessage()).isEqualTo("Limit reached");
+        assertThat(body.getPath()).isEqualTo("/test/path");
+        assertThat(body.getTimestamp()).isNotNull();
+    }
+
     @Test
     void shouldReturnInternalServerErrorDtoForGeneralException() {
         var exception = new Exception("Unexpected");
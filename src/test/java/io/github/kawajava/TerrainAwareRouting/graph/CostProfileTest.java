@@ -0,0 +1,52 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CostProfileTest {
+
+    @Test
+    void shouldResolveProfileByNameCorrectly() {
+        assertThat(CostProfile.fromName("walking")).isEqualTo(CostProfile.WALKING);
+        assertThat(CostProfile.fromName(" Emergency ")).isEqualTo(CostProfile.EMERGENCY);
+        assertThrows(IllegalArgumentException.class, () -> CostProfile.fromName("bicycle"));
+    }
+
+    @Test
+    void shouldProhibitRoadClassesPerProfileCorrectly() {
+        assertThat(CostProfile.CAR.weight(100, Map.of("highway", "footway"))).isInfinite();
+        assertThat(CostProfile.WALKING.weight(100, Map.of("highway", "motorway"))).isInfinite();
+        assertThat(CostProfile.WALKING.weight(100, Map.of("highway", "footway"))).isFinite();
+    }
+
+    @Test
+    void shouldUsePostedMaxSpeedCorrectly() {
+        float posted = CostProfile.CAR.weight(1000, Map.of("highway", "residential", "maxspeed", "50"));
+        float byClass = CostProfile.CAR.weight(1000, Map.of("highway", "residential"));
+
+        assertThat(posted).isCloseTo(72.0f, within(0.01f));
+        assertThat(byClass).isCloseTo(120.0f, within(0.01f));
+        assertThat(CostProfile.parseMaxSpeedKmh("30 mph")).isCloseTo(48.28, within(0.01));
+        assertThat(CostProfile.parseMaxSpeedKmh("signals")).isZero();
+    }
+
+    @Test
+    void shouldPenaliseUnpavedSurfaceCorrectly() {
+        float paved = CostProfile.CAR.weight(1000, Map.of("highway", "track"));
+        float gravel = CostProfile.CAR.weight(1000, Map.of("highway", "track", "surface", "gravel"));
+
+        assertThat(gravel).isGreaterThan(paved);
+    }
+
+    @Test
+    void shouldNeverExceedProfileMaxSpeed() {
+        double speed = CostProfile.CAR.speedMps(Map.of("highway", "motorway", "maxspeed", "200"));
+
+        assertThat(speed).isLessThanOrEqualTo(CostProfile.CAR.maxSpeedMps());
+    }
+}
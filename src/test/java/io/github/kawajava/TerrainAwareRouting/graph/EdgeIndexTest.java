@@ -0,0 +1,56 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EdgeIndexTest {
+
+    private final GeometryFactory gf = new GeometryFactory();
+
+    @Test
+    void shouldReportEachEdgeInQueryEnvelopeOnceCorrectly() {
+        Random random = new Random(5);
+        List<RoadSegment> segments = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            var from = new Coordinate(21.0 + random.nextDouble() * 0.1, 52.0 + random.nextDouble() * 0.1);
+            var to = new Coordinate(from.x + (random.nextDouble() - 0.5) * 0.02, from.y + (random.nextDouble() - 0.5) * 0.02);
+            segments.add(new RoadSegment("s" + i, gf.createLineString(new Coordinate[]{from, to}), 0, false, Map.of()));
+        }
+        RoadGraph graph = new RoadGraphBuilder().build(segments);
+        EdgeIndex index = graph.edgeIndex();
+
+        assertThat(graph.edgeIndex()).isSameAs(index);
+        for (int q = 0; q < 200; q++) {
+            double lon = 20.99 + random.nextDouble() * 0.12;
+            double lat = 51.99 + random.nextDouble() * 0.12;
+            Envelope area = new Envelope(lon, lon + random.nextDouble() * 0.03, lat, lat + random.nextDouble() * 0.03);
+
+            BitSet expected = new BitSet();
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                if (gf.createLineString(graph.edgeCoordinates(e)).getEnvelopeInternal().intersects(area)) {
+                    expected.set(e);
+                }
+            }
+            BitSet found = new BitSet();
+            int[] reported = {0};
+            index.query(area, e -> {
+                found.set(e);
+                reported[0]++;
+            });
+
+            assertThat(found).isEqualTo(expected);
+            assertThat(reported[0]).isEqualTo(expected.cardinality());
+        }
+    }
+}
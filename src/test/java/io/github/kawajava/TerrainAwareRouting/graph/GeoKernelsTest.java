@@ -0,0 +1,116 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GeoKernelsTest {
+
+    private final GeometryFactory gf = new GeometryFactory();
+
+    private List<GeoKernels> kernels() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+                ? List.of(GeoKernels.scalar(), GeoKernels.named("vector"))
+                : List.of(GeoKernels.scalar());
+    }
+
+    private Coordinate[] ring(double radius, int vertices) {
+        Coordinate[] ring = new Coordinate[vertices + 1];
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            double r = radius * (1 + 0.4 * Math.sin(5 * angle));
+            ring[i] = new Coordinate(21.0 + r * Math.cos(angle), 52.0 + r * Math.sin(angle));
+        }
+        ring[vertices] = ring[0];
+        return ring;
+    }
+
+    @Test
+    void shouldMatchScalarGeometryCorrectly() {
+        Random random = new Random(8);
+        int count = 1003;
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = 52.0 + random.nextDouble() * 0.5;
+            lons[i] = 21.0 + random.nextDouble() * 0.5;
+        }
+
+        for (GeoKernels kernel : kernels()) {
+            double[] meters = new double[count];
+            kernel.segmentLengths(lats, lons, count, meters);
+            for (int i = 0; i + 1 < count; i++) {
+                double expected = Geodesy.distanceMeters(lats[i], lons[i], lats[i + 1], lons[i + 1]);
+                assertThat(meters[i]).isCloseTo(expected, within(1e-6));
+            }
+
+            double[] box = new double[4];
+            kernel.bounds(lats, lons, 3, 1000, box);
+            double[] expected = new double[4];
+            GeoKernels.scalar().bounds(lats, lons, 3, 1000, expected);
+            assertThat(box).containsExactly(expected);
+        }
+    }
+
+    @Test
+    void shouldLocatePointsInPolygonWithHoleCorrectly() {
+        Coordinate[] shell = ring(0.01, 200);
+        Coordinate[] hole = ring(0.003, 40);
+        Polygon polygon = gf.createPolygon(gf.createLinearRing(shell), new LinearRing[]{gf.createLinearRing(hole)});
+        Random random = new Random(2);
+        int count = 2001;
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        boolean[] expected = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = 20.985 + random.nextDouble() * 0.03;
+            ys[i] = 51.985 + random.nextDouble() * 0.03;
+            expected[i] = polygon.contains(gf.createPoint(new Coordinate(xs[i], ys[i])));
+        }
+
+        for (GeoKernels kernel : kernels()) {
+            boolean[] inside = new boolean[count];
+            for (Coordinate[] ring : List.of(shell, hole)) {
+                double[] rx = new double[ring.length];
+                double[] ry = new double[ring.length];
+                for (int i = 0; i < ring.length; i++) {
+                    rx[i] = ring[i].x;
+                    ry[i] = ring[i].y;
+                }
+                kernel.crossRing(rx, ry, ring.length, xs, ys, count, inside);
+            }
+            assertThat(inside).containsExactly(expected);
+        }
+    }
+
+    @Test
+    void shouldBatchEdgeLengthsAcrossEdgesCorrectly() {
+        Random random = new Random(12);
+        List<RoadSegment> segments = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Coordinate[] points = new Coordinate[2 + random.nextInt(6)];
+            for (int k = 0; k < points.length; k++) {
+                points[k] = new Coordinate(21.0 + random.nextDouble() * 0.1, 52.0 + random.nextDouble() * 0.1);
+            }
+            segments.add(new RoadSegment("s" + i, gf.createLineString(points), 0, false, Map.of()));
+        }
+        RoadGraph graph = new RoadGraphBuilder().build(segments);
+
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            assertThat(graph.edgeLength(e)).isCloseTo((float) Geodesy.lengthMeters(graph.edgeCoordinates(e)), within(1e-3f));
+        }
+        assertThrows(IllegalArgumentException.class, () -> GeoKernels.named("gpu"));
+    }
+}
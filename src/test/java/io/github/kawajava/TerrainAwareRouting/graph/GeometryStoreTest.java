@@ -0,0 +1,74 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GeometryStoreTest {
+
+    private final Coordinate[] line = {
+            new Coordinate(21.0123456, 52.2297001),
+            new Coordinate(21.0124001, 52.2297999),
+            new Coordinate(21.0125555, 52.2299123),
+            new Coordinate(21.0127777, 52.2298000)
+    };
+
+    @Test
+    void shouldRoundTripFixedPointCoordinatesCorrectly() {
+        GeometryStore.Builder builder = GeometryStore.builder(1);
+        int piece = builder.add(7, line, 0, line.length - 1);
+        GeometryStore store = builder.build(null);
+
+        Coordinate[] decoded = store.coordinates(piece, false);
+
+        assertThat(store.segment(piece)).isEqualTo(7);
+        assertThat(store.pointCount(piece)).isEqualTo(4);
+        for (int i = 0; i < line.length; i++) {
+            assertThat(decoded[i].x).isCloseTo(line[i].x, within(1e-7));
+            assertThat(decoded[i].y).isCloseTo(line[i].y, within(1e-7));
+        }
+    }
+
+    @Test
+    void shouldDecodeSliceInReverseCorrectly() {
+        GeometryStore.Builder builder = GeometryStore.builder(1);
+        int piece = builder.add(0, line, 1, 3);
+        GeometryStore store = builder.build(null);
+        double[] lats = new double[4];
+        double[] lons = new double[4];
+
+        int count = store.decode(piece, true, lats, lons, 1);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(lons).containsExactly(0.0, 21.0127777, 21.0125555, 21.0124001);
+        assertThat(lats[3]).isEqualTo(52.2297999);
+    }
+
+    @Test
+    void shouldHandleAntimeridianDeltasCorrectly() {
+        Coordinate[] crossing = {new Coordinate(179.9999999, -16.5), new Coordinate(-179.9999999, -16.5)};
+        GeometryStore.Builder builder = GeometryStore.builder(1);
+        int piece = builder.add(0, crossing, 0, 1);
+
+        Coordinate[] decoded = builder.build(GraphArena.shared()).coordinates(piece, false);
+
+        assertThat(decoded[0].x).isEqualTo(179.9999999);
+        assertThat(decoded[1].x).isEqualTo(-179.9999999);
+    }
+
+    @Test
+    void shouldStoreDenseGeometryCompactly() {
+        GeometryStore.Builder builder = GeometryStore.builder(1);
+        Coordinate[] dense = new Coordinate[1000];
+        for (int i = 0; i < dense.length; i++) {
+            dense[i] = new Coordinate(21.0 + i * 0.00005, 52.0 + Math.sin(i / 10.0) * 0.0001);
+        }
+        builder.add(0, dense, 0, dense.length - 1);
+
+        GeometryStore store = builder.build(null);
+
+        assertThat(store.sizeBytes()).isLessThan(dense.length * 6L);
+    }
+}
@@ -0,0 +1,157 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import io.github.kawajava.TerrainAwareRouting.core.AStarPathFinder;
+import io.github.kawajava.TerrainAwareRouting.core.GraphPath;
+import io.github.kawajava.TerrainAwareRouting.core.RouteQuery;
+import io.github.kawajava.TerrainAwareRouting.core.SafeDijkstraPathFinder;
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GraphTilesTest {
+
+    private static final double TILE_DEGREES = 0.005;
+
+    private final GeometryFactory gf = new GeometryFactory();
+
+    @TempDir
+    Path dir;
+
+    private List<RoadSegment> grid(int side) {
+        String[] classes = {"residential", "tertiary", "primary", "footway"};
+        Random random = new Random(7);
+        List<RoadSegment> segments = new ArrayList<>();
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                var from = new Coordinate(21.0 + c * 0.001, 52.0 + r * 0.001);
+                var mid = new Coordinate(from.x + 0.0004, from.y + 0.0001);
+                if (c + 1 < side) {
+                    segments.add(new RoadSegment("h" + r + "-" + c, gf.createLineString(new Coordinate[]{
+                            from, mid, new Coordinate(from.x + 0.001, from.y)}), 0, false,
+                            Map.of("highway", classes[random.nextInt(classes.length)])));
+                }
+                if (r + 1 < side) {
+                    segments.add(new RoadSegment("v" + r + "-" + c, gf.createLineString(new Coordinate[]{
+                            from, new Coordinate(from.x, from.y + 0.001)}), 0, false,
+                            Map.of("highway", classes[random.nextInt(classes.length)])));
+                }
+            }
+        }
+        return segments;
+    }
+
+    @Test
+    void shouldRouteAcrossLazilyLoadedTilesCorrectly() throws Exception {
+        RoadGraph heap = new RoadGraphBuilder().build(grid(20));
+        GraphTiles.write(heap, dir, TILE_DEGREES);
+        RoadGraph tiled = GraphTiles.open(dir, 32 * 1024);
+
+        assertThat(tiled.layout()).isEqualTo(GraphLayout.TILED);
+        assertThat(tiled.nodeCount()).isEqualTo(heap.nodeCount());
+        assertThat(tiled.edgeCount()).isEqualTo(heap.edgeCount());
+        assertThat(tiled.tileMetrics()).hasValueSatisfying(m -> assertThat(m.tiles()).isGreaterThan(4));
+
+        Random random = new Random(11);
+        for (int q = 0; q < 20; q++) {
+            double fromLat = 52.0 + random.nextDouble() * 0.019;
+            double fromLon = 21.0 + random.nextDouble() * 0.019;
+            double toLat = 52.0 + random.nextDouble() * 0.019;
+            double toLon = 21.0 + random.nextDouble() * 0.019;
+            int heapFrom = heap.nearestNode(fromLat, fromLon);
+            int tiledFrom = tiled.nearestNode(fromLat, fromLon);
+            int heapTo = heap.nearestNode(toLat, toLon);
+            int tiledTo = tiled.nearestNode(toLat, toLon);
+            assertThat(tiled.nodeLat(tiledFrom)).isEqualTo(heap.nodeLat(heapFrom));
+            assertThat(tiled.nodeLon(tiledFrom)).isEqualTo(heap.nodeLon(heapFrom));
+
+            for (CostProfile profile : CostProfile.values()) {
+                GraphPath expected = new SafeDijkstraPathFinder()
+                        .findPath(new RouteQuery(heap, profile, new BitSet(), heapFrom, heapTo));
+                GraphPath dijkstra = new SafeDijkstraPathFinder()
+                        .findPath(new RouteQuery(tiled, profile, new BitSet(), tiledFrom, tiledTo));
+                GraphPath astar = new AStarPathFinder()
+                        .findPath(new RouteQuery(tiled, profile, new BitSet(), tiledFrom, tiledTo));
+
+                assertThat(dijkstra.cost()).isCloseTo(expected.cost(), within(1e-6));
+                assertThat(astar.cost()).isCloseTo(expected.cost(), within(1e-6));
+                for (int edge : dijkstra.edges()) {
+                    assertThat(tiled.edgeCoordinates(edge)).hasSize(tiled.edgePointCount(edge));
+                }
+            }
+        }
+
+        TileMetrics metrics = tiled.tileMetrics().orElseThrow();
+        assertThat(metrics.loads()).isGreaterThan(metrics.tiles());
+        assertThat(metrics.evictions()).isPositive();
+        assertThat(metrics.hits()).isPositive();
+        assertThat(metrics.residentTiles()).isLessThan(metrics.tiles());
+    }
+
+    @Test
+    void shouldPreserveEdgeGeometryAcrossTilesCorrectly() throws Exception {
+        RoadGraph heap = new RoadGraphBuilder().build(grid(6));
+        GraphTiles.write(heap, dir, TILE_DEGREES);
+        RoadGraph tiled = GraphTiles.open(dir, Long.MAX_VALUE);
+
+        for (int n = 0; n < heap.nodeCount(); n++) {
+            int same = tiled.nearestNode(heap.nodeLat(n), heap.nodeLon(n));
+            assertThat(tiled.degree(same)).isEqualTo(heap.degree(n));
+            assertThat(tiled.endEdge(same) - tiled.firstEdge(same)).isEqualTo(heap.endEdge(n) - heap.firstEdge(n));
+            for (int e = tiled.firstEdge(same); e < tiled.endEdge(same); e++) {
+                assertThat(tiled.edgeSource(e)).isEqualTo(same);
+                assertThat(tiled.edgeCoordinates(e)[0].x).isCloseTo(heap.nodeLon(n), within(1e-7));
+            }
+        }
+        assertThat(tiled.tileMetrics().orElseThrow().evictions()).isZero();
+    }
+
+    @Test
+    void shouldPublishTileGenerationsBehindCurrentPointerCorrectly() throws Exception {
+        RoadGraph heap = new RoadGraphBuilder().build(grid(4));
+
+        Path first = GraphTiles.publish(heap, dir, TILE_DEGREES);
+        Path second = GraphTiles.publish(heap, dir, TILE_DEGREES);
+        Path third = GraphTiles.publish(heap, dir, TILE_DEGREES);
+
+        assertThat(GraphTiles.current(dir)).isEqualTo(third);
+        assertThat(GraphTiles.exists(second)).isTrue();
+        assertThat(first).doesNotExist();
+        assertThat(GraphTiles.open(GraphTiles.current(dir), Long.MAX_VALUE).nodeCount()).isEqualTo(heap.nodeCount());
+    }
+
+    @Test
+    void shouldKeepRetiredGenerationUntilItsGraphIsReleasedCorrectly() throws Exception {
+        RoadGraph heap = new RoadGraphBuilder().build(grid(4));
+        Path first = GraphTiles.publish(heap, dir, TILE_DEGREES);
+        RoadGraph open = GraphTiles.open(first, 1);
+
+        GraphTiles.publish(heap, dir, TILE_DEGREES);
+        GraphTiles.publish(heap, dir, TILE_DEGREES);
+
+        // a graph still in use loads its tiles from the retired generation
+        assertThat(GraphTiles.exists(first)).isTrue();
+        for (int n = 0; n < open.nodeCount(); n++) {
+            assertThat(open.nodeLat(n)).isBetween(52.0, 52.004);
+        }
+
+        open = null;
+        for (int i = 0; i < 100 && Files.exists(first); i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertThat(first).doesNotExist();
+    }
+}
@@ -0,0 +1,250 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RoadGraphBuilderTest {
+
+    private final GeometryFactory gf = new GeometryFactory();
+    private final RoadGraphBuilder builder = new RoadGraphBuilder();
+
+    private RoadSegment segment(String id, Map<String, String> properties, boolean flooded, Coordinate... coords) {
+        return new RoadSegment(id, gf.createLineString(coords), 0, flooded, properties);
+    }
+
+    @Test
+    void shouldCompileCsrAdjacencyCorrectly() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.001, 52.0);
+        var c = new Coordinate(21.002, 52.0);
+
+        RoadGraph graph = builder.build(List.of(
+                segment("ab", Map.of(), false, a, b),
+                segment("ac", Map.of(), false, a, c),
+                segment("bc", Map.of(), true, b, c)
+        ));
+
+        assertThat(graph.nodeCount()).isEqualTo(3);
+        assertThat(graph.edgeCount()).isEqualTo(4);
+        int nodeA = graph.nearestNode(52.0, 21.0);
+        assertThat(graph.endEdge(nodeA) - graph.firstEdge(nodeA)).isEqualTo(2);
+        assertThat(graph.edgeSource(graph.firstEdge(nodeA))).isEqualTo(nodeA);
+        assertThat(graph.degree(nodeA)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldMergeEndpointsWithinToleranceCorrectly() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.001, 52.0);
+        var nearB = new Coordinate(21.001000001, 52.000000001);
+        var c = new Coordinate(21.002, 52.0);
+        List<RoadSegment> segments = List.of(
+                segment("ab", Map.of(), false, a, b),
+                segment("bc", Map.of(), false, nearB, c));
+
+        RoadGraph merged = builder.build(segments);
+        RoadGraph exact = new RoadGraphBuilder(0, null).build(segments);
+
+        assertThat(merged.nodeCount()).isEqualTo(3);
+        assertThat(merged.degree(merged.nearestNode(52.0, 21.001))).isEqualTo(2);
+        assertThat(exact.nodeCount()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldMergeEndpointsWithinToleranceAtHighLatitudeCorrectly() {
+        // 0.9 m east of b at 70° N is about 2.6 tolerance-sized latitude cells
+        double cosLat = Math.cos(Math.toRadians(70.0));
+        var a = new Coordinate(25.0, 70.0);
+        var b = new Coordinate(25.001, 70.0);
+        var nearB = new Coordinate(25.001 + 0.9 / (111_320.0 * cosLat), 70.0);
+        var farB = new Coordinate(25.001 + 1.1 / (111_320.0 * cosLat), 70.0);
+        var c = new Coordinate(25.002, 70.0);
+
+        RoadGraph near = new RoadGraphBuilder(1.0, null).build(List.of(
+                segment("ab", Map.of(), false, a, b),
+                segment("bc", Map.of(), false, nearB, c)));
+        RoadGraph far = new RoadGraphBuilder(1.0, null).build(List.of(
+                segment("ab", Map.of(), false, a, b),
+                segment("bc", Map.of(), false, farB, c)));
+
+        assertThat(near.nodeCount()).isEqualTo(3);
+        assertThat(near.degree(near.nearestNode(70.0, 25.001))).isEqualTo(2);
+        assertThat(far.nodeCount()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldSplitSegmentsAtSharedInteriorVerticesCorrectly() {
+        var cross = new Coordinate(21.001, 52.001);
+
+        RoadGraph graph = builder.build(List.of(
+                segment("we", Map.of(), false, new Coordinate(21.0, 52.001), new Coordinate(21.0005, 52.001), cross,
+                        new Coordinate(21.002, 52.001)),
+                segment("sn", Map.of(), false, new Coordinate(21.001, 52.0), cross, new Coordinate(21.001, 52.002))
+        ));
+
+        int node = graph.nearestNode(cross.y, cross.x);
+        assertThat(graph.nodeCount()).isEqualTo(5);
+        assertThat(graph.edgeCount()).isEqualTo(8);
+        assertThat(graph.degree(node)).isEqualTo(4);
+        for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+            assertThat(graph.edgeCoordinates(e)[0]).isEqualTo(cross);
+        }
+        int west = graph.nearestNode(52.001, 21.0);
+        assertThat(graph.edgeCoordinates(graph.firstEdge(west))).hasSize(3);
+    }
+
+    @Test
+    void shouldHonourOnewayPerProfileCorrectly() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.001, 52.0);
+        var c = new Coordinate(21.002, 52.0);
+
+        RoadGraph graph = builder.build(List.of(
+                segment("ab", Map.of("highway", "residential", "oneway", "yes"), false, a, b),
+                segment("bc", Map.of("highway", "residential", "oneway", "-1"), false, b, c)
+        ));
+
+        int nodeA = graph.nearestNode(52.0, 21.0);
+        int nodeB = graph.nearestNode(52.0, 21.001);
+        int forward = graph.firstEdge(nodeA);
+        int backward = graph.firstEdge(nodeB);
+        for (int e = graph.firstEdge(nodeB); e < graph.endEdge(nodeB); e++) {
+            if (graph.edgeTarget(e) == nodeA) {
+                backward = e;
+            }
+        }
+
+        assertThat(graph.weight(CostProfile.CAR, forward)).isFinite();
+        assertThat(graph.weight(CostProfile.CAR, backward)).isInfinite();
+        assertThat(graph.weight(CostProfile.WALKING, backward)).isFinite();
+        for (int e = graph.firstEdge(nodeB); e < graph.endEdge(nodeB); e++) {
+            if (graph.edgeTarget(e) != nodeA) {
+                assertThat(graph.weight(CostProfile.EMERGENCY, e)).isInfinite();
+            }
+        }
+    }
+
+    @Test
+    void shouldPrecomputeGeodesicLengthsAndProfileWeightsCorrectly() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.0, 52.001);
+
+        RoadGraph graph = builder.build(List.of(
+                segment("ab", Map.of("highway", "residential"), false, a, b)
+        ));
+
+        assertThat(graph.edgeLength(0)).isCloseTo(111.2f, within(0.1f));
+        assertThat(graph.weight(CostProfile.CAR, 0)).isCloseTo(111.2f / (30 / 3.6f), within(0.05f));
+        assertThat(graph.weight(CostProfile.WALKING, 0)).isCloseTo(111.2f / (5 / 3.6f), within(0.1f));
+    }
+
+    @Test
+    void shouldSnapToNearestNodeCorrectly() {
+        var a = new Coordinate(21.0, 52.0);
+        var b = new Coordinate(21.01, 52.0);
+
+        RoadGraph graph = builder.build(List.of(segment("ab", Map.of(), false, a, b)));
+
+        int node = graph.nearestNode(52.0001, 21.0099);
+        assertThat(graph.nodeLon(node)).isEqualTo(21.01);
+    }
+
+    @Test
+    void shouldSnapLikeExhaustiveSearchCorrectly() {
+        var random = new Random(3);
+        var segments = new ArrayList<RoadSegment>();
+        for (int i = 0; i < 200; i++) {
+            var from = new Coordinate(21.0 + random.nextDouble() * 0.1, 52.0 + random.nextDouble() * 0.05);
+            var to = new Coordinate(from.x + 0.001, from.y + 0.001);
+            segments.add(segment("s" + i, Map.of(), false, from, to));
+        }
+        RoadGraph graph = builder.build(segments);
+
+        for (int q = 0; q < 500; q++) {
+            double lat = 51.98 + random.nextDouble() * 0.09;
+            double lon = 20.98 + random.nextDouble() * 0.14;
+            double cosLat = Math.cos(Math.toRadians(52.025));
+            int expected = 0;
+            double bestDistSq = Double.MAX_VALUE;
+            for (int n = 0; n < graph.nodeCount(); n++) {
+                double dy = graph.nodeLat(n) - lat;
+                double dx = (graph.nodeLon(n) - lon) * cosLat;
+                if (dx * dx + dy * dy < bestDistSq) {
+                    bestDistSq = dx * dx + dy * dy;
+                    expected = n;
+                }
+            }
+            assertThat(graph.nearestNode(lat, lon)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldExposeSameGraphFromOffHeapLayoutCorrectly() {
+        List<RoadSegment> segments = List.of(
+                segment("ab", Map.of("highway", "primary"), false, new Coordinate(21.0, 52.0), new Coordinate(21.001, 52.0)),
+                segment("bc", Map.of("highway", "footway"), false, new Coordinate(21.001, 52.0), new Coordinate(21.001, 52.001)),
+                segment("ca", Map.of("oneway", "yes"), false, new Coordinate(21.001, 52.001), new Coordinate(21.0, 52.0)));
+
+        RoadGraph heap = builder.build(segments);
+        RoadGraph offHeap = new RoadGraphBuilder(0.5, null, GraphLayout.OFF_HEAP).build(segments);
+
+        assertThat(offHeap.layout()).isEqualTo(GraphLayout.OFF_HEAP);
+        assertThat(offHeap.offHeapBytes()).isPositive();
+        assertThat(heap.offHeapBytes()).isZero();
+        assertThat(offHeap.nodeCount()).isEqualTo(heap.nodeCount());
+        assertThat(offHeap.edgeCount()).isEqualTo(heap.edgeCount());
+        for (int n = 0; n < heap.nodeCount(); n++) {
+            assertThat(offHeap.nodeLat(n)).isEqualTo(heap.nodeLat(n));
+            assertThat(offHeap.nodeLon(n)).isEqualTo(heap.nodeLon(n));
+            assertThat(offHeap.degree(n)).isEqualTo(heap.degree(n));
+            assertThat(offHeap.endEdge(n)).isEqualTo(heap.endEdge(n));
+        }
+        for (int e = 0; e < heap.edgeCount(); e++) {
+            assertThat(offHeap.edgeSource(e)).isEqualTo(heap.edgeSource(e));
+            assertThat(offHeap.edgeTarget(e)).isEqualTo(heap.edgeTarget(e));
+            assertThat(offHeap.edgeLength(e)).isEqualTo(heap.edgeLength(e));
+            for (CostProfile profile : CostProfile.values()) {
+                assertThat(offHeap.weight(profile, e)).isEqualTo(heap.weight(profile, e));
+            }
+        }
+    }
+
+    @Test
+    void shouldBuildSameGraphWithAnyParallelismCorrectly() throws Exception {
+        // a jittered grid: junction vertices are repeated by every segment that meets there, up to 0.2 m apart
+        int side = 80;
+        List<RoadSegment> segments = TestGrids.unmergedStreets(new Random(11), side, 0.0005);
+
+        RoadGraph single;
+        RoadGraph parallel;
+        try (var one = new ForkJoinPool(1); var four = new ForkJoinPool(4)) {
+            single = one.submit(() -> builder.build(segments)).get();
+            parallel = four.submit(() -> builder.build(segments)).get();
+        }
+
+        assertThat(single.nodeCount()).isEqualTo(side * side);
+        assertThat(parallel.nodeCount()).isEqualTo(single.nodeCount());
+        assertThat(parallel.edgeCount()).isEqualTo(single.edgeCount());
+        for (int n = 0; n < single.nodeCount(); n++) {
+            assertThat(parallel.nodeLat(n)).isEqualTo(single.nodeLat(n));
+            assertThat(parallel.nodeLon(n)).isEqualTo(single.nodeLon(n));
+            assertThat(parallel.firstEdge(n)).isEqualTo(single.firstEdge(n));
+        }
+        for (int e = 0; e < single.edgeCount(); e++) {
+            assertThat(parallel.edgeTarget(e)).isEqualTo(single.edgeTarget(e));
+            assertThat(parallel.edgeLength(e)).isEqualTo(single.edgeLength(e));
+            assertThat(parallel.edgeCoordinates(e)).isEqualTo(single.edgeCoordinates(e));
+        }
+    }
+}
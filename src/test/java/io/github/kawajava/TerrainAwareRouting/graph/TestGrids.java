@@ -0,0 +1,101 @@
+package io.github.kawajava.TerrainAwareRouting.graph;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Street grids for tests: side × side junctions STEP degrees apart, starting at (52.0 N, 21.0 E), joined by
+// streets h<row>-<col> to the east and v<row>-<col> to the north
+public final class TestGrids {
+
+    public static final double STEP = 0.001;
+
+    private static final GeometryFactory GEOMETRY = new GeometryFactory();
+
+    private TestGrids() {
+    }
+
+    public static Coordinate[][] junctions(int side) {
+        return junctions(side, null);
+    }
+
+    // With a random, every junction is moved by up to 15% of a step in each direction
+    public static Coordinate[][] junctions(int side, Random jitter) {
+        Coordinate[][] junctions = new Coordinate[side][side];
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                junctions[r][c] = jitter == null
+                        ? new Coordinate(21.0 + c * STEP, 52.0 + r * STEP)
+                        : new Coordinate(21.0 + c * STEP + (jitter.nextDouble() - 0.5) * STEP * 0.3,
+                                52.0 + r * STEP + (jitter.nextDouble() - 0.5) * STEP * 0.3);
+            }
+        }
+        return junctions;
+    }
+
+    public static List<RoadSegment> streets(Coordinate[][] junctions) {
+        return streets(junctions, null, 0);
+    }
+
+    // With a random, about one junction in oneWayOneIn gets one-way streets, so that forward and backward distances
+    // differ
+    public static List<RoadSegment> streets(Coordinate[][] junctions, Random random, int oneWayOneIn) {
+        int side = junctions.length;
+        List<RoadSegment> segments = new ArrayList<>();
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                Map<String, String> tags = random != null && random.nextInt(oneWayOneIn) == 0
+                        ? Map.of("oneway", "yes") : Map.of();
+                if (c + 1 < side) {
+                    segments.add(street("h" + r + "-" + c, tags, junctions[r][c], junctions[r][c + 1]));
+                }
+                if (r + 1 < side) {
+                    segments.add(street("v" + r + "-" + c, tags, junctions[r][c], junctions[r + 1][c]));
+                }
+            }
+        }
+        return segments;
+    }
+
+    public static RoadGraph graph(int side) {
+        return graph(junctions(side));
+    }
+
+    public static RoadGraph graph(Coordinate[][] junctions) {
+        return new RoadGraphBuilder().build(streets(junctions));
+    }
+
+    // Every street repeats its end junctions with up to 0.1 m of noise, and eastward streets have a middle vertex, so
+    // that the builder has to merge the copies of each junction
+    public static List<RoadSegment> unmergedStreets(Random random, int side, double step) {
+        List<RoadSegment> segments = new ArrayList<>();
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                double lat = 52.0 + row * step, lon = 21.0 + col * step;
+                if (col + 1 < side) {
+                    segments.add(street("h" + row + "-" + col, Map.of(), jitter(random, lon, lat),
+                            jitter(random, lon + step / 2, lat), jitter(random, lon + step, lat)));
+                }
+                if (row + 1 < side) {
+                    segments.add(street("v" + row + "-" + col, Map.of(), jitter(random, lon, lat),
+                            jitter(random, lon, lat + step)));
+                }
+            }
+        }
+        return segments;
+    }
+
+    private static RoadSegment street(String id, Map<String, String> tags, Coordinate... points) {
+        return new RoadSegment(id, GEOMETRY.createLineString(points), 0, false, tags);
+    }
+
+    private static Coordinate jitter(Random random, double lon, double lat) {
+        double meters = 0.1 / 111_320.0;
+        return new Coordinate(lon + (random.nextDouble() - 0.5) * meters, lat + (random.nextDouble() - 0.5) * meters);
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.kawajava.TerrainAwareRouting.infrastructure;
+
+import io.github.kawajava.TerrainAwareRouting.domain.FloodEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FloodEventReaderTest {
+
+    private final FloodEventReader reader = new FloodEventReader();
+
+    @Test
+    void shouldParseNdjsonAndSseEventsCorrectly() {
+        String body = """
+                {"type":"add","id":"p1","timestamp":1700000000000,"geometry":{"type":"Polygon","coordinates":[[[21.0,52.0],[21.1,52.0],[21.1,52.1],[21.0,52.0]]]}}
+
+                : keep-alive
+                event: flood
+                data: {"type":"remove","id":"p2"}
+                """;
+
+        List<FloodEvent> events = reader.parse(body);
+
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).kind()).isEqualTo(FloodEvent.Kind.ADD);
+        assertThat(events.get(0).polygon().polygon().getNumPoints()).isEqualTo(4);
+        assertThat(events.get(0).emittedAtMillis()).isEqualTo(1700000000000L);
+        assertThat(events.get(1).kind()).isEqualTo(FloodEvent.Kind.REMOVE);
+        assertThat(events.get(1).id()).isEqualTo("p2");
+    }
+
+    @Test
+    void shouldRejectInvalidEventsCorrectly() {
+        assertThrows(IllegalArgumentException.class, () -> reader.parseLine("{\"type\":\"add\"}"));
+        assertThrows(IllegalArgumentException.class, () -> reader.parseLine("{\"type\":\"grow\",\"id\":\"p\"}"));
+        assertThrows(IllegalArgumentException.class, () -> reader.parseLine("{\"id\":\"p\",\"geometry\":{\"type\":\"Point\"}}"));
+        assertThrows(IllegalArgumentException.class, () -> reader.parseLine("{not json"));
+    }
+}
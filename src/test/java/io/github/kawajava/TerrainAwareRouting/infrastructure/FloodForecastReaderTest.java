@@ -0,0 +1,45 @@
+package io.github.kawajava.TerrainAwareRouting.infrastructure;
+
+import io.github.kawajava.TerrainAwareRouting.domain.ForecastLayer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FloodForecastReaderTest {
+
+    private final FloodForecastReader reader = new FloodForecastReader(new FloodEventReader());
+
+    @Test
+    void shouldGroupFeaturesIntoTimeStepsCorrectly() {
+        String body = """
+                {"type":"FeatureCollection","features":[
+                  {"type":"Feature","properties":{"time":"2026-04-01T07:00:00Z"},
+                   "geometry":{"type":"MultiPolygon","coordinates":[
+                     [[[21.0,52.0],[21.1,52.0],[21.1,52.1],[21.0,52.0]]],
+                     [[[21.2,52.0],[21.3,52.0],[21.3,52.1],[21.2,52.0]]]]}},
+                  {"type":"Feature","properties":{"time":1775023200000},
+                   "geometry":{"type":"Polygon","coordinates":[[[21.0,52.0],[21.1,52.0],[21.1,52.1],[21.0,52.0]]]}}
+                ]}
+                """;
+
+        List<ForecastLayer> layers = reader.parse(body);
+
+        assertThat(layers).extracting(ForecastLayer::time)
+                .containsExactly(Instant.parse("2026-04-01T06:00:00Z"), Instant.parse("2026-04-01T07:00:00Z"));
+        assertThat(layers.get(0).polygons()).hasSize(1);
+        assertThat(layers.get(1).polygons()).hasSize(2);
+    }
+
+    @Test
+    void shouldRejectInvalidForecastCorrectly() {
+        assertThrows(IllegalArgumentException.class, () -> reader.parse("{\"type\":\"FeatureCollection\"}"));
+        assertThrows(IllegalArgumentException.class, () -> reader.parse(
+                "{\"features\":[{\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[1,0],[1,1],[0,0]]]}}]}"));
+        assertThrows(IllegalArgumentException.class, () -> reader.parse(
+                "{\"features\":[{\"properties\":{\"time\":\"tomorrow\"},\"geometry\":null}]}"));
+    }
+}
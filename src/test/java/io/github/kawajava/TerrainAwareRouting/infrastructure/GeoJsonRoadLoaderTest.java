@@ -2,6 +2,7 @@ package io.github.kawajava.TerrainAwareRouting.infrastructure;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.kawajava.TerrainAwareRouting.graph.Geodesy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.locationtech.jts.geom.LineString;
@@ -111,9 +112,30 @@ class GeoJsonRoadLoaderTest {
 
         assertThat(segment).isNotNull();
         assertThat(segment.geometry()).isEqualTo(line);
-        assertThat(segment.cost()).isEqualTo(line.getLength());
+        assertThat(segment.cost()).isEqualTo(Geodesy.lengthMeters(coords));
         assertThat(segment.id()).isNotBlank();
         assertThat(segment.flooded()).isFalse();
     }
 
+    @Test
+    void shouldKeepFeaturePropertiesCorrectly() throws Exception {
+        String json = """
+            {
+              "type": "FeatureCollection",
+              "features": [ {
+                "properties": { "highway": "primary", "maxspeed": 70, "name": null },
+                "geometry": { "type": "LineString", "coordinates": [[21.0,52.0],[21.001,52.0]] }
+              } ]
+            }
+        """;
+
+        var segments = loader.getRoadSegments(objectMapper.readTree(json).get("features"));
+
+        assertThat(segments).hasSize(1);
+        assertThat(segments.get(0).properties())
+                .containsEntry("highway", "primary")
+                .containsEntry("maxspeed", "70")
+                .doesNotContainKey("name");
+        assertThat(segments.get(0).cost()).isBetween(68.0, 69.0);
+    }
 }
@@ -0,0 +1,132 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.core.GraphPath;
+import io.github.kawajava.TerrainAwareRouting.core.PathFindingStrategy;
+import io.github.kawajava.TerrainAwareRouting.core.RouteQuery;
+import io.github.kawajava.TerrainAwareRouting.core.RoutePath;
+import io.github.kawajava.TerrainAwareRouting.core.SafeDijkstraPathFinder;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.TestGrids;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ActiveRoutesTest {
+
+    private final SafeDijkstraPathFinder dijkstra = new SafeDijkstraPathFinder();
+
+    private int node(RoadGraph graph, int row, int column) {
+        return graph.nearestNode(52.0 + row * 0.001, 21.0 + column * 0.001);
+    }
+
+    private GraphPath path(RoadGraph graph, BitSet blocked, int source, int target) {
+        return dijkstra.findPath(new RouteQuery(graph, CostProfile.CAR, blocked, source, target));
+    }
+
+    @Test
+    void shouldRerouteOnlyRoutesCrossingNewlyBlockedEdgesCorrectly() {
+        RoadGraph graph = TestGrids.graph(10);
+        BitSet blocked = new BitSet();
+        ActiveRoutes routes = new ActiveRoutes(graph);
+        GraphPath south = path(graph, blocked, node(graph, 0, 0), node(graph, 0, 9));
+        GraphPath north = path(graph, blocked, node(graph, 9, 0), node(graph, 9, 9));
+        routes.register(1, CostProfile.CAR, south);
+        routes.register(2, CostProfile.CAR, north);
+
+        int cut = south.edges()[4];
+        blocked.set(cut);
+        ActiveRoutes.Rerouted rerouted = routes.reroute(blocked, blocked, null, 0, dijkstra, 1);
+
+        assertThat(rerouted.searched()).isEqualTo(1);
+        assertThat(rerouted.updates()).hasSize(1);
+        ActiveRoutes.Update update = rerouted.updates().getFirst();
+        assertThat(update.id()).isEqualTo(1);
+        assertThat(update.version()).isEqualTo(1);
+        assertThat(update.route().cost()).isGreaterThan(south.cost());
+        assertThat(update.route().cost()).isEqualTo(path(graph, blocked, node(graph, 0, 0), node(graph, 0, 9)).cost());
+        assertThat(routes.route(2).cost()).isEqualTo(north.cost());
+
+        // the detour is indexed too: flooding it again moves the route once more
+        BitSet again = new BitSet();
+        GraphPath detour = path(graph, blocked, node(graph, 0, 0), node(graph, 0, 9));
+        again.set(detour.edges()[detour.edges().length / 2]);
+        blocked.or(again);
+        assertThat(routes.reroute(again, blocked, null, 0, dijkstra, 8).searched()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRerouteFromReportedPositionAndTrackReachabilityCorrectly() {
+        RoadGraph graph = TestGrids.graph(10);
+        BitSet blocked = new BitSet();
+        ActiveRoutes routes = new ActiveRoutes(graph);
+        int target = node(graph, 0, 9);
+        GraphPath route = path(graph, blocked, node(graph, 0, 0), target);
+        routes.register(1, CostProfile.CAR, route);
+
+        RoutePath remaining = routes.advance(1, 52.0, 21.005).orElseThrow();
+        assertThat(remaining.lons()[0]).isCloseTo(21.005, within(1e-9));
+
+        // flooding a road already driven past touches nothing
+        BitSet behind = new BitSet();
+        behind.set(route.edges()[1]);
+        blocked.or(behind);
+        assertThat(routes.reroute(behind, blocked, null, 0, dijkstra, 8).searched()).isZero();
+
+        // cutting every road into the target strands the traveller, and clearing one brings a route back
+        BitSet around = new BitSet();
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (graph.edgeTarget(e) == target) {
+                around.set(e);
+            }
+        }
+        blocked.or(around);
+        ActiveRoutes.Rerouted stranded = routes.reroute(around, blocked, null, 0, dijkstra, 8);
+        assertThat(stranded.updates()).hasSize(1);
+        assertThat(stranded.updates().getFirst().route().isEmpty()).isTrue();
+        assertThat(routes.reroute(new BitSet(), blocked, null, 0, dijkstra, 8).updates()).isEmpty();
+
+        blocked.andNot(around);
+        ActiveRoutes.Rerouted restored = routes.reroute(new BitSet(), blocked, null, 0, dijkstra, 8);
+        assertThat(restored.updates()).hasSize(1);
+        assertThat(restored.updates().getFirst().version()).isEqualTo(2);
+        assertThat(restored.updates().getFirst().route().lons()[0]).isCloseTo(21.005, within(1e-9));
+        assertThat(Arrays.stream(restored.updates().getFirst().route().lons()).max().orElseThrow())
+                .isCloseTo(21.009, within(1e-9));
+
+        assertThat(routes.advance(1, 52.0, 21.009)).isEmpty();
+        assertThat(routes.size()).isZero();
+    }
+
+    @Test
+    void shouldSearchAgainFromPositionReportedDuringRerouteCorrectly() {
+        RoadGraph graph = TestGrids.graph(10);
+        BitSet blocked = new BitSet();
+        ActiveRoutes routes = new ActiveRoutes(graph);
+        GraphPath route = path(graph, blocked, node(graph, 0, 0), node(graph, 0, 9));
+        routes.register(1, CostProfile.CAR, route);
+
+        // the traveller reports a position while the first search is still running
+        AtomicInteger calls = new AtomicInteger();
+        PathFindingStrategy reporting = query -> {
+            if (calls.getAndIncrement() == 0) {
+                routes.advance(1, 52.0, 21.003);
+            }
+            return dijkstra.findPath(query);
+        };
+        blocked.set(route.edges()[6]);
+        ActiveRoutes.Rerouted rerouted = routes.reroute(blocked, blocked, null, 0, reporting, 8);
+
+        assertThat(rerouted.searched()).isEqualTo(2);
+        assertThat(rerouted.updates()).hasSize(1);
+        assertThat(rerouted.updates().getFirst().route().lons()[0]).isCloseTo(21.003, within(1e-9));
+        assertThat(routes.route(1).lons()[0]).isCloseTo(21.003, within(1e-9));
+        assertThat(routes.route(1).cost())
+                .isEqualTo(path(graph, blocked, node(graph, 0, 3), node(graph, 0, 9)).cost());
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.core.GraphPath;
+import io.github.kawajava.TerrainAwareRouting.core.RouteQuery;
+import io.github.kawajava.TerrainAwareRouting.core.SafeDijkstraPathFinder;
+import io.github.kawajava.TerrainAwareRouting.domain.ForecastLayer;
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FloodForecastTest {
+
+    private final GeometryFactory gf = new GeometryFactory();
+    private final Instant start = Instant.parse("2026-04-01T06:00:00Z");
+
+    private final Coordinate s = new Coordinate(21.0, 52.0);
+    private final Coordinate t = new Coordinate(21.01, 52.0);
+    private final Coordinate north = new Coordinate(21.005, 52.002);
+    private final Coordinate south = new Coordinate(21.005, 51.997);
+    private final RoadGraph graph = new RoadGraphBuilder().build(List.of(
+            segment("n1", s, north), segment("n2", north, t),
+            segment("s1", s, south), segment("s2", south, t)));
+
+    private RoadSegment segment(String id, Coordinate from, Coordinate to) {
+        return new RoadSegment(id, gf.createLineString(new Coordinate[]{from, to}), 0, false, Map.of());
+    }
+
+    private Polygon box(Coordinate centre, double half) {
+        return gf.createPolygon(new Coordinate[]{
+                new Coordinate(centre.x - half, centre.y - half), new Coordinate(centre.x + half, centre.y - half),
+                new Coordinate(centre.x + half, centre.y + half), new Coordinate(centre.x - half, centre.y + half),
+                new Coordinate(centre.x - half, centre.y - half)});
+    }
+
+    private int firstNode(FloodForecast forecast, Instant departure) {
+        GraphPath path = new SafeDijkstraPathFinder().findPath(new RouteQuery(graph, CostProfile.WALKING, new BitSet(),
+                graph.nearestNode(s.y, s.x), graph.nearestNode(t.y, t.x), forecast.floodsAt(), forecast.offset(departure)));
+        return graph.edgeTarget(path.edges()[0]);
+    }
+
+    @Test
+    void shouldKeepEarliestFloodTimePerEdgeCorrectly() {
+        FloodForecast forecast = FloodForecast.compile(graph, List.of(
+                new ForecastLayer(start.plusSeconds(3600), List.of(box(north, 0.001), box(south, 0.001))),
+                new ForecastLayer(start, List.of(box(s, 0.0005))),
+                new ForecastLayer(start.plusSeconds(1800), List.of(box(north, 0.001)))));
+
+        float[] floodsAt = forecast.floodsAt();
+        int northNode = graph.nearestNode(north.y, north.x);
+        int southNode = graph.nearestNode(south.y, south.x);
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            boolean nearS = graph.edgeSource(e) == graph.nearestNode(s.y, s.x) || graph.edgeTarget(e) == graph.nearestNode(s.y, s.x);
+            boolean viaNorth = graph.edgeSource(e) == northNode || graph.edgeTarget(e) == northNode;
+            boolean viaSouth = graph.edgeSource(e) == southNode || graph.edgeTarget(e) == southNode;
+            float expected = nearS ? 0 : viaNorth ? 1800 : viaSouth ? 3600 : Float.POSITIVE_INFINITY;
+            assertThat(floodsAt[e]).isEqualTo(expected);
+        }
+        assertThat(forecast.stats().layers()).isEqualTo(3);
+        assertThat(forecast.stats().first()).isEqualTo(start);
+        assertThat(forecast.stats().floodingEdges()).isEqualTo(graph.edgeCount());
+        assertThat(forecast.offset(start.plusSeconds(90))).isEqualTo(90);
+    }
+
+    @Test
+    void shouldAvoidRoadsFloodedBeforeArrivalCorrectly() {
+        FloodForecast forecast = FloodForecast.compile(graph, List.of(
+                new ForecastLayer(start, List.of()),
+                new ForecastLayer(start.plusSeconds(1800), List.of(box(north, 0.001)))));
+
+        assertThat(firstNode(forecast, start)).isEqualTo(graph.nearestNode(north.y, north.x));
+        assertThat(firstNode(forecast, start.plusSeconds(3600))).isEqualTo(graph.nearestNode(south.y, south.x));
+    }
+}
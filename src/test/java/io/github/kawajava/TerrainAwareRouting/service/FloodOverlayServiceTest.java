@@ -2,15 +2,27 @@ package io.github.kawajava.TerrainAwareRouting.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodEvent;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodPolygon;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodSource;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.TestGrids;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.locationtech.jts.geom.*;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class FloodOverlayServiceTest {
 
@@ -23,7 +35,6 @@ public class FloodOverlayServiceTest {
         objectMapper = new ObjectMapper();
         geometryFactory = new GeometryFactory();
         service = new FloodOverlayService();
-        service.floodBackendUrl = "http://mock-url";
     }
 
     @Test
@@ -63,70 +74,86 @@ public class FloodOverlayServiceTest {
     }
 
     @Test
-    public void shouldFilterSafeSegmentsCorrectly() {
-        Polygon floodPolygon = geometryFactory.createPolygon(new Coordinate[]{
-                new Coordinate(0,0),
-                new Coordinate(2,0),
-                new Coordinate(2,2),
-                new Coordinate(0,2),
-                new Coordinate(0,0)
-        });
-        service.floodZones = List.of(floodPolygon);
-
-        LineString safeRoad = geometryFactory.createLineString(new Coordinate[]{
-                new Coordinate(3,3),
-                new Coordinate(4,4)
-        });
-        RoadSegment safeSegment = new RoadSegment("1", safeRoad, 10, false);
-
-        LineString floodedRoad = geometryFactory.createLineString(new Coordinate[]{
-                new Coordinate(1,1),
-                new Coordinate(3,3)
+    public void shouldFetchSourcesConcurrentlyAndSkipSlowOrFailedOnesCorrectly() throws Exception {
+        String square = """
+                {"features":[{"geometry":{"type":"Polygon","coordinates":[[[%1$d,0],[%2$d,0],[%2$d,2],[%1$d,2],[%1$d,0]]]}}]}
+                """;
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/gauges", exchange -> respond(exchange, 200, square.formatted(0, 2)));
+        server.createContext("/reports", exchange -> respond(exchange, 200, square.formatted(1, 3)));
+        server.createContext("/broken", exchange -> respond(exchange, 500, ""));
+        server.createContext("/satellite", exchange -> {
+            try {
+                Thread.sleep(3000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, square.formatted(10, 12));
         });
-        RoadSegment floodedSegment = new RoadSegment("2", floodedRoad, 20, true);
-
-        List<RoadSegment> segments = Arrays.asList(safeSegment, floodedSegment);
-
-        List<RoadSegment> result = service.filterSafe(segments);
-
-        assertThat(result).containsExactly(safeSegment);
+        server.start();
+        String base = "http://localhost:" + server.getAddress().getPort();
+        try {
+            long started = System.nanoTime();
+            List<FloodPolygon> merged = service.fetchFloodSnapshot(List.of(
+                    new FloodSource("gauges", base + "/gauges", Duration.ofSeconds(2)),
+                    new FloodSource("satellite", base + "/satellite", Duration.ofMillis(300)),
+                    new FloodSource("broken", base + "/broken", Duration.ofSeconds(2)),
+                    new FloodSource("reports", base + "/reports", Duration.ofSeconds(2))));
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+            assertThat(merged).extracting(FloodPolygon::id).containsExactly("gauges-0", "reports-0");
+            assertThat(geometryFactory.buildGeometry(merged.stream().map(FloodPolygon::polygon).toList()).union()
+                    .getArea()).isCloseTo(6.0, within(1e-9));
+            assertThat(elapsedMillis).isLessThan(2000);
+            assertThrows(IllegalArgumentException.class, () -> service.fetchFloodSnapshot(List.of(
+                    new FloodSource("broken", base + "/broken", Duration.ofSeconds(2)))));
+        } finally {
+            server.stop(0);
+        }
     }
 
     @Test
-    public void shouldReturnTrueForSafeGeometry() {
-        Polygon floodPolygon = geometryFactory.createPolygon(new Coordinate[]{
-                new Coordinate(0,0),
-                new Coordinate(1,0),
-                new Coordinate(1,1),
-                new Coordinate(0,1),
-                new Coordinate(0,0)
-        });
-        service.floodZones = List.of(floodPolygon);
-
-        LineString road = geometryFactory.createLineString(new Coordinate[]{
-                new Coordinate(2,2),
-                new Coordinate(3,3)
-        });
-
-        assertThat(service.isSafe(road)).isTrue();
+    public void shouldUnblockEdgesOfRemovedFeatureAfterPreprocessingCorrectly() throws Exception {
+        StringBuilder river = new StringBuilder();
+        for (int i = 0; i <= 64; i++) {
+            double angle = 2 * Math.PI * (i % 64) / 64;
+            river.append(i == 0 ? "" : ",").append("[%.6f,%.6f]".formatted(
+                    21.005 + 0.003 * Math.cos(angle), 52.005 + 0.003 * Math.sin(angle)));
+        }
+        String features = """
+                {"features":[
+                  {"id":"river","geometry":{"type":"Polygon","coordinates":[[%s]]}},
+                  {"properties":{"id":"lake"},"geometry":{"type":"Polygon","coordinates":[[[21.0085,52.0085],[21.0095,52.0085],[21.0095,52.0095],[21.0085,52.0095],[21.0085,52.0085]]]}}
+                ]}
+                """.formatted(river);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/gauges", exchange -> respond(exchange, 200, features));
+        server.start();
+        service.tileMaxVertices = 16;
+        RoadGraph graph = TestGrids.graph(11);
+        try {
+            List<FloodPolygon> snapshot = service.fetchFloodSnapshot(List.of(new FloodSource("gauges",
+                    "http://localhost:" + server.getAddress().getPort() + "/gauges", Duration.ofSeconds(2))));
+            FloodState state = FloodState.of(graph, snapshot);
+            BitSet lake = FloodState.of(graph, snapshot.stream().filter(p -> p.id().equals("lake")).toList()).blocked();
+
+            assertThat(snapshot.stream().filter(p -> p.id().equals("river")).count()).isGreaterThan(1);
+            assertThat(state.blocked().cardinality()).isGreaterThan(lake.cardinality());
+
+            state.apply(List.of(new FloodEvent(FloodEvent.Kind.REMOVE, new FloodPolygon("river", null), null)));
+
+            assertThat(state.blocked()).isEqualTo(lake);
+            assertThat(state.polygons()).extracting(FloodPolygon::id).containsOnly("lake");
+        } finally {
+            server.stop(0);
+        }
     }
 
-    @Test
-    public void shouldReturnFalseForIntersectingGeometry() {
-        Polygon floodPolygon = geometryFactory.createPolygon(new Coordinate[]{
-                new Coordinate(0,0),
-                new Coordinate(2,0),
-                new Coordinate(2,2),
-                new Coordinate(0,2),
-                new Coordinate(0,0)
-        });
-        service.floodZones = List.of(floodPolygon);
-
-        LineString road = geometryFactory.createLineString(new Coordinate[]{
-                new Coordinate(1,1),
-                new Coordinate(3,3)
-        });
-
-        assertThat(service.isSafe(road)).isFalse();
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
     }
 }
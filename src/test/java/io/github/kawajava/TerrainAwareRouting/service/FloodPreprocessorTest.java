@@ -0,0 +1,66 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.operation.union.CascadedPolygonUnion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FloodPreprocessorTest {
+
+    private final GeometryFactory gf = new GeometryFactory();
+
+    private Polygon square(double x, double y, double size) {
+        return gf.createPolygon(new Coordinate[]{
+                new Coordinate(x, y), new Coordinate(x + size, y), new Coordinate(x + size, y + size),
+                new Coordinate(x, y + size), new Coordinate(x, y)});
+    }
+
+    private Polygon noisyBlob(double lon, double lat, double radius, int vertices, Random random) {
+        Coordinate[] ring = new Coordinate[vertices + 1];
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            double r = radius * (1 + 0.25 * Math.sin(3 * angle) + 0.001 * random.nextGaussian());
+            ring[i] = new Coordinate(lon + r * Math.cos(angle), lat + r * Math.sin(angle));
+        }
+        ring[vertices] = ring[0];
+        return gf.createPolygon(ring);
+    }
+
+    @Test
+    void shouldUnionOverlappingPolygonsCorrectly() {
+        FloodPreprocessor.Result result = new FloodPreprocessor(0, 0)
+                .preprocess(List.of(square(0, 0, 2), square(1, 1, 2), square(5, 5, 1)));
+
+        assertThat(result.polygons()).hasSize(2);
+        assertThat(result.polygons().stream().mapToDouble(Geometry::getArea).sum()).isCloseTo(8.0, within(1e-9));
+        assertThat(new FloodPreprocessor(0, 0).preprocess(List.of()).polygons()).isEmpty();
+    }
+
+    @Test
+    void shouldReduceVerticesWithoutUncoveringFloodedAreaCorrectly() {
+        Random random = new Random(3);
+        List<Polygon> raw = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            raw.add(noisyBlob(21.0 + i * 0.01, 52.0 + i * 0.004, 0.012, 4000, random));
+        }
+
+        FloodPreprocessor.Result result = new FloodPreprocessor(5, 200).preprocess(raw);
+        Geometry covered = CascadedPolygonUnion.union(new ArrayList<Geometry>(result.polygons()));
+
+        assertThat(result.outputVertices()).isLessThan(result.inputVertices() / 4);
+        assertThat(result.maxPieceVertices()).isLessThanOrEqualTo(200);
+        assertThat(result.polygons().size()).isGreaterThan(1);
+        for (Polygon polygon : raw) {
+            assertThat(polygon.difference(covered).getArea()).isLessThan(1e-12);
+        }
+    }
+}
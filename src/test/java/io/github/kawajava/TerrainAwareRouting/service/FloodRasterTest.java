@@ -0,0 +1,108 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.FloodPolygon;
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FloodRasterTest {
+
+    private final GeometryFactory gf = new GeometryFactory();
+
+    private Coordinate[] ring(double lon, double lat, double radius, int vertices, Random random) {
+        Coordinate[] ring = new Coordinate[vertices + 1];
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            double r = radius * (1 + 0.3 * Math.sin(3 * angle) + 0.05 * random.nextDouble());
+            ring[i] = new Coordinate(lon + r * Math.cos(angle), lat + r * Math.sin(angle));
+        }
+        ring[vertices] = ring[0];
+        return ring;
+    }
+
+    private List<Polygon> flood(Random random) {
+        List<Polygon> polygons = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            double lon = 21.0 + random.nextDouble() * 0.04;
+            double lat = 52.0 + random.nextDouble() * 0.04;
+            LinearRing shell = gf.createLinearRing(ring(lon, lat, 0.006, 300, random));
+            LinearRing hole = gf.createLinearRing(ring(lon, lat, 0.0015, 40, random));
+            polygons.add(gf.createPolygon(shell, new LinearRing[]{hole}));
+        }
+        return polygons;
+    }
+
+    private LineString randomRoad(Random random) {
+        Coordinate[] points = new Coordinate[2 + random.nextInt(3)];
+        double lon = 20.995 + random.nextDouble() * 0.05;
+        double lat = 51.995 + random.nextDouble() * 0.05;
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Coordinate(lon, lat);
+            lon += (random.nextDouble() - 0.5) * 0.004;
+            lat += (random.nextDouble() - 0.5) * 0.004;
+        }
+        return gf.createLineString(points);
+    }
+
+    @Test
+    void shouldOnlyLeaveBoundarySegmentsUndecidedCorrectly() {
+        Random random = new Random(21);
+        List<Polygon> polygons = flood(random);
+        FloodRaster raster = FloodRaster.of(polygons, 20);
+        Map<FloodRaster.Cover, Integer> counts = new EnumMap<>(FloodRaster.Cover.class);
+
+        for (int i = 0; i < 5000; i++) {
+            LineString road = randomRoad(random);
+            boolean flooded = polygons.stream().anyMatch(road::intersects);
+            FloodRaster.Cover cover = raster.cover(road);
+            counts.merge(cover, 1, Integer::sum);
+            if (cover == FloodRaster.Cover.FLOODED) {
+                assertThat(flooded).isTrue();
+            } else if (cover == FloodRaster.Cover.CLEAR) {
+                assertThat(flooded).isFalse();
+            }
+        }
+
+        assertThat(counts.get(FloodRaster.Cover.FLOODED)).isPositive();
+        assertThat(counts.get(FloodRaster.Cover.CLEAR)).isPositive();
+        assertThat(counts.getOrDefault(FloodRaster.Cover.BOUNDARY, 0)).isLessThan(2500);
+        assertThat(raster.insideCells()).isGreaterThan(raster.boundaryCells());
+        assertThrows(IllegalArgumentException.class, () -> FloodRaster.of(polygons, 0));
+    }
+
+    @Test
+    void shouldBuildSameMaskAsExactTestsCorrectly() {
+        Random random = new Random(4);
+        List<RoadSegment> segments = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            segments.add(new RoadSegment("s" + i, randomRoad(random), 0, false, Map.of()));
+        }
+        RoadGraph graph = new RoadGraphBuilder().build(segments);
+        List<FloodPolygon> snapshot = new ArrayList<>();
+        for (Polygon polygon : flood(random)) {
+            snapshot.add(new FloodPolygon("p" + snapshot.size(), polygon));
+        }
+
+        FloodState exact = FloodState.of(graph, snapshot);
+        FloodState rasterized = FloodState.of(graph, snapshot, 20);
+
+        assertThat(rasterized.blocked()).isEqualTo(exact.blocked());
+        assertThat(rasterized.blocked().cardinality()).isPositive();
+        assertThat(rasterized.polygons()).hasSize(snapshot.size());
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.FloodEvent;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodPolygon;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.TestGrids;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FloodStateTest {
+
+    private final GeometryFactory gf = new GeometryFactory();
+
+    private Polygon square(double lon, double lat, double size) {
+        return gf.createPolygon(new Coordinate[]{
+                new Coordinate(lon, lat), new Coordinate(lon + size, lat), new Coordinate(lon + size, lat + size),
+                new Coordinate(lon, lat + size), new Coordinate(lon, lat)});
+    }
+
+    @Test
+    void shouldMatchFullRecomputationAfterIncrementalEventsCorrectly() {
+        RoadGraph graph = TestGrids.graph(30);
+        FloodState state = FloodState.empty(graph);
+        Map<String, FloodPolygon> current = new LinkedHashMap<>();
+        Random random = new Random(9);
+
+        for (int i = 0; i < 60; i++) {
+            String id = "p" + random.nextInt(8);
+            FloodEvent event;
+            if (current.containsKey(id) && random.nextInt(3) == 0) {
+                event = new FloodEvent(FloodEvent.Kind.REMOVE, new FloodPolygon(id, null), null);
+                current.remove(id);
+            } else {
+                FloodPolygon polygon = new FloodPolygon(id, square(21.0 + random.nextDouble() * 0.025,
+                        52.0 + random.nextDouble() * 0.025, 0.001 + random.nextDouble() * 0.004));
+                event = new FloodEvent(current.containsKey(id) ? FloodEvent.Kind.MODIFY : FloodEvent.Kind.ADD, polygon, null);
+                current.put(id, polygon);
+            }
+
+            FloodState.Stats stats = state.apply(List.of(event));
+
+            assertThat(state.blocked()).isEqualTo(FloodState.of(graph, List.copyOf(current.values())).blocked());
+            assertThat(stats.polygons()).isEqualTo(current.size());
+            assertThat(stats.recomputedEdges()).isLessThan((long) graph.edgeCount() * (i + 1));
+        }
+    }
+
+    @Test
+    void shouldRecomputeOnlyEdgesNearChangedPolygonCorrectly() {
+        RoadGraph graph = TestGrids.graph(30);
+        FloodState state = FloodState.of(graph, List.of(new FloodPolygon("a", square(21.0005, 52.0005, 0.002))));
+        var blockedBefore = (java.util.BitSet) state.blocked().clone();
+
+        FloodState.Stats stats = state.apply(List.of(new FloodEvent(FloodEvent.Kind.ADD,
+                new FloodPolygon("b", square(21.0205, 52.0205, 0.001)), System.currentTimeMillis())));
+
+        assertThat(stats.recomputedEdges()).isLessThan(graph.edgeCount() / 20);
+        assertThat(stats.blockedEdges()).isGreaterThan(blockedBefore.cardinality());
+        assertThat(stats.lastLagMillis()).isNotNull();
+        assertThat(state.blocked()).isNotSameAs(blockedBefore);
+        blockedBefore.andNot(state.blocked());
+        assertThat(blockedBefore.isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldForwardEventsToSuccessorAfterCarryOverCorrectly() {
+        RoadGraph graph = TestGrids.graph(10);
+        FloodState old = FloodState.of(graph, List.of(new FloodPolygon("a", square(21.0005, 52.0005, 0.002))));
+        RoadGraph rebuilt = TestGrids.graph(10);
+
+        FloodState successor = old.carryOver(rebuilt);
+        old.apply(List.of(new FloodEvent(FloodEvent.Kind.REMOVE, new FloodPolygon("a", null), null)));
+
+        assertThat(successor.polygons()).isEmpty();
+        assertThat(successor.blocked().isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,230 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.FloodEvent;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodPolygon;
+import io.github.kawajava.TerrainAwareRouting.domain.FloodSource;
+import io.github.kawajava.TerrainAwareRouting.domain.ForecastLayer;
+import io.github.kawajava.TerrainAwareRouting.domain.RegionDefinition;
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import io.github.kawajava.TerrainAwareRouting.infrastructure.CatchmentZoneLoader;
+import io.github.kawajava.TerrainAwareRouting.infrastructure.FloodEventReader;
+import io.github.kawajava.TerrainAwareRouting.infrastructure.GeoJsonRoadLoader;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RegionServiceTest {
+
+    private final GeometryFactory gf = new GeometryFactory();
+    private final List<String> builds = new CopyOnWriteArrayList<>();
+    // when set, building the south graph waits for it to count down
+    private volatile CountDownLatch southGate;
+    private final CountDownLatch southBuilding = new CountDownLatch(1);
+
+    private final RoadNetworkService network = new RoadNetworkService(new GeoJsonRoadLoader()) {
+        @Override
+        public RoadGraph loadGraph(RegionDefinition region) {
+            builds.add(region.id());
+            if (region.id().equals("south") && southGate != null) {
+                southBuilding.countDown();
+                try {
+                    southGate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            double lon = region.id().equals("north") ? 21.0 : 19.0;
+            return new RoadGraphBuilder().build(List.of(new RoadSegment(region.id(),
+                    gf.createLineString(new Coordinate[]{new Coordinate(lon, 52.0), new Coordinate(lon + 0.01, 52.0)}),
+                    0, false, Map.of())));
+        }
+
+        @Override
+        public RoadGraph reloadGraph(RegionDefinition region) {
+            return loadGraph(region);
+        }
+    };
+
+    private final FloodMaskService floodMask = new FloodMaskService(new FloodOverlayService(),
+            new WaterLevelService(new CatchmentZoneLoader()));
+
+    private RegionService service(MockEnvironment environment, long budgetMb) {
+        RegionService service = new RegionService(network, floodMask, environment);
+        service.geoJsonPath = "classpath:roads.geojson";
+        service.tilesDir = "tiles";
+        service.budgetMb = budgetMb;
+        service.reloadDelayMs = 50;
+        service.reloadParallelism = 1;
+        service.floodBackendUrl = "http://global/flood";
+        service.sourceTimeoutMs = 10000;
+        return service;
+    }
+
+    private MockEnvironment twoRegions() {
+        return new MockEnvironment()
+                .withProperty("app.regions.north.geojson-path", "north.geojson")
+                .withProperty("app.regions.north.bbox", "51.9,20.9,52.1,21.1")
+                .withProperty("app.regions.south.geojson-path", "south.geojson")
+                .withProperty("app.regions.south.bbox", "51.9,18.9,52.1,19.1")
+                .withProperty("app.regions.south.flood-backend-url", "http://south/flood")
+                .withProperty("app.regions.south.flood-sources.gauges.url", "http://south/gauges")
+                .withProperty("app.regions.south.flood-sources.gauges.timeout-ms", "1500");
+    }
+
+    @Test
+    void shouldResolveRegionByIdAndBoundingBoxCorrectly() {
+        RegionService service = service(twoRegions(), 1024);
+
+        assertThat(service.locate(52.0, 21.05).id()).isEqualTo("north");
+        assertThat(service.locate(52.0, 19.05).id()).isEqualTo("south");
+        assertThat(service.region("south").definition().floodSources()).extracting(FloodSource::url)
+                .containsExactly("http://south/flood", "http://south/gauges");
+        assertThat(service.region("south").definition().floodSources().get(1).timeout()).isEqualTo(Duration.ofMillis(1500));
+        assertThat(service.region("north").definition().floodSources()).extracting(FloodSource::name)
+                .containsExactly("backend");
+        assertThat(service.region("north").definition().tilesDir()).endsWith("north");
+        assertThat(service.resolve("north", 52.0, 19.05).id()).isEqualTo("north");
+        assertThat(builds).containsExactly("north", "south");
+        assertThrows(NoSuchElementException.class, () -> service.locate(50.0, 21.0));
+        assertThrows(NoSuchElementException.class, () -> service.region("east"));
+    }
+
+    @Test
+    void shouldResolveOneRegionForAllPointsCorrectly() {
+        RegionService service = service(twoRegions(), 1024);
+
+        assertThat(service.resolve(null, List.of(new Coordinate(21.0, 52.0), new Coordinate(21.05, 52.05))).id())
+                .isEqualTo("north");
+        assertThat(service.resolve("south", List.of(new Coordinate(21.0, 52.0), new Coordinate(19.0, 52.0))).id())
+                .isEqualTo("south");
+        assertThrows(IllegalArgumentException.class,
+                () -> service.resolve(null, List.of(new Coordinate(21.0, 52.0), new Coordinate(19.0, 52.0))));
+        assertThrows(NoSuchElementException.class,
+                () -> service.resolve(null, List.of(new Coordinate(21.0, 52.0), new Coordinate(21.0, 50.0))));
+        assertThat(builds).containsExactly("north", "south");
+    }
+
+    @Test
+    void shouldLoadRegionWhileAnotherIsStillBuildingCorrectly() throws Exception {
+        RegionService service = service(twoRegions(), 1024);
+        southGate = new CountDownLatch(1);
+
+        CompletableFuture<Region> south = CompletableFuture.supplyAsync(() -> service.region("south"));
+        CompletableFuture<Region> southAgain = CompletableFuture.supplyAsync(() -> {
+            awaitSouthBuilding();
+            return service.region("south");
+        });
+        awaitSouthBuilding();
+
+        // north loads, and a reload can be scheduled, while the south graph is still being built
+        assertThat(CompletableFuture.supplyAsync(() -> service.region("north")).get(5, TimeUnit.SECONDS).id())
+                .isEqualTo("north");
+        assertThat(service.reload("north").get(5, TimeUnit.SECONDS).id()).isEqualTo("north");
+        assertThat(south).isNotDone();
+
+        southGate.countDown();
+        assertThat(south.get(5, TimeUnit.SECONDS)).isSameAs(southAgain.get(5, TimeUnit.SECONDS));
+        assertThat(builds.stream().filter("south"::equals).count()).isEqualTo(1);
+    }
+
+    private void awaitSouthBuilding() {
+        try {
+            assertThat(southBuilding.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedRegionOverBudgetCorrectly() {
+        RegionService service = service(twoRegions(), 0);
+
+        Region north = service.region("north");
+        service.region("south");
+
+        assertThat(service.loadedRegion("north")).isEmpty();
+        assertThat(service.loadedRegion("south")).isPresent();
+        assertThat(north.graph().nodeCount()).isEqualTo(2);
+        service.region("north");
+        assertThat(builds).containsExactly("north", "south", "north");
+    }
+
+    @Test
+    void shouldKeepFloodEventsAndForecastOfEvictedRegionCorrectly() {
+        RegionService service = service(twoRegions(), 0);
+        FloodEventIngestor ingestor = new FloodEventIngestor(service, floodMask, new FloodEventReader());
+        Region north = service.region("north");
+        north.flood = FloodState.empty(north.graph());
+        Polygon west = square(20.999, 51.999, 0.004);
+        Polygon east = square(21.006, 51.999, 0.005);
+        assertThat(ingestor.ingest("north", List.of(new FloodEvent(FloodEvent.Kind.ADD,
+                new FloodPolygon("west", west), null)))).isPresent();
+        floodMask.applyForecast(north, List.of(new ForecastLayer(Instant.parse("2030-01-01T00:00:00Z"), List.of(east))));
+
+        service.region("south");
+        assertThat(service.loadedRegion("north")).isEmpty();
+
+        // events for an evicted region are queued without building its graph, and a late batch on the old one too
+        assertThat(ingestor.ingest("north", List.of(new FloodEvent(FloodEvent.Kind.ADD,
+                new FloodPolygon("east", east), null)))).isEmpty();
+        assertThat(floodMask.apply(north, List.of(new FloodEvent(FloodEvent.Kind.REMOVE,
+                new FloodPolygon("west", null), null)))).isEmpty();
+        assertThat(builds).containsExactly("north", "south");
+
+        Region reloaded = service.region("north");
+        assertThat(floodMask.floodState(reloaded).polygons()).extracting(FloodPolygon::id).containsExactly("east");
+        assertThat(floodMask.blockedEdges(reloaded).cardinality()).isPositive();
+        assertThat(floodMask.forecast(reloaded)).isPresent();
+        assertThrows(NoSuchElementException.class, () -> ingestor.ingest("east", List.of()));
+    }
+
+    private Polygon square(double lon, double lat, double size) {
+        return gf.createPolygon(new Coordinate[]{
+                new Coordinate(lon, lat), new Coordinate(lon + size, lat), new Coordinate(lon + size, lat + size),
+                new Coordinate(lon, lat + size), new Coordinate(lon, lat)});
+    }
+
+    @Test
+    void shouldSwapReloadedRegionWhileOldGraphStaysUsableCorrectly() {
+        RegionService service = service(twoRegions(), 1024);
+        Region before = service.region("north");
+
+        CompletableFuture<Region> first = service.reload("north");
+        CompletableFuture<Region> coalesced = service.reload("north");
+        Region after = first.join();
+
+        assertThat(coalesced).isSameAs(first);
+        assertThat(after).isNotSameAs(before);
+        assertThat(after.generation()).isGreaterThan(before.generation());
+        assertThat(service.region("north")).isSameAs(after);
+        assertThat(before.graph().nearestNode(52.0, 21.0)).isNotNegative();
+        assertThat(builds).containsExactly("north", "north");
+        assertThrows(NoSuchElementException.class, () -> service.reload("east"));
+    }
+
+    @Test
+    void shouldFallBackToSingleDefaultRegionCorrectly() {
+        RegionService service = service(new MockEnvironment(), 1024);
+
+        assertThat(service.definitions()).extracting(RegionDefinition::id).containsExactly(RegionService.DEFAULT_REGION);
+        assertThat(service.locate(10.0, 10.0).id()).isEqualTo(RegionService.DEFAULT_REGION);
+        assertThat(service.region(null).definition().geojsonPath()).isEqualTo("classpath:roads.geojson");
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RegionDefinition;
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import io.github.kawajava.TerrainAwareRouting.infrastructure.CatchmentZoneLoader;
+import io.github.kawajava.TerrainAwareRouting.infrastructure.GeoJsonRoadLoader;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupWarmUpTest {
+
+    private final GeometryFactory gf = new GeometryFactory();
+    private boolean southFloodDown;
+    private boolean southRoadsBroken;
+
+    private final RoadNetworkService network = new RoadNetworkService(new GeoJsonRoadLoader()) {
+        @Override
+        public RoadGraph loadGraph(RegionDefinition region) {
+            if (region.id().equals("south") && southRoadsBroken) {
+                throw new IllegalArgumentException("Cannot read south.geojson");
+            }
+            double lon = region.id().equals("north") ? 21.0 : 19.0;
+            return new RoadGraphBuilder().build(List.of(new RoadSegment(region.id(),
+                    gf.createLineString(new Coordinate[]{new Coordinate(lon, 52.0), new Coordinate(lon + 0.01, 52.0)}),
+                    0, false, Map.of())));
+        }
+    };
+
+    private final FloodMaskService floodMask = new FloodMaskService(new FloodOverlayService(),
+            new WaterLevelService(new CatchmentZoneLoader())) {
+        @Override
+        public BitSet blockedEdges(Region region) {
+            if (region.id().equals("south") && southFloodDown) {
+                throw new IllegalArgumentException("Cannot fetch flood zones from any of 1 sources");
+            }
+            return new BitSet();
+        }
+    };
+
+    private final FloodReadiness floodReadiness = new FloodReadiness();
+
+    private RegionService regions(long budgetMb) {
+        RegionService service = new RegionService(network, floodMask, new MockEnvironment()
+                .withProperty("app.regions.north.geojson-path", "north.geojson")
+                .withProperty("app.regions.north.bbox", "51.9,20.9,52.1,21.1")
+                .withProperty("app.regions.south.geojson-path", "south.geojson")
+                .withProperty("app.regions.south.bbox", "51.9,18.9,52.1,19.1"));
+        service.geoJsonPath = "classpath:roads.geojson";
+        service.tilesDir = "tiles";
+        service.budgetMb = budgetMb;
+        return service;
+    }
+
+    private StartupWarmUp warmUp(RegionService regions, int queries, long maxMs) {
+        RouteService routing = new RouteService();
+        ReflectionTestUtils.setField(routing, "defaultProfile", "car");
+        StartupWarmUp warmUp = new StartupWarmUp(regions, floodMask, routing, floodReadiness, null);
+        warmUp.eager = true;
+        warmUp.warmUpQueries = queries;
+        warmUp.warmUpMaxMs = maxMs;
+        warmUp.floodFailure = "refuse";
+        return warmUp;
+    }
+
+    @Test
+    void shouldLoadEveryRegionAndRunWarmUpQueriesCorrectly() {
+        RegionService regions = regions(1024);
+
+        StartupWarmUp.Result result = warmUp(regions, 5, 60_000).warmUp();
+
+        assertThat(result.loaded()).isEqualTo(2);
+        assertThat(result.queries()).isEqualTo(10);
+        assertThat(result.skipped()).isEmpty();
+        assertThat(regions.loadedRegion("north")).isPresent();
+        assertThat(regions.loadedRegion("south")).isPresent();
+        assertThat(floodReadiness.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void shouldStopWarmUpQueriesAtTimeCapCorrectly() {
+        StartupWarmUp.Result result = warmUp(regions(1024), 1000, 0).warmUp();
+
+        assertThat(result.loaded()).isEqualTo(2);
+        assertThat(result.queries()).isZero();
+    }
+
+    @Test
+    void shouldSkipRegionThatFailsToLoadCorrectly() {
+        southRoadsBroken = true;
+        RegionService regions = regions(1024);
+
+        StartupWarmUp.Result result = warmUp(regions, 5, 60_000).warmUp();
+
+        assertThat(result.loaded()).isEqualTo(1);
+        assertThat(result.queries()).isEqualTo(5);
+        assertThat(regions.loadedRegion("south")).isEmpty();
+    }
+
+    @Test
+    void shouldStopEagerLoadingWithinBudgetCorrectly() {
+        RegionService regions = regions(0);
+
+        StartupWarmUp.Result result = warmUp(regions, 0, 60_000).warmUp();
+
+        // loading the second region would have evicted the one just warmed up
+        assertThat(result.loaded()).isEqualTo(1);
+        assertThat(result.skipped()).hasSize(1);
+        String warmed = result.skipped().getFirst().equals("north") ? "south" : "north";
+        assertThat(regions.loadedRegion(warmed)).isPresent();
+        assertThat(regions.loadedRegion(result.skipped().getFirst())).isEmpty();
+    }
+
+    @Test
+    void shouldHoldReadinessDownUntilFloodMaskLoadsCorrectly() {
+        southFloodDown = true;
+        RegionService regions = regions(1024);
+        StartupWarmUp warmUp = warmUp(regions, 0, 60_000);
+
+        warmUp.warmUp();
+
+        assertThat(floodReadiness.health().getStatus()).isEqualTo(Status.DOWN);
+        assertThat(floodReadiness.pending()).containsExactly("south");
+        assertThat(warmUp.retryFloodsOnce()).isFalse();
+
+        southFloodDown = false;
+        assertThat(warmUp.retryFloodsOnce()).isTrue();
+        assertThat(floodReadiness.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void shouldOnlyWarnAboutFloodFailureWhenConfiguredCorrectly() {
+        southFloodDown = true;
+        StartupWarmUp warmUp = warmUp(regions(1024), 0, 60_000);
+        warmUp.floodFailure = "warn";
+
+        assertThat(warmUp.warmUp().loaded()).isEqualTo(2);
+        assertThat(floodReadiness.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void shouldRunWarmUpQueriesUntilCountOrDeadlineCorrectly() {
+        RouteService routing = new RouteService();
+        ReflectionTestUtils.setField(routing, "defaultProfile", "car");
+        RoadGraph graph = network.loadGraph(regions(1024).definitions().iterator().next());
+
+        assertThat(routing.warmUp(graph, new BitSet(), 7, System.nanoTime() + 60_000_000_000L)).isEqualTo(7);
+        assertThat(routing.warmUp(graph, new BitSet(), 7, System.nanoTime() - 1)).isZero();
+    }
+}
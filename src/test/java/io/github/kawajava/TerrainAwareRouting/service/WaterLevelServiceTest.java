@@ -0,0 +1,163 @@
+package io.github.kawajava.TerrainAwareRouting.service;
+
+import io.github.kawajava.TerrainAwareRouting.domain.CatchmentZone;
+import io.github.kawajava.TerrainAwareRouting.domain.RegionDefinition;
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import io.github.kawajava.TerrainAwareRouting.infrastructure.CatchmentZoneLoader;
+import io.github.kawajava.TerrainAwareRouting.terrain.ElevationRaster;
+import io.github.kawajava.TerrainAwareRouting.terrain.TerrainProfiler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WaterLevelServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final GeometryFactory gf = new GeometryFactory();
+    private WaterLevelService service;
+    private RoadGraph graph;
+    private Region region;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // two cells: 5 m in the west, 15 m in the east
+        Files.writeString(dir.resolve("dem.hdr"), """
+                ncols 2
+                nrows 1
+                xllcorner 21.0
+                yllcorner 52.0
+                cellsize 0.01
+                """);
+        ByteBuffer data = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putFloat(5).putFloat(15);
+        Files.write(dir.resolve("dem.flt"), data.array());
+
+        try (ElevationRaster raster = ElevationRaster.open(dir.resolve("dem.flt"))) {
+            graph = new RoadGraphBuilder(new TerrainProfiler(raster, 10)).build(List.of(
+                    segment("west", new Coordinate(21.001, 52.005), new Coordinate(21.004, 52.005)),
+                    segment("east", new Coordinate(21.016, 52.005), new Coordinate(21.019, 52.005))
+            ));
+        }
+
+        region = region("default", graph);
+        service = new WaterLevelService(new CatchmentZoneLoader());
+        service.setZones("default", List.of(new CatchmentZone("east", gf.createPolygon(new Coordinate[]{
+                new Coordinate(21.01, 52.0), new Coordinate(21.02, 52.0), new Coordinate(21.02, 52.01),
+                new Coordinate(21.01, 52.01), new Coordinate(21.01, 52.0)
+        }))));
+    }
+
+    private Region region(String id, RoadGraph graph) {
+        return new Region(new RegionDefinition(id, id + ".geojson", List.of(), null, null, null, null, "tiles", null),
+                graph, 1);
+    }
+
+    private RoadSegment segment(String id, Coordinate a, Coordinate b) {
+        return new RoadSegment(id, gf.createLineString(new Coordinate[]{a, b}), 0, false);
+    }
+
+    private int edgeOf(String segmentId) {
+        int segment = segmentId.equals("west") ? 0 : 1;
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (graph.edgeSegment(e) == segment) {
+                return e;
+            }
+        }
+        throw new IllegalStateException(segmentId);
+    }
+
+    @Test
+    void shouldBlockNothingBeforeAnyLevelIsSet() {
+        assertThat(service.blockedEdges(region).isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldBlockEdgesBelowGlobalLevelCorrectly() {
+        service.setLevel(region, null, 10);
+
+        BitSet blocked = service.blockedEdges(region);
+
+        assertThat(blocked.get(edgeOf("west"))).isTrue();
+        assertThat(blocked.get(edgeOf("east"))).isFalse();
+    }
+
+    @Test
+    void shouldOverrideGlobalLevelPerZoneCorrectly() {
+        service.setLevel(region, null, 10);
+        service.setLevel(region, "east", 20);
+
+        BitSet blocked = service.blockedEdges(region);
+
+        assertThat(blocked.get(edgeOf("west"))).isTrue();
+        assertThat(blocked.get(edgeOf("east"))).isTrue();
+    }
+
+    @Test
+    void shouldRecomputeMaskOnlyAfterLevelChange() {
+        service.setLevel(region, null, 10);
+        BitSet first = service.blockedEdges(region);
+
+        assertThat(service.blockedEdges(region)).isSameAs(first);
+
+        service.clear(region);
+        assertThat(service.blockedEdges(region).isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldAssignEdgeToZoneOfItsMidpointCorrectly() {
+        // a two-point edge from the west cell into the east zone, with its midpoint still in the west
+        RoadGraph crossing = new RoadGraphBuilder().build(List.of(
+                segment("crossing", new Coordinate(21.001, 52.005), new Coordinate(21.012, 52.005))));
+
+        int[] zones = service.edgeZones(region("default", crossing));
+
+        for (int e = 0; e < crossing.edgeCount(); e++) {
+            assertThat(zones[e]).isEqualTo(1);
+        }
+
+        // halfway along an L: 0.000616 degrees east at this latitude, then 0.002 north
+        double[] middle = new double[2];
+        WaterLevelService.midpoint(new double[]{52.0, 52.0, 52.002}, new double[]{21.0, 21.001, 21.001}, 3, middle);
+        assertThat(middle[0]).isCloseTo(52.000692, within(1e-6));
+        assertThat(middle[1]).isCloseTo(21.001, within(1e-9));
+    }
+
+    @Test
+    void shouldKeepLevelsOfEachRegionApartCorrectly() throws Exception {
+        RoadGraph otherGraph;
+        try (ElevationRaster raster = ElevationRaster.open(dir.resolve("dem.flt"))) {
+            otherGraph = new RoadGraphBuilder(new TerrainProfiler(raster, 10)).build(List.of(
+                    segment("west", new Coordinate(21.001, 52.005), new Coordinate(21.004, 52.005))));
+        }
+        Region other = region("other", otherGraph);
+
+        service.setLevel(region, null, 20);
+
+        assertThat(service.blockedEdges(region).cardinality()).isEqualTo(graph.edgeCount());
+        assertThat(service.blockedEdges(other).isEmpty()).isTrue();
+        assertThat(service.levels(other).global()).isNull();
+        // the catchment zones are the default region's too
+        assertThrows(IllegalArgumentException.class, () -> service.setLevel(other, "east", 3));
+    }
+
+    @Test
+    void shouldRejectUnknownZone() {
+        assertThrows(IllegalArgumentException.class, () -> service.setLevel(region, "north", 3));
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.kawajava.TerrainAwareRouting.terrain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ElevationRasterTest {
+
+    @TempDir
+    Path dir;
+
+    static Path writeGrid(Path dir, int cols, int rows, double cellSize, float[] values) throws Exception {
+        Files.writeString(dir.resolve("dem.hdr"), """
+                ncols %d
+                nrows %d
+                xllcorner 21.0
+                yllcorner 52.0
+                cellsize %s
+                NODATA_value -9999
+                byteorder LSBFIRST
+                """.formatted(cols, rows, cellSize));
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (float v : values) {
+            buffer.putFloat(v);
+        }
+        Path data = dir.resolve("dem.flt");
+        Files.write(data, buffer.array());
+        return data;
+    }
+
+    @Test
+    void shouldReadCellCentresCorrectly() throws Exception {
+        // rows are stored north to south
+        Path data = writeGrid(dir, 2, 2, 0.01, new float[]{10, 20, 30, 40});
+
+        try (ElevationRaster raster = ElevationRaster.open(data)) {
+            assertThat(raster.elevation(52.015, 21.005)).isCloseTo(10, within(1e-6));
+            assertThat(raster.elevation(52.005, 21.015)).isCloseTo(40, within(1e-6));
+        }
+    }
+
+    @Test
+    void shouldInterpolateBilinearlyCorrectly() throws Exception {
+        Path data = writeGrid(dir, 2, 2, 0.01, new float[]{10, 20, 30, 40});
+
+        try (ElevationRaster raster = ElevationRaster.open(data)) {
+            assertThat(raster.elevation(52.01, 21.01)).isCloseTo(25, within(1e-6));
+        }
+    }
+
+    @Test
+    void shouldReturnNaNOutsideRasterAndForNoData() throws Exception {
+        Path data = writeGrid(dir, 1, 1, 0.01, new float[]{-9999});
+
+        try (ElevationRaster raster = ElevationRaster.open(data)) {
+            assertThat(raster.elevation(51.0, 21.005)).isNaN();
+            assertThat(raster.elevation(52.005, 21.005)).isNaN();
+        }
+    }
+
+    @Test
+    void shouldMapTilesLazilyAndReportBytesTouched() throws Exception {
+        float[] values = new float[4 * 4096];
+        Path data = writeGrid(dir, 4096, 4, 0.001, values);
+
+        try (ElevationRaster raster = ElevationRaster.open(data, 4 * 4096)) {
+            assertThat(raster.bytesTouched()).isZero();
+            raster.elevation(52.0035, 21.0005);
+            // bilinear sampling reads one page from each of the two neighbouring rows
+            assertThat(raster.bytesTouched()).isEqualTo(2 * 4096);
+            assertThat(raster.sizeBytes()).isEqualTo(4L * 4 * 4096);
+        }
+    }
+
+    @Test
+    void shouldRejectTruncatedRaster() throws Exception {
+        Path data = writeGrid(dir, 2, 2, 0.01, new float[]{1});
+
+        assertThrows(IllegalArgumentException.class, () -> ElevationRaster.open(data));
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.kawajava.TerrainAwareRouting.terrain;
+
+import io.github.kawajava.TerrainAwareRouting.domain.RoadSegment;
+import io.github.kawajava.TerrainAwareRouting.graph.CostProfile;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraph;
+import io.github.kawajava.TerrainAwareRouting.graph.RoadGraphBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TerrainProfilerTest {
+
+    @TempDir
+    Path dir;
+
+    private final GeometryFactory gf = new GeometryFactory();
+
+    // west-east ramp: 0 m at the western cell centre, 300 m at the eastern one
+    private ElevationRaster ramp() throws Exception {
+        return ElevationRaster.open(ElevationRasterTest.writeGrid(dir, 4, 1, 0.01,
+                new float[]{0, 100, 200, 300}));
+    }
+
+    @Test
+    void shouldAccumulateAscentAndDescentPerDirection() throws Exception {
+        try (ElevationRaster raster = ramp()) {
+            var profiler = new TerrainProfiler(raster, 50);
+
+            var east = profiler.sampleEdge(new Coordinate[]{new Coordinate(21.005, 52.005), new Coordinate(21.035, 52.005)});
+            var west = profiler.sampleEdge(new Coordinate[]{new Coordinate(21.035, 52.005), new Coordinate(21.005, 52.005)});
+
+            assertThat(east.ascent()).isCloseTo(300f, within(0.01f));
+            assertThat(east.descent()).isZero();
+            assertThat(west.descent()).isCloseTo(300f, within(0.01f));
+            assertThat(west.minElevation()).isCloseTo(0f, within(0.01f));
+        }
+    }
+
+    @Test
+    void shouldMakeUphillEdgesMoreExpensiveCorrectly() throws Exception {
+        var low = new Coordinate(21.005, 52.005);
+        var high = new Coordinate(21.035, 52.005);
+
+        try (ElevationRaster raster = ramp()) {
+            RoadGraph graph = new RoadGraphBuilder(new TerrainProfiler(raster, 20)).build(List.of(
+                    new RoadSegment("up", gf.createLineString(new Coordinate[]{low, high}), 0, false),
+                    new RoadSegment("down", gf.createLineString(new Coordinate[]{high, low}), 0, false)
+            ));
+
+            int up = graph.firstEdge(graph.nearestNode(low.y, low.x));
+            int down = graph.firstEdge(graph.nearestNode(high.y, high.x));
+            float climb = graph.weight(CostProfile.WALKING, up) - graph.weight(CostProfile.WALKING, down);
+
+            assertThat(climb).isCloseTo(300 * (6.0f - 1.0f), within(1f));
+            assertThat(graph.terrain()).isPresent();
+            assertThat(graph.terrain().get().minElevation()[up]).isCloseTo(0f, within(0.01f));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.kawajava.TerrainAwareRouting.terrain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WaterLevelMaskTest {
+
+    @Test
+    void shouldBlockEdgesAtOrBelowGlobalLevelCorrectly() {
+        float[] minElevation = new float[130];
+        for (int i = 0; i < minElevation.length; i++) {
+            minElevation[i] = i;
+        }
+        minElevation[3] = Float.NaN;
+
+        BitSet blocked = WaterLevelMask.blockedEdges(minElevation, 70.0f);
+
+        assertThat(blocked.cardinality()).isEqualTo(70);
+        assertThat(blocked.get(3)).isFalse();
+        assertThat(blocked.get(70)).isTrue();
+        assertThat(blocked.get(71)).isFalse();
+    }
+
+    @Test
+    void shouldBlockNothingWhenLevelIsUnset() {
+        BitSet blocked = WaterLevelMask.blockedEdges(new float[]{-5, 0, 5}, Float.NaN);
+
+        assertThat(blocked.isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldApplyPerZoneLevelsCorrectly() {
+        float[] minElevation = {10, 10, 10, 10};
+        int[] edgeZone = {0, 1, 2, 2};
+        float[] zoneLevels = {12, 8, Float.NaN};
+
+        BitSet blocked = WaterLevelMask.blockedEdges(minElevation, edgeZone, zoneLevels);
+
+        assertThat(blocked.stream().toArray()).containsExactly(0);
+    }
+}